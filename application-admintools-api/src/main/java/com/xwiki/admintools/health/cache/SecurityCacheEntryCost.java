@@ -0,0 +1,96 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.health.cache;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Holds the cost of recomputing the security rules of an entity, as measured when the entity was sampled.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class SecurityCacheEntryCost
+{
+    private final String reference;
+
+    private final String entityType;
+
+    private final long readTimeMicros;
+
+    private final int rulesCount;
+
+    /**
+     * Create the cost of a sampled entity.
+     *
+     * @param reference the serialized reference of the entity
+     * @param entityType the type of the entity
+     * @param readTimeMicros the time it took to read the security rules of the entity, in microseconds
+     * @param rulesCount the number of security rules of the entity
+     */
+    public SecurityCacheEntryCost(String reference, String entityType, long readTimeMicros, int rulesCount)
+    {
+        this.reference = reference;
+        this.entityType = entityType;
+        this.readTimeMicros = readTimeMicros;
+        this.rulesCount = rulesCount;
+    }
+
+    /**
+     * Get the serialized reference of the entity.
+     *
+     * @return the reference of the entity
+     */
+    public String getReference()
+    {
+        return reference;
+    }
+
+    /**
+     * Get the type of the entity.
+     *
+     * @return the entity type, in lower case
+     */
+    public String getEntityType()
+    {
+        return entityType;
+    }
+
+    /**
+     * Get the time it took to read the security rules of the entity.
+     *
+     * @return the read time, in microseconds
+     */
+    public long getReadTimeMicros()
+    {
+        return readTimeMicros;
+    }
+
+    /**
+     * Get the number of security rules of the entity.
+     *
+     * @return the number of rules
+     */
+    public int getRulesCount()
+    {
+        return rulesCount;
+    }
+}
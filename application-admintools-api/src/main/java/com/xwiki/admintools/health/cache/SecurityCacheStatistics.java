@@ -0,0 +1,270 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.health.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Holds aggregate statistics about the security cache, used to tune its capacity. The counters come from the JMX
+ * statistics of the cache, and are {@code -1} when the statistics are not available. The coverage and the costs come
+ * from a sample of entities that are looked up in the cache and whose security rules are read again.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class SecurityCacheStatistics
+{
+    private long numberOfEntries = -1;
+
+    private long hits = -1;
+
+    private long misses = -1;
+
+    private long evictions = -1;
+
+    private double hitsPerSecond;
+
+    private double missesPerSecond;
+
+    private double evictionsPerSecond;
+
+    private long sampleTime;
+
+    private Map<String, Double> coverageByType = new LinkedHashMap<>();
+
+    private List<SecurityCacheEntryCost> expensiveEntries = new ArrayList<>();
+
+    /**
+     * Get the number of entries of the security cache, counting both the rules and the access entries.
+     *
+     * @return the number of entries, or {@code -1} if it is not available
+     */
+    public long getNumberOfEntries()
+    {
+        return numberOfEntries;
+    }
+
+    /**
+     * See {@link #getNumberOfEntries()}.
+     *
+     * @param numberOfEntries the number of entries
+     */
+    public void setNumberOfEntries(long numberOfEntries)
+    {
+        this.numberOfEntries = numberOfEntries;
+    }
+
+    /**
+     * Get the number of lookups that found an entry in the security cache since the statistics were reset.
+     *
+     * @return the number of hits, or {@code -1} if it is not available
+     */
+    public long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * See {@link #getHits()}.
+     *
+     * @param hits the number of hits
+     */
+    public void setHits(long hits)
+    {
+        this.hits = hits;
+    }
+
+    /**
+     * Get the number of lookups that didn't find an entry in the security cache since the statistics were reset.
+     *
+     * @return the number of misses, or {@code -1} if it is not available
+     */
+    public long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * See {@link #getMisses()}.
+     *
+     * @param misses the number of misses
+     */
+    public void setMisses(long misses)
+    {
+        this.misses = misses;
+    }
+
+    /**
+     * Get the number of entries evicted from the security cache since the statistics were reset.
+     *
+     * @return the number of evictions, or {@code -1} if it is not available
+     */
+    public long getEvictions()
+    {
+        return evictions;
+    }
+
+    /**
+     * See {@link #getEvictions()}.
+     *
+     * @param evictions the number of evictions
+     */
+    public void setEvictions(long evictions)
+    {
+        this.evictions = evictions;
+    }
+
+    /**
+     * Get the ratio of lookups that found an entry in the security cache.
+     *
+     * @return the hit ratio, between 0 and 1, or {@code -1} if it is not available
+     */
+    public double getHitRatio()
+    {
+        long lookups = hits + misses;
+        return hits < 0 || misses < 0 || lookups == 0 ? -1 : (double) hits / lookups;
+    }
+
+    /**
+     * Get the number of hits per second, between the two last readings of the statistics.
+     *
+     * @return the hit rate
+     */
+    public double getHitsPerSecond()
+    {
+        return hitsPerSecond;
+    }
+
+    /**
+     * See {@link #getHitsPerSecond()}.
+     *
+     * @param hitsPerSecond the hit rate
+     */
+    public void setHitsPerSecond(double hitsPerSecond)
+    {
+        this.hitsPerSecond = hitsPerSecond;
+    }
+
+    /**
+     * Get the number of misses per second, between the two last readings of the statistics.
+     *
+     * @return the miss rate
+     */
+    public double getMissesPerSecond()
+    {
+        return missesPerSecond;
+    }
+
+    /**
+     * See {@link #getMissesPerSecond()}.
+     *
+     * @param missesPerSecond the miss rate
+     */
+    public void setMissesPerSecond(double missesPerSecond)
+    {
+        this.missesPerSecond = missesPerSecond;
+    }
+
+    /**
+     * Get the number of evictions per second, between the two last readings of the statistics.
+     *
+     * @return the eviction rate
+     */
+    public double getEvictionsPerSecond()
+    {
+        return evictionsPerSecond;
+    }
+
+    /**
+     * See {@link #getEvictionsPerSecond()}.
+     *
+     * @param evictionsPerSecond the eviction rate
+     */
+    public void setEvictionsPerSecond(double evictionsPerSecond)
+    {
+        this.evictionsPerSecond = evictionsPerSecond;
+    }
+
+    /**
+     * Get the time when the entities were sampled.
+     *
+     * @return the sample time, in milliseconds since the epoch, or {@code 0} if no entity was sampled
+     */
+    public long getSampleTime()
+    {
+        return sampleTime;
+    }
+
+    /**
+     * See {@link #getSampleTime()}.
+     *
+     * @param sampleTime the sample time
+     */
+    public void setSampleTime(long sampleTime)
+    {
+        this.sampleTime = sampleTime;
+    }
+
+    /**
+     * Get the ratio of the sampled entities whose security rules were found in the cache, for each entity type.
+     *
+     * @return the coverage ratios, between 0 and 1, mapped by the entity type in lower case
+     */
+    public Map<String, Double> getCoverageByType()
+    {
+        return coverageByType;
+    }
+
+    /**
+     * See {@link #getCoverageByType()}.
+     *
+     * @param coverageByType the coverage ratios
+     */
+    public void setCoverageByType(Map<String, Double> coverageByType)
+    {
+        this.coverageByType = coverageByType;
+    }
+
+    /**
+     * Get the sampled entities whose security rules took the longest to read, sorted from the most expensive.
+     *
+     * @return the most expensive entities to recompute
+     */
+    public List<SecurityCacheEntryCost> getExpensiveEntries()
+    {
+        return expensiveEntries;
+    }
+
+    /**
+     * See {@link #getExpensiveEntries()}.
+     *
+     * @param expensiveEntries the most expensive entities to recompute
+     */
+    public void setExpensiveEntries(List<SecurityCacheEntryCost> expensiveEntries)
+    {
+        this.expensiveEntries = expensiveEntries;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.jobs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xwiki.job.AbstractRequest;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Represents a request to start a job that computes the size and the number of versions of the attachment archives of
+ * some wikis.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class AttachmentArchiveJobRequest extends AbstractRequest
+{
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final int DEFAULT_MAX_ROWS_PER_SECOND = 50;
+
+    private static final int DEFAULT_LARGEST_DOCUMENTS_LIMIT = 50;
+
+    private List<String> wikis = new ArrayList<>();
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private int maxRowsPerSecond = DEFAULT_MAX_ROWS_PER_SECOND;
+
+    private int largestDocumentsLimit = DEFAULT_LARGEST_DOCUMENTS_LIMIT;
+
+    /**
+     * Default constructor.
+     */
+    public AttachmentArchiveJobRequest()
+    {
+        setDefaultId();
+    }
+
+    /**
+     * Creates a request to compute the attachment archives usage of the given wikis.
+     *
+     * @param wikis the ids of the analysed wikis.
+     * @param jobId the ID of the request.
+     */
+    public AttachmentArchiveJobRequest(List<String> wikis, List<String> jobId)
+    {
+        this.wikis = new ArrayList<>(wikis);
+        setId(jobId);
+    }
+
+    /**
+     * Get the ids of the analysed wikis.
+     *
+     * @return the wiki ids.
+     */
+    public List<String> getWikis()
+    {
+        return this.wikis;
+    }
+
+    /**
+     * Get the number of documents loaded in a single batch.
+     *
+     * @return the batch size.
+     */
+    public int getBatchSize()
+    {
+        return this.batchSize;
+    }
+
+    /**
+     * Set the number of documents loaded in a single batch.
+     *
+     * @param batchSize the batch size.
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get the maximum number of documents analysed per second.
+     *
+     * @return the rate limit, or a value lower than 1 if the job is not rate limited.
+     */
+    public int getMaxRowsPerSecond()
+    {
+        return this.maxRowsPerSecond;
+    }
+
+    /**
+     * Set the maximum number of documents analysed per second.
+     *
+     * @param maxRowsPerSecond the rate limit, or a value lower than 1 to disable it.
+     */
+    public void setMaxRowsPerSecond(int maxRowsPerSecond)
+    {
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    /**
+     * Get the number of documents with the largest attachments history kept for each wiki.
+     *
+     * @return the number of kept documents.
+     */
+    public int getLargestDocumentsLimit()
+    {
+        return this.largestDocumentsLimit;
+    }
+
+    /**
+     * Set the number of documents with the largest attachments history kept for each wiki.
+     *
+     * @param largestDocumentsLimit the number of kept documents.
+     */
+    public void setLargestDocumentsLimit(int largestDocumentsLimit)
+    {
+        this.largestDocumentsLimit = largestDocumentsLimit;
+    }
+
+    private void setDefaultId()
+    {
+        setId(List.of("adminTools", "attachmentArchive"));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.jobs;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.xwiki.job.DefaultJobStatus;
+import org.xwiki.logging.LoggerManager;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.stability.Unstable;
+
+import com.xwiki.admintools.usage.AttachmentArchiveUsage;
+
+/**
+ * The status of an attachment archive job.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class AttachmentArchiveJobStatus extends DefaultJobStatus<AttachmentArchiveJobRequest>
+{
+    private final List<JobResult> jobResults = new LinkedList<>();
+
+    private final Map<String, AttachmentArchiveUsage> wikisUsage = new LinkedHashMap<>();
+
+    private final Map<String, List<AttachmentArchiveUsage>> largestDocuments = new LinkedHashMap<>();
+
+    /**
+     * Create a new attachment archive job status.
+     *
+     * @param jobType the job type.
+     * @param request the request provided when the job was started.
+     * @param observationManager the observation manager.
+     * @param loggerManager the logger manager.
+     */
+    public AttachmentArchiveJobStatus(String jobType, AttachmentArchiveJobRequest request,
+        ObservationManager observationManager, LoggerManager loggerManager)
+    {
+        super(jobType, request, null, observationManager, loggerManager);
+        setCancelable(true);
+    }
+
+    /**
+     * Get the results of the job.
+     *
+     * @return list with {@link JobResult} containing the results.
+     */
+    public List<JobResult> getJobResults()
+    {
+        return jobResults;
+    }
+
+    /**
+     * Add a new log to the job results.
+     *
+     * @param statusLog the new log result.
+     */
+    public void addLog(JobResult statusLog)
+    {
+        jobResults.add(statusLog);
+    }
+
+    /**
+     * Check if any job result has a specific level of severity.
+     *
+     * @param level represents the searched level of severity.
+     * @return {@code true} if there is any match for the given level, or {@code false} otherwise.
+     */
+    public boolean hasLevel(JobResultLevel level)
+    {
+        return this.jobResults.stream().anyMatch(checkResult -> Objects.equals(level, checkResult.getLevel()));
+    }
+
+    /**
+     * Get the attachment archives usage of each analysed wiki.
+     *
+     * @return a {@link Map} with the wiki ids as keys and the archives usage as values.
+     */
+    public Map<String, AttachmentArchiveUsage> getWikisUsage()
+    {
+        return wikisUsage;
+    }
+
+    /**
+     * Get the documents of a wiki with the largest attachments history.
+     *
+     * @param wikiId the id of the wiki.
+     * @return the documents archives usage, sorted by the history size in descending order.
+     */
+    public List<AttachmentArchiveUsage> getLargestDocuments(String wikiId)
+    {
+        return largestDocuments.getOrDefault(wikiId, new ArrayList<>());
+    }
+
+    /**
+     * Set the results computed for a wiki.
+     *
+     * @param wikiUsage the attachment archives usage of the wiki.
+     * @param documents the documents with the largest attachments history, sorted by the history size in descending
+     *     order.
+     */
+    public void setWikiResults(AttachmentArchiveUsage wikiUsage, List<AttachmentArchiveUsage> documents)
+    {
+        this.wikisUsage.put(wikiUsage.getWikiId(), wikiUsage);
+        this.largestDocuments.put(wikiUsage.getWikiId(), documents);
+    }
+}
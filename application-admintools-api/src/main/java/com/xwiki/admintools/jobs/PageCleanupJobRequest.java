@@ -0,0 +1,234 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.jobs;
+
+import java.util.List;
+
+import org.xwiki.job.AbstractRequest;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Represents a request to start a job that deletes or moves the pages of a wiki matched by an Admin Tools report.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class PageCleanupJobRequest extends AbstractRequest
+{
+    /**
+     * The report matching the pages that have no content.
+     */
+    public static final String EMPTY_PAGES_REPORT = "empty";
+
+    /**
+     * The report matching the pages that have more comments than the spam limit.
+     */
+    public static final String SPAMMED_PAGES_REPORT = "spam";
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final int DEFAULT_MAX_ROWS_PER_SECOND = 50;
+
+    private String report;
+
+    private String wikiId;
+
+    private long minComments;
+
+    private String targetSpace;
+
+    private boolean dryRun;
+
+    private String checkpoint;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private int maxRowsPerSecond = DEFAULT_MAX_ROWS_PER_SECOND;
+
+    /**
+     * Default constructor.
+     */
+    public PageCleanupJobRequest()
+    {
+        setDefaultId();
+    }
+
+    /**
+     * Creates a request to clean up the pages of a wiki matched by a report.
+     *
+     * @param report the report matching the pages to clean up, either {@link #EMPTY_PAGES_REPORT} or
+     *     {@link #SPAMMED_PAGES_REPORT}.
+     * @param wikiId the id of the wiki whose pages are cleaned up.
+     * @param jobId the ID of the request.
+     */
+    public PageCleanupJobRequest(String report, String wikiId, List<String> jobId)
+    {
+        this.report = report;
+        this.wikiId = wikiId;
+        setId(jobId);
+    }
+
+    /**
+     * Get the report matching the pages to clean up.
+     *
+     * @return the report name.
+     */
+    public String getReport()
+    {
+        return this.report;
+    }
+
+    /**
+     * Get the id of the wiki whose pages are cleaned up.
+     *
+     * @return the wiki id.
+     */
+    public String getWikiId()
+    {
+        return this.wikiId;
+    }
+
+    /**
+     * Get the minimum number of comments of a page matched by the {@link #SPAMMED_PAGES_REPORT} report.
+     *
+     * @return the minimum number of comments.
+     */
+    public long getMinComments()
+    {
+        return this.minComments;
+    }
+
+    /**
+     * Set the minimum number of comments of a page matched by the {@link #SPAMMED_PAGES_REPORT} report.
+     *
+     * @param minComments the minimum number of comments.
+     */
+    public void setMinComments(long minComments)
+    {
+        this.minComments = minComments;
+    }
+
+    /**
+     * Get the space under which the matched pages are moved.
+     *
+     * @return the serialized space reference, or {@code null} if the matched pages are deleted.
+     */
+    public String getTargetSpace()
+    {
+        return this.targetSpace;
+    }
+
+    /**
+     * Set the space under which the matched pages are moved, instead of being deleted.
+     *
+     * @param targetSpace the serialized space reference, or {@code null} to delete the matched pages.
+     */
+    public void setTargetSpace(String targetSpace)
+    {
+        this.targetSpace = targetSpace;
+    }
+
+    /**
+     * Check if the job only lists the matched pages, without changing them.
+     *
+     * @return {@code true} for a dry run, {@code false} otherwise.
+     */
+    public boolean isDryRun()
+    {
+        return this.dryRun;
+    }
+
+    /**
+     * Set if the job only lists the matched pages, without changing them.
+     *
+     * @param dryRun {@code true} for a dry run, {@code false} otherwise.
+     */
+    public void setDryRun(boolean dryRun)
+    {
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Get the checkpoint from where a previous run of the job should be resumed.
+     *
+     * @return the checkpoint saved by the previous run, or {@code null} to start from the beginning.
+     */
+    public String getCheckpoint()
+    {
+        return this.checkpoint;
+    }
+
+    /**
+     * Set the checkpoint from where a previous run of the job should be resumed.
+     *
+     * @param checkpoint the Solr cursor mark saved by the previous run, see
+     *     {@link PageCleanupJobStatus#getCheckpoint()}.
+     */
+    public void setCheckpoint(String checkpoint)
+    {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Get the number of pages processed in a batch.
+     *
+     * @return the batch size.
+     */
+    public int getBatchSize()
+    {
+        return this.batchSize;
+    }
+
+    /**
+     * Set the number of pages processed in a batch.
+     *
+     * @param batchSize the batch size.
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get the maximum number of pages processed per second.
+     *
+     * @return the rate limit, or a value lower than 1 if the job is not rate limited.
+     */
+    public int getMaxRowsPerSecond()
+    {
+        return this.maxRowsPerSecond;
+    }
+
+    /**
+     * Set the maximum number of pages processed per second.
+     *
+     * @param maxRowsPerSecond the rate limit, or a value lower than 1 to disable it.
+     */
+    public void setMaxRowsPerSecond(int maxRowsPerSecond)
+    {
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    private void setDefaultId()
+    {
+        setId(List.of("adminTools", "pageCleanup"));
+    }
+}
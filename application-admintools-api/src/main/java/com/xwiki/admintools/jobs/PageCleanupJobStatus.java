@@ -0,0 +1,193 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.jobs;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+
+import org.xwiki.job.DefaultJobStatus;
+import org.xwiki.logging.LoggerManager;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.stability.Unstable;
+
+/**
+ * The status of a page cleanup job.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class PageCleanupJobStatus extends DefaultJobStatus<PageCleanupJobRequest>
+{
+    private static final int MAX_SAMPLES = 100;
+
+    private final List<JobResult> jobResults = new LinkedList<>();
+
+    private final List<String> samples = new ArrayList<>();
+
+    private volatile long matchedPages;
+
+    private volatile long processedPages;
+
+    private volatile long failedPages;
+
+    private volatile String checkpoint;
+
+    /**
+     * Create a new page cleanup job status.
+     *
+     * @param jobType the job type.
+     * @param request the request provided when the job was started.
+     * @param observationManager the observation manager.
+     * @param loggerManager the logger manager.
+     */
+    public PageCleanupJobStatus(String jobType, PageCleanupJobRequest request, ObservationManager observationManager,
+        LoggerManager loggerManager)
+    {
+        super(jobType, request, null, observationManager, loggerManager);
+        setCancelable(true);
+    }
+
+    /**
+     * Get the results of the job.
+     *
+     * @return list with {@link JobResult} containing the results.
+     */
+    public List<JobResult> getJobResults()
+    {
+        return jobResults;
+    }
+
+    /**
+     * Add a new log to the job results.
+     *
+     * @param statusLog the new log result.
+     */
+    public void addLog(JobResult statusLog)
+    {
+        jobResults.add(statusLog);
+    }
+
+    /**
+     * Check if any job result has a specific level of severity.
+     *
+     * @param level represents the searched level of severity.
+     * @return {@code true} if there is any match for the given level, or {@code false} otherwise.
+     */
+    public boolean hasLevel(JobResultLevel level)
+    {
+        return this.jobResults.stream().anyMatch(checkResult -> Objects.equals(level, checkResult.getLevel()));
+    }
+
+    /**
+     * Get the number of pages matched by the report when the job started. When the job resumes from a checkpoint,
+     * only the pages after the checkpoint are counted.
+     *
+     * @return the number of matched pages.
+     */
+    public long getMatchedPages()
+    {
+        return matchedPages;
+    }
+
+    /**
+     * Set the total number of pages matched by the report.
+     *
+     * @param matchedPages the number of matched pages.
+     */
+    public void setMatchedPages(long matchedPages)
+    {
+        this.matchedPages = matchedPages;
+    }
+
+    /**
+     * Get the number of pages processed so far. In a dry run, the pages are only counted.
+     *
+     * @return the number of processed pages.
+     */
+    public long getProcessedPages()
+    {
+        return processedPages;
+    }
+
+    /**
+     * Get the number of pages that could not be deleted or moved.
+     *
+     * @return the number of failed pages.
+     */
+    public long getFailedPages()
+    {
+        return failedPages;
+    }
+
+    /**
+     * Record a processed page.
+     *
+     * @param reference the serialized reference of the page.
+     * @param success {@code true} if the page was processed successfully, {@code false} otherwise.
+     */
+    public void addProcessedPage(String reference, boolean success)
+    {
+        if (success) {
+            this.processedPages++;
+            synchronized (samples) {
+                if (samples.size() < MAX_SAMPLES) {
+                    samples.add(reference);
+                }
+            }
+        } else {
+            this.failedPages++;
+        }
+    }
+
+    /**
+     * Get the first processed pages, for a quick review of a dry run. Only the first 100 pages are kept.
+     *
+     * @return the serialized references of the first processed pages.
+     */
+    public List<String> getSamples()
+    {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    /**
+     * Get the checkpoint from where the job can be resumed. It is updated after each fully processed batch.
+     *
+     * @return the id of the last page of the last fully processed batch.
+     */
+    public String getCheckpoint()
+    {
+        return checkpoint;
+    }
+
+    /**
+     * Set the checkpoint from where the job can be resumed.
+     *
+     * @param checkpoint the id of the last page of the last fully processed batch.
+     */
+    public void setCheckpoint(String checkpoint)
+    {
+        this.checkpoint = checkpoint;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.jobs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xwiki.job.AbstractRequest;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Represents a request to start a job that purges the old entries of the recycle bins of some wikis.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class RecycleBinPurgeJobRequest extends AbstractRequest
+{
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final int DEFAULT_MAX_ROWS_PER_SECOND = 500;
+
+    private List<String> wikis = new ArrayList<>();
+
+    private int olderThanDays;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private int maxRowsPerSecond = DEFAULT_MAX_ROWS_PER_SECOND;
+
+    /**
+     * Default constructor.
+     */
+    public RecycleBinPurgeJobRequest()
+    {
+        setDefaultId();
+    }
+
+    /**
+     * Creates a request to purge the recycle bins entries older than a given number of days.
+     *
+     * @param wikis the ids of the wikis whose recycle bins are purged.
+     * @param olderThanDays only the entries deleted more than this number of days ago are purged.
+     * @param jobId the ID of the request.
+     */
+    public RecycleBinPurgeJobRequest(List<String> wikis, int olderThanDays, List<String> jobId)
+    {
+        this.wikis = new ArrayList<>(wikis);
+        this.olderThanDays = olderThanDays;
+        setId(jobId);
+    }
+
+    /**
+     * Get the ids of the wikis whose recycle bins are purged.
+     *
+     * @return the wiki ids.
+     */
+    public List<String> getWikis()
+    {
+        return this.wikis;
+    }
+
+    /**
+     * Get the minimum age, in days, of the purged entries.
+     *
+     * @return the number of days.
+     */
+    public int getOlderThanDays()
+    {
+        return this.olderThanDays;
+    }
+
+    /**
+     * Get the number of entries deleted in a single transaction.
+     *
+     * @return the batch size.
+     */
+    public int getBatchSize()
+    {
+        return this.batchSize;
+    }
+
+    /**
+     * Set the number of entries deleted in a single transaction.
+     *
+     * @param batchSize the batch size.
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get the maximum number of entries deleted per second.
+     *
+     * @return the rate limit, or a value lower than 1 if the job is not rate limited.
+     */
+    public int getMaxRowsPerSecond()
+    {
+        return this.maxRowsPerSecond;
+    }
+
+    /**
+     * Set the maximum number of entries deleted per second.
+     *
+     * @param maxRowsPerSecond the rate limit, or a value lower than 1 to disable it.
+     */
+    public void setMaxRowsPerSecond(int maxRowsPerSecond)
+    {
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    private void setDefaultId()
+    {
+        setId(List.of("adminTools", "recycleBinPurge"));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.jobs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xwiki.job.AbstractRequest;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Represents a request to start a job that computes the number and the size of the document revisions of some wikis.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class RevisionStatisticsJobRequest extends AbstractRequest
+{
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final int DEFAULT_MAX_ROWS_PER_SECOND = 2000;
+
+    private static final int DEFAULT_LARGEST_DOCUMENTS_LIMIT = 100;
+
+    private static final int DEFAULT_PARALLELISM = 2;
+
+    private List<String> wikis = new ArrayList<>();
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private int maxRowsPerSecond = DEFAULT_MAX_ROWS_PER_SECOND;
+
+    private int largestDocumentsLimit = DEFAULT_LARGEST_DOCUMENTS_LIMIT;
+
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /**
+     * Default constructor.
+     */
+    public RevisionStatisticsJobRequest()
+    {
+        setDefaultId();
+    }
+
+    /**
+     * Creates a request to compute the revisions usage of the given wikis.
+     *
+     * @param wikis the ids of the analysed wikis.
+     * @param jobId the ID of the request.
+     */
+    public RevisionStatisticsJobRequest(List<String> wikis, List<String> jobId)
+    {
+        this.wikis = new ArrayList<>(wikis);
+        setId(jobId);
+        // The job status holds the computed snapshot, so it's kept after the job ends.
+        setStatusSerialized(true);
+    }
+
+    /**
+     * Get the ids of the analysed wikis.
+     *
+     * @return the wiki ids.
+     */
+    public List<String> getWikis()
+    {
+        return this.wikis;
+    }
+
+    /**
+     * Get the number of documents whose revisions are aggregated in a single batch.
+     *
+     * @return the batch size.
+     */
+    public int getBatchSize()
+    {
+        return this.batchSize;
+    }
+
+    /**
+     * Set the number of documents whose revisions are aggregated in a single batch.
+     *
+     * @param batchSize the batch size.
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get the maximum number of documents whose revisions are aggregated per second.
+     *
+     * @return the rate limit, or a value lower than 1 if the job is not rate limited.
+     */
+    public int getMaxRowsPerSecond()
+    {
+        return this.maxRowsPerSecond;
+    }
+
+    /**
+     * Set the maximum number of documents whose revisions are aggregated per second.
+     *
+     * @param maxRowsPerSecond the rate limit, or a value lower than 1 to disable it.
+     */
+    public void setMaxRowsPerSecond(int maxRowsPerSecond)
+    {
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    /**
+     * Get the number of documents with the largest revisions size kept for each wiki.
+     *
+     * @return the number of kept documents.
+     */
+    public int getLargestDocumentsLimit()
+    {
+        return this.largestDocumentsLimit;
+    }
+
+    /**
+     * Set the number of documents with the largest revisions size kept for each wiki.
+     *
+     * @param largestDocumentsLimit the number of kept documents.
+     */
+    public void setLargestDocumentsLimit(int largestDocumentsLimit)
+    {
+        this.largestDocumentsLimit = largestDocumentsLimit;
+    }
+
+    /**
+     * Get the number of wikis whose revisions are analysed in parallel.
+     *
+     * @return the parallelism level.
+     */
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * Set the number of wikis whose revisions are analysed in parallel.
+     *
+     * @param parallelism the parallelism level.
+     */
+    public void setParallelism(int parallelism)
+    {
+        this.parallelism = parallelism;
+    }
+
+    private void setDefaultId()
+    {
+        setId(List.of("adminTools", "revisionStatistics"));
+    }
+}
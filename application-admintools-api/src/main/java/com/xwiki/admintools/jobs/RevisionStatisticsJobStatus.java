@@ -0,0 +1,139 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.jobs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.xwiki.job.DefaultJobStatus;
+import org.xwiki.logging.LoggerManager;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.stability.Unstable;
+
+import com.xwiki.admintools.usage.DocumentRevisionUsage;
+import com.xwiki.admintools.usage.WikiRevisionUsage;
+
+/**
+ * The status of a revision statistics job. Once the job is finished, the status holds a snapshot of the revisions
+ * usage of the analysed wikis.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class RevisionStatisticsJobStatus extends DefaultJobStatus<RevisionStatisticsJobRequest>
+{
+    private final List<JobResult> jobResults = new LinkedList<>();
+
+    private final Map<String, WikiRevisionUsage> wikisUsage = new LinkedHashMap<>();
+
+    private final List<DocumentRevisionUsage> largestDocuments = new ArrayList<>();
+
+    /**
+     * Create a new revision statistics job status.
+     *
+     * @param jobType the job type.
+     * @param request the request provided when the job was started.
+     * @param observationManager the observation manager.
+     * @param loggerManager the logger manager.
+     */
+    public RevisionStatisticsJobStatus(String jobType, RevisionStatisticsJobRequest request,
+        ObservationManager observationManager, LoggerManager loggerManager)
+    {
+        super(jobType, request, null, observationManager, loggerManager);
+        setCancelable(true);
+    }
+
+    /**
+     * Get the results of the job.
+     *
+     * @return list with {@link JobResult} containing the results.
+     */
+    public List<JobResult> getJobResults()
+    {
+        return jobResults;
+    }
+
+    /**
+     * Add a new log to the job results.
+     *
+     * @param statusLog the new log result.
+     */
+    public void addLog(JobResult statusLog)
+    {
+        jobResults.add(statusLog);
+    }
+
+    /**
+     * Check if any job result has a specific level of severity.
+     *
+     * @param level represents the searched level of severity.
+     * @return {@code true} if there is any match for the given level, or {@code false} otherwise.
+     */
+    public boolean hasLevel(JobResultLevel level)
+    {
+        return this.jobResults.stream().anyMatch(checkResult -> Objects.equals(level, checkResult.getLevel()));
+    }
+
+    /**
+     * Get the revisions usage of each analysed wiki.
+     *
+     * @return a {@link Map} with the wiki ids as keys and the revisions usage as values.
+     */
+    public Map<String, WikiRevisionUsage> getWikisUsage()
+    {
+        return wikisUsage;
+    }
+
+    /**
+     * Get the documents with the largest revisions size, from all the analysed wikis.
+     *
+     * @return the documents, sorted by the revisions size in descending order.
+     */
+    public List<DocumentRevisionUsage> getLargestDocuments()
+    {
+        return largestDocuments;
+    }
+
+    /**
+     * Set the revisions usage computed for the analysed wikis, and keep the documents with the largest revisions size
+     * from all of them.
+     *
+     * @param results the revisions usage of the analysed wikis.
+     * @param documentsLimit the maximum number of kept documents.
+     */
+    public void setResults(Collection<WikiRevisionUsage> results, int documentsLimit)
+    {
+        List<DocumentRevisionUsage> documents = new ArrayList<>();
+        for (WikiRevisionUsage wikiUsage : results) {
+            this.wikisUsage.put(wikiUsage.getWikiId(), wikiUsage);
+            documents.addAll(wikiUsage.getLargestDocuments());
+        }
+        documents.sort(Comparator.comparingLong(DocumentRevisionUsage::getRevisionsSize).reversed());
+        this.largestDocuments.clear();
+        this.largestDocuments.addAll(documents.subList(0, Math.min(documentsLimit, documents.size())));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.jobs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xwiki.job.AbstractRequest;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Represents a request to start a job that computes the effective rights of a user on all the pages of a space tree.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class RightsMatrixJobRequest extends AbstractRequest
+{
+    private static final List<String> DEFAULT_RIGHTS = List.of("view", "comment", "edit", "delete");
+
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private DocumentReference userReference;
+
+    private SpaceReference spaceReference;
+
+    private List<String> rights = new ArrayList<>(DEFAULT_RIGHTS);
+
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Default constructor.
+     */
+    public RightsMatrixJobRequest()
+    {
+        setDefaultId();
+    }
+
+    /**
+     * Creates a request to compute the effective rights of a user on all the pages of a space tree.
+     *
+     * @param userReference the user whose rights are computed.
+     * @param spaceReference the root of the space tree.
+     * @param jobId the ID of the request.
+     */
+    public RightsMatrixJobRequest(DocumentReference userReference, SpaceReference spaceReference, List<String> jobId)
+    {
+        this.userReference = userReference;
+        this.spaceReference = spaceReference;
+        setId(jobId);
+        setStatusSerialized(true);
+    }
+
+    /**
+     * Get the user whose rights are computed.
+     *
+     * @return the reference of the user.
+     */
+    public DocumentReference getUserReference()
+    {
+        return this.userReference;
+    }
+
+    /**
+     * Get the root of the space tree.
+     *
+     * @return the reference of the root space.
+     */
+    public SpaceReference getSpaceReference()
+    {
+        return this.spaceReference;
+    }
+
+    /**
+     * Get the names of the rights that are computed for each page.
+     *
+     * @return the names of the rights, in the order of the matrix columns.
+     */
+    public List<String> getRights()
+    {
+        return this.rights;
+    }
+
+    /**
+     * Set the names of the rights that are computed for each page.
+     *
+     * @param rights the names of the rights, in the order of the matrix columns.
+     */
+    public void setRights(List<String> rights)
+    {
+        this.rights = new ArrayList<>(rights);
+    }
+
+    /**
+     * Get the number of spaces whose pages are evaluated in parallel.
+     *
+     * @return the parallelism level.
+     */
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * Set the number of spaces whose pages are evaluated in parallel.
+     *
+     * @param parallelism the parallelism level.
+     */
+    public void setParallelism(int parallelism)
+    {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Get the number of pages of a space that are read in a single batch.
+     *
+     * @return the batch size.
+     */
+    public int getBatchSize()
+    {
+        return this.batchSize;
+    }
+
+    /**
+     * Set the number of pages of a space that are read in a single batch.
+     *
+     * @param batchSize the batch size.
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    private void setDefaultId()
+    {
+        setId(List.of("adminTools", "rightsMatrix"));
+    }
+}
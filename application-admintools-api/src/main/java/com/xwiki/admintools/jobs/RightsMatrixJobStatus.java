@@ -0,0 +1,174 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.jobs;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xwiki.job.DefaultJobStatus;
+import org.xwiki.logging.LoggerManager;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.stability.Unstable;
+
+/**
+ * The status of a rights matrix job. The matrix itself is not kept in the status, but streamed to a file that can be
+ * downloaded once the job ends.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class RightsMatrixJobStatus extends DefaultJobStatus<RightsMatrixJobRequest>
+{
+    private final List<JobResult> jobResults = new LinkedList<>();
+
+    private final AtomicLong evaluatedPages = new AtomicLong();
+
+    private final AtomicLong reusedEvaluations = new AtomicLong();
+
+    private long totalPages;
+
+    private String matrixFile;
+
+    /**
+     * Create a new rights matrix job status.
+     *
+     * @param jobType the job type.
+     * @param request the request provided when the job was started.
+     * @param observationManager the observation manager.
+     * @param loggerManager the logger manager.
+     */
+    public RightsMatrixJobStatus(String jobType, RightsMatrixJobRequest request,
+        ObservationManager observationManager, LoggerManager loggerManager)
+    {
+        super(jobType, request, null, observationManager, loggerManager);
+        setCancelable(true);
+    }
+
+    /**
+     * Get the results of the job.
+     *
+     * @return list with {@link JobResult} containing the results.
+     */
+    public List<JobResult> getJobResults()
+    {
+        return jobResults;
+    }
+
+    /**
+     * Add a new log to the job results.
+     *
+     * @param statusLog the new log result.
+     */
+    public void addLog(JobResult statusLog)
+    {
+        jobResults.add(statusLog);
+    }
+
+    /**
+     * Check if any job result has a specific level of severity.
+     *
+     * @param level represents the searched level of severity.
+     * @return {@code true} if there is any match for the given level, or {@code false} otherwise.
+     */
+    public boolean hasLevel(JobResultLevel level)
+    {
+        return this.jobResults.stream().anyMatch(checkResult -> Objects.equals(level, checkResult.getLevel()));
+    }
+
+    /**
+     * Get the number of pages of the space tree.
+     *
+     * @return the number of pages that the job has to evaluate.
+     */
+    public long getTotalPages()
+    {
+        return totalPages;
+    }
+
+    /**
+     * Set the number of pages of the space tree.
+     *
+     * @param totalPages the number of pages that the job has to evaluate.
+     */
+    public void setTotalPages(long totalPages)
+    {
+        this.totalPages = totalPages;
+    }
+
+    /**
+     * Get the number of pages whose rights were added to the matrix.
+     *
+     * @return the number of evaluated pages.
+     */
+    public long getEvaluatedPages()
+    {
+        return evaluatedPages.get();
+    }
+
+    /**
+     * Count a page whose rights were added to the matrix.
+     */
+    public void incrementEvaluatedPages()
+    {
+        evaluatedPages.incrementAndGet();
+    }
+
+    /**
+     * Get the number of pages and spaces whose rights were taken from their parent space, because they don't hold any
+     * rights of their own.
+     *
+     * @return the number of reused evaluations.
+     */
+    public long getReusedEvaluations()
+    {
+        return reusedEvaluations.get();
+    }
+
+    /**
+     * Count a page or a space whose rights were taken from their parent space.
+     */
+    public void incrementReusedEvaluations()
+    {
+        reusedEvaluations.incrementAndGet();
+    }
+
+    /**
+     * Get the path of the file where the matrix is written.
+     *
+     * @return the path of the matrix file, or {@code null} if the job did not create it.
+     */
+    public String getMatrixFile()
+    {
+        return matrixFile;
+    }
+
+    /**
+     * Set the path of the file where the matrix is written.
+     *
+     * @param matrixFile the path of the matrix file.
+     */
+    public void setMatrixFile(String matrixFile)
+    {
+        this.matrixFile = matrixFile;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.jobs;
+
+import java.util.List;
+
+import org.xwiki.job.AbstractRequest;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Represents a request to start a job that looks for security cache entries that no longer match the rights stored in
+ * the wiki.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class StaleSecurityCacheJobRequest extends AbstractRequest
+{
+    private static final double DEFAULT_INITIAL_SAMPLING_RATE = 0.1;
+
+    private static final double DEFAULT_MIN_SAMPLING_RATE = 0.01;
+
+    private static final int DEFAULT_MAX_CHECKS_PER_SECOND = 100;
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private WikiReference wikiReference;
+
+    private boolean invalidate;
+
+    private double initialSamplingRate = DEFAULT_INITIAL_SAMPLING_RATE;
+
+    private double minSamplingRate = DEFAULT_MIN_SAMPLING_RATE;
+
+    private int maxChecksPerSecond = DEFAULT_MAX_CHECKS_PER_SECOND;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Default constructor.
+     */
+    public StaleSecurityCacheJobRequest()
+    {
+        setDefaultId();
+    }
+
+    /**
+     * Creates a request to look for stale security cache entries in a wiki.
+     *
+     * @param wikiReference the wiki whose entities are checked.
+     * @param invalidate {@code true} if the stale entries should be removed from the security cache, or {@code false}
+     *     if they should only be reported.
+     * @param jobId the ID of the request.
+     */
+    public StaleSecurityCacheJobRequest(WikiReference wikiReference, boolean invalidate, List<String> jobId)
+    {
+        this.wikiReference = wikiReference;
+        this.invalidate = invalidate;
+        setId(jobId);
+        setStatusSerialized(true);
+    }
+
+    /**
+     * Get the wiki whose entities are checked.
+     *
+     * @return the reference of the wiki.
+     */
+    public WikiReference getWikiReference()
+    {
+        return this.wikiReference;
+    }
+
+    /**
+     * Check if the stale entries should be removed from the security cache.
+     *
+     * @return {@code true} if the stale entries are removed, or {@code false} if they are only reported.
+     */
+    public boolean isInvalidate()
+    {
+        return this.invalidate;
+    }
+
+    /**
+     * Get the fraction of the pages that are checked at the start of the job.
+     *
+     * @return the initial sampling rate, between 0 and 1.
+     */
+    public double getInitialSamplingRate()
+    {
+        return this.initialSamplingRate;
+    }
+
+    /**
+     * Set the fraction of the pages that are checked at the start of the job.
+     *
+     * @param initialSamplingRate the initial sampling rate, between 0 and 1.
+     */
+    public void setInitialSamplingRate(double initialSamplingRate)
+    {
+        this.initialSamplingRate = initialSamplingRate;
+    }
+
+    /**
+     * Get the lowest fraction of the pages that are checked when no stale entry is found.
+     *
+     * @return the minimum sampling rate, between 0 and 1.
+     */
+    public double getMinSamplingRate()
+    {
+        return this.minSamplingRate;
+    }
+
+    /**
+     * Set the lowest fraction of the pages that are checked when no stale entry is found.
+     *
+     * @param minSamplingRate the minimum sampling rate, between 0 and 1.
+     */
+    public void setMinSamplingRate(double minSamplingRate)
+    {
+        this.minSamplingRate = minSamplingRate;
+    }
+
+    /**
+     * Get the maximum number of entities that are checked each second, so that the job doesn't load the server.
+     *
+     * @return the check budget per second.
+     */
+    public int getMaxChecksPerSecond()
+    {
+        return this.maxChecksPerSecond;
+    }
+
+    /**
+     * Set the maximum number of entities that are checked each second.
+     *
+     * @param maxChecksPerSecond the check budget per second.
+     */
+    public void setMaxChecksPerSecond(int maxChecksPerSecond)
+    {
+        this.maxChecksPerSecond = maxChecksPerSecond;
+    }
+
+    /**
+     * Get the number of pages that are read in a single batch.
+     *
+     * @return the batch size.
+     */
+    public int getBatchSize()
+    {
+        return this.batchSize;
+    }
+
+    /**
+     * Set the number of pages that are read in a single batch.
+     *
+     * @param batchSize the batch size.
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    private void setDefaultId()
+    {
+        setId(List.of("adminTools", "staleSecurityCache"));
+    }
+}
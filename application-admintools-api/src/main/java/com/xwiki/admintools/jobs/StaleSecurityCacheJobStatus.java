@@ -0,0 +1,220 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.jobs;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+
+import org.xwiki.job.DefaultJobStatus;
+import org.xwiki.logging.LoggerManager;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.stability.Unstable;
+
+/**
+ * The status of a stale security cache job.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class StaleSecurityCacheJobStatus extends DefaultJobStatus<StaleSecurityCacheJobRequest>
+{
+    private static final int MAX_REPORTED_ENTRIES = 100;
+
+    private final List<JobResult> jobResults = new LinkedList<>();
+
+    private final List<String> staleEntries = new ArrayList<>();
+
+    private long checkedEntries;
+
+    private long cachedEntries;
+
+    private long staleEntriesCount;
+
+    private long invalidatedEntries;
+
+    private double samplingRate;
+
+    /**
+     * Create a new stale security cache job status.
+     *
+     * @param jobType the job type.
+     * @param request the request provided when the job was started.
+     * @param observationManager the observation manager.
+     * @param loggerManager the logger manager.
+     */
+    public StaleSecurityCacheJobStatus(String jobType, StaleSecurityCacheJobRequest request,
+        ObservationManager observationManager, LoggerManager loggerManager)
+    {
+        super(jobType, request, null, observationManager, loggerManager);
+        setCancelable(true);
+        this.samplingRate = request.getInitialSamplingRate();
+    }
+
+    /**
+     * Get the results of the job.
+     *
+     * @return list with {@link JobResult} containing the results.
+     */
+    public List<JobResult> getJobResults()
+    {
+        return jobResults;
+    }
+
+    /**
+     * Add a new log to the job results.
+     *
+     * @param statusLog the new log result.
+     */
+    public void addLog(JobResult statusLog)
+    {
+        jobResults.add(statusLog);
+    }
+
+    /**
+     * Check if any job result has a specific level of severity.
+     *
+     * @param level represents the searched level of severity.
+     * @return {@code true} if there is any match for the given level, or {@code false} otherwise.
+     */
+    public boolean hasLevel(JobResultLevel level)
+    {
+        return this.jobResults.stream().anyMatch(checkResult -> Objects.equals(level, checkResult.getLevel()));
+    }
+
+    /**
+     * Get the number of entities that were looked up in the security cache.
+     *
+     * @return the number of checked entities.
+     */
+    public long getCheckedEntries()
+    {
+        return checkedEntries;
+    }
+
+    /**
+     * Count an entity that was looked up in the security cache.
+     */
+    public void incrementCheckedEntries()
+    {
+        checkedEntries++;
+    }
+
+    /**
+     * Get the number of checked entities that had an entry in the security cache.
+     *
+     * @return the number of cached entities.
+     */
+    public long getCachedEntries()
+    {
+        return cachedEntries;
+    }
+
+    /**
+     * Count a checked entity that had an entry in the security cache.
+     */
+    public void incrementCachedEntries()
+    {
+        cachedEntries++;
+    }
+
+    /**
+     * Get the number of cached entries whose rules differ from the rules stored in the wiki.
+     *
+     * @return the number of stale entries.
+     */
+    public long getStaleEntriesCount()
+    {
+        return staleEntriesCount;
+    }
+
+    /**
+     * Get the first stale entries that were found. Only the first 100 entries are kept.
+     *
+     * @return the references of the stale entries.
+     */
+    public List<String> getStaleEntries()
+    {
+        return staleEntries;
+    }
+
+    /**
+     * Add a cached entry whose rules differ from the rules stored in the wiki.
+     *
+     * @param reference the reference of the stale entry.
+     */
+    public void addStaleEntry(String reference)
+    {
+        staleEntriesCount++;
+        if (staleEntries.size() < MAX_REPORTED_ENTRIES) {
+            staleEntries.add(reference);
+        }
+    }
+
+    /**
+     * Get the fraction of the cached entries that are stale.
+     *
+     * @return the divergence rate, between 0 and 1.
+     */
+    public double getDivergenceRate()
+    {
+        return cachedEntries > 0 ? (double) staleEntriesCount / cachedEntries : 0;
+    }
+
+    /**
+     * Get the number of stale entries that were removed from the security cache.
+     *
+     * @return the number of invalidated entries.
+     */
+    public long getInvalidatedEntries()
+    {
+        return invalidatedEntries;
+    }
+
+    /**
+     * Count a stale entry that was removed from the security cache.
+     */
+    public void incrementInvalidatedEntries()
+    {
+        invalidatedEntries++;
+    }
+
+    /**
+     * Get the fraction of the pages that are currently checked.
+     *
+     * @return the current sampling rate, between 0 and 1.
+     */
+    public double getSamplingRate()
+    {
+        return samplingRate;
+    }
+
+    /**
+     * Set the fraction of the pages that are currently checked.
+     *
+     * @param samplingRate the current sampling rate, between 0 and 1.
+     */
+    public void setSamplingRate(double samplingRate)
+    {
+        this.samplingRate = samplingRate;
+    }
+}
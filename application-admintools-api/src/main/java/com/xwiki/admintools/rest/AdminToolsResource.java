@@ -120,4 +120,35 @@ public interface AdminToolsResource extends XWikiRestComponent
     {
         throw new WebApplicationException(501);
     }
+
+    /**
+     * Download the matrix computed by the last finished rights matrix job.
+     *
+     * @return the matrix as a CSV file, or status code 404 if no rights matrix job has finished.
+     * @throws XWikiRestException if an error occurred while reading the matrix.
+     * @since 1.4.1
+     */
+    @GET
+    @Path("/rightsMatrix")
+    @Unstable
+    default Response getRightsMatrix() throws XWikiRestException
+    {
+        throw new WebApplicationException(501);
+    }
+
+    /**
+     * Get aggregate statistics about the security cache. The statistics are kept for a few seconds, so that they can be
+     * polled.
+     *
+     * @return the statistics of the security cache, in JSON format
+     * @throws XWikiRestException if an error occurred while reading the statistics
+     * @since 1.4.1
+     */
+    @GET
+    @Path("/securityCache/statistics")
+    @Unstable
+    default Response getSecurityCacheStatistics() throws XWikiRestException
+    {
+        throw new WebApplicationException(501);
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.security;
+
+import java.util.List;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Store a page of sorted {@link RightsResult}, together with the total number of rights entries matching the request.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class RightsResultsPage
+{
+    private final List<RightsResult> results;
+
+    private final long total;
+
+    /**
+     * Initialise a page of rights entries.
+     *
+     * @param results the rights entries of the page.
+     * @param total the total number of rights entries matching the request.
+     */
+    public RightsResultsPage(List<RightsResult> results, long total)
+    {
+        this.results = results;
+        this.total = total;
+    }
+
+    /**
+     * Get the rights entries of the page.
+     *
+     * @return a sorted {@link List} with the rights entries of the page.
+     */
+    public List<RightsResult> getResults()
+    {
+        return results;
+    }
+
+    /**
+     * Get the total number of rights entries matching the request, not only the ones of this page.
+     *
+     * @return the total number of rights entries.
+     */
+    public long getTotal()
+    {
+        return total;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.usage;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Store the size and the number of versions of the attachment archives of a wiki or of a document.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class AttachmentArchiveUsage
+{
+    private final String wikiId;
+
+    private final String documentName;
+
+    private long attachmentsCount;
+
+    private long versionsCount;
+
+    private long archiveSize;
+
+    private long historySize;
+
+    /**
+     * Initialise an empty {@link AttachmentArchiveUsage}.
+     *
+     * @param wikiId the id of the wiki.
+     * @param documentName the full name of the document, or {@code null} if the usage is computed for the entire wiki.
+     */
+    public AttachmentArchiveUsage(String wikiId, String documentName)
+    {
+        this.wikiId = wikiId;
+        this.documentName = documentName;
+    }
+
+    /**
+     * Add the archive info of an attachment.
+     *
+     * @param versions the number of versions of the attachment.
+     * @param size the size of all the versions of the attachment, in bytes.
+     * @param history the size of all the versions of the attachment, except the current one, in bytes.
+     */
+    public void addAttachment(long versions, long size, long history)
+    {
+        this.attachmentsCount++;
+        this.versionsCount += versions;
+        this.archiveSize += size;
+        this.historySize += history;
+    }
+
+    /**
+     * Add the archive info of a document to the current usage.
+     *
+     * @param usage the usage to be added.
+     */
+    public void add(AttachmentArchiveUsage usage)
+    {
+        this.attachmentsCount += usage.getAttachmentsCount();
+        this.versionsCount += usage.getVersionsCount();
+        this.archiveSize += usage.getArchiveSize();
+        this.historySize += usage.getHistorySize();
+    }
+
+    /**
+     * Get the wiki id.
+     *
+     * @return the wiki id.
+     */
+    public String getWikiId()
+    {
+        return wikiId;
+    }
+
+    /**
+     * Get the full name of the document.
+     *
+     * @return the full name of the document, or {@code null} if the usage is computed for the entire wiki.
+     */
+    public String getDocumentName()
+    {
+        return documentName;
+    }
+
+    /**
+     * Get the number of attachments whose archives were analysed.
+     *
+     * @return the number of attachments.
+     */
+    public long getAttachmentsCount()
+    {
+        return attachmentsCount;
+    }
+
+    /**
+     * Get the total number of attachment versions.
+     *
+     * @return the number of versions.
+     */
+    public long getVersionsCount()
+    {
+        return versionsCount;
+    }
+
+    /**
+     * Get the size of all the attachment versions, including the current ones.
+     *
+     * @return the archive size, in bytes.
+     */
+    public long getArchiveSize()
+    {
+        return archiveSize;
+    }
+
+    /**
+     * Get the size of the previous attachment versions, which could be freed by pruning the attachments history.
+     *
+     * @return the history size, in bytes.
+     */
+    public long getHistorySize()
+    {
+        return historySize;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.usage;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Store the number and the size of the revisions of a document.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class DocumentRevisionUsage
+{
+    private final String wikiId;
+
+    private final long documentId;
+
+    private final long revisionsCount;
+
+    private final long revisionsSize;
+
+    private String documentName;
+
+    private String language;
+
+    /**
+     * Initialise a {@link DocumentRevisionUsage} with the given revisions info.
+     *
+     * @param wikiId the id of the wiki holding the document.
+     * @param documentId the database id of the document.
+     * @param revisionsCount the number of revisions of the document.
+     * @param revisionsSize the size of the revisions of the document.
+     */
+    public DocumentRevisionUsage(String wikiId, long documentId, long revisionsCount, long revisionsSize)
+    {
+        this.wikiId = wikiId;
+        this.documentId = documentId;
+        this.revisionsCount = revisionsCount;
+        this.revisionsSize = revisionsSize;
+    }
+
+    /**
+     * Get the id of the wiki holding the document.
+     *
+     * @return the wiki id.
+     */
+    public String getWikiId()
+    {
+        return wikiId;
+    }
+
+    /**
+     * Get the database id of the document.
+     *
+     * @return the document id.
+     */
+    public long getDocumentId()
+    {
+        return documentId;
+    }
+
+    /**
+     * Get the number of revisions of the document.
+     *
+     * @return the number of revisions.
+     */
+    public long getRevisionsCount()
+    {
+        return revisionsCount;
+    }
+
+    /**
+     * Get the size of the revisions of the document, as stored in the database.
+     *
+     * @return the size of the revisions.
+     */
+    public long getRevisionsSize()
+    {
+        return revisionsSize;
+    }
+
+    /**
+     * Get the full name of the document.
+     *
+     * @return the full name of the document, or {@code null} if the revisions belong to a document that doesn't exist
+     *     anymore.
+     */
+    public String getDocumentName()
+    {
+        return documentName;
+    }
+
+    /**
+     * Set the full name of the document.
+     *
+     * @param documentName the full name of the document.
+     */
+    public void setDocumentName(String documentName)
+    {
+        this.documentName = documentName;
+    }
+
+    /**
+     * Get the language of the document.
+     *
+     * @return the language of the document, or an empty {@link String} for the default document.
+     */
+    public String getLanguage()
+    {
+        return language;
+    }
+
+    /**
+     * Set the language of the document.
+     *
+     * @param language the language of the document.
+     */
+    public void setLanguage(String language)
+    {
+        this.language = language;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.usage;
+
+import java.util.List;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Store a group of attachments of a wiki that have the same content.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class DuplicateAttachmentGroup
+{
+    private final String hash;
+
+    private final long size;
+
+    private final List<String> attachments;
+
+    /**
+     * Initialise a {@link DuplicateAttachmentGroup} with the given content info.
+     *
+     * @param hash the hash of the shared content.
+     * @param size the size of the shared content.
+     * @param attachments the serialized references of the attachments having this content.
+     */
+    public DuplicateAttachmentGroup(String hash, long size, List<String> attachments)
+    {
+        this.hash = hash;
+        this.size = size;
+        this.attachments = attachments;
+    }
+
+    /**
+     * Get the hash of the shared content.
+     *
+     * @return the content hash, as a hexadecimal {@link String}.
+     */
+    public String getHash()
+    {
+        return hash;
+    }
+
+    /**
+     * Get the size of the shared content.
+     *
+     * @return the size of a single copy, in bytes.
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Get the attachments having this content.
+     *
+     * @return the serialized references of the attachments, sorted alphabetically.
+     */
+    public List<String> getAttachments()
+    {
+        return attachments;
+    }
+
+    /**
+     * Get the number of copies of the content.
+     *
+     * @return the number of attachments in the group.
+     */
+    public int getCount()
+    {
+        return attachments.size();
+    }
+
+    /**
+     * Get the space that would be freed if a single copy of the content was kept.
+     *
+     * @return the size of the extra copies, in bytes.
+     */
+    public long getWastedSize()
+    {
+        return size * (attachments.size() - 1);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.usage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Store the attachments of a wiki that have the same content as another attachment of the wiki, together with the
+ * groups of duplicates wasting the most space.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class WikiDuplicateAttachments
+{
+    private final String wikiId;
+
+    private long attachmentsCount;
+
+    private long hashedCount;
+
+    private long duplicatesCount;
+
+    private long wastedSize;
+
+    private List<DuplicateAttachmentGroup> largestGroups = new ArrayList<>();
+
+    /**
+     * Initialise an empty {@link WikiDuplicateAttachments} for the given wiki.
+     *
+     * @param wikiId the id of the wiki.
+     */
+    public WikiDuplicateAttachments(String wikiId)
+    {
+        this.wikiId = wikiId;
+    }
+
+    /**
+     * Add a group of attachments having the same content.
+     *
+     * @param group the group of duplicates.
+     */
+    public void addGroup(DuplicateAttachmentGroup group)
+    {
+        this.duplicatesCount += group.getCount() - 1;
+        this.wastedSize += group.getWastedSize();
+    }
+
+    /**
+     * Get the wiki id.
+     *
+     * @return the wiki id.
+     */
+    public String getWikiId()
+    {
+        return wikiId;
+    }
+
+    /**
+     * Get the number of indexed attachments of the wiki.
+     *
+     * @return the number of attachments.
+     */
+    public long getAttachmentsCount()
+    {
+        return attachmentsCount;
+    }
+
+    /**
+     * Set the number of indexed attachments of the wiki.
+     *
+     * @param attachmentsCount the number of attachments.
+     */
+    public void setAttachmentsCount(long attachmentsCount)
+    {
+        this.attachmentsCount = attachmentsCount;
+    }
+
+    /**
+     * Get the number of attachments whose content was hashed. Only the attachments having the same size as another
+     * attachment of the wiki are hashed, since the others can't be duplicates.
+     *
+     * @return the number of hashed attachments.
+     */
+    public long getHashedCount()
+    {
+        return hashedCount;
+    }
+
+    /**
+     * Set the number of attachments whose content was hashed.
+     *
+     * @param hashedCount the number of hashed attachments.
+     */
+    public void setHashedCount(long hashedCount)
+    {
+        this.hashedCount = hashedCount;
+    }
+
+    /**
+     * Get the number of extra copies, i.e. the number of attachments that could be removed if a single copy of each
+     * content was kept.
+     *
+     * @return the number of extra copies.
+     */
+    public long getDuplicatesCount()
+    {
+        return duplicatesCount;
+    }
+
+    /**
+     * Get the space used by the extra copies.
+     *
+     * @return the wasted size, in bytes.
+     */
+    public long getWastedSize()
+    {
+        return wastedSize;
+    }
+
+    /**
+     * Get the groups of duplicates wasting the most space.
+     *
+     * @return the groups, sorted by the wasted size in descending order.
+     */
+    public List<DuplicateAttachmentGroup> getLargestGroups()
+    {
+        return largestGroups;
+    }
+
+    /**
+     * Set the groups of duplicates wasting the most space.
+     *
+     * @param largestGroups the groups, sorted by the wasted size in descending order.
+     */
+    public void setLargestGroups(List<DuplicateAttachmentGroup> largestGroups)
+    {
+        this.largestGroups = largestGroups;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.usage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Store the number and the size of the document revisions of a wiki, together with the documents having the largest
+ * history.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class WikiRevisionUsage
+{
+    private final String wikiId;
+
+    private long documentsCount;
+
+    private long revisionsCount;
+
+    private long revisionsSize;
+
+    private List<DocumentRevisionUsage> largestDocuments = new ArrayList<>();
+
+    /**
+     * Initialise an empty {@link WikiRevisionUsage} for the given wiki.
+     *
+     * @param wikiId the id of the wiki.
+     */
+    public WikiRevisionUsage(String wikiId)
+    {
+        this.wikiId = wikiId;
+    }
+
+    /**
+     * Add the revisions of a document.
+     *
+     * @param count the number of revisions of the document.
+     * @param size the size of the revisions of the document.
+     */
+    public void addDocument(long count, long size)
+    {
+        this.documentsCount++;
+        this.revisionsCount += count;
+        this.revisionsSize += size;
+    }
+
+    /**
+     * Get the wiki id.
+     *
+     * @return the wiki id.
+     */
+    public String getWikiId()
+    {
+        return wikiId;
+    }
+
+    /**
+     * Get the number of documents having revisions.
+     *
+     * @return the number of documents.
+     */
+    public long getDocumentsCount()
+    {
+        return documentsCount;
+    }
+
+    /**
+     * Get the number of revisions of the wiki.
+     *
+     * @return the number of revisions.
+     */
+    public long getRevisionsCount()
+    {
+        return revisionsCount;
+    }
+
+    /**
+     * Get the size of the revisions of the wiki, as stored in the database.
+     *
+     * @return the size of the revisions.
+     */
+    public long getRevisionsSize()
+    {
+        return revisionsSize;
+    }
+
+    /**
+     * Get the documents of the wiki with the largest revisions size.
+     *
+     * @return the documents, sorted by the revisions size in descending order.
+     */
+    public List<DocumentRevisionUsage> getLargestDocuments()
+    {
+        return largestDocuments;
+    }
+
+    /**
+     * Set the documents of the wiki with the largest revisions size.
+     *
+     * @param largestDocuments the documents, sorted by the revisions size in descending order.
+     */
+    public void setLargestDocuments(List<DocumentRevisionUsage> largestDocuments)
+    {
+        this.largestDocuments = largestDocuments;
+    }
+}
@@ -39,8 +39,14 @@ import com.xwiki.admintools.DataProvider;
 import com.xwiki.admintools.internal.data.identifiers.CurrentServer;
 import com.xwiki.admintools.internal.files.ImportantFilesManager;
 import com.xwiki.admintools.internal.usage.InstanceUsageManager;
+import com.xwiki.admintools.internal.usage.history.UsagePoint;
+import com.xwiki.admintools.internal.usage.history.UsageProjection;
+import com.xwiki.admintools.internal.usage.wikiResult.SpaceUsage;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiAttachmentsStorage;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiIndexedUsage;
 import com.xwiki.admintools.internal.usage.wikiResult.WikiRecycleBins;
 import com.xwiki.admintools.internal.usage.wikiResult.WikiSizeResult;
+import com.xwiki.admintools.usage.WikiDuplicateAttachments;
 
 /**
  * Manages the data that needs to be used by the Admin Tools application.
@@ -155,6 +161,20 @@ public class AdminToolsManager
         return instanceUsageManager.getSpammedPages(maxComments, filters, order);
     }
 
+    /**
+     * Retrieve the pages that have more than a given number of comments, ranked by their spam score.
+     *
+     * @param maxComments maximum number of comments below which the page is ignored.
+     * @param filters {@link Map} of filters to be applied on the gathered list.
+     * @param order the order of the sort.
+     * @return a {@link SolrDocumentList} with the needed fields set, including the {@code spamScore}.
+     * @since 1.4.1
+     */
+    public SolrDocumentList getPagesBySpamScore(long maxComments, Map<String, String> filters, String order)
+    {
+        return instanceUsageManager.getSpamRankedPages(maxComments, filters, order);
+    }
+
     /**
      * Get recycle bin info for all wikis in your instance with the options to sort and apply filters on it.
      *
@@ -182,6 +202,82 @@ public class AdminToolsManager
         return this.instanceUsageManager.getWikisSize(filters, sortColumn, order);
     }
 
+    /**
+     * Get the usage info of all the wikis, as computed from the Solr index.
+     *
+     * @return a {@link Map} with the wiki ids as keys and the indexed usage info as values, or an empty {@link Map}
+     *     if the Solr index is not in sync with the database.
+     */
+    public Map<String, WikiIndexedUsage> getIndexedWikisUsage()
+    {
+        return this.instanceUsageManager.getIndexedWikisUsage();
+    }
+
+    /**
+     * Get the attachments storage info of a wiki, like its largest attachments and the storage used by each space and
+     * MIME type.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @return a {@link WikiAttachmentsStorage} with the attachments storage info of the wiki.
+     * @since 1.4.1
+     */
+    public WikiAttachmentsStorage getWikiAttachmentsStorage(String wikiId)
+    {
+        return this.instanceUsageManager.getWikiAttachmentsStorage(wikiId);
+    }
+
+    /**
+     * Get the usage of the direct nested spaces of a space of a wiki.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param parentSpace the serialized local reference of the parent space, or an empty value for the top level
+     *     spaces.
+     * @return the usage of the nested spaces, sorted by their total attachments size in descending order.
+     * @since 1.4.1
+     */
+    public List<SpaceUsage> getSpacesUsage(String wikiId, String parentSpace)
+    {
+        return this.instanceUsageManager.getSpacesUsage(wikiId, parentSpace);
+    }
+
+    /**
+     * Get the daily usage points of a wiki between two days.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param fromDay the first day, inclusive, as a number of days since the epoch.
+     * @param toDay the last day, inclusive, as a number of days since the epoch.
+     * @return the usage points in the given range, sorted by day.
+     * @since 1.4.1
+     */
+    public List<UsagePoint> getUsageHistory(String wikiId, long fromDay, long toDay)
+    {
+        return this.instanceUsageManager.getUsageHistory(wikiId, fromDay, toDay);
+    }
+
+    /**
+     * Get a linear projection of the attachments storage growth of all the wikis of the instance.
+     *
+     * @return the growth projection, or {@code null} if it could not be computed.
+     * @since 1.4.1
+     */
+    public UsageProjection getUsageProjection()
+    {
+        return this.instanceUsageManager.getUsageProjection();
+    }
+
+    /**
+     * Get the attachments of a wiki that have the same content as another attachment of the wiki.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param groupsLimit the maximum number of returned groups of duplicates.
+     * @return the duplicates of the wiki, or {@code null} if the wiki was not indexed.
+     * @since 1.4.1
+     */
+    public WikiDuplicateAttachments getDuplicateAttachments(String wikiId, int groupsLimit)
+    {
+        return this.instanceUsageManager.getDuplicateAttachments(wikiId, groupsLimit);
+    }
+
     /**
      * Retrieves those documents that have no content, {@link XWikiAttachment}, {@link BaseClass}, {@link BaseObject},
      * or comments.
@@ -98,9 +98,9 @@ public class CurrentServer implements Initializable
     public void updateCurrentServer()
     {
         this.currentServerInfo = null;
+        String serverName = usageDataProvider.getServerMetadata().get(SERVER_NAME_KEY).toLowerCase();
         for (ServerInfo serverInfo : this.supportedServers.get()) {
-            boolean matchingHint = usageDataProvider.getServerMetadata().get(SERVER_NAME_KEY).toLowerCase()
-                .contains(serverInfo.getComponentHint());
+            boolean matchingHint = serverName.contains(serverInfo.getComponentHint());
             if (matchingHint && serverInfo.foundServerPath()) {
                 this.currentServerInfo = serverInfo;
                 this.currentServerInfo.updatePossiblePaths();
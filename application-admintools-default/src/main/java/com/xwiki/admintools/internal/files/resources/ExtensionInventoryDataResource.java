@@ -0,0 +1,94 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.files.resources;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xwiki.admintools.download.DataResource;
+import com.xwiki.admintools.internal.usage.extension.ExtensionInventory;
+
+/**
+ * Exports the installed extensions and the changes since the last inventory snapshot as a JSON file. A snapshot is
+ * taken each time the inventory is added to a support archive, so each archive lists the changes since the previous
+ * one, or since the startup for the first one.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(ExtensionInventoryDataResource.HINT)
+@Singleton
+public class ExtensionInventoryDataResource implements DataResource
+{
+    /**
+     * Component identifier.
+     */
+    public static final String HINT = "extensions";
+
+    @Inject
+    private ExtensionInventory extensionInventory;
+
+    @Inject
+    private Logger logger;
+
+    @Override
+    public void addZipEntry(ZipOutputStream zipOutputStream, Map<String, String[]> filters)
+    {
+        try {
+            byte[] buffer = getByteData(filters);
+            ZipEntry zipEntry = new ZipEntry("extensions.json");
+            zipOutputStream.putNextEntry(zipEntry);
+            zipOutputStream.write(buffer, 0, buffer.length);
+            zipOutputStream.closeEntry();
+            extensionInventory.takeSnapshot();
+        } catch (Exception exception) {
+            logger.warn("Could not add the extensions inventory to the archive. Root cause is: [{}]",
+                ExceptionUtils.getRootCauseMessage(exception));
+        }
+    }
+
+    @Override
+    public byte[] getByteData(Map<String, String[]> params) throws Exception
+    {
+        Map<String, Object> export = new LinkedHashMap<>();
+        export.put("count", extensionInventory.getExtensionsCount());
+        export.put("extensions", extensionInventory.getExtensions());
+        export.put("changes", extensionInventory.getChanges());
+        return new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsBytes(export);
+    }
+
+    @Override
+    public String getIdentifier()
+    {
+        return HINT;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.health.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.SecurityReferenceFactory;
+import org.xwiki.security.authorization.AuthorizationException;
+import org.xwiki.security.authorization.SecurityEntryReader;
+import org.xwiki.security.authorization.SecurityRuleEntry;
+import org.xwiki.security.authorization.cache.SecurityCache;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xwiki.admintools.health.cache.SecurityCacheEntryCost;
+import com.xwiki.admintools.health.cache.SecurityCacheStatistics;
+import com.xwiki.admintools.internal.health.cache.data.CacheDataUtil;
+
+import groovy.jmx.GroovyMBean;
+
+import static com.xwiki.admintools.internal.health.cache.data.CacheDataUtil.NAME_KEY;
+
+/**
+ * Compute aggregate statistics about the security cache, in order to tune its capacity. The hits, misses, evictions and
+ * entries come from the JMX statistics of the cache and are turned into rates between two readings. The coverage of
+ * each entity type and the cost of recomputing the rules come from a sample of documents, with their spaces and wiki,
+ * that are looked up in the cache and whose rules are read again. The documents are sampled from the current wiki, so
+ * the statistics and the sample are kept per wiki, the statistics for a few seconds and the sample for a minute, so
+ * that the statistics can be polled cheaply.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = SecurityCacheInspector.class)
+@Singleton
+public class SecurityCacheInspector
+{
+    private static final String SECURITY_CACHE_NAME = "platform.security.authorization.cache";
+
+    private static final String SAMPLE_STATEMENT = "select doc.id, doc.fullName from XWikiDocument doc "
+        + "where doc.translation = 0 and doc.id > :start order by doc.id";
+
+    private static final long STATISTICS_TTL = 2000;
+
+    private static final long SAMPLE_TTL = 60000;
+
+    private static final int SAMPLE_SIZE = 50;
+
+    private static final int EXPENSIVE_ENTRIES = 10;
+
+    private static final double MILLIS_PER_SECOND = 1000;
+
+    private static final String HITS = "hits";
+
+    private static final String MISSES = "misses";
+
+    private static final String EVICTIONS = "evictions";
+
+    private static final String NUMBER_OF_ENTRIES = "numberOfEntries";
+
+    private static final String APPROXIMATE_ENTRIES = "approximateEntries";
+
+    private static final List<String> STATISTICS_ATTRIBUTES =
+        List.of(HITS, MISSES, EVICTIONS, NUMBER_OF_ENTRIES, APPROXIMATE_ENTRIES);
+
+    @Inject
+    private Logger logger;
+
+    @Inject
+    private CacheDataUtil cacheDataUtil;
+
+    @Inject
+    private GroovyMBeanUtil groovyMBeanUtil;
+
+    @Inject
+    private SecurityCache securityCache;
+
+    @Inject
+    private SecurityEntryReader securityEntryReader;
+
+    @Inject
+    private SecurityReferenceFactory securityReferenceFactory;
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    private final Map<String, SecurityCacheStatistics> lastStatistics = new HashMap<>();
+
+    private final Map<String, Long> lastStatisticsTimes = new HashMap<>();
+
+    private final Map<String, SecurityCacheStatistics> lastSamples = new HashMap<>();
+
+    /**
+     * Get the aggregate statistics of the security cache, with a sample of the entities of the current wiki. The
+     * statistics are read again only if the last reading for the current wiki is older than two seconds, and the
+     * entities are sampled again only if the last sample of the current wiki is older than one minute.
+     *
+     * @return the statistics of the security cache
+     * @throws JMException if the JMX statistics of the cache could not be read
+     * @throws IOException if the JMX statistics of the cache could not be read
+     */
+    public synchronized SecurityCacheStatistics getStatistics() throws JMException, IOException
+    {
+        long now = System.currentTimeMillis();
+        WikiReference wikiReference = this.xcontextProvider.get().getWikiReference();
+        String wikiId = wikiReference.getName();
+        SecurityCacheStatistics previousStatistics = this.lastStatistics.get(wikiId);
+        long previousTime = this.lastStatisticsTimes.getOrDefault(wikiId, 0L);
+        if (previousStatistics != null && now - previousTime < STATISTICS_TTL) {
+            return previousStatistics;
+        }
+        SecurityCacheStatistics statistics = new SecurityCacheStatistics();
+        readCacheStatistics(statistics);
+        if (previousStatistics != null) {
+            double seconds = (now - previousTime) / MILLIS_PER_SECOND;
+            statistics.setHitsPerSecond(getRate(previousStatistics.getHits(), statistics.getHits(), seconds));
+            statistics.setMissesPerSecond(getRate(previousStatistics.getMisses(), statistics.getMisses(), seconds));
+            statistics.setEvictionsPerSecond(
+                getRate(previousStatistics.getEvictions(), statistics.getEvictions(), seconds));
+        }
+        SecurityCacheStatistics sample = this.lastSamples.get(wikiId);
+        if (sample == null || now - sample.getSampleTime() >= SAMPLE_TTL) {
+            sample = sampleEntities(wikiReference, now);
+            this.lastSamples.put(wikiId, sample);
+        }
+        statistics.setSampleTime(sample.getSampleTime());
+        statistics.setCoverageByType(sample.getCoverageByType());
+        statistics.setExpensiveEntries(sample.getExpensiveEntries());
+        this.lastStatistics.put(wikiId, statistics);
+        this.lastStatisticsTimes.put(wikiId, now);
+        return statistics;
+    }
+
+    private double getRate(long previous, long current, double seconds)
+    {
+        // The counters are reset when the statistics of the cache are reset.
+        return previous < 0 || current < previous || seconds <= 0 ? 0 : (current - previous) / seconds;
+    }
+
+    private void readCacheStatistics(SecurityCacheStatistics statistics) throws JMException, IOException
+    {
+        for (ObjectName statisticsName : this.cacheDataUtil.getCacheSet("Statistics")) {
+            String cacheName = statisticsName.getKeyProperty(NAME_KEY);
+            if (cacheName == null || !cacheName.contains(SECURITY_CACHE_NAME)) {
+                continue;
+            }
+            GroovyMBean bean = this.groovyMBeanUtil.getGroovyMBean(statisticsName);
+            Map<String, Long> values = new LinkedHashMap<>();
+            for (String attribute : STATISTICS_ATTRIBUTES) {
+                try {
+                    Object value = bean.getProperty(attribute);
+                    values.put(attribute, value instanceof Number ? ((Number) value).longValue() : -1L);
+                } catch (Exception e) {
+                    this.logger.debug("Failed to read attribute [{}] of the security cache.", attribute, e);
+                }
+            }
+            statistics.setHits(values.getOrDefault(HITS, -1L));
+            statistics.setMisses(values.getOrDefault(MISSES, -1L));
+            statistics.setEvictions(values.getOrDefault(EVICTIONS, -1L));
+            long entries = values.getOrDefault(NUMBER_OF_ENTRIES, -1L);
+            statistics.setNumberOfEntries(entries < 0 ? values.getOrDefault(APPROXIMATE_ENTRIES, -1L) : entries);
+            break;
+        }
+    }
+
+    private SecurityCacheStatistics sampleEntities(WikiReference wikiReference, long sampleTime)
+    {
+        SecurityCacheStatistics sample = new SecurityCacheStatistics();
+        sample.setSampleTime(sampleTime);
+        try {
+            Map<String, int[]> typeCounts = new LinkedHashMap<>();
+            List<SecurityCacheEntryCost> costs = new ArrayList<>();
+            for (EntityReference entity : getSampledEntities(wikiReference)) {
+                SecurityReference securityReference = this.securityReferenceFactory.newEntityReference(entity);
+                String type = entity.getType().getLowerCase();
+                int[] counts = typeCounts.computeIfAbsent(type, key -> new int[2]);
+                counts[0]++;
+                if (this.securityCache.get(securityReference) != null) {
+                    counts[1]++;
+                }
+                long start = System.nanoTime();
+                SecurityRuleEntry ruleEntry = this.securityEntryReader.read(securityReference);
+                long readTime = (System.nanoTime() - start) / 1000;
+                costs.add(new SecurityCacheEntryCost(this.serializer.serialize(entity), type, readTime,
+                    ruleEntry.getRules().size()));
+            }
+            Map<String, Double> coverage = new LinkedHashMap<>();
+            typeCounts.forEach((type, counts) -> coverage.put(type, (double) counts[1] / counts[0]));
+            sample.setCoverageByType(coverage);
+            sample.setExpensiveEntries(
+                costs.stream().sorted(Comparator.comparingLong(SecurityCacheEntryCost::getReadTimeMicros).reversed())
+                    .limit(EXPENSIVE_ENTRIES).collect(Collectors.toList()));
+        } catch (QueryException | AuthorizationException e) {
+            this.logger.warn("Failed to sample the security cache entries. Root cause is: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+        return sample;
+    }
+
+    /**
+     * Sample documents of the given wiki, together with their spaces and wiki. Document ids are hashes, so reading
+     * the documents that follow a random id gives a random sample without sorting the documents table.
+     */
+    private Set<EntityReference> getSampledEntities(WikiReference wikiReference) throws QueryException
+    {
+        List<Object[]> rows = this.queryManager.createQuery(SAMPLE_STATEMENT, Query.HQL)
+            .bindValue("start", ThreadLocalRandom.current().nextLong()).setLimit(SAMPLE_SIZE)
+            .setWiki(wikiReference.getName()).execute();
+        Set<EntityReference> entities = new LinkedHashSet<>();
+        entities.add(wikiReference);
+        for (Object[] row : rows) {
+            DocumentReference documentReference = this.documentReferenceResolver.resolve((String) row[1],
+                wikiReference);
+            entities.add(documentReference);
+            entities.add(documentReference.getLastSpaceReference());
+        }
+        return entities;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.health.checks.performance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xwiki.admintools.health.HealthCheck;
+import com.xwiki.admintools.internal.usage.DatabaseStatisticsProvider;
+import com.xwiki.admintools.internal.usage.wikiResult.TableStatistics;
+import com.xwiki.admintools.jobs.JobResult;
+import com.xwiki.admintools.jobs.JobResultLevel;
+
+/**
+ * Implementation of {@link HealthCheck} for checking if the database tables of the main wiki grow abnormally. A table
+ * is reported when it more than doubled since the stored baseline, or when most of its space is bloat. The baseline
+ * keeps the tables sizes and the time they were read in the permanent directory, so it survives restarts. The growth
+ * is only checked once the baseline is at least a day old, and the baseline is renewed after a month.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(DatabaseTablesHealthCheck.HINT)
+@Singleton
+public class DatabaseTablesHealthCheck implements HealthCheck
+{
+    /**
+     * Component identifier.
+     */
+    public static final String HINT = "databaseTables";
+
+    /**
+     * Tables smaller than this are never reported, since their growth doesn't matter.
+     */
+    private static final long MIN_REPORTED_SIZE = 100L * 1024 * 1024;
+
+    private static final double MAX_GROWTH_RATIO = 2;
+
+    private static final double MAX_BLOAT_RATIO = 0.5;
+
+    private static final long MIN_GROWTH_PERIOD = TimeUnit.DAYS.toMillis(1);
+
+    private static final long MAX_GROWTH_PERIOD = TimeUnit.DAYS.toMillis(30);
+
+    private static final String TIMESTAMP_KEY = "timestamp";
+
+    @Inject
+    private DatabaseStatisticsProvider databaseStatisticsProvider;
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private Provider<XWikiContext> wikiContextProvider;
+
+    @Inject
+    private Logger logger;
+
+    @Override
+    public JobResult check()
+    {
+        List<TableStatistics> tables;
+        try {
+            tables = databaseStatisticsProvider.getTablesStatistics(wikiContextProvider.get().getMainXWiki());
+        } catch (Exception e) {
+            logger.warn("Failed to retrieve the database tables statistics. Root cause is: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+            return new JobResult("adminTools.dashboard.healthcheck.database.tables.error", JobResultLevel.WARN);
+        }
+        if (tables.isEmpty()) {
+            return new JobResult("adminTools.dashboard.healthcheck.database.tables.unavailable",
+                JobResultLevel.INFO);
+        }
+        long now = System.currentTimeMillis();
+        Properties baseline = getBaseline(tables, now);
+        long baselineAge = now - Long.parseLong(baseline.getProperty(TIMESTAMP_KEY));
+        List<String> grownTables = new ArrayList<>();
+        List<String> bloatedTables = new ArrayList<>();
+        for (TableStatistics table : tables) {
+            long totalSize = table.getTotalSize();
+            if (totalSize < MIN_REPORTED_SIZE) {
+                continue;
+            }
+            long baselineSize = Long.parseLong(baseline.getProperty(table.getTableName(), "0"));
+            if (baselineAge >= MIN_GROWTH_PERIOD && baselineSize > 0 && totalSize > baselineSize * MAX_GROWTH_RATIO) {
+                grownTables.add(table.getTableName());
+            }
+            if (table.getBloatSize() > table.getTableSize() * MAX_BLOAT_RATIO) {
+                bloatedTables.add(table.getTableName());
+            }
+        }
+        if (!grownTables.isEmpty()) {
+            long days = TimeUnit.MILLISECONDS.toDays(baselineAge);
+            logger.warn("The database tables [{}] more than doubled in size in the last [{}] days.", grownTables,
+                days);
+            return new JobResult("adminTools.dashboard.healthcheck.database.tables.growth", JobResultLevel.WARN,
+                String.join(", ", grownTables), days);
+        }
+        if (!bloatedTables.isEmpty()) {
+            logger.warn("Most of the space of the database tables [{}] is unused.", bloatedTables);
+            return new JobResult("adminTools.dashboard.healthcheck.database.tables.bloat", JobResultLevel.WARN,
+                String.join(", ", bloatedTables));
+        }
+        return new JobResult("adminTools.dashboard.healthcheck.database.tables.info", JobResultLevel.INFO,
+            tables.get(0).getTableName(), tables.get(0).getReadableTotalSize());
+    }
+
+    /**
+     * Read the stored baseline. A new baseline is stored with the given tables sizes when there is none, when it can't
+     * be read or when it is older than a month.
+     */
+    private synchronized Properties getBaseline(List<TableStatistics> tables, long now)
+    {
+        Path file = getBaselineFile();
+        Properties baseline = new Properties();
+        if (Files.exists(file)) {
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                baseline.load(inputStream);
+                long timestamp = Long.parseLong(baseline.getProperty(TIMESTAMP_KEY));
+                if (now - timestamp < MAX_GROWTH_PERIOD) {
+                    return baseline;
+                }
+            } catch (IOException | NumberFormatException e) {
+                logger.warn("Failed to read the database tables baseline. Root cause is: [{}]",
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+        baseline = new Properties();
+        baseline.setProperty(TIMESTAMP_KEY, String.valueOf(now));
+        for (TableStatistics table : tables) {
+            baseline.setProperty(table.getTableName(), String.valueOf(table.getTotalSize()));
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream outputStream = Files.newOutputStream(file)) {
+                baseline.store(outputStream, null);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to store the database tables baseline. Root cause is: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+        return baseline;
+    }
+
+    private Path getBaselineFile()
+    {
+        return this.environment.getPermanentDirectory().toPath().resolve("adminTools")
+            .resolve("databaseTables.properties");
+    }
+}
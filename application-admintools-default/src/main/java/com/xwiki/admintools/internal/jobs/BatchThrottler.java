@@ -0,0 +1,110 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.jobs;
+
+/**
+ * Slow down a job that processes database rows in batches, so that it doesn't degrade the live wiki. The pause after
+ * each batch enforces a maximum number of rows per second and grows when the batches become noticeably slower than
+ * usual, which is a sign that the database is under load.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+public class BatchThrottler
+{
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private static final double LATENCY_TOLERANCE = 2;
+
+    private static final int MAX_BACKOFF = 16;
+
+    private final int maxRowsPerSecond;
+
+    private double averageLatency = -1;
+
+    private int backoff = 1;
+
+    /**
+     * Create a new throttler.
+     *
+     * @param maxRowsPerSecond the maximum number of rows processed per second, or a value lower than 1 for no limit
+     */
+    public BatchThrottler(int maxRowsPerSecond)
+    {
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    /**
+     * Pause the current thread after a batch was processed.
+     *
+     * @param rows the number of rows processed by the batch
+     * @param elapsedMillis the time it took to process the batch
+     * @throws InterruptedException if the thread is interrupted while paused
+     */
+    public void throttle(int rows, long elapsedMillis) throws InterruptedException
+    {
+        long pause = computePause(rows, elapsedMillis);
+        if (pause > 0) {
+            sleep(pause);
+        }
+    }
+
+    /**
+     * Compute the pause needed after a batch and update the latency statistics.
+     *
+     * @param rows the number of rows processed by the batch
+     * @param elapsedMillis the time it took to process the batch
+     * @return the pause, in milliseconds
+     */
+    public long computePause(int rows, long elapsedMillis)
+    {
+        long ratePause = 0;
+        if (this.maxRowsPerSecond > 0) {
+            ratePause = Math.max(0, rows * 1000L / this.maxRowsPerSecond - elapsedMillis);
+        }
+
+        if (this.averageLatency < 0) {
+            this.averageLatency = elapsedMillis;
+        } else {
+            if (elapsedMillis > this.averageLatency * LATENCY_TOLERANCE) {
+                this.backoff = Math.min(this.backoff * 2, MAX_BACKOFF);
+            } else if (this.backoff > 1) {
+                this.backoff /= 2;
+            }
+            this.averageLatency =
+                (1 - LATENCY_SMOOTHING) * this.averageLatency + LATENCY_SMOOTHING * elapsedMillis;
+        }
+
+        return ratePause + (this.backoff - 1) * elapsedMillis;
+    }
+
+    /**
+     * @return the current back-off factor, {@code 1} meaning that no back-off is applied
+     */
+    public int getBackoff()
+    {
+        return this.backoff;
+    }
+
+    protected void sleep(long millis) throws InterruptedException
+    {
+        Thread.sleep(millis);
+    }
+}
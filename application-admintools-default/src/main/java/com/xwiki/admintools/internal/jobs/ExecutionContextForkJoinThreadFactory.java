@@ -0,0 +1,97 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.jobs;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextException;
+import org.xwiki.context.ExecutionContextManager;
+
+/**
+ * Create the worker threads of a {@link ForkJoinPool} used by a job, each worker having its own execution context for
+ * as long as it lives, so that the tasks it runs can access the wiki.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+public class ExecutionContextForkJoinThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory
+{
+    private final ExecutionContextManager executionContextManager;
+
+    private final Execution execution;
+
+    private final String namePrefix;
+
+    /**
+     * Create a new thread factory.
+     *
+     * @param executionContextManager the manager used to initialize the execution context of each worker
+     * @param execution the execution from which the context of each worker is removed when it terminates
+     * @param namePrefix the prefix of the workers names
+     */
+    public ExecutionContextForkJoinThreadFactory(ExecutionContextManager executionContextManager,
+        Execution execution, String namePrefix)
+    {
+        this.executionContextManager = executionContextManager;
+        this.execution = execution;
+        this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+    {
+        ForkJoinWorkerThread thread = new ContextWorkerThread(pool);
+        thread.setName(this.namePrefix + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private final class ContextWorkerThread extends ForkJoinWorkerThread
+    {
+        ContextWorkerThread(ForkJoinPool pool)
+        {
+            super(pool);
+        }
+
+        @Override
+        protected void onStart()
+        {
+            super.onStart();
+            try {
+                executionContextManager.initialize(new ExecutionContext());
+            } catch (ExecutionContextException e) {
+                throw new IllegalStateException("Failed to initialize the execution context of a worker.", e);
+            }
+        }
+
+        @Override
+        protected void onTermination(Throwable exception)
+        {
+            try {
+                execution.removeContext();
+            } finally {
+                super.onTermination(exception);
+            }
+        }
+    }
+}
@@ -22,6 +22,9 @@ package com.xwiki.admintools.internal.rest;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +40,8 @@ import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.job.Job;
 import org.xwiki.job.JobExecutor;
+import org.xwiki.job.JobStatusStore;
+import org.xwiki.job.event.status.JobStatus;
 import org.xwiki.rest.internal.resources.pages.ModifiablePageResource;
 import org.xwiki.security.authorization.AccessDeniedException;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
@@ -46,11 +51,13 @@ import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.web.XWikiRequest;
 import com.xwiki.admintools.internal.files.ImportantFilesManager;
+import com.xwiki.admintools.internal.health.cache.SecurityCacheInspector;
 import com.xwiki.admintools.internal.health.cache.data.CacheDataFlusher;
 import com.xwiki.admintools.internal.uploadJob.UploadJob;
 import com.xwiki.admintools.jobs.JobResult;
 import com.xwiki.admintools.jobs.JobResultLevel;
 import com.xwiki.admintools.jobs.PackageUploadJobRequest;
+import com.xwiki.admintools.jobs.RightsMatrixJobStatus;
 import com.xwiki.admintools.rest.AdminToolsResource;
 
 /**
@@ -83,6 +90,12 @@ public class DefaultAdminToolsResource extends ModifiablePageResource implements
     @Inject
     private CacheDataFlusher cacheDataFlusher;
 
+    @Inject
+    private JobStatusStore jobStatusStore;
+
+    @Inject
+    private SecurityCacheInspector securityCacheInspector;
+
     @Override
     public Response getFile(String hint)
     {
@@ -217,4 +230,53 @@ public class DefaultAdminToolsResource extends ModifiablePageResource implements
             throw new WebApplicationException(Response.Status.INTERNAL_SERVER_ERROR);
         }
     }
+
+    @Override
+    public Response getRightsMatrix()
+    {
+        try {
+            this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+            List<String> jobId = List.of("adminTools", "rightsMatrix");
+            Job job = this.jobExecutor.getJob(jobId);
+            JobStatus jobStatus = job != null ? job.getStatus() : this.jobStatusStore.getJobStatus(jobId);
+            if (!(jobStatus instanceof RightsMatrixJobStatus) || jobStatus.getState() != JobStatus.State.FINISHED
+                || ((RightsMatrixJobStatus) jobStatus).getMatrixFile() == null)
+            {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            // The job is shared by the whole instance, so the matrix may have been computed for another wiki.
+            RightsMatrixJobStatus matrixStatus = (RightsMatrixJobStatus) jobStatus;
+            this.contextualAuthorizationManager.checkAccess(Right.ADMIN,
+                matrixStatus.getRequest().getSpaceReference().getWikiReference());
+            Path matrixFile = Paths.get(matrixStatus.getMatrixFile());
+            if (!Files.isRegularFile(matrixFile)) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            // The matrix can be large, so it is streamed from the file instead of being read in memory.
+            return Response.ok(Files.newInputStream(matrixFile)).type("text/csv")
+                .header("Content-Disposition", "attachment; filename=rightsMatrix.csv").build();
+        } catch (AccessDeniedException deniedException) {
+            logger.warn("Failed to get the rights matrix due to restricted rights.");
+            throw new WebApplicationException(Response.Status.UNAUTHORIZED);
+        } catch (Exception e) {
+            logger.warn("Failed to get the rights matrix. Root cause: [{}]", ExceptionUtils.getRootCauseMessage(e));
+            throw new WebApplicationException(Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    public Response getSecurityCacheStatistics()
+    {
+        try {
+            this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+            return Response.ok(securityCacheInspector.getStatistics()).type(MediaType.APPLICATION_JSON_TYPE).build();
+        } catch (AccessDeniedException deniedException) {
+            logger.warn("Failed to get the security cache statistics due to restricted rights.");
+            throw new WebApplicationException(Response.Status.UNAUTHORIZED);
+        } catch (Exception e) {
+            logger.warn("Failed to get the security cache statistics. Root cause: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+            throw new WebApplicationException(Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
@@ -100,8 +100,24 @@ public abstract class AbstractRightsProvider
      */
     public List<RightsResult> applySort(Set<RightsResult> list, String sortColumn, String order)
     {
-        Comparator<RightsResult> comparator = null;
+        Comparator<RightsResult> comparator = getComparator(sortColumn, order);
         List<RightsResult> unsortedList = new ArrayList<>(list);
+        if (comparator != null) {
+            unsortedList.sort(comparator);
+        }
+        return unsortedList;
+    }
+
+    /**
+     * Get the {@link Comparator} sorting the {@link RightsResult} over a given column and in a given order.
+     *
+     * @param sortColumn the column after which to be sorted.
+     * @param order the sort oder.
+     * @return the {@link Comparator} for the given column, or {@code null} if the column is not sortable.
+     */
+    protected Comparator<RightsResult> getComparator(String sortColumn, String order)
+    {
+        Comparator<RightsResult> comparator = null;
         switch (sortColumn) {
             case POLICY_KEY:
                 comparator = Comparator.comparing(RightsResult::getPolicy);
@@ -124,12 +140,9 @@ public abstract class AbstractRightsProvider
             default:
                 break;
         }
-        if (comparator != null) {
-            if (DESCENDING_ORDER.equals(order)) {
-                comparator = comparator.reversed();
-            }
-            unsortedList.sort(comparator);
+        if (comparator != null && DESCENDING_ORDER.equals(order)) {
+            comparator = comparator.reversed();
         }
-        return unsortedList;
+        return comparator;
     }
 }
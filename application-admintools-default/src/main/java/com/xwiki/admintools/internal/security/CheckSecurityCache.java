@@ -21,6 +21,7 @@ package com.xwiki.admintools.internal.security;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +44,7 @@ import org.xwiki.security.SecurityReference;
 import org.xwiki.security.SecurityReferenceFactory;
 import org.xwiki.security.UserSecurityReference;
 import org.xwiki.security.authorization.AuthorizationException;
+import org.xwiki.security.authorization.ReadableSecurityRule;
 import org.xwiki.security.authorization.Right;
 import org.xwiki.security.authorization.SecurityAccessEntry;
 import org.xwiki.security.authorization.SecurityEntryReader;
@@ -68,6 +70,14 @@ public class CheckSecurityCache
 
     private static final String NULL_VALUE = "null";
 
+    private static final String GUEST_USER = "XWikiGuest";
+
+    private static final String USERS = "Users";
+
+    private static final String GROUPS = "Groups";
+
+    private static final Pattern RULE_USERS_GROUPS_PATTERN = Pattern.compile("(Users|Groups)=\\[(.*?)\\](?=,[A-Z]|$)");
+
     @Inject
     protected Provider<XWikiContext> xcontextProvider;
 
@@ -119,7 +129,8 @@ public class CheckSecurityCache
     }
 
     /**
-     * Extract the users and groups from the given {@link SecurityRule}.
+     * Extract the users and groups from the given {@link SecurityRule}. The rules that expose their users and groups
+     * are read directly, while the others are parsed from their string representation.
      *
      * @param input the rule from which to extract the data.
      * @return a {@link Map} with the 'Users' and 'Groups' as keys and the extracted info from the rule as values.
@@ -127,17 +138,40 @@ public class CheckSecurityCache
     public Map<String, String> extractRuleUsersGroups(SecurityRule input)
     {
         Map<String, String> keyValuePairs = new LinkedHashMap<>();
-        Pattern pattern = Pattern.compile("(Users|Groups)=\\[(.*?)\\](?=,[A-Z]|$)");
-        Matcher matcher = pattern.matcher(input.toString().replace(" ", ""));
+        if (input instanceof ReadableSecurityRule) {
+            ReadableSecurityRule readableRule = (ReadableSecurityRule) input;
+            keyValuePairs.put(USERS, joinReferences(readableRule.getUsers()));
+            keyValuePairs.put(GROUPS, joinReferences(readableRule.getGroups()));
+            return keyValuePairs;
+        }
+        keyValuePairs.put(USERS, "");
+        keyValuePairs.put(GROUPS, "");
+        Matcher matcher = RULE_USERS_GROUPS_PATTERN.matcher(input.toString().replace(" ", ""));
         while (matcher.find()) {
             String key = matcher.group(1);
             String rawValue = matcher.group(2);
-            String value = !rawValue.contains(NULL_VALUE) ? rawValue : rawValue.replace(NULL_VALUE, "XWikiGuest");
+            String value = !rawValue.contains(NULL_VALUE) ? rawValue : rawValue.replace(NULL_VALUE, GUEST_USER);
             keyValuePairs.put(key, value);
         }
         return keyValuePairs;
     }
 
+    private String joinReferences(Collection<DocumentReference> references)
+    {
+        if (references == null || references.isEmpty()) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (DocumentReference reference : references) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            // A null user stands for the guest user.
+            builder.append(reference != null ? reference.toString() : GUEST_USER);
+        }
+        return builder.toString();
+    }
+
     private void addSecurityRules(EntityReference docRef, UserSecurityReference userSecurityRef,
         List<SecurityAccessEntry> cachedAccessEntries, List<SecurityRuleEntry> cachedRuleEntries,
         List<SecurityRuleEntry> ruleEntries) throws AuthorizationException
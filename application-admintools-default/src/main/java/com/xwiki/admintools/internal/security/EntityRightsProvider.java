@@ -20,11 +20,17 @@
 package com.xwiki.admintools.internal.security;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -38,6 +44,7 @@ import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.LocalDocumentReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
@@ -45,12 +52,12 @@ import org.xwiki.query.QueryManager;
 import org.xwiki.query.SecureQuery;
 import org.xwiki.search.solr.SolrUtils;
 
-import com.xpn.xwiki.XWiki;
-import com.xpn.xwiki.XWikiContext;
-import com.xpn.xwiki.XWikiException;
-import com.xpn.xwiki.doc.XWikiDocument;
-import com.xpn.xwiki.objects.BaseObject;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xwiki.admintools.internal.usage.metadataExtractor.RightsSolrEntityMetadataExtractor;
 import com.xwiki.admintools.security.RightsResult;
+import com.xwiki.admintools.security.RightsResultsPage;
 
 /**
  * Retrieve data about the allowed/denied rights for a certain entity type.
@@ -76,6 +83,31 @@ public class EntityRightsProvider extends AbstractRightsProvider
 
     private static final String WIKI_KEY = "wikiName";
 
+    private static final String CURSOR_MARK_START = "*";
+
+    private static final int BATCH_SIZE = 200;
+
+    private static final int LEGACY_LIMIT = 200;
+
+    private static final String LEVELS_PROPERTY = "levels";
+
+    private static final String ALLOW_PROPERTY = "allow";
+
+    // The users and groups properties of the rights classes are large strings and the allow property is an integer, so
+    // each one is read from its own table.
+    private static final String RIGHTS_OBJECTS_STATEMENT = "select obj.name, obj.number, entities.value, "
+        + "levels.value, allow.value from BaseObject obj, LargeStringProperty entities, LargeStringProperty levels, "
+        + "IntegerProperty allow where obj.className = :className and obj.name in (:documents) "
+        + "and entities.id.id = obj.id and entities.id.name = :entityType and levels.id.id = obj.id "
+        + "and levels.id.name = :levels and allow.id.id = obj.id and allow.id.name = :allow "
+        + "order by obj.name, obj.number";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, String>> INDEXED_OBJECT_TYPE = new TypeReference<>()
+    {
+    };
+
     private static final LocalDocumentReference GLOBAL_RIGHTS_CLASS =
         new LocalDocumentReference(XWIKI, "XWikiGlobalRights");
 
@@ -88,13 +120,23 @@ public class EntityRightsProvider extends AbstractRightsProvider
     @Named("secure")
     private QueryManager secureQueryManager;
 
+    @Inject
+    private QueryManager queryManager;
+
     @Inject
     private SolrUtils solrUtils;
 
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
     @Inject
     @Named("current")
     private DocumentReferenceResolver<String> documentReferenceResolver;
 
+    @Inject
+    private UserDisplayNameCache userDisplayNameCache;
+
     @Inject
     private Logger logger;
 
@@ -105,34 +147,58 @@ public class EntityRightsProvider extends AbstractRightsProvider
      * @param sortColumn the column used for sorting.
      * @param order the sorting order (asc or desc).
      * @param entityType the type of entity for which rights are retrieved.
-     * @return a filtered and sorted {@link List} of {@link RightsResult}.
+     * @return the first 200 entries of the filtered and sorted {@link List} of {@link RightsResult}.
+     * @deprecated since 1.4.1, use {@link #getEntityRights(Map, String, String, String, int, int)} instead, which
+     *     returns any page of the entries and their total number
      */
+    @Deprecated
     public List<RightsResult> getEntityRights(Map<String, String> filters, String sortColumn, String order,
         String entityType)
+    {
+        return getEntityRights(filters, sortColumn, order, entityType, 0, LEGACY_LIMIT).getResults();
+    }
+
+    /**
+     * Retrieves a page of the filtered and sorted {@link RightsResult} representing the rights for the given
+     * parameters. All the matching documents are streamed from Solr with cursor paging, but only the entries up to the
+     * end of the requested page are kept in memory.
+     *
+     * @param filters a map of filters to apply.
+     * @param sortColumn the column used for sorting.
+     * @param order the sorting order (asc or desc).
+     * @param entityType the type of entity for which rights are retrieved.
+     * @param offset the index of the first entry of the page.
+     * @param limit the maximum number of entries of the page.
+     * @return a {@link RightsResultsPage} with the sorted entries of the page and the exact number of matching
+     *     entries.
+     */
+    public RightsResultsPage getEntityRights(Map<String, String> filters, String sortColumn, String order,
+        String entityType, int offset, int limit)
     {
         try {
             String rightsType = filters.get(TYPE_KEY);
             logger.info("Getting the rights for entity [{}] and type [{}].", entityType, rightsType);
-            Set<RightsResult> rightsResults = new HashSet<>();
+            RightsResultsCollector collector =
+                new RightsResultsCollector(getComparator(sortColumn, order), offset, limit);
             switch (rightsType == null ? "" : rightsType) {
                 // We check the rights set in the wiki administration.
                 case GLOBAL_TYPE:
-                    addGlobalRights(rightsResults, filters, entityType);
+                    addGlobalRights(collector, filters, entityType);
                     break;
                 case SPACE_TYPE:
-                    addRights(rightsResults, filters, GLOBAL_RIGHTS_CLASS, SPACE_TYPE, entityType);
+                    addRights(collector, filters, GLOBAL_RIGHTS_CLASS, SPACE_TYPE, entityType);
                     break;
                 case PAGE_TYPE:
-                    addRights(rightsResults, filters, DOCUMENT_RIGHTS_CLASS, PAGE_TYPE, entityType);
+                    addRights(collector, filters, DOCUMENT_RIGHTS_CLASS, PAGE_TYPE, entityType);
                     break;
                 default:
-                    addGlobalRights(rightsResults, filters, entityType);
-                    addRights(rightsResults, filters, GLOBAL_RIGHTS_CLASS, SPACE_TYPE, entityType);
-                    addRights(rightsResults, filters, DOCUMENT_RIGHTS_CLASS, PAGE_TYPE, entityType);
+                    addGlobalRights(collector, filters, entityType);
+                    addRights(collector, filters, GLOBAL_RIGHTS_CLASS, SPACE_TYPE, entityType);
+                    addRights(collector, filters, DOCUMENT_RIGHTS_CLASS, PAGE_TYPE, entityType);
                     break;
             }
 
-            return applySort(rightsResults, sortColumn, order);
+            return collector.getPage();
         } catch (Exception e) {
             logger.error("There was an error while processing the rights for entity [{}]: [{}]", entityType,
                 ExceptionUtils.getRootCauseMessage(e));
@@ -140,8 +206,8 @@ public class EntityRightsProvider extends AbstractRightsProvider
         }
     }
 
-    private void addGlobalRights(Set<RightsResult> rightsResults, Map<String, String> filters, String entityType)
-        throws XWikiException
+    private void addGlobalRights(Consumer<RightsResult> rightsResults, Map<String, String> filters, String entityType)
+        throws QueryException
     {
         String wikiName = filters.get(WIKI_KEY);
         String docName = filters.get(DOCUMENT_KEY);
@@ -153,8 +219,8 @@ public class EntityRightsProvider extends AbstractRightsProvider
         boolean spaceMatches = isMatchingIgnoreCase(space, docReference.getLastSpaceReference().getName());
 
         if (docNameMatches && spaceMatches) {
-            processDocumentRightsObjects(rightsResults, filters, GLOBAL_TYPE, docReference, GLOBAL_RIGHTS_CLASS,
-                entityType);
+            processDocumentRightsObjects(rightsResults, filters, GLOBAL_TYPE, List.of(docReference),
+                GLOBAL_RIGHTS_CLASS, entityType);
         }
     }
 
@@ -177,52 +243,167 @@ public class EntityRightsProvider extends AbstractRightsProvider
         return filter == null || filter.isEmpty() || targetValue.toLowerCase().contains(filter.toLowerCase());
     }
 
-    private void addRights(Set<RightsResult> rightsResults, Map<String, String> filters,
-        LocalDocumentReference rightsClassReference, String type, String entityType)
-        throws QueryException, XWikiException
+    private void addRights(Consumer<RightsResult> rightsResults, Map<String, String> filters,
+        LocalDocumentReference rightsClassReference, String type, String entityType) throws QueryException
     {
-        SolrDocumentList solrDocuments =
-            getRightsForWiki(filters.get(DOCUMENT_KEY), filters.get(SPACE_KEY), filters.get(WIKI_KEY), type,
-                rightsClassReference);
+        String rightsField = getRightsField(rightsClassReference);
+        List<String> filterStatements =
+            getFilterStatements(filters.get(DOCUMENT_KEY), filters.get(SPACE_KEY), filters.get(WIKI_KEY), type);
+        // The documents are streamed from Solr with cursor paging, so only one batch of documents is held in memory.
+        // Only the references of the processed documents are kept, to skip the other locales of the same documents.
+        Set<DocumentReference> processedDocuments = new HashSet<>();
+        String cursorMark = CURSOR_MARK_START;
+        while (true) {
+            QueryResponse response = getRightsForWiki(filterStatements, rightsClassReference, rightsField, cursorMark);
+            addRightsBatch(rightsResults, filters, response.getResults(), processedDocuments, rightsClassReference,
+                type, entityType);
+            String nextCursorMark = response.getNextCursorMark();
+            // Solr returns the same cursor mark when there are no more results.
+            if (nextCursorMark == null || cursorMark.equals(nextCursorMark)) {
+                break;
+            }
+            cursorMark = nextCursorMark;
+        }
+    }
+
+    private void addRightsBatch(Consumer<RightsResult> rightsResults, Map<String, String> filters,
+        SolrDocumentList solrDocuments, Set<DocumentReference> processedDocuments,
+        LocalDocumentReference rightsClassReference, String type, String entityType) throws QueryException
+    {
+        String rightsField = getRightsField(rightsClassReference);
+        // The rights objects are read from the Solr index when the documents were indexed with the rights extractor.
+        // Only the documents indexed before the extractor was installed fall back to reading the rights objects from
+        // the database.
+        List<RightsObject> rightsObjects = new ArrayList<>();
+        List<DocumentReference> notIndexedDocuments = new ArrayList<>();
+        int processedCount = 0;
         for (SolrDocument solrDocument : solrDocuments) {
-            DocumentReference docRef = solrDocumentReferenceResolver.resolve(solrDocument);
-            processDocumentRightsObjects(rightsResults, filters, type, docRef, rightsClassReference, entityType);
-        }
-    }
-
-    private void processDocumentRightsObjects(Set<RightsResult> rightsResults, Map<String, String> filters, String type,
-        DocumentReference docReference, LocalDocumentReference rightsClassReference, String entityType)
-        throws XWikiException
-    {
-        XWikiContext wikiContext = xcontextProvider.get();
-        XWiki wiki = wikiContext.getWiki();
-        XWikiDocument document = wiki.getDocument(docReference, wikiContext);
-        logger.info("Getting rights from document [{}] and rights class [{}], for entity [{}].",
-            document.getDocumentReference(), rightsClassReference, entityType);
-        for (BaseObject object : document.getXObjects(rightsClassReference)) {
-            if (object != null) {
-                String entity = object.get(entityType).toFormString();
-                String entityFilter = filters.get("entity");
-                if (entity.isEmpty() || entityFilter != null && !entityFilter.isEmpty() && !wiki.getUserName(entity,
-                    null, false, wikiContext).trim().toLowerCase().contains(entityFilter.toLowerCase()))
-                {
-                    continue;
-                }
-                RightsResult result = new RightsResult(type);
-                result.setSpace(document.getDocumentReference().getLastSpaceReference().getName());
-                result.setEntity(documentReferenceResolver.resolve(entity).toString());
-                result.setLevel(object.get("levels").toFormString());
-                result.setDocReference(document.getDocumentReference());
-                result.setPolicy(object.get("allow").toFormString().equals("1") ? "Allowed" : "Denied");
-                if (checkFilters(filters, result)) {
-                    rightsResults.add(result);
-                }
+            // The translations of a document share its rights objects, so each document is processed only once,
+            // whatever batch its locales are returned in.
+            DocumentReference documentReference =
+                new DocumentReference(solrDocumentReferenceResolver.resolve(solrDocument), (Locale) null);
+            if (!processedDocuments.add(documentReference)) {
+                continue;
+            }
+            processedCount++;
+            Collection<Object> indexedObjects = solrDocument.getFieldValues(rightsField);
+            if (indexedObjects == null || indexedObjects.isEmpty()
+                || !addIndexedRightsObjects(rightsObjects, documentReference, indexedObjects))
+            {
+                notIndexedDocuments.add(documentReference);
+            }
+        }
+        logger.info("Read the rights of [{}] documents from the Solr index and of [{}] documents from the database.",
+            processedCount - notIndexedDocuments.size(), notIndexedDocuments.size());
+        addRightsResults(rightsResults, filters, type, rightsObjects, entityType);
+        processDocumentRightsObjects(rightsResults, filters, type, notIndexedDocuments, rightsClassReference,
+            entityType);
+    }
+
+    private String getRightsField(LocalDocumentReference rightsClassReference)
+    {
+        return GLOBAL_RIGHTS_CLASS.equals(rightsClassReference) ? RightsSolrEntityMetadataExtractor.GLOBAL_RIGHTS_FIELD
+            : RightsSolrEntityMetadataExtractor.RIGHTS_FIELD;
+    }
+
+    private boolean addIndexedRightsObjects(List<RightsObject> rightsObjects, DocumentReference documentReference,
+        Collection<Object> indexedObjects)
+    {
+        List<RightsObject> documentObjects = new ArrayList<>(indexedObjects.size());
+        for (Object indexedObject : indexedObjects) {
+            try {
+                RightsObject object = new RightsObject(documentReference);
+                object.values.putAll(OBJECT_MAPPER.readValue((String) indexedObject, INDEXED_OBJECT_TYPE));
+                documentObjects.add(object);
+            } catch (JsonProcessingException e) {
+                logger.warn("Failed to read the indexed rights of document [{}]. Root cause is: [{}]",
+                    documentReference, ExceptionUtils.getRootCauseMessage(e));
+                return false;
+            }
+        }
+        rightsObjects.addAll(documentObjects);
+        return true;
+    }
+
+    private void processDocumentRightsObjects(Consumer<RightsResult> rightsResults, Map<String, String> filters,
+        String type, List<DocumentReference> documentReferences, LocalDocumentReference rightsClassReference,
+        String entityType) throws QueryException
+    {
+        // The rights objects of all the documents of a wiki are read with a single query, instead of loading each
+        // document.
+        Map<String, List<DocumentReference>> documentsByWiki = new LinkedHashMap<>();
+        for (DocumentReference documentReference : documentReferences) {
+            documentsByWiki.computeIfAbsent(documentReference.getWikiReference().getName(), key -> new ArrayList<>())
+                .add(documentReference);
+        }
+        for (Map.Entry<String, List<DocumentReference>> wikiDocuments : documentsByWiki.entrySet()) {
+            logger.info("Getting rights from [{}] documents of wiki [{}] and rights class [{}], for entity [{}].",
+                wikiDocuments.getValue().size(), wikiDocuments.getKey(), rightsClassReference, entityType);
+            addRightsResults(rightsResults, filters, type,
+                getRightsObjects(wikiDocuments.getKey(), wikiDocuments.getValue(), rightsClassReference, entityType),
+                entityType);
+        }
+    }
+
+    private void addRightsResults(Consumer<RightsResult> rightsResults, Map<String, String> filters, String type,
+        Collection<RightsObject> rightsObjects, String entityType)
+    {
+        // A document can hold the same rights object more than once. The objects of a document are always processed
+        // together, so the duplicates are removed per batch instead of keeping every entry of the request.
+        Set<RightsResult> batchResults = new HashSet<>();
+        // The filters are applied here rather than in Solr: the entity filter matches the display names, the level
+        // and policy filters must hold for a single rights object, and the documents that were not indexed with the
+        // rights extractor would be filtered out.
+        for (RightsObject object : rightsObjects) {
+            String entity = object.getValue(entityType);
+            if (entity.isEmpty() || !isMatchingEntity(filters.get(ENTITY_KEY), entity)) {
+                continue;
+            }
+            RightsResult result = new RightsResult(type);
+            result.setSpace(object.documentReference.getLastSpaceReference().getName());
+            result.setEntity(documentReferenceResolver.resolve(entity).toString());
+            result.setLevel(object.getValue(LEVELS_PROPERTY));
+            result.setDocReference(object.documentReference);
+            result.setPolicy(object.getValue(ALLOW_PROPERTY).equals("1") ? "Allowed" : "Denied");
+            if (checkFilters(filters, result) && batchResults.add(result)) {
+                rightsResults.accept(result);
             }
         }
     }
 
-    private SolrDocumentList getRightsForWiki(String searchedDocument, String searchedSpace, String wikiName,
-        String type, LocalDocumentReference rightsClass) throws QueryException
+    private boolean isMatchingEntity(String entityFilter, String entity)
+    {
+        if (entityFilter == null || entityFilter.isEmpty()) {
+            return true;
+        }
+        return userDisplayNameCache.getSearchKey(entity).contains(entityFilter.toLowerCase());
+    }
+
+    private Collection<RightsObject> getRightsObjects(String wikiId, List<DocumentReference> documentReferences,
+        LocalDocumentReference rightsClassReference, String entityType) throws QueryException
+    {
+        Map<String, DocumentReference> documentsByName = new HashMap<>();
+        for (DocumentReference documentReference : documentReferences) {
+            documentsByName.put(localSerializer.serialize(documentReference), documentReference);
+        }
+        List<Object[]> rows = this.queryManager.createQuery(RIGHTS_OBJECTS_STATEMENT, Query.HQL)
+            .bindValue("className", rightsClassReference.toString())
+            .bindValue("documents", new ArrayList<>(documentsByName.keySet())).bindValue("entityType", entityType)
+            .bindValue(LEVELS_PROPERTY, LEVELS_PROPERTY).bindValue(ALLOW_PROPERTY, ALLOW_PROPERTY).setWiki(wikiId)
+            .execute();
+        List<RightsObject> objects = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            RightsObject object = new RightsObject(documentsByName.get((String) row[0]));
+            object.values.put(entityType, Objects.toString(row[2], ""));
+            object.values.put(LEVELS_PROPERTY, Objects.toString(row[3], ""));
+            object.values.put(ALLOW_PROPERTY, Objects.toString(row[4], ""));
+            objects.add(object);
+        }
+        return objects;
+    }
+
+    private List<String> getFilterStatements(String searchedDocument, String searchedSpace, String wikiName,
+        String type)
     {
         List<String> filterStatements = new ArrayList<>();
         if (searchedDocument != null && !searchedDocument.isEmpty()) {
@@ -231,12 +412,6 @@ public class EntityRightsProvider extends AbstractRightsProvider
         if (searchedSpace != null && !searchedSpace.isEmpty()) {
             filterStatements.add(String.format("spaces:%s*", solrUtils.toCompleteFilterQueryString(searchedSpace)));
         }
-        Query query =
-            this.secureQueryManager.createQuery(String.format("type:DOCUMENT AND object:%s", rightsClass), "solr");
-        if (query instanceof SecureQuery) {
-            ((SecureQuery) query).checkCurrentAuthor(true);
-            ((SecureQuery) query).checkCurrentUser(true);
-        }
         // The XWikiServer document has a name format of "XWikiServer<wiki ID>". To select the wiki ID, we
         // have to remove the first part of the name and set it to lowercase, as wiki IDs are always in lowercase.
         String searchedWikiID = Optional.ofNullable(wikiName).filter(wiki -> !wiki.isEmpty() && !SEPARATOR.equals(wiki))
@@ -244,9 +419,41 @@ public class EntityRightsProvider extends AbstractRightsProvider
             .orElseGet(() -> xcontextProvider.get().getWikiId());
         filterStatements.add(String.format("wiki:%s", solrUtils.toCompleteFilterQueryString(searchedWikiID)));
         filterStatements.add(type.equals(SPACE_TYPE) ? "-name:XWikiPreferences" : "hidden:false");
-        query.bindValue("fl", "title_, reference, wiki, name, spaces");
+        return filterStatements;
+    }
+
+    private QueryResponse getRightsForWiki(List<String> filterStatements, LocalDocumentReference rightsClass,
+        String rightsField, String cursorMark) throws QueryException
+    {
+        Query query =
+            this.secureQueryManager.createQuery(String.format("type:DOCUMENT AND object:%s", rightsClass), "solr");
+        if (query instanceof SecureQuery) {
+            ((SecureQuery) query).checkCurrentAuthor(true);
+            ((SecureQuery) query).checkCurrentUser(true);
+        }
+        query.bindValue("fl", String.format("title_, reference, wiki, name, spaces, %s", rightsField));
         query.bindValue("fq", filterStatements);
-        query.setLimit(200);
-        return ((QueryResponse) query.execute().get(0)).getResults();
+        // Cursor paging requires a sort on the unique key.
+        query.bindValue("sort", "id asc");
+        query.bindValue("cursorMark", cursorMark);
+        query.setLimit(BATCH_SIZE);
+        return (QueryResponse) query.execute().get(0);
+    }
+
+    private static final class RightsObject
+    {
+        private final DocumentReference documentReference;
+
+        private final Map<String, String> values = new HashMap<>();
+
+        RightsObject(DocumentReference documentReference)
+        {
+            this.documentReference = documentReference;
+        }
+
+        String getValue(String propertyName)
+        {
+            return values.getOrDefault(propertyName, "");
+        }
     }
 }
@@ -0,0 +1,108 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.security;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+import com.xwiki.admintools.security.RightsResult;
+import com.xwiki.admintools.security.RightsResultsPage;
+
+/**
+ * Collect the rights entries of a request while they are streamed from the Solr index. Only the best entries up to the
+ * end of the requested page are kept in memory, in a heap bounded by {@code offset + limit}, while all the entries are
+ * counted to report the exact total.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+class RightsResultsCollector implements Consumer<RightsResult>
+{
+    /**
+     * Entries that are equal for the sorted column are ordered by their other fields, so that consecutive pages of the
+     * same request don't overlap.
+     */
+    private static final Comparator<RightsResult> TIE_BREAKER =
+        Comparator.comparing(RightsResult::getDocReference).thenComparing(RightsResult::getEntity)
+            .thenComparing(RightsResult::getLevel).thenComparing(RightsResult::getPolicy);
+
+    private final Comparator<RightsResult> comparator;
+
+    private final int offset;
+
+    private final int capacity;
+
+    private final PriorityQueue<RightsResult> sortedEntries;
+
+    private final List<RightsResult> unsortedEntries = new ArrayList<>();
+
+    private long total;
+
+    /**
+     * Initialise a collector for a page of rights entries.
+     *
+     * @param comparator the order of the entries, or {@code null} to keep them in the order they were collected.
+     * @param offset the index of the first entry of the page.
+     * @param limit the maximum number of entries of the page.
+     */
+    RightsResultsCollector(Comparator<RightsResult> comparator, int offset, int limit)
+    {
+        this.comparator = comparator != null ? comparator.thenComparing(TIE_BREAKER) : null;
+        this.offset = Math.max(offset, 0);
+        this.capacity = (int) Math.min((long) this.offset + Math.max(limit, 0), Integer.MAX_VALUE);
+        // The head of the heap is the worst entry kept, so that it can be replaced by a better one in constant time.
+        this.sortedEntries = this.comparator != null ? new PriorityQueue<>(this.comparator.reversed()) : null;
+    }
+
+    @Override
+    public void accept(RightsResult result)
+    {
+        total++;
+        if (sortedEntries == null) {
+            if (unsortedEntries.size() < capacity) {
+                unsortedEntries.add(result);
+            }
+        } else if (sortedEntries.size() < capacity) {
+            sortedEntries.add(result);
+        } else if (capacity > 0 && comparator.compare(result, sortedEntries.peek()) < 0) {
+            sortedEntries.poll();
+            sortedEntries.add(result);
+        }
+    }
+
+    /**
+     * Get the requested page from the collected entries.
+     *
+     * @return the {@link RightsResultsPage} with the sorted entries of the page and the total number of entries.
+     */
+    RightsResultsPage getPage()
+    {
+        List<RightsResult> entries = unsortedEntries;
+        if (sortedEntries != null) {
+            entries = new ArrayList<>(sortedEntries);
+            entries.sort(comparator);
+        }
+        List<RightsResult> page = new ArrayList<>(entries.subList(Math.min(offset, entries.size()), entries.size()));
+        return new RightsResultsPage(page, total);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.security;
+
+import java.util.Locale;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+
+import com.xpn.xwiki.XWikiContext;
+
+/**
+ * Keep the display names of the users and groups that are shown or filtered in the rights reports. Rendering a display
+ * name can load the profile document of the user, so the names are kept in a bounded cache shared by all the reports,
+ * together with the lower case key used to search them. The entries are removed by
+ * {@link UserDisplayNameCacheListener} when the profile document of a user or group changes.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = UserDisplayNameCache.class)
+@Singleton
+public class UserDisplayNameCache implements Initializable, Disposable
+{
+    private static final String CACHE_ID = "admintools.security.userDisplayNames";
+
+    private static final int CACHE_CAPACITY = 10000;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    private Cache<DisplayName> cache;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager.createNewCache(new LRUCacheConfiguration(CACHE_ID, CACHE_CAPACITY));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the user display names cache.", e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.cache.dispose();
+    }
+
+    /**
+     * Get the display name of a user or group.
+     *
+     * @param entity the reference of the user or group, resolved relative to the current wiki.
+     * @return the display name of the user or group.
+     */
+    public String getDisplayName(String entity)
+    {
+        return get(entity).name;
+    }
+
+    /**
+     * Get the lower case display name of a user or group, to be matched against a search filter.
+     *
+     * @param entity the reference of the user or group, resolved relative to the current wiki.
+     * @return the lower case display name of the user or group.
+     */
+    public String getSearchKey(String entity)
+    {
+        return get(entity).searchKey;
+    }
+
+    /**
+     * Remove the display name of a user or group, after its profile document changed.
+     *
+     * @param reference the reference of the user or group.
+     */
+    public void remove(DocumentReference reference)
+    {
+        this.cache.remove(this.serializer.serialize(reference));
+    }
+
+    /**
+     * Remove all the display names, e.g. after a wiki was deleted.
+     */
+    public void removeAll()
+    {
+        this.cache.removeAll();
+    }
+
+    private DisplayName get(String entity)
+    {
+        // The references stored in the rights objects can be relative, so the key is the absolute reference.
+        String key = this.serializer.serialize(this.documentReferenceResolver.resolve(entity));
+        DisplayName displayName = this.cache.get(key);
+        if (displayName == null) {
+            XWikiContext wikiContext = this.xcontextProvider.get();
+            displayName = new DisplayName(wikiContext.getWiki().getUserName(key, null, false, wikiContext).trim());
+            this.cache.set(key, displayName);
+        }
+        return displayName;
+    }
+
+    private static final class DisplayName
+    {
+        private final String name;
+
+        private final String searchKey;
+
+        DisplayName(String name)
+        {
+            this.name = name;
+            this.searchKey = name.toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.security;
+
+import java.util.Arrays;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Removes the display names kept by {@link UserDisplayNameCache} when the profile document of a user or group is
+ * created, updated or deleted. The name of a missing user is cached too, so it is removed when its profile is created.
+ * Any document can be a group, so the entry of every changed document is removed, which is cheap when the document is
+ * not in the cache.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(UserDisplayNameCacheListener.HINT)
+@Singleton
+public class UserDisplayNameCacheListener extends AbstractEventListener
+{
+    /**
+     * The hint for the component.
+     */
+    public static final String HINT = "AdminToolsUserDisplayNameCacheListener";
+
+    @Inject
+    private UserDisplayNameCache userDisplayNameCache;
+
+    /**
+     * Creates an event-listener filtering for document and wiki changes.
+     */
+    public UserDisplayNameCacheListener()
+    {
+        super(HINT, Arrays.asList(new DocumentCreatedEvent(), new DocumentUpdatedEvent(), new DocumentDeletedEvent(),
+            new WikiDeletedEvent()));
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (event instanceof WikiDeletedEvent) {
+            this.userDisplayNameCache.removeAll();
+        } else {
+            this.userDisplayNameCache.remove(((XWikiDocument) source).getDocumentReference());
+        }
+    }
+}
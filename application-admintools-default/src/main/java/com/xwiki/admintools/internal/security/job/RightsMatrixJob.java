@@ -0,0 +1,370 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.security.job;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.environment.Environment;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.GroupedJob;
+import org.xwiki.job.JobGroupPath;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.SpaceReferenceResolver;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.security.authorization.AuthorizationManager;
+import org.xwiki.security.authorization.Right;
+
+import com.xwiki.admintools.internal.jobs.ExecutionContextForkJoinThreadFactory;
+import com.xwiki.admintools.jobs.JobResult;
+import com.xwiki.admintools.jobs.JobResultLevel;
+import com.xwiki.admintools.jobs.RightsMatrixJobRequest;
+import com.xwiki.admintools.jobs.RightsMatrixJobStatus;
+
+/**
+ * The Admin Tools job that computes the effective rights of a user on all the pages of a space tree. The tree is
+ * walked with a fork-join pool: each space evaluates its own pages before forking a task for each of its child spaces.
+ * A page or a space that doesn't hold any rights of its own has the same effective rights as its parent space, so the
+ * evaluation of the parent is reused instead of asking the authorization manager again. The matrix is streamed to a
+ * CSV file in the permanent directory while the pages are evaluated.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(RightsMatrixJob.JOB_TYPE)
+public class RightsMatrixJob extends AbstractJob<RightsMatrixJobRequest, RightsMatrixJobStatus> implements GroupedJob
+{
+    /**
+     * Admin Tools rights matrix job type.
+     */
+    public static final String JOB_TYPE = "admintools.rightsmatrix";
+
+    private static final String CHILD_SPACES_STATEMENT =
+        "select space.reference from XWikiSpace space where space.parent = :parent order by space.reference";
+
+    private static final String SPACE_DOCUMENTS_STATEMENT = "select doc.fullName from XWikiDocument doc "
+        + "where doc.space = :space and doc.translation = 0 and doc.fullName > :lastName order by doc.fullName";
+
+    private static final String SPACE_RIGHTS_DOCUMENTS_STATEMENT = "select distinct obj.name from BaseObject obj, "
+        + "XWikiDocument doc where obj.name = doc.fullName and doc.space = :space and doc.translation = 0 "
+        + "and obj.className = 'XWiki.XWikiRights'";
+
+    private static final String SPACE_RIGHTS_STATEMENT = "select count(obj.id) from BaseObject obj "
+        + "where obj.name = :preferences and obj.className = 'XWiki.XWikiGlobalRights'";
+
+    private static final String TREE_DOCUMENTS_STATEMENT = "select count(doc.id) from XWikiDocument doc "
+        + "where (doc.space = :space or doc.space like :spacePrefix) and doc.translation = 0";
+
+    private static final String SPACE = "space";
+
+    private static final String QUOTE = "\"";
+
+    private static final char SEPARATOR = ',';
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    private AuthorizationManager authorizationManager;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Inject
+    private SpaceReferenceResolver<String> spaceReferenceResolver;
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
+    private List<Right> rights;
+
+    private Writer matrixWriter;
+
+    @Override
+    public String getType()
+    {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public JobGroupPath getGroupPath()
+    {
+        return new JobGroupPath(List.of("adminTools", "rightsMatrix"));
+    }
+
+    @Override
+    protected RightsMatrixJobStatus createNewStatus(RightsMatrixJobRequest request)
+    {
+        return new RightsMatrixJobStatus(JOB_TYPE, request, observationManager, loggerManager);
+    }
+
+    /**
+     * Run the rights matrix job.
+     */
+    @Override
+    protected void runInternal()
+    {
+        this.progressManager.pushLevelProgress(1, this);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(request.getParallelism(), 1),
+            new ExecutionContextForkJoinThreadFactory(this.executionContextManager, this.execution,
+                "AdminTools rights matrix worker-"), null, false);
+        try {
+            progressManager.startStep(this);
+            this.rights = getRights();
+            SpaceReference spaceReference = request.getSpaceReference();
+            status.setTotalPages(countTreeDocuments(spaceReference));
+            Path matrixFile = createMatrixFile();
+            status.setMatrixFile(matrixFile.toString());
+            try (Writer writer = Files.newBufferedWriter(matrixFile, StandardCharsets.UTF_8)) {
+                this.matrixWriter = writer;
+                writeHeader();
+                pool.invoke(new SpaceTask(spaceReference, null));
+            }
+            progressManager.endStep(this);
+            if (status.isCanceled()) {
+                status.addLog(new JobResult("adminTools.jobs.rightsMatrix.canceled", JobResultLevel.WARN,
+                    status.getEvaluatedPages(), status.getTotalPages()));
+            } else {
+                status.addLog(new JobResult("adminTools.jobs.rightsMatrix.success", JobResultLevel.INFO,
+                    status.getEvaluatedPages(), status.getReusedEvaluations()));
+            }
+        } catch (Exception e) {
+            logger.error("An error occurred while computing the rights matrix of user [{}] on space [{}].",
+                request.getUserReference(), request.getSpaceReference(), e);
+            status.addLog(new JobResult("adminTools.jobs.rightsMatrix.fail", JobResultLevel.ERROR,
+                ExceptionUtils.getRootCauseMessage(e)));
+        } finally {
+            pool.shutdownNow();
+            this.matrixWriter = null;
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    /**
+     * The matrix is kept in the permanent directory, next to the serialized job status that points to it, so that it
+     * can still be downloaded after a restart. Each job writes its own file, and only the status of the last job is
+     * kept, so the matrices of the previous jobs are removed.
+     */
+    private Path createMatrixFile() throws IOException
+    {
+        Path directory =
+            this.environment.getPermanentDirectory().toPath().resolve("adminTools").resolve("rightsMatrix");
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> previousFiles = Files.newDirectoryStream(directory, "*.csv")) {
+            for (Path previousFile : previousFiles) {
+                Files.deleteIfExists(previousFile);
+            }
+        }
+        return directory.resolve(String.format("rightsMatrix-%d.csv", System.currentTimeMillis()));
+    }
+
+    private List<Right> getRights()
+    {
+        List<Right> requestedRights = new ArrayList<>();
+        for (String rightName : request.getRights()) {
+            Right right = Right.toRight(rightName);
+            if (right != Right.ILLEGAL) {
+                requestedRights.add(right);
+            }
+        }
+        return requestedRights;
+    }
+
+    private long countTreeDocuments(SpaceReference spaceReference) throws QueryException
+    {
+        String space = this.localSerializer.serialize(spaceReference);
+        List<Long> results = this.queryManager.createQuery(TREE_DOCUMENTS_STATEMENT, Query.HQL)
+            .bindValue(SPACE, space).bindValue("spacePrefix", space + ".%")
+            .setWiki(spaceReference.getWikiReference().getName()).execute();
+        return results.isEmpty() || results.get(0) == null ? 0 : results.get(0);
+    }
+
+    private void writeHeader() throws IOException
+    {
+        StringBuilder header = new StringBuilder("page");
+        for (Right right : this.rights) {
+            header.append(SEPARATOR).append(right.getName());
+        }
+        writeLine(header.toString());
+    }
+
+    private void writeRow(DocumentReference documentReference, boolean[] access)
+    {
+        StringBuilder row = new StringBuilder(QUOTE)
+            .append(this.serializer.serialize(documentReference).replace(QUOTE, "\"\"")).append(QUOTE);
+        for (boolean allowed : access) {
+            row.append(SEPARATOR).append(allowed ? "allow" : "deny");
+        }
+        try {
+            writeLine(row.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeLine(String line) throws IOException
+    {
+        // The spaces are evaluated in parallel, so the rows of the matrix are written one at a time.
+        synchronized (this.matrixWriter) {
+            this.matrixWriter.write(line);
+            this.matrixWriter.write('\n');
+        }
+    }
+
+    private boolean[] evaluate(EntityReference reference)
+    {
+        boolean[] access = new boolean[this.rights.size()];
+        for (int i = 0; i < access.length; i++) {
+            access[i] = this.authorizationManager.hasAccess(this.rights.get(i), request.getUserReference(), reference);
+        }
+        return access;
+    }
+
+    /**
+     * Evaluate the pages of a space, then fork a task for each child space.
+     */
+    private final class SpaceTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final transient SpaceReference spaceReference;
+
+        private final boolean[] parentAccess;
+
+        SpaceTask(SpaceReference spaceReference, boolean[] parentAccess)
+        {
+            this.spaceReference = spaceReference;
+            this.parentAccess = parentAccess;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (status.isCanceled()) {
+                return;
+            }
+            try {
+                String wikiId = this.spaceReference.getWikiReference().getName();
+                String space = localSerializer.serialize(this.spaceReference);
+                boolean[] spaceAccess;
+                if (this.parentAccess != null && !hasSpaceRights(space, wikiId)) {
+                    spaceAccess = this.parentAccess;
+                    status.incrementReusedEvaluations();
+                } else {
+                    spaceAccess = evaluate(this.spaceReference);
+                }
+                evaluateDocuments(space, wikiId, spaceAccess);
+                List<SpaceTask> childTasks = new ArrayList<>();
+                for (String childSpace : getChildSpaces(space, wikiId)) {
+                    childTasks.add(new SpaceTask(
+                        spaceReferenceResolver.resolve(childSpace, this.spaceReference.getWikiReference()),
+                        spaceAccess));
+                }
+                invokeAll(childTasks);
+            } catch (QueryException e) {
+                throw new IllegalStateException(
+                    String.format("Failed to read the pages of space [%s].", this.spaceReference), e);
+            }
+        }
+
+        private boolean hasSpaceRights(String space, String wikiId) throws QueryException
+        {
+            DocumentReference preferencesReference = new DocumentReference("WebPreferences", this.spaceReference);
+            List<Long> results = queryManager.createQuery(SPACE_RIGHTS_STATEMENT, Query.HQL)
+                .bindValue("preferences", localSerializer.serialize(preferencesReference)).setWiki(wikiId).execute();
+            return !results.isEmpty() && results.get(0) != null && results.get(0) > 0;
+        }
+
+        private void evaluateDocuments(String space, String wikiId, boolean[] spaceAccess) throws QueryException
+        {
+            List<String> rightsDocuments = queryManager.createQuery(SPACE_RIGHTS_DOCUMENTS_STATEMENT, Query.HQL)
+                .bindValue(SPACE, space).setWiki(wikiId).execute();
+            Set<String> documentsWithRights = new HashSet<>(rightsDocuments);
+            int batchSize = request.getBatchSize();
+            String lastName = "";
+            while (!status.isCanceled()) {
+                List<String> documents = queryManager.createQuery(SPACE_DOCUMENTS_STATEMENT, Query.HQL)
+                    .bindValue(SPACE, space).bindValue("lastName", lastName).setLimit(batchSize).setWiki(wikiId)
+                    .execute();
+                for (String document : documents) {
+                    DocumentReference documentReference =
+                        documentReferenceResolver.resolve(document, this.spaceReference.getWikiReference());
+                    boolean[] access;
+                    if (documentsWithRights.contains(document)) {
+                        access = evaluate(documentReference);
+                    } else {
+                        access = spaceAccess;
+                        status.incrementReusedEvaluations();
+                    }
+                    writeRow(documentReference, access);
+                    status.incrementEvaluatedPages();
+                }
+                if (documents.size() < batchSize) {
+                    break;
+                }
+                lastName = documents.get(documents.size() - 1);
+            }
+        }
+
+        private List<String> getChildSpaces(String space, String wikiId) throws QueryException
+        {
+            return queryManager.createQuery(CHILD_SPACES_STATEMENT, Query.HQL).bindValue("parent", space)
+                .setWiki(wikiId).execute();
+        }
+    }
+}
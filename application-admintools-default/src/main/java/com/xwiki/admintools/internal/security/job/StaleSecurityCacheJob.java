@@ -0,0 +1,243 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.security.job;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.GroupedJob;
+import org.xwiki.job.JobGroupPath;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.SecurityReferenceFactory;
+import org.xwiki.security.authorization.AuthorizationException;
+import org.xwiki.security.authorization.SecurityEntryReader;
+import org.xwiki.security.authorization.SecurityRuleEntry;
+import org.xwiki.security.authorization.cache.SecurityCache;
+
+import com.xwiki.admintools.jobs.JobResult;
+import com.xwiki.admintools.jobs.JobResultLevel;
+import com.xwiki.admintools.jobs.StaleSecurityCacheJobRequest;
+import com.xwiki.admintools.jobs.StaleSecurityCacheJobStatus;
+
+/**
+ * The Admin Tools job that looks for security cache entries whose rules no longer match the rights stored in the wiki.
+ * The pages of the wiki are read in batches and a random fraction of them, together with their spaces, is compared
+ * with the rules read again from the wiki. The sampling rate is doubled after a batch with stale entries and halved
+ * after a batch without, and the number of checks per second is capped so that the job doesn't load the server. The
+ * stale entries can be removed from the security cache, without flushing the rest of it.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(StaleSecurityCacheJob.JOB_TYPE)
+public class StaleSecurityCacheJob extends AbstractJob<StaleSecurityCacheJobRequest, StaleSecurityCacheJobStatus>
+    implements GroupedJob
+{
+    /**
+     * Admin Tools stale security cache job type.
+     */
+    public static final String JOB_TYPE = "admintools.stalesecuritycache";
+
+    private static final String DOCUMENTS_STATEMENT = "select doc.id, doc.fullName from XWikiDocument doc "
+        + "where doc.translation = 0 and doc.id > :lastId order by doc.id";
+
+    private static final long MILLIS_PER_SECOND = 1000;
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private SecurityCache securityCache;
+
+    @Inject
+    private SecurityEntryReader securityEntryReader;
+
+    @Inject
+    private SecurityReferenceFactory securityReferenceFactory;
+
+    private final Set<EntityReference> checkedSpaces = new HashSet<>();
+
+    private long budgetWindowStart;
+
+    private int budgetWindowChecks;
+
+    @Override
+    public String getType()
+    {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public JobGroupPath getGroupPath()
+    {
+        return new JobGroupPath(List.of("adminTools", "staleSecurityCache"));
+    }
+
+    @Override
+    protected StaleSecurityCacheJobStatus createNewStatus(StaleSecurityCacheJobRequest request)
+    {
+        return new StaleSecurityCacheJobStatus(JOB_TYPE, request, observationManager, loggerManager);
+    }
+
+    /**
+     * Run the stale security cache job.
+     */
+    @Override
+    protected void runInternal()
+    {
+        this.progressManager.pushLevelProgress(1, this);
+        try {
+            progressManager.startStep(this);
+            WikiReference wikiReference = request.getWikiReference();
+            this.budgetWindowStart = System.currentTimeMillis();
+            check(wikiReference);
+            checkDocuments(wikiReference);
+            progressManager.endStep(this);
+            String resultKey = status.isCanceled() ? "adminTools.jobs.staleSecurityCache.canceled"
+                : "adminTools.jobs.staleSecurityCache.success";
+            status.addLog(new JobResult(resultKey, status.getStaleEntriesCount() > 0 ? JobResultLevel.WARN
+                : JobResultLevel.INFO, status.getCheckedEntries(), status.getStaleEntriesCount(),
+                status.getCachedEntries(), status.getInvalidatedEntries()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status.addLog(new JobResult("adminTools.jobs.staleSecurityCache.fail", JobResultLevel.ERROR,
+                ExceptionUtils.getRootCauseMessage(e)));
+        } catch (Exception e) {
+            logger.error("An error occurred while looking for stale security cache entries in wiki [{}].",
+                request.getWikiReference(), e);
+            status.addLog(new JobResult("adminTools.jobs.staleSecurityCache.fail", JobResultLevel.ERROR,
+                ExceptionUtils.getRootCauseMessage(e)));
+        } finally {
+            this.checkedSpaces.clear();
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    private void checkDocuments(WikiReference wikiReference)
+        throws QueryException, AuthorizationException, InterruptedException
+    {
+        int batchSize = request.getBatchSize();
+        long lastId = Long.MIN_VALUE;
+        while (!status.isCanceled()) {
+            List<Object[]> rows = this.queryManager.createQuery(DOCUMENTS_STATEMENT, Query.HQL)
+                .bindValue("lastId", lastId).setLimit(batchSize).setWiki(wikiReference.getName()).execute();
+            long staleEntries = status.getStaleEntriesCount();
+            long cachedEntries = status.getCachedEntries();
+            double samplingRate = status.getSamplingRate();
+            for (Object[] row : rows) {
+                if (status.isCanceled()) {
+                    return;
+                }
+                if (ThreadLocalRandom.current().nextDouble() < samplingRate) {
+                    DocumentReference documentReference =
+                        this.documentReferenceResolver.resolve((String) row[1], wikiReference);
+                    check(documentReference);
+                    if (this.checkedSpaces.add(documentReference.getLastSpaceReference())) {
+                        check(documentReference.getLastSpaceReference());
+                    }
+                }
+            }
+            adaptSamplingRate(status.getStaleEntriesCount() > staleEntries, status.getCachedEntries() > cachedEntries);
+            if (rows.size() < batchSize) {
+                break;
+            }
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    private void adaptSamplingRate(boolean foundStaleEntries, boolean foundCachedEntries)
+    {
+        if (foundStaleEntries) {
+            // Stale entries usually come in groups, e.g. after a rights change that was not propagated.
+            status.setSamplingRate(Math.min(1, status.getSamplingRate() * 2));
+        } else if (foundCachedEntries) {
+            status.setSamplingRate(Math.max(request.getMinSamplingRate(), status.getSamplingRate() / 2));
+        }
+    }
+
+    private void check(EntityReference reference) throws AuthorizationException, InterruptedException
+    {
+        waitForBudget();
+        SecurityReference securityReference = this.securityReferenceFactory.newEntityReference(reference);
+        status.incrementCheckedEntries();
+        SecurityRuleEntry cachedEntry = this.securityCache.get(securityReference);
+        if (cachedEntry == null) {
+            return;
+        }
+        status.incrementCachedEntries();
+        SecurityRuleEntry liveEntry = this.securityEntryReader.read(securityReference);
+        if (!Objects.equals(getRules(cachedEntry), getRules(liveEntry))) {
+            status.addStaleEntry(this.serializer.serialize(reference));
+            if (request.isInvalidate()) {
+                // Removing an entry also removes the entries that depend on it, e.g. the access entries of the users.
+                this.securityCache.remove(securityReference);
+                status.incrementInvalidatedEntries();
+            }
+        }
+    }
+
+    /**
+     * The rule implementations don't all define equality, so the rules are compared by their string representation,
+     * which holds their rights, state, users and groups.
+     */
+    private Set<String> getRules(SecurityRuleEntry entry)
+    {
+        return entry.getRules().stream().map(String::valueOf).collect(Collectors.toSet());
+    }
+
+    private void waitForBudget() throws InterruptedException
+    {
+        long now = System.currentTimeMillis();
+        if (now - this.budgetWindowStart >= MILLIS_PER_SECOND) {
+            this.budgetWindowStart = now;
+            this.budgetWindowChecks = 0;
+        } else if (this.budgetWindowChecks >= request.getMaxChecksPerSecond()) {
+            Thread.sleep(this.budgetWindowStart + MILLIS_PER_SECOND - now);
+            this.budgetWindowStart = System.currentTimeMillis();
+            this.budgetWindowChecks = 0;
+        }
+        this.budgetWindowChecks++;
+    }
+}
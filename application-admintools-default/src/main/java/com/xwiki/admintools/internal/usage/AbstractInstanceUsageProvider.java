@@ -19,10 +19,14 @@
  */
 package com.xwiki.admintools.internal.usage;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -60,6 +64,10 @@ public abstract class AbstractInstanceUsageProvider
 
     private static final String DESCENDING_ORDER = "desc";
 
+    private static final String DOC_NAME_KEY = "docName";
+
+    private static final String COMMENTS_COUNT_KEY = "commentsCount";
+
     @Inject
     protected Provider<XWikiContext> xcontextProvider;
 
@@ -113,7 +121,9 @@ public abstract class AbstractInstanceUsageProvider
                 comparator = Comparator.comparing(WikiUsageResult::getUserCount);
                 break;
             case ATTACHMENTS_SIZE_KEY:
-                comparator = Comparator.comparing(WikiUsageResult::getAttachmentsSize);
+                // The size is missing while it is computed in the background.
+                comparator = Comparator.comparing(WikiUsageResult::getAttachmentsSize,
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
                 break;
             case ATTACHMENTS_COUNT_KEY:
                 comparator = Comparator.comparing(WikiUsageResult::getAttachmentsCount);
@@ -136,7 +146,8 @@ public abstract class AbstractInstanceUsageProvider
     }
 
     /**
-     * Sort the given {@link List} of documents over a given column and in a given order.
+     * Sort the given {@link List} of documents over a given column and in a given order. The sort keys are computed
+     * once for each document, so each document is loaded at most once, before the actual sort.
      *
      * @param list the {@link List} to be sorted.
      * @param sortColumn the column after which to be sorted.
@@ -146,45 +157,33 @@ public abstract class AbstractInstanceUsageProvider
     {
         XWikiContext xWikiContext = xcontextProvider.get();
         XWiki xWiki = xWikiContext.getWiki();
-        Comparator<DocumentReference> comparator = null;
         switch (sortColumn) {
             case WIKI_NAME_KEY:
-                comparator = Comparator.comparing(doc -> {
-                    try {
-                        return wikiDescriptorManagerProvider.get().getById(doc.getWikiReference().getName())
-                            .getPrettyName();
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                });
+                Map<String, String> prettyNames = new HashMap<>();
+                sortByStringKey(list, doc -> getWikiPrettyName(doc.getWikiReference().getName(), prettyNames),
+                    order);
                 break;
-            case "docName":
-                comparator = Comparator.comparing(doc -> {
+            case DOC_NAME_KEY:
+                sortByStringKey(list, doc -> {
                     try {
                         return xWiki.getDocument(doc, xWikiContext).getTitle();
                     } catch (XWikiException e) {
                         throw new RuntimeException(e);
                     }
-                });
+                }, order);
                 break;
-            case "commentsCount":
-                comparator = Comparator.comparing(doc -> {
+            case COMMENTS_COUNT_KEY:
+                sortByIntKey(list, doc -> {
                     try {
                         return xWiki.getDocument(doc, xWikiContext).getComments().size();
                     } catch (XWikiException e) {
                         throw new RuntimeException(e);
                     }
-                });
+                }, order);
                 break;
             default:
                 break;
         }
-        if (comparator != null) {
-            if (DESCENDING_ORDER.equals(order)) {
-                comparator = comparator.reversed();
-            }
-            list.sort(comparator);
-        }
     }
 
     /**
@@ -205,6 +204,46 @@ public abstract class AbstractInstanceUsageProvider
         return wikisDescriptors;
     }
 
+    private String getWikiPrettyName(String wikiId, Map<String, String> prettyNames)
+    {
+        return prettyNames.computeIfAbsent(wikiId, id -> {
+            try {
+                WikiDescriptor wikiDescriptor = wikiDescriptorManagerProvider.get().getById(id);
+                return wikiDescriptor != null ? wikiDescriptor.getPrettyName() : id;
+            } catch (WikiManagerException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private <T> void sortByStringKey(List<T> list, Function<T, String> keyExtractor, String order)
+    {
+        List<SortEntry<T>> entries = new ArrayList<>(list.size());
+        for (T element : list) {
+            entries.add(new SortEntry<>(element, keyExtractor.apply(element), 0));
+        }
+        sortEntries(list, entries,
+            Comparator.comparing(entry -> entry.stringKey, Comparator.nullsFirst(Comparator.naturalOrder())), order);
+    }
+
+    private <T> void sortByIntKey(List<T> list, ToIntFunction<T> keyExtractor, String order)
+    {
+        List<SortEntry<T>> entries = new ArrayList<>(list.size());
+        for (T element : list) {
+            entries.add(new SortEntry<>(element, null, keyExtractor.applyAsInt(element)));
+        }
+        sortEntries(list, entries, Comparator.comparingInt(entry -> entry.intKey), order);
+    }
+
+    private <T> void sortEntries(List<T> list, List<SortEntry<T>> entries, Comparator<SortEntry<T>> comparator,
+        String order)
+    {
+        entries.sort(DESCENDING_ORDER.equals(order) ? comparator.reversed() : comparator);
+        for (int i = 0; i < entries.size(); i++) {
+            list.set(i, entries.get(i).element);
+        }
+    }
+
     private boolean checkAttachmentSize(WikiUsageResult wikiData, String filter)
     {
         String[] interval = filter.split(INTERVAL_SEPARATOR);
@@ -213,4 +252,25 @@ public abstract class AbstractInstanceUsageProvider
         long upperBound = "x".equals(interval[1]) ? Long.MAX_VALUE : Long.parseLong(interval[1]);
         return attachmentsSize > lowerBound && attachmentsSize < upperBound;
     }
+
+    /**
+     * Element of a list to be sorted, decorated with its precomputed sort key.
+     *
+     * @param <T> the type of the sorted element
+     */
+    private static final class SortEntry<T>
+    {
+        private final T element;
+
+        private final String stringKey;
+
+        private final int intKey;
+
+        SortEntry(T element, String stringKey, int intKey)
+        {
+            this.element = element;
+            this.stringKey = stringKey;
+            this.intKey = intKey;
+        }
+    }
 }
@@ -0,0 +1,255 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
+
+/**
+ * Keeps in memory the number of active users of each wiki. The counts are computed with a database query the first
+ * time they are needed, then updated by {@link ActiveUsersListener} when user documents change. To correct any drift
+ * caused by changes made outside the observation manager, the counts are recomputed every hour on a background thread,
+ * so that the readers never wait for the count query, and the updates received during a recomputation are applied to
+ * its result.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = ActiveUsersCounter.class)
+@Singleton
+public class ActiveUsersCounter implements Initializable, Disposable
+{
+    private static final long RECONCILIATION_PERIOD = 60;
+
+    private final Map<String, WikiUsersCount> counts = new ConcurrentHashMap<>();
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("count")
+    private QueryFilter countFilter;
+
+    @Inject
+    private Provider<WikiDescriptorManager> wikiDescriptorManagerProvider;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private Logger logger;
+
+    private ScheduledExecutorService executor;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+            new BasicThreadFactory.Builder().namingPattern("AdminTools active users reconciliation").daemon(true)
+                .build());
+        this.executor.scheduleWithFixedDelay(this::reconcileInContext, RECONCILIATION_PERIOD, RECONCILIATION_PERIOD,
+            TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Get the number of active users of a wiki.
+     *
+     * @param wikiId the wiki for which the users are counted.
+     * @return the number of active users of the wiki.
+     * @throws QueryException if there are any exceptions while counting the users in the database.
+     */
+    public long getWikiUsersCount(String wikiId) throws QueryException
+    {
+        WikiUsersCount count = this.counts.get(wikiId);
+        if (count == null) {
+            WikiUsersCount newCount = new WikiUsersCount(countWikiUsers(wikiId));
+            count = this.counts.putIfAbsent(wikiId, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        return count.get();
+    }
+
+    /**
+     * Get the number of active users of the instance, as the sum of the active users of each wiki.
+     *
+     * @return the number of active users in the XWiki instance.
+     * @throws QueryException if there are any exceptions while counting the users in the database.
+     * @throws WikiManagerException if there are any exceptions while retrieving the instance wikis.
+     */
+    public long getInstanceUsersCount() throws QueryException, WikiManagerException
+    {
+        long total = 0;
+        for (String wikiId : this.wikiDescriptorManagerProvider.get().getAllIds()) {
+            total += getWikiUsersCount(wikiId);
+        }
+        return total;
+    }
+
+    /**
+     * Update the number of active users of a wiki, if it was already computed.
+     *
+     * @param wikiId the wiki whose users changed.
+     * @param delta the number of users that became active, negative if users were deactivated or removed.
+     */
+    public void update(String wikiId, long delta)
+    {
+        WikiUsersCount count = this.counts.get(wikiId);
+        if (count != null) {
+            count.add(delta);
+        }
+    }
+
+    /**
+     * Forget the number of active users of a wiki, for example when the wiki is deleted.
+     *
+     * @param wikiId the wiki whose count is removed.
+     */
+    public void remove(String wikiId)
+    {
+        this.counts.remove(wikiId);
+    }
+
+    /**
+     * Recompute the number of active users of the wikis that were already counted. The updates received while a wiki
+     * is recomputed are added to the new count.
+     */
+    public void reconcile()
+    {
+        for (Map.Entry<String, WikiUsersCount> entry : this.counts.entrySet()) {
+            WikiUsersCount count = entry.getValue();
+            count.startRecompute();
+            try {
+                count.endRecompute(countWikiUsers(entry.getKey()));
+            } catch (Exception e) {
+                count.cancelRecompute();
+                this.logger.warn("Failed to recompute the active users of wiki [{}]. Root cause is: [{}]",
+                    entry.getKey(), ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+
+    private void reconcileInContext()
+    {
+        try {
+            this.executionContextManager.initialize(new ExecutionContext());
+            reconcile();
+        } catch (Exception e) {
+            this.logger.warn("Failed to initialize the active users reconciliation context. Root cause is: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+        } finally {
+            this.execution.removeContext();
+        }
+    }
+
+    private long countWikiUsers(String wikiId) throws QueryException
+    {
+        StringBuilder statement = new StringBuilder(", BaseObject as obj, IntegerProperty as prop ");
+        statement.append("where doc.fullName = obj.name and obj.className = 'XWiki.XWikiUsers' and ");
+        statement.append("prop.id.id = obj.id and prop.id.name = 'active' and prop.value = '1'");
+
+        List<Long> results =
+            this.queryManager.createQuery(statement.toString(), Query.HQL).addFilter(this.countFilter).setWiki(wikiId)
+                .execute();
+        return results.get(0);
+    }
+
+    private static final class WikiUsersCount
+    {
+        private long value;
+
+        private boolean recomputing;
+
+        private long recomputeDelta;
+
+        WikiUsersCount(long value)
+        {
+            this.value = value;
+        }
+
+        synchronized long get()
+        {
+            return this.value;
+        }
+
+        synchronized void add(long delta)
+        {
+            this.value += delta;
+            if (this.recomputing) {
+                this.recomputeDelta += delta;
+            }
+        }
+
+        synchronized void startRecompute()
+        {
+            this.recomputing = true;
+            this.recomputeDelta = 0;
+        }
+
+        synchronized void endRecompute(long recomputedValue)
+        {
+            // The recomputed value may miss the updates received since the recomputation started.
+            this.value = recomputedValue + this.recomputeDelta;
+            this.recomputing = false;
+        }
+
+        synchronized void cancelRecompute()
+        {
+            this.recomputing = false;
+        }
+    }
+}
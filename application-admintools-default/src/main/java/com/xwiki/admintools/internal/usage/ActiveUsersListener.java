@@ -0,0 +1,100 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.Arrays;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+/**
+ * Keeps the {@link ActiveUsersCounter} up to date when user documents are created, updated or deleted.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(ActiveUsersListener.HINT)
+@Singleton
+public class ActiveUsersListener extends AbstractEventListener
+{
+    /**
+     * The hint for the component.
+     */
+    public static final String HINT = "AdminToolsActiveUsersListener";
+
+    private static final LocalDocumentReference USER_CLASS = new LocalDocumentReference("XWiki", "XWikiUsers");
+
+    private static final String ACTIVE_PROPERTY = "active";
+
+    @Inject
+    private ActiveUsersCounter activeUsersCounter;
+
+    /**
+     * Creates an event-listener filtering for document and wiki changes.
+     */
+    public ActiveUsersListener()
+    {
+        super(HINT, Arrays.asList(new DocumentCreatedEvent(), new DocumentUpdatedEvent(), new DocumentDeletedEvent(),
+            new WikiDeletedEvent()));
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (event instanceof WikiDeletedEvent) {
+            this.activeUsersCounter.remove(((WikiDeletedEvent) event).getWikiId());
+            return;
+        }
+        XWikiDocument document = (XWikiDocument) source;
+        if (document == null) {
+            return;
+        }
+        // The deleted document is empty, its previous state is kept in the original document.
+        boolean wasActive = !(event instanceof DocumentCreatedEvent) && isActiveUser(document.getOriginalDocument());
+        boolean isActive = !(event instanceof DocumentDeletedEvent) && isActiveUser(document);
+        if (wasActive != isActive) {
+            this.activeUsersCounter.update(document.getDocumentReference().getWikiReference().getName(),
+                isActive ? 1 : -1);
+        }
+    }
+
+    private boolean isActiveUser(XWikiDocument document)
+    {
+        if (document == null) {
+            return false;
+        }
+        BaseObject userObject = document.getXObject(USER_CLASS);
+        return userObject != null && userObject.getIntValue(ACTIVE_PROPERTY) == 1;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xwiki.admintools.internal.usage.wikiResult.AttachmentStorageEntry;
+import com.xwiki.admintools.internal.usage.wikiResult.StorageAggregate;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiAttachmentsStorage;
+
+/**
+ * Analyse the attachments storage of a wiki. The attachments metadata is read in batches and only the largest
+ * attachments and the per space and per MIME type aggregates are kept in memory, so the memory used depends on the
+ * number of spaces and MIME types of the wiki rather than on its number of attachments.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = AttachmentStorageAnalyser.class)
+@Singleton
+public class AttachmentStorageAnalyser
+{
+    /**
+     * The maximum number of largest attachments kept for a wiki.
+     */
+    public static final int LARGEST_ATTACHMENTS_LIMIT = 50;
+
+    private static final String ATTACHMENTS_STATEMENT =
+        "select attach.id, doc.fullName, doc.space, attach.filename, attach.longSize, attach.mimeType "
+            + "from XWikiAttachment attach, XWikiDocument doc "
+            + "where attach.docId = doc.id and attach.id > :lastId order by attach.id";
+
+    private static final String LAST_ID = "lastId";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String UNKNOWN_MIME_TYPE = "unknown";
+
+    private static final long CACHE_DURATION = TimeUnit.MINUTES.toMillis(5);
+
+    private static final Comparator<AttachmentStorageEntry> SIZE_COMPARATOR =
+        Comparator.comparingLong(AttachmentStorageEntry::getSize);
+
+    private static final Comparator<StorageAggregate> AGGREGATE_SIZE_COMPARATOR =
+        Comparator.comparingLong(StorageAggregate::getSize).reversed();
+
+    private final Map<String, CachedStorage> cache = new ConcurrentHashMap<>();
+
+    private final Map<String, Object> wikiLocks = new ConcurrentHashMap<>();
+
+    @Inject
+    private QueryManager queryManager;
+
+    /**
+     * Get the attachments storage info of a wiki. The result is reused for a few minutes, so that browsing the report
+     * doesn't read again all the attachments of the wiki. Concurrent requests for the same wiki wait for a single
+     * analysis instead of each reading all the attachments.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @return a {@link WikiAttachmentsStorage} with the largest attachments and the space and MIME type aggregates.
+     * @throws QueryException if there are any exceptions while retrieving the attachments metadata.
+     */
+    public WikiAttachmentsStorage getWikiAttachmentsStorage(String wikiId) throws QueryException
+    {
+        synchronized (this.wikiLocks.computeIfAbsent(wikiId, key -> new Object())) {
+            long now = System.currentTimeMillis();
+            CachedStorage cachedStorage = this.cache.get(wikiId);
+            if (cachedStorage != null && now - cachedStorage.timestamp < CACHE_DURATION) {
+                return cachedStorage.storage;
+            }
+            WikiAttachmentsStorage storage = analyseWiki(wikiId);
+            this.cache.put(wikiId, new CachedStorage(storage, System.currentTimeMillis()));
+            return storage;
+        }
+    }
+
+    private WikiAttachmentsStorage analyseWiki(String wikiId) throws QueryException
+    {
+        // The smallest entry is the head of the queue, so it can be replaced in O(log N) when a larger one is found.
+        PriorityQueue<AttachmentStorageEntry> largestAttachments =
+            new PriorityQueue<>(LARGEST_ATTACHMENTS_LIMIT + 1, SIZE_COMPARATOR);
+        Map<String, StorageAggregate> spaces = new HashMap<>();
+        Map<String, StorageAggregate> mimeTypes = new HashMap<>();
+        long attachmentsCount = 0;
+        long attachmentsSize = 0;
+        // Attachment ids are hashes, so they can be negative.
+        long lastId = Long.MIN_VALUE;
+        List<Object[]> rows;
+        do {
+            rows = getAttachmentsBatch(wikiId, lastId);
+            for (Object[] row : rows) {
+                long size = row[4] instanceof Number ? ((Number) row[4]).longValue() : 0;
+                String space = (String) row[2];
+                String mimeType = StringUtils.defaultIfBlank((String) row[5], UNKNOWN_MIME_TYPE);
+                attachmentsCount++;
+                attachmentsSize += size;
+                spaces.computeIfAbsent(space, StorageAggregate::new).add(size);
+                mimeTypes.computeIfAbsent(mimeType, StorageAggregate::new).add(size);
+                boolean isFull = largestAttachments.size() >= LARGEST_ATTACHMENTS_LIMIT;
+                if (!isFull || size > largestAttachments.peek().getSize()) {
+                    if (isFull) {
+                        largestAttachments.poll();
+                    }
+                    largestAttachments.add(
+                        new AttachmentStorageEntry((String) row[1], space, (String) row[3], mimeType, size));
+                }
+            }
+            if (!rows.isEmpty()) {
+                lastId = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+            }
+        } while (rows.size() == BATCH_SIZE);
+
+        WikiAttachmentsStorage result = new WikiAttachmentsStorage(wikiId);
+        result.setAttachmentsCount(attachmentsCount);
+        result.setAttachmentsSize(attachmentsSize);
+        List<AttachmentStorageEntry> sortedAttachments = new ArrayList<>(largestAttachments);
+        sortedAttachments.sort(SIZE_COMPARATOR.reversed());
+        result.setLargestAttachments(sortedAttachments);
+        result.setSpaces(sortAggregates(spaces));
+        result.setMimeTypes(sortAggregates(mimeTypes));
+        return result;
+    }
+
+    private List<Object[]> getAttachmentsBatch(String wikiId, long lastId) throws QueryException
+    {
+        // Keyset pagination is used instead of a scrollable result set, since some JDBC drivers (e.g. MySQL) load the
+        // entire result set in memory unless they are specifically configured for streaming.
+        return this.queryManager.createQuery(ATTACHMENTS_STATEMENT, Query.HQL).bindValue(LAST_ID, lastId)
+            .setLimit(BATCH_SIZE).setWiki(wikiId).execute();
+    }
+
+    private List<StorageAggregate> sortAggregates(Map<String, StorageAggregate> aggregates)
+    {
+        List<StorageAggregate> sortedAggregates = new ArrayList<>(aggregates.values());
+        sortedAggregates.sort(AGGREGATE_SIZE_COMPARATOR);
+        return sortedAggregates;
+    }
+
+    private static final class CachedStorage
+    {
+        private final WikiAttachmentsStorage storage;
+
+        private final long timestamp;
+
+        CachedStorage(WikiAttachmentsStorage storage, long timestamp)
+        {
+            this.storage = storage;
+            this.timestamp = timestamp;
+        }
+    }
+}
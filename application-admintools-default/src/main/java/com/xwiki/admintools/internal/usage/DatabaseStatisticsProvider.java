@@ -0,0 +1,164 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xwiki.admintools.internal.data.identifiers.CurrentServer;
+import com.xwiki.admintools.internal.usage.database.DatabaseStatisticsQuery;
+import com.xwiki.admintools.internal.usage.wikiResult.TableStatistics;
+
+/**
+ * Retrieve the tables statistics of the database of a wiki, like the table sizes, the estimated number of rows, the
+ * indexes sizes and the bloat, by querying the catalog views of the used database. Only the databases in
+ * {@link CurrentServer#getSupportedDBs()} are supported, each one through a {@link DatabaseStatisticsQuery}. The
+ * statistics are reused for a few minutes, since the catalog queries can be slow on large databases.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = DatabaseStatisticsProvider.class)
+@Singleton
+public class DatabaseStatisticsProvider
+{
+    private static final long CACHE_DURATION = TimeUnit.MINUTES.toMillis(10);
+
+    private static final String DATABASE_NAME = "name";
+
+    private final Map<String, CachedStatistics> cache = new ConcurrentHashMap<>();
+
+    @Inject
+    private Provider<XWikiContext> wikiContextProvider;
+
+    @Inject
+    private UsageDataProvider usageDataProvider;
+
+    @Inject
+    private CurrentServer currentServer;
+
+    @Inject
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * Get the statistics of the tables of a wiki database, sorted by their total size in descending order.
+     *
+     * @param wikiId the wiki whose database tables are analysed.
+     * @return the tables statistics, or an empty {@link List} if the used database is not supported.
+     * @throws XWikiException if there are any exceptions while querying the database catalog.
+     */
+    public List<TableStatistics> getTablesStatistics(String wikiId) throws XWikiException
+    {
+        long now = System.currentTimeMillis();
+        CachedStatistics cachedStatistics = this.cache.get(wikiId);
+        if (cachedStatistics != null && now - cachedStatistics.timestamp < CACHE_DURATION) {
+            return cachedStatistics.statistics;
+        }
+        DatabaseStatisticsQuery statisticsQuery = getStatisticsQuery();
+        if (statisticsQuery == null) {
+            return Collections.emptyList();
+        }
+        List<TableStatistics> statistics = readTablesStatistics(wikiId, statisticsQuery.getStatement());
+        this.cache.put(wikiId, new CachedStatistics(statistics, now));
+        return statistics;
+    }
+
+    private DatabaseStatisticsQuery getStatisticsQuery()
+    {
+        String databaseName = this.usageDataProvider.getDatabaseMetadata().get(DATABASE_NAME);
+        if (databaseName == null) {
+            return null;
+        }
+        String searchedName = databaseName.toLowerCase();
+        for (String supportedDatabase : this.currentServer.getSupportedDBs()) {
+            String hint = supportedDatabase.toLowerCase();
+            if (searchedName.contains(hint)) {
+                try {
+                    return this.componentManagerProvider.get().getInstance(DatabaseStatisticsQuery.class, hint);
+                } catch (ComponentLookupException e) {
+                    this.logger.warn("No statistics query found for database [{}].", databaseName);
+                    return null;
+                }
+            }
+        }
+        this.logger.debug("Database [{}] is not supported, no statistics are computed.", databaseName);
+        return null;
+    }
+
+    private List<TableStatistics> readTablesStatistics(String wikiId, String statement) throws XWikiException
+    {
+        XWikiContext wikiContext = this.wikiContextProvider.get();
+        String currentWiki = wikiContext.getWikiId();
+        try {
+            // The store switches the session to the database of the context wiki.
+            wikiContext.setWikiId(wikiId);
+            List<Object[]> rows = wikiContext.getWiki().getHibernateStore().executeRead(wikiContext,
+                session -> session.createNativeQuery(statement).getResultList());
+            List<TableStatistics> statistics = new ArrayList<>();
+            for (Object[] row : rows) {
+                statistics.add(new TableStatistics(String.valueOf(row[0]), toLong(row[1]), toLong(row[2]),
+                    toLong(row[3]), toLong(row[4])));
+            }
+            statistics.sort(Comparator.comparingLong(TableStatistics::getTotalSize).reversed());
+            return statistics;
+        } finally {
+            wikiContext.setWikiId(currentWiki);
+        }
+    }
+
+    private long toLong(Object value)
+    {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static final class CachedStatistics
+    {
+        private final List<TableStatistics> statistics;
+
+        private final long timestamp;
+
+        CachedStatistics(List<TableStatistics> statistics, long timestamp)
+        {
+            this.statistics = statistics;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.DeletedAttachment;
+import com.xpn.xwiki.store.AttachmentRecycleBinStore;
+
+/**
+ * Compute the size of the deleted attachments of a wiki in the background. The attachment recycle bin table has no
+ * size column, so each deleted attachment has to be read from the attachment recycle bin store. The size is computed
+ * on a single background thread, instead of the request that displays it, and is kept together with the number of
+ * deleted attachments and their highest id. When only new attachments were deleted since the last computation, only
+ * those are read.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = DeletedAttachmentsSizeCalculator.class)
+@Singleton
+public class DeletedAttachmentsSizeCalculator implements Initializable, Disposable
+{
+    private static final String IDS_STATEMENT =
+        "select ddoc.id from DeletedAttachment as ddoc where ddoc.id > :lastId order by ddoc.id";
+
+    private static final String KEPT_COUNT_STATEMENT =
+        "select count(ddoc.id) from DeletedAttachment as ddoc where ddoc.id <= :maxId";
+
+    private static final int BATCH_SIZE = 100;
+
+    private final Map<String, DeletedAttachmentsSize> sizes = new ConcurrentHashMap<>();
+
+    private final Set<String> pendingWikis = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private Logger logger;
+
+    private ExecutorService executor;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.executor = Executors.newSingleThreadExecutor(
+            new BasicThreadFactory.Builder().namingPattern("AdminTools deleted attachments size").daemon(true).build());
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Get the size of the deleted attachments of a wiki. If the size was not computed yet for the given state of the
+     * recycle bin, its computation is scheduled in the background.
+     *
+     * @param wikiId the wiki for which the size is retrieved.
+     * @param count the current number of deleted attachments of the wiki.
+     * @param maxId the current highest id of the deleted attachments of the wiki.
+     * @return the size of the deleted attachments, in bytes, or {@code null} if it is still being computed.
+     */
+    public Long getSize(String wikiId, long count, long maxId)
+    {
+        if (count == 0) {
+            return 0L;
+        }
+        DeletedAttachmentsSize size = this.sizes.get(wikiId);
+        if (size != null && size.count == count && size.maxId == maxId) {
+            return size.size;
+        }
+        if (this.pendingWikis.add(wikiId)) {
+            this.executor.execute(() -> computeInContext(wikiId, size));
+        }
+        return null;
+    }
+
+    private void computeInContext(String wikiId, DeletedAttachmentsSize previousSize)
+    {
+        try {
+            this.executionContextManager.initialize(new ExecutionContext());
+            this.sizes.put(wikiId, compute(wikiId, previousSize));
+        } catch (Exception e) {
+            this.logger.warn("Failed to compute the size of the deleted attachments of wiki [{}]. Root cause is: [{}]",
+                wikiId, ExceptionUtils.getRootCauseMessage(e));
+        } finally {
+            this.pendingWikis.remove(wikiId);
+            this.execution.removeContext();
+        }
+    }
+
+    private DeletedAttachmentsSize compute(String wikiId, DeletedAttachmentsSize previousSize)
+        throws QueryException, XWikiException
+    {
+        // The previous size can be reused if none of the attachments it counted were restored or purged since.
+        if (previousSize != null) {
+            List<Object> keptCount = this.queryManager.createQuery(KEPT_COUNT_STATEMENT, Query.HQL)
+                .bindValue("maxId", previousSize.maxId).setWiki(wikiId).execute();
+            if (((Number) keptCount.get(0)).longValue() == previousSize.count) {
+                return scan(wikiId, previousSize);
+            }
+        }
+        return scan(wikiId, new DeletedAttachmentsSize(0, Long.MIN_VALUE, 0));
+    }
+
+    private DeletedAttachmentsSize scan(String wikiId, DeletedAttachmentsSize start)
+        throws QueryException, XWikiException
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+        AttachmentRecycleBinStore recycleBinStore = xcontext.getWiki().getAttachmentRecycleBinStore();
+        String currentWikiId = xcontext.getWikiId();
+        long count = start.count;
+        long lastId = start.maxId;
+        long size = start.size;
+        try {
+            xcontext.setWikiId(wikiId);
+            List<Object> ids;
+            do {
+                ids = this.queryManager.createQuery(IDS_STATEMENT, Query.HQL).bindValue("lastId", lastId)
+                    .setLimit(BATCH_SIZE).setWiki(wikiId).execute();
+                for (Object id : ids) {
+                    lastId = ((Number) id).longValue();
+                    count++;
+                    DeletedAttachment deletedAttachment = recycleBinStore.getDeletedAttachment(lastId, xcontext, true);
+                    if (deletedAttachment != null) {
+                        size += deletedAttachment.restoreAttachment().getLongSize();
+                    }
+                }
+            } while (ids.size() == BATCH_SIZE);
+        } finally {
+            xcontext.setWikiId(currentWikiId);
+        }
+        return new DeletedAttachmentsSize(count, lastId, size);
+    }
+
+    /**
+     * The size of the deleted attachments of a wiki, with the number of deleted attachments and their highest id when
+     * it was computed.
+     */
+    private static final class DeletedAttachmentsSize
+    {
+        private final long count;
+
+        private final long maxId;
+
+        private final long size;
+
+        DeletedAttachmentsSize(long count, long maxId, long size)
+        {
+            this.count = count;
+            this.maxId = maxId;
+            this.size = size;
+        }
+    }
+}
@@ -65,16 +65,32 @@ public class EmptyDocumentsProvider extends AbstractInstanceUsageProvider
      */
     public SolrDocumentList getEmptyDocuments(Map<String, String> filters, String order) throws QueryException
     {
-        List<String> filterStatements = new ArrayList<>();
-        filterStatements.add("type:DOCUMENT");
-        filterStatements.add("AdminTools.DocumentContentEmpty_boolean:true");
-        filterStatements.add("hidden:false");
-
         Query query = this.secureQueryManager.createQuery("*", "solr");
         if (query instanceof SecureQuery) {
             ((SecureQuery) query).checkCurrentAuthor(true);
             ((SecureQuery) query).checkCurrentUser(true);
         }
+        query.bindValue("fl", "title_, reference, wiki, name, spaces, AdminTools.DocumentContentEmpty_boolean, hidden");
+        query.bindValue("fq", getFilterStatements(filters));
+        query.bindValue("sort",
+            String.format("wiki %s", VALID_SORT_ORDERS.contains(order) ? order : VALID_SORT_ORDERS.get(0)));
+        query.setLimit(100);
+        return ((QueryResponse) query.execute().get(0)).getResults();
+    }
+
+    /**
+     * Get the Solr filter statements that select the empty documents.
+     *
+     * @param filters {@link Map} of filters to be applied on the results list.
+     * @return the {@link List} of Solr filter statements.
+     * @since 1.4.1
+     */
+    public List<String> getFilterStatements(Map<String, String> filters)
+    {
+        List<String> filterStatements = new ArrayList<>();
+        filterStatements.add("type:DOCUMENT");
+        filterStatements.add("AdminTools.DocumentContentEmpty_boolean:true");
+        filterStatements.add("hidden:false");
         String searchedWiki = filters.get("wikiName");
         if (searchedWiki != null && !searchedWiki.isEmpty() && !searchedWiki.equals("-")) {
             // The XWikiServer document has a name format of "XWikiServer<wiki ID>". To select the wiki ID, we
@@ -82,11 +98,6 @@ public class EmptyDocumentsProvider extends AbstractInstanceUsageProvider
             String searchedWikiID = searchedWiki.replace("XWikiServer", "").toLowerCase();
             filterStatements.add(String.format("wiki:%s", solrUtils.toCompleteFilterQueryString(searchedWikiID)));
         }
-        query.bindValue("fl", "title_, reference, wiki, name, spaces, AdminTools.DocumentContentEmpty_boolean, hidden");
-        query.bindValue("fq", filterStatements);
-        query.bindValue("sort",
-            String.format("wiki %s", VALID_SORT_ORDERS.contains(order) ? order : VALID_SORT_ORDERS.get(0)));
-        query.setLimit(100);
-        return ((QueryResponse) query.execute().get(0)).getResults();
+        return filterStatements;
     }
 }
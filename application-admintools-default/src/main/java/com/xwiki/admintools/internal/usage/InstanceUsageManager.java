@@ -43,8 +43,16 @@ import com.xpn.xwiki.doc.XWikiAttachment;
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.classes.BaseClass;
 import com.xwiki.admintools.internal.data.identifiers.CurrentServer;
+import com.xwiki.admintools.internal.usage.duplicates.AttachmentHashIndex;
+import com.xwiki.admintools.internal.usage.history.UsageHistoryStore;
+import com.xwiki.admintools.internal.usage.history.UsagePoint;
+import com.xwiki.admintools.internal.usage.history.UsageProjection;
+import com.xwiki.admintools.internal.usage.wikiResult.SpaceUsage;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiAttachmentsStorage;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiIndexedUsage;
 import com.xwiki.admintools.internal.usage.wikiResult.WikiRecycleBins;
 import com.xwiki.admintools.internal.usage.wikiResult.WikiSizeResult;
+import com.xwiki.admintools.usage.WikiDuplicateAttachments;
 import com.xwiki.licensing.Licensor;
 
 /**
@@ -93,6 +101,21 @@ public class InstanceUsageManager
     @Inject
     private RecycleBinsProvider recycleBinsProvider;
 
+    @Inject
+    private SolrUsageDataProvider solrUsageDataProvider;
+
+    @Inject
+    private AttachmentStorageAnalyser attachmentStorageAnalyser;
+
+    @Inject
+    private SpaceUsageProvider spaceUsageProvider;
+
+    @Inject
+    private AttachmentHashIndex attachmentHashIndex;
+
+    @Inject
+    private UsageHistoryStore usageHistoryStore;
+
     /**
      * Get the data in a format given by the associated template.
      *
@@ -171,6 +194,26 @@ public class InstanceUsageManager
         }
     }
 
+    /**
+     * Retrieves the documents that have more than a given number of comments, ranked by their spam score.
+     *
+     * @param maxComments maximum number of comments below which the document is ignored.
+     * @param filters {@link Map} of filters to be applied on the gathered list.
+     * @param order the order of the sort.
+     * @return a {@link SolrDocumentList} with the needed fields set, including the {@code spamScore}.
+     * @since 1.4.1
+     */
+    public SolrDocumentList getSpamRankedPages(long maxComments, Map<String, String> filters, String order)
+    {
+        try {
+            return spamPagesProvider.getDocumentsBySpamScore(maxComments, filters, order);
+        } catch (Exception e) {
+            logger.warn("There have been issues while ranking wikis spammed pages. Root cause is: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Retrieves those documents that have no content, {@link XWikiAttachment}, {@link BaseClass}, {@link BaseObject},
      * or comments.
@@ -208,4 +251,107 @@ public class InstanceUsageManager
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Get the usage info of all the wikis, as computed from the Solr index.
+     *
+     * @return a {@link Map} with the wiki ids as keys and the indexed usage info as values, or an empty {@link Map}
+     *     if the Solr index is not in sync with the database.
+     */
+    public Map<String, WikiIndexedUsage> getIndexedWikisUsage()
+    {
+        return solrUsageDataProvider.getIndexedUsage();
+    }
+
+    /**
+     * Get the attachments storage info of a wiki, like its largest attachments and the storage used by each space and
+     * MIME type.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @return a {@link WikiAttachmentsStorage} with the attachments storage info of the wiki.
+     * @since 1.4.1
+     */
+    public WikiAttachmentsStorage getWikiAttachmentsStorage(String wikiId)
+    {
+        try {
+            return attachmentStorageAnalyser.getWikiAttachmentsStorage(wikiId);
+        } catch (Exception e) {
+            logger.warn("There have been issues while analysing the attachments storage of wiki [{}]. Root cause is: "
+                + "[{}]", wikiId, ExceptionUtils.getRootCauseMessage(e));
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Get the usage of the direct nested spaces of a space, like their number of documents and attachments and the
+     * size of their attachments, including their own nested spaces.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param parentSpace the serialized local reference of the parent space, or an empty value for the top level
+     *     spaces.
+     * @return the usage of the nested spaces, sorted by their total attachments size in descending order.
+     * @since 1.4.1
+     */
+    public List<SpaceUsage> getSpacesUsage(String wikiId, String parentSpace)
+    {
+        try {
+            return spaceUsageProvider.getSpacesUsage(wikiId, parentSpace);
+        } catch (Exception e) {
+            logger.warn("There have been issues while computing the spaces usage of wiki [{}]. Root cause is: [{}]",
+                wikiId, ExceptionUtils.getRootCauseMessage(e));
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Get the daily usage points of a wiki between two days.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param fromDay the first day, inclusive, as a number of days since the epoch.
+     * @param toDay the last day, inclusive, as a number of days since the epoch.
+     * @return the usage points in the given range, sorted by day.
+     * @since 1.4.1
+     */
+    public List<UsagePoint> getUsageHistory(String wikiId, long fromDay, long toDay)
+    {
+        try {
+            return usageHistoryStore.getRange(wikiId, fromDay, toDay);
+        } catch (Exception e) {
+            logger.warn("There have been issues while reading the usage history of wiki [{}]. Root cause is: [{}]",
+                wikiId, ExceptionUtils.getRootCauseMessage(e));
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Get a linear projection of the attachments storage growth of all the wikis of the instance. The projection is
+     * only an addition to the usage dashboard, so a failure is logged instead of breaking it.
+     *
+     * @return the growth projection, or {@code null} if it could not be computed.
+     * @since 1.4.1
+     */
+    public UsageProjection getUsageProjection()
+    {
+        try {
+            return usageHistoryStore.getProjection(wikiDescriptorManager.getAllIds());
+        } catch (Exception e) {
+            logger.warn("There have been issues while projecting the usage growth. Root cause is: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+            return null;
+        }
+    }
+
+    /**
+     * Get the attachments of a wiki that have the same content as another attachment of the wiki, as found by the
+     * last duplicate attachments job and kept up to date since.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param groupsLimit the maximum number of returned groups of duplicates.
+     * @return the duplicates of the wiki, or {@code null} if the wiki was not indexed.
+     * @since 1.4.1
+     */
+    public WikiDuplicateAttachments getDuplicateAttachments(String wikiId, int groupsLimit)
+    {
+        return attachmentHashIndex.getDuplicates(wikiId, groupsLimit);
+    }
 }
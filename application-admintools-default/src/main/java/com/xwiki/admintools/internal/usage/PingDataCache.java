@@ -0,0 +1,114 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.activeinstalls2.internal.PingDataProvider;
+import org.xwiki.activeinstalls2.internal.data.Ping;
+import org.xwiki.component.annotation.Component;
+
+/**
+ * Caches the data gathered by the {@link PingDataProvider} components, so that each provider is not called on every
+ * request. Static facts like the database and servlet container are gathered once per JVM, while the data of the other
+ * providers is refreshed periodically. A ping whose section was not filled, e.g. because the database could not be
+ * reached, is not cached, so that it is gathered again on the next call.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = PingDataCache.class)
+@Singleton
+public class PingDataCache
+{
+    /**
+     * The hint of the database ping provider.
+     */
+    public static final String DATABASE = "database";
+
+    /**
+     * The hint of the servlet container ping provider.
+     */
+    public static final String SERVLET = "servlet";
+
+    private static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Map<String, Long> TTLS = Map.of(DATABASE, Long.MAX_VALUE, SERVLET, Long.MAX_VALUE);
+
+    private static final Map<String, Function<Ping, Object>> SECTIONS =
+        Map.of(DATABASE, Ping::getDatabase, SERVLET, Ping::getServletContainer);
+
+    private final Map<String, CachedPing> cache = new ConcurrentHashMap<>();
+
+    @Inject
+    private Provider<Map<String, PingDataProvider>> pingDataProviders;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * Get the data gathered by a ping provider, from the cache when it is still valid.
+     *
+     * @param hint the hint of the {@link PingDataProvider} component.
+     * @return a {@link Ping} filled by the requested provider, or an empty {@link Ping} if there is no provider with
+     *     the given hint.
+     */
+    public Ping getPing(String hint)
+    {
+        long now = System.currentTimeMillis();
+        CachedPing cachedPing = this.cache.get(hint);
+        if (cachedPing != null && now - cachedPing.timestamp < TTLS.getOrDefault(hint, DEFAULT_TTL)) {
+            return cachedPing.ping;
+        }
+        Ping ping = new Ping();
+        PingDataProvider pingDataProvider = this.pingDataProviders.get().get(hint);
+        if (pingDataProvider == null) {
+            this.logger.warn("No ping data provider found for [{}].", hint);
+            return ping;
+        }
+        pingDataProvider.provideData(ping);
+        Function<Ping, Object> section = SECTIONS.get(hint);
+        if (section == null || section.apply(ping) != null) {
+            this.cache.put(hint, new CachedPing(ping, now));
+        }
+        return ping;
+    }
+
+    private static final class CachedPing
+    {
+        private final Ping ping;
+
+        private final long timestamp;
+
+        CachedPing(Ping ping, long timestamp)
+        {
+            this.ping = ping;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -21,8 +21,11 @@ package com.xwiki.admintools.internal.usage;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -33,7 +36,6 @@ import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryManager;
 import org.xwiki.wiki.descriptor.WikiDescriptor;
-import org.xwiki.wiki.manager.WikiManagerException;
 
 import com.xwiki.admintools.internal.usage.wikiResult.WikiRecycleBins;
 import com.xwiki.admintools.usage.WikiUsageResult;
@@ -47,11 +49,33 @@ import com.xwiki.admintools.usage.WikiUsageResult;
 @Singleton
 public class RecycleBinsProvider extends AbstractInstanceUsageProvider
 {
+    /**
+     * Collect, in a single row, the number of deleted entities, their highest id and how many of them were deleted in
+     * the last week, month, quarter and year.
+     */
+    private static final String AGGREGATE_STATEMENT = "select count(ddoc.id), coalesce(max(ddoc.id), 0), "
+        + "sum(case when ddoc.date >= :week then 1 else 0 end), "
+        + "sum(case when ddoc.date >= :month then 1 else 0 end), "
+        + "sum(case when ddoc.date >= :quarter then 1 else 0 end), "
+        + "sum(case when ddoc.date >= :year then 1 else 0 end) from %s as ddoc";
+
+    private static final List<String> AGE_BUCKETS = List.of("week", "month", "quarter", "year");
+
+    private static final List<Integer> AGE_BUCKETS_DAYS = List.of(7, 30, 90, 365);
+
+    private static final String OLDER_BUCKET = "older";
+
     @Inject
     private QueryManager queryManager;
 
+    @Inject
+    private WikisParallelExecutor wikisParallelExecutor;
+
+    @Inject
+    private DeletedAttachmentsSizeCalculator deletedAttachmentsSizeCalculator;
+
     /**
-     * Get instance recycle bins info, like deleted documents and attachments.
+     * Get instance recycle bins info, like deleted documents and attachments. The wikis are processed in parallel.
      *
      * @param filters {@link Map} of filters to be applied on the gathered list.
      * @param sortColumn the column after which to be sorted.
@@ -60,29 +84,28 @@ public class RecycleBinsProvider extends AbstractInstanceUsageProvider
      *     wikis in instance.
      */
     public List<WikiRecycleBins> getWikisRecycleBinsSize(Map<String, String> filters, String sortColumn, String order)
-        throws WikiManagerException
+        throws Exception
     {
         Collection<WikiDescriptor> searchedWikis = getRequestedWikis(filters);
 
+        Map<String, WikiRecycleBins> wikisRecycleBins =
+            this.wikisParallelExecutor.execute(searchedWikis, this::getWikiRecycleBinsSize);
         List<WikiUsageResult> results = new ArrayList<>();
-
-        searchedWikis.forEach(wikiDescriptor -> {
-            try {
-                WikiRecycleBins wikiRecycleBinResult = getWikiRecycleBinsSize(wikiDescriptor);
-                if (checkFilters(filters, wikiRecycleBinResult)) {
-                    results.add(wikiRecycleBinResult);
-                }
-            } catch (QueryException e) {
-                throw new RuntimeException(e);
+        for (WikiRecycleBins wikiRecycleBinResult : wikisRecycleBins.values()) {
+            if (checkFilters(filters, wikiRecycleBinResult)) {
+                results.add(wikiRecycleBinResult);
             }
-        });
+        }
         applySort(results, sortColumn, order);
         return results.stream().filter(WikiRecycleBins.class::isInstance).map(WikiRecycleBins.class::cast)
             .collect(Collectors.toList());
     }
 
     /**
-     * Get wiki recycle bins info, like deleted documents and attachments.
+     * Get wiki recycle bins info, like the number of deleted documents and attachments, the size of the deleted
+     * attachments and an age histogram of the deleted items. Only one aggregate query is run for each recycle bin. The
+     * size of the deleted attachments is computed in the background by {@link DeletedAttachmentsSizeCalculator} and is
+     * missing until the computation ends.
      *
      * @param wikiDescriptor the wiki for which the data will be retrieved.
      * @return a {@link WikiRecycleBins} containing info about the recycle bins of the wiki.
@@ -94,14 +117,44 @@ public class RecycleBinsProvider extends AbstractInstanceUsageProvider
         WikiRecycleBins result = new WikiRecycleBins();
         result.setWikiName(wikiDescriptor.getPrettyName());
         result.setWikiId(wikiId);
-        result.setAttachmentsCount(getNumberOfDeletedDocuments(wikiId, "DeletedAttachment"));
-        result.setDocumentsCount(getNumberOfDeletedDocuments(wikiId, "XWikiDeletedDocument"));
+        long now = System.currentTimeMillis();
+        long[] attachmentsStats = getRecycleBinStats(wikiId, "DeletedAttachment", now);
+        long[] documentsStats = getRecycleBinStats(wikiId, "XWikiDeletedDocument", now);
+        result.setAttachmentsCount(attachmentsStats[0]);
+        result.setAttachmentsSize(
+            this.deletedAttachmentsSizeCalculator.getSize(wikiId, attachmentsStats[0], attachmentsStats[1]));
+        result.setDocumentsCount(documentsStats[0]);
+        result.setAgeHistogram(getAgeHistogram(attachmentsStats, documentsStats));
         return result;
     }
 
-    private long getNumberOfDeletedDocuments(String wikiID, String table) throws QueryException
+    private long[] getRecycleBinStats(String wikiID, String table, long now) throws QueryException
+    {
+        Query query = this.queryManager.createQuery(String.format(AGGREGATE_STATEMENT, table), Query.HQL);
+        for (int i = 0; i < AGE_BUCKETS.size(); i++) {
+            query.bindValue(AGE_BUCKETS.get(i), new Date(now - TimeUnit.DAYS.toMillis(AGE_BUCKETS_DAYS.get(i))));
+        }
+        List<Object> rows = query.setWiki(wikiID).execute();
+        Object[] row = (Object[]) rows.get(0);
+        long[] stats = new long[row.length];
+        for (int i = 0; i < row.length; i++) {
+            // Sums are null when the recycle bin is empty.
+            stats[i] = row[i] instanceof Number ? ((Number) row[i]).longValue() : 0;
+        }
+        return stats;
+    }
+
+    private Map<String, Long> getAgeHistogram(long[] attachmentsStats, long[] documentsStats)
     {
-        String statement = String.format("select count(ddoc) from %s as ddoc", table);
-        return (long) this.queryManager.createQuery(statement, Query.XWQL).setWiki(wikiID).execute().get(0);
+        // The aggregate query returns cumulative counts, so each bucket is the difference from the previous one.
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        long previous = 0;
+        for (int i = 0; i < AGE_BUCKETS.size(); i++) {
+            long cumulative = attachmentsStats[i + 2] + documentsStats[i + 2];
+            histogram.put(AGE_BUCKETS.get(i), cumulative - previous);
+            previous = cumulative;
+        }
+        histogram.put(OLDER_BUCKET, attachmentsStats[0] + documentsStats[0] - previous);
+        return histogram;
     }
 }
@@ -0,0 +1,134 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.BooleanSupplier;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xwiki.admintools.internal.jobs.BatchThrottler;
+import com.xwiki.admintools.usage.DocumentRevisionUsage;
+import com.xwiki.admintools.usage.WikiRevisionUsage;
+
+/**
+ * Retrieve the number and the size of the document revisions of a wiki. The revisions table is walked in batches of
+ * documents, using keyset pagination on the document id, and only the documents with the largest revisions size are
+ * kept in memory.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = RevisionStatisticsProvider.class)
+@Singleton
+public class RevisionStatisticsProvider
+{
+    private static final String REVISIONS_STATEMENT = "select rcs.id.docId, count(rcs.id.docId), "
+        + "coalesce(sum(length(rcs.patch.content)), 0) from XWikiRCSNodeContent rcs where rcs.id.docId > :lastId "
+        + "group by rcs.id.docId order by rcs.id.docId";
+
+    private static final String DOCUMENTS_STATEMENT =
+        "select doc.id, doc.fullName, doc.language from XWikiDocument doc where doc.id in (:ids)";
+
+    private static final Comparator<DocumentRevisionUsage> SIZE_COMPARATOR =
+        Comparator.comparingLong(DocumentRevisionUsage::getRevisionsSize);
+
+    @Inject
+    private QueryManager queryManager;
+
+    /**
+     * Get the revisions usage of a wiki. The scan is throttled between batches and stops early when canceled.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param batchSize the number of documents whose revisions are aggregated in a single query.
+     * @param documentsLimit the number of documents with the largest revisions size to keep.
+     * @param throttler the throttler used to pause between batches.
+     * @param canceled tells if the scan was canceled.
+     * @return the revisions usage of the wiki.
+     * @throws QueryException if there are any exceptions while running the queries for data retrieval.
+     * @throws InterruptedException if the thread is interrupted while paused between batches.
+     */
+    public WikiRevisionUsage getWikiRevisionUsage(String wikiId, int batchSize, int documentsLimit,
+        BatchThrottler throttler, BooleanSupplier canceled) throws QueryException, InterruptedException
+    {
+        WikiRevisionUsage wikiUsage = new WikiRevisionUsage(wikiId);
+        PriorityQueue<DocumentRevisionUsage> largestDocuments =
+            new PriorityQueue<>(documentsLimit + 1, SIZE_COMPARATOR);
+        long lastId = Long.MIN_VALUE;
+        while (!canceled.getAsBoolean()) {
+            long batchStart = System.currentTimeMillis();
+            List<Object[]> rows = this.queryManager.createQuery(REVISIONS_STATEMENT, Query.HQL)
+                .bindValue("lastId", lastId).setLimit(batchSize).setWiki(wikiId).execute();
+            for (Object[] row : rows) {
+                long documentId = ((Number) row[0]).longValue();
+                long revisionsCount = ((Number) row[1]).longValue();
+                long revisionsSize = ((Number) row[2]).longValue();
+                wikiUsage.addDocument(revisionsCount, revisionsSize);
+                boolean isFull = largestDocuments.size() >= documentsLimit;
+                if (!isFull || revisionsSize > largestDocuments.peek().getRevisionsSize()) {
+                    if (isFull) {
+                        largestDocuments.poll();
+                    }
+                    largestDocuments.add(new DocumentRevisionUsage(wikiId, documentId, revisionsCount, revisionsSize));
+                }
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+            lastId = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+            throttler.throttle(rows.size(), System.currentTimeMillis() - batchStart);
+        }
+        List<DocumentRevisionUsage> sortedDocuments = new ArrayList<>(largestDocuments);
+        sortedDocuments.sort(SIZE_COMPARATOR.reversed());
+        setDocumentNames(wikiId, sortedDocuments);
+        wikiUsage.setLargestDocuments(sortedDocuments);
+        return wikiUsage;
+    }
+
+    private void setDocumentNames(String wikiId, List<DocumentRevisionUsage> documents) throws QueryException
+    {
+        if (documents.isEmpty()) {
+            return;
+        }
+        // The names are only needed for the kept documents, so they are retrieved once, at the end of the scan.
+        Map<Long, DocumentRevisionUsage> documentsById = new HashMap<>();
+        documents.forEach(document -> documentsById.put(document.getDocumentId(), document));
+        List<Object[]> rows = this.queryManager.createQuery(DOCUMENTS_STATEMENT, Query.HQL)
+            .bindValue("ids", new ArrayList<>(documentsById.keySet())).setWiki(wikiId).execute();
+        for (Object[] row : rows) {
+            DocumentRevisionUsage document = documentsById.get(((Number) row[0]).longValue());
+            if (document != null) {
+                document.setDocumentName((String) row[1]);
+                document.setLanguage((String) row[2]);
+            }
+        }
+    }
+}
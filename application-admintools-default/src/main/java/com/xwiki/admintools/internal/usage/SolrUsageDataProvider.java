@@ -0,0 +1,156 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.solr.client.solrj.response.PivotField;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.util.NamedList;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.search.solr.internal.api.SolrIndexer;
+
+import com.xwiki.admintools.internal.usage.wikiResult.WikiIndexedUsage;
+
+/**
+ * Retrieves the per wiki usage info from the Solr index, using a single facet request for the entire instance instead
+ * of running a set of database queries for each wiki.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = SolrUsageDataProvider.class)
+@Singleton
+public class SolrUsageDataProvider
+{
+    private static final String WIKI_FIELD = "wiki";
+
+    private static final String TYPE_FIELD = "type";
+
+    private static final String EMPTY_DOCUMENT_FIELD = "AdminTools.DocumentContentEmpty_boolean";
+
+    private static final String COMMENTS_FIELD = "AdminTools.NumberOfComments_sortInt";
+
+    private static final String PIVOT_FORMAT = "%s,%s";
+
+    private static final String TYPE_PIVOT = String.format(PIVOT_FORMAT, WIKI_FIELD, TYPE_FIELD);
+
+    private static final String EMPTY_DOCUMENT_PIVOT = String.format(PIVOT_FORMAT, WIKI_FIELD, EMPTY_DOCUMENT_FIELD);
+
+    private static final String COMMENTS_PIVOT = String.format(PIVOT_FORMAT, WIKI_FIELD, COMMENTS_FIELD);
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    private Provider<SolrIndexer> solrIndexerProvider;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * Get the usage info of all the indexed wikis. If the Solr index is not in sync with the database, an empty
+     * {@link Map} is returned, and the caller should fall back on the database queries.
+     *
+     * @return a {@link Map} with the wiki ids as keys and the indexed usage info as values, or an empty {@link Map}
+     *     if the index can't be used.
+     */
+    public Map<String, WikiIndexedUsage> getIndexedUsage()
+    {
+        try {
+            int queueSize = solrIndexerProvider.get().getQueueSize();
+            if (queueSize > 0) {
+                logger.debug("The Solr index has [{}] entries waiting to be indexed. Falling back to the database.",
+                    queueSize);
+                return Collections.emptyMap();
+            }
+            return getIndexedUsageFromSolr();
+        } catch (Exception e) {
+            logger.warn("Failed to retrieve the usage info from the Solr index. Root cause is: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+            return Collections.emptyMap();
+        }
+    }
+
+    private Map<String, WikiIndexedUsage> getIndexedUsageFromSolr() throws Exception
+    {
+        Query query = this.queryManager.createQuery("*", "solr");
+        query.bindValue("fq", List.of("type:(DOCUMENT OR ATTACHMENT)"));
+        query.bindValue("facet", "true");
+        query.bindValue("facet.pivot", List.of(TYPE_PIVOT, EMPTY_DOCUMENT_PIVOT, COMMENTS_PIVOT));
+        query.bindValue("facet.limit", "-1");
+        query.bindValue("facet.mincount", "1");
+        // We only need the facets, not the documents.
+        query.bindValue("rows", "0");
+
+        NamedList<List<PivotField>> pivots = ((QueryResponse) query.execute().get(0)).getFacetPivot();
+        Map<String, WikiIndexedUsage> results = new HashMap<>();
+        if (pivots == null) {
+            return results;
+        }
+        processPivot(pivots.get(TYPE_PIVOT), results, (usage, typeField) -> {
+            String type = String.valueOf(typeField.getValue());
+            if ("DOCUMENT".equals(type)) {
+                usage.setDocumentsCount(typeField.getCount());
+            } else if ("ATTACHMENT".equals(type)) {
+                usage.setAttachmentsCount(typeField.getCount());
+            }
+        });
+        processPivot(pivots.get(EMPTY_DOCUMENT_PIVOT), results, (usage, emptyField) -> {
+            if (Boolean.parseBoolean(String.valueOf(emptyField.getValue()))) {
+                usage.setEmptyDocumentsCount(emptyField.getCount());
+            }
+        });
+        processPivot(pivots.get(COMMENTS_PIVOT), results, (usage, commentsField) -> {
+            int commentsCount = Integer.parseInt(String.valueOf(commentsField.getValue()));
+            if (commentsCount > 0) {
+                usage.getCommentsDistribution().put(commentsCount, (long) commentsField.getCount());
+            }
+        });
+        return results;
+    }
+
+    private void processPivot(List<PivotField> wikiFields, Map<String, WikiIndexedUsage> results,
+        BiConsumer<WikiIndexedUsage, PivotField> valueConsumer)
+    {
+        if (wikiFields == null) {
+            return;
+        }
+        for (PivotField wikiField : wikiFields) {
+            String wikiId = String.valueOf(wikiField.getValue());
+            WikiIndexedUsage usage = results.computeIfAbsent(wikiId, WikiIndexedUsage::new);
+            if (wikiField.getPivot() != null) {
+                wikiField.getPivot().forEach(valueField -> valueConsumer.accept(usage, valueField));
+            }
+        }
+    }
+}
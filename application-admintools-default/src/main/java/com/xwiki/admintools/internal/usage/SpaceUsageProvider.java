@@ -0,0 +1,203 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xwiki.admintools.internal.usage.wikiResult.SpaceUsage;
+
+/**
+ * Compute the number of documents and the number and size of the attachments of each space of a wiki. The values are
+ * read with one grouped query per wiki for the documents and one for the attachments, then rolled up to the parent
+ * spaces in memory, using the space hierarchy built from the space references.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = SpaceUsageProvider.class)
+@Singleton
+public class SpaceUsageProvider
+{
+    private static final String DOCUMENTS_STATEMENT =
+        "select doc.space, count(doc.id) from XWikiDocument doc where doc.translation = 0 group by doc.space";
+
+    private static final String ATTACHMENTS_STATEMENT =
+        "select doc.space, count(attach.id), coalesce(sum(attach.longSize), 0) "
+            + "from XWikiAttachment attach, XWikiDocument doc where attach.docId = doc.id group by doc.space";
+
+    private static final long CACHE_DURATION = TimeUnit.MINUTES.toMillis(5);
+
+    private static final char SEPARATOR = '.';
+
+    private static final char ESCAPE = '\\';
+
+    private static final Comparator<SpaceUsage> SIZE_COMPARATOR =
+        Comparator.comparingLong(SpaceUsage::getTotalAttachmentsSize)
+            .thenComparingLong(SpaceUsage::getTotalDocumentsCount).reversed();
+
+    private final Map<String, CachedSpaces> cache = new ConcurrentHashMap<>();
+
+    @Inject
+    private QueryManager queryManager;
+
+    /**
+     * Get the usage of the direct nested spaces of a space, sorted by their total attachments size, in descending
+     * order. The space hierarchy of the wiki is reused for a few minutes, so that drilling down into the spaces doesn't
+     * query the database again.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param parentSpace the serialized local reference of the parent space, or an empty value for the top level
+     *     spaces.
+     * @return the usage of the nested spaces, or an empty {@link List} if the parent space doesn't exist.
+     * @throws QueryException if there are any exceptions while running the grouped queries.
+     */
+    public List<SpaceUsage> getSpacesUsage(String wikiId, String parentSpace) throws QueryException
+    {
+        return getWikiSpaces(wikiId).children.getOrDefault(StringUtils.defaultString(parentSpace),
+            Collections.emptyList());
+    }
+
+    /**
+     * Get the usage of a space of a wiki.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param space the serialized local reference of the space.
+     * @return the space usage, or {@code null} if the space doesn't exist.
+     * @throws QueryException if there are any exceptions while running the grouped queries.
+     */
+    public SpaceUsage getSpaceUsage(String wikiId, String space) throws QueryException
+    {
+        return getWikiSpaces(wikiId).spaces.get(space);
+    }
+
+    private CachedSpaces getWikiSpaces(String wikiId) throws QueryException
+    {
+        long now = System.currentTimeMillis();
+        CachedSpaces cachedSpaces = this.cache.get(wikiId);
+        if (cachedSpaces == null || now - cachedSpaces.timestamp >= CACHE_DURATION) {
+            cachedSpaces = computeWikiSpaces(wikiId, now);
+            this.cache.put(wikiId, cachedSpaces);
+        }
+        return cachedSpaces;
+    }
+
+    private CachedSpaces computeWikiSpaces(String wikiId, long timestamp) throws QueryException
+    {
+        Map<String, SpaceUsage> spaces = new HashMap<>();
+        Map<String, List<SpaceUsage>> children = new HashMap<>();
+        List<Object[]> documentsRows =
+            this.queryManager.createQuery(DOCUMENTS_STATEMENT, Query.HQL).setWiki(wikiId).execute();
+        for (Object[] row : documentsRows) {
+            getOrCreateSpace((String) row[0], spaces, children).addDocuments(toLong(row[1]));
+        }
+        List<Object[]> attachmentsRows =
+            this.queryManager.createQuery(ATTACHMENTS_STATEMENT, Query.HQL).setWiki(wikiId).execute();
+        for (Object[] row : attachmentsRows) {
+            getOrCreateSpace((String) row[0], spaces, children).addAttachments(toLong(row[1]), toLong(row[2]));
+        }
+        children.values().forEach(nestedSpaces -> nestedSpaces.sort(SIZE_COMPARATOR));
+        return new CachedSpaces(spaces, children, timestamp);
+    }
+
+    private SpaceUsage getOrCreateSpace(String reference, Map<String, SpaceUsage> spaces,
+        Map<String, List<SpaceUsage>> children)
+    {
+        SpaceUsage space = spaces.get(reference);
+        if (space != null) {
+            return space;
+        }
+        // The references of the ancestors are prefixes of the space reference, ending before an unescaped separator.
+        int nameStart = 0;
+        int index = 0;
+        SpaceUsage parent = null;
+        while (index <= reference.length()) {
+            if (index < reference.length() && reference.charAt(index) == ESCAPE) {
+                // Skip the escaped character.
+                index = Math.min(index + 2, reference.length());
+                continue;
+            }
+            if (index == reference.length() || reference.charAt(index) == SEPARATOR) {
+                String prefix = reference.substring(0, index);
+                SpaceUsage current = spaces.get(prefix);
+                if (current == null) {
+                    current = new SpaceUsage(prefix, unescape(reference.substring(nameStart, index)), parent);
+                    spaces.put(prefix, current);
+                    String parentReference = parent == null ? StringUtils.EMPTY : parent.getReference();
+                    children.computeIfAbsent(parentReference, key -> new ArrayList<>()).add(current);
+                }
+                parent = current;
+                nameStart = index + 1;
+            }
+            index++;
+        }
+        return parent;
+    }
+
+    private String unescape(String name)
+    {
+        StringBuilder unescaped = new StringBuilder(name.length());
+        int index = 0;
+        while (index < name.length()) {
+            if (name.charAt(index) == ESCAPE && index + 1 < name.length()) {
+                index++;
+            }
+            unescaped.append(name.charAt(index));
+            index++;
+        }
+        return unescaped.toString();
+    }
+
+    private long toLong(Object value)
+    {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static final class CachedSpaces
+    {
+        private final Map<String, SpaceUsage> spaces;
+
+        private final Map<String, List<SpaceUsage>> children;
+
+        private final long timestamp;
+
+        CachedSpaces(Map<String, SpaceUsage> spaces, Map<String, List<SpaceUsage>> children, long timestamp)
+        {
+            this.spaces = spaces;
+            this.children = children;
+            this.timestamp = timestamp;
+        }
+    }
+}
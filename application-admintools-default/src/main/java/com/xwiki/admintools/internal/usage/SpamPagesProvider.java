@@ -47,6 +47,21 @@ public class SpamPagesProvider
 {
     private static final List<String> VALID_SORT_ORDERS = List.of("desc", "asc");
 
+    private static final String SPAM_SCORE = "spamScore";
+
+    /**
+     * Weighted sum of the normalized comment features. A recent comment, a high ratio of guest comments, many links
+     * per comment and few distinct authors for many comments all push the score towards 1. The recency terms decay
+     * with the age of the latest comment, computed at query time, and are halved after one day and one week.
+     */
+    private static final String SPAM_SCORE_FUNCTION = "sum("
+        + "product(0.3,recip(ms(NOW,field(AdminTools.LatestCommentDate_sortDate)),1.1574e-8,1,1)),"
+        + "product(0.15,recip(ms(NOW,field(AdminTools.LatestCommentDate_sortDate)),1.6534e-9,1,1)),"
+        + "product(0.25,field(AdminTools.GuestCommentsRatio_sortFloat)),"
+        + "product(0.2,min(div(field(AdminTools.CommentLinkDensity_sortFloat),2),1)),"
+        + "product(0.1,sub(1,div(field(AdminTools.CommentAuthors_sortInt),"
+        + "max(field(AdminTools.NumberOfComments_sortInt),1)))))";
+
     @Inject
     @Named("secure")
     private QueryManager secureQueryManager;
@@ -65,12 +80,64 @@ public class SpamPagesProvider
      */
     public SolrDocumentList getDocumentsOverGivenNumberOfComments(long maxComments, Map<String, String> filters,
         String order) throws Exception
+    {
+        Query query = createQuery(maxComments, filters);
+        query.bindValue("fl", "title_, reference, wiki, AdminTools.NumberOfComments_sortInt, name, spaces");
+        query.bindValue("sort", String.format("AdminTools.NumberOfComments_sortInt %s", getValidOrder(order)));
+        query.setLimit(100);
+        return ((QueryResponse) query.execute().get(0)).getResults();
+    }
+
+    /**
+     * Get a list of solr documents in wiki with comments above a given limit, ranked by their spam score. The score is
+     * a value between 0 and 1 computed by Solr from the comment features stored at index time, so no document needs
+     * to be loaded. It is returned in the {@code spamScore} field of each result.
+     *
+     * @param maxComments maximum number of comments below which the document is ignored.
+     * @param filters {@link Map} of filters to be applied on the results list.
+     * @param order the order of the sort.
+     * @return a {@link SolrDocumentList} with the needed fields set.
+     * @throws QueryException if there are any exceptions while running the queries for data retrieval.
+     * @since 1.4.1
+     */
+    public SolrDocumentList getDocumentsBySpamScore(long maxComments, Map<String, String> filters, String order)
+        throws Exception
+    {
+        Query query = createQuery(maxComments, filters);
+        query.bindValue("fl", String.format(
+            "title_, reference, wiki, AdminTools.NumberOfComments_sortInt, name, spaces, %s:%s", SPAM_SCORE,
+            SPAM_SCORE_FUNCTION));
+        query.bindValue("sort", String.format("%s %s", SPAM_SCORE_FUNCTION, getValidOrder(order)));
+        query.setLimit(100);
+        return ((QueryResponse) query.execute().get(0)).getResults();
+    }
+
+    private Query createQuery(long maxComments, Map<String, String> filters) throws QueryException
     {
         String searchedDocument = filters.get("docName");
         String queryStatement = "*";
         if (searchedDocument != null && !searchedDocument.isEmpty()) {
             queryStatement = String.format("title:%s", solrUtils.toCompleteFilterQueryString(searchedDocument));
         }
+        Query query = this.secureQueryManager.createQuery(queryStatement, "solr");
+        if (query instanceof SecureQuery) {
+            ((SecureQuery) query).checkCurrentAuthor(true);
+            ((SecureQuery) query).checkCurrentUser(true);
+        }
+        query.bindValue("fq", getFilterStatements(maxComments, filters));
+        return query;
+    }
+
+    /**
+     * Get the Solr filter statements that select the documents with comments above a given limit.
+     *
+     * @param maxComments maximum number of comments below which the document is ignored.
+     * @param filters {@link Map} of filters to be applied on the results list.
+     * @return the {@link List} of Solr filter statements.
+     * @since 1.4.1
+     */
+    public List<String> getFilterStatements(long maxComments, Map<String, String> filters)
+    {
         List<String> filterStatements = new ArrayList<>();
         filterStatements.add("type:DOCUMENT");
         filterStatements.add(String.format("AdminTools.NumberOfComments_sortInt:[%d TO *]", maxComments));
@@ -81,17 +148,11 @@ public class SpamPagesProvider
             String searchedWikiID = searchedWiki.replace("XWikiServer", "").toLowerCase();
             filterStatements.add(String.format("wiki:%s", solrUtils.toCompleteFilterQueryString(searchedWikiID)));
         }
-        Query query = this.secureQueryManager.createQuery(queryStatement, "solr");
-        if (query instanceof SecureQuery) {
-            ((SecureQuery) query).checkCurrentAuthor(true);
-            ((SecureQuery) query).checkCurrentUser(true);
-        }
+        return filterStatements;
+    }
 
-        query.bindValue("fl", "title_, reference, wiki, AdminTools.NumberOfComments_sortInt, name, spaces");
-        query.bindValue("fq", filterStatements);
-        query.bindValue("sort", String.format("AdminTools.NumberOfComments_sortInt %s",
-            VALID_SORT_ORDERS.contains(order) ? order : VALID_SORT_ORDERS.get(0)));
-        query.setLimit(100);
-        return ((QueryResponse) query.execute().get(0)).getResults();
+    private String getValidOrder(String order)
+    {
+        return VALID_SORT_ORDERS.contains(order) ? order : VALID_SORT_ORDERS.get(0);
     }
 }
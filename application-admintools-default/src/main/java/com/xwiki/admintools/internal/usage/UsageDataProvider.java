@@ -30,12 +30,8 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
-import org.xwiki.activeinstalls2.internal.PingDataProvider;
 import org.xwiki.activeinstalls2.internal.data.DatabasePing;
-import org.xwiki.activeinstalls2.internal.data.ExtensionPing;
-import org.xwiki.activeinstalls2.internal.data.Ping;
 import org.xwiki.activeinstalls2.internal.data.ServletContainerPing;
-import org.xwiki.activeinstalls2.internal.data.UsersPing;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
@@ -44,6 +40,8 @@ import org.xwiki.query.QueryManager;
 import org.xwiki.wiki.descriptor.WikiDescriptor;
 import org.xwiki.wiki.manager.WikiManagerException;
 
+import com.xwiki.admintools.internal.usage.extension.ExtensionInventory;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiIndexedUsage;
 import com.xwiki.admintools.internal.usage.wikiResult.WikiSizeResult;
 import com.xwiki.admintools.usage.WikiUsageResult;
 
@@ -61,38 +59,32 @@ public class UsageDataProvider extends AbstractInstanceUsageProvider
     private static final String METADATA_VERSION = "version";
 
     @Inject
-    @Named("database")
-    private PingDataProvider databasePingDataProvider;
+    private PingDataCache pingDataCache;
 
     @Inject
-    @Named("servlet")
-    private PingDataProvider servletPingDataProvider;
+    private QueryManager queryManager;
 
     @Inject
-    @Named("extensions")
-    private PingDataProvider extensionsPingDataProvider;
+    @Named("count")
+    private QueryFilter countFilter;
 
     @Inject
-    @Named("users")
-    private PingDataProvider usersPingDataProvider;
+    private SolrUsageDataProvider solrUsageDataProvider;
 
     @Inject
-    private QueryManager queryManager;
+    private ActiveUsersCounter activeUsersCounter;
 
     @Inject
-    @Named("count")
-    private QueryFilter countFilter;
+    private ExtensionInventory extensionInventory;
 
     /**
-     * Get the database metadata using {@link DatabasePing}.
+     * Get the database metadata using {@link DatabasePing}. The metadata is gathered once and then reused.
      *
      * @return a {@link Map} containing the database metadata.
      */
     public Map<String, String> getDatabaseMetadata()
     {
-        Ping ping = new Ping();
-        databasePingDataProvider.provideData(ping);
-        DatabasePing databasePing = ping.getDatabase();
+        DatabasePing databasePing = pingDataCache.getPing(PingDataCache.DATABASE).getDatabase();
         if (databasePing == null) {
             return new HashMap<>();
         }
@@ -100,45 +92,44 @@ public class UsageDataProvider extends AbstractInstanceUsageProvider
     }
 
     /**
-     * Get the server metadata using {@link ServletContainerPing}.
+     * Get the server metadata using {@link ServletContainerPing}. The metadata is gathered once and then reused.
      *
      * @return a {@link Map} containing the server metadata.
      */
     public Map<String, String> getServerMetadata()
     {
-        Ping ping = new Ping();
-        servletPingDataProvider.provideData(ping);
-        String serverName = ping.getServletContainer().getName();
-        String serverVersion = ping.getServletContainer().getVersion();
+        ServletContainerPing servletContainerPing = pingDataCache.getPing(PingDataCache.SERVLET).getServletContainer();
+        String serverName = servletContainerPing.getName();
+        String serverVersion = servletContainerPing.getVersion();
         return Map.of(METADATA_NAME, serverName, METADATA_VERSION, serverVersion);
     }
 
     /**
-     * Get the number of extensions using {@link ExtensionPing}.
+     * Get the number of extensions using {@link ExtensionInventory}.
      *
      * @return a count of the current extensions.
      */
     public int getExtensionCount()
     {
-        Ping ping = new Ping();
-        extensionsPingDataProvider.provideData(ping);
-        return ping.getExtensions().size();
+        return this.extensionInventory.getExtensionsCount();
     }
 
     /**
-     * Get the number of users in instance using {@link UsersPing}.
+     * Get the number of active users in instance using {@link ActiveUsersCounter}.
      *
-     * @return the number of users in the XWiki instance.
+     * @return the number of active users in the XWiki instance.
+     * @throws QueryException if there are any exceptions while counting the users of a wiki.
+     * @throws WikiManagerException if there are any exceptions while retrieving the instance wikis.
      */
-    public long getInstanceUsersCount()
+    public long getInstanceUsersCount() throws QueryException, WikiManagerException
     {
-        Ping ping = new Ping();
-        usersPingDataProvider.provideData(ping);
-        return ping.getUsers().getTotal();
+        return this.activeUsersCounter.getInstanceUsersCount();
     }
 
     /**
-     * Get instance wikis size info, like documents, attachments and users count.
+     * Get instance wikis size info, like documents, attachments and users count. The documents and attachments count
+     * are taken from the Solr index when it is in sync with the database, and computed with database queries
+     * otherwise.
      *
      * @param filters {@link Map} of filters to be applied on the gathered list.
      * @param sortColumn the column after which to be sorted.
@@ -151,10 +142,12 @@ public class UsageDataProvider extends AbstractInstanceUsageProvider
     {
         List<WikiUsageResult> results = new ArrayList<>();
         Collection<WikiDescriptor> searchedWikis = getRequestedWikis(filters);
+        Map<String, WikiIndexedUsage> indexedUsage = solrUsageDataProvider.getIndexedUsage();
 
         searchedWikis.forEach(wikiDescriptor -> {
             try {
-                WikiSizeResult wikiRecycleBinResult = getWikiSize(wikiDescriptor);
+                WikiSizeResult wikiRecycleBinResult =
+                    getWikiSize(wikiDescriptor, indexedUsage.get(wikiDescriptor.getId()));
                 if (checkFilters(filters, wikiRecycleBinResult)) {
                     results.add(wikiRecycleBinResult);
                 }
@@ -175,30 +168,29 @@ public class UsageDataProvider extends AbstractInstanceUsageProvider
      * @throws QueryException if there are any exceptions while running the queries for data retrieval.
      */
     public WikiSizeResult getWikiSize(WikiDescriptor wikiDescriptor) throws QueryException
+    {
+        return getWikiSize(wikiDescriptor, null);
+    }
+
+    private WikiSizeResult getWikiSize(WikiDescriptor wikiDescriptor, WikiIndexedUsage indexedUsage)
+        throws QueryException
     {
         WikiSizeResult wikiData = new WikiSizeResult();
         String wikiId = wikiDescriptor.getId();
         wikiData.setWikiName(wikiDescriptor.getPrettyName());
-        wikiData.setUserCount(getWikiUserCount(wikiId));
-        wikiData.setDocumentsCount(getWikiDocumentsCount(wikiId));
-        wikiData.setAttachmentsCount(getWikiAttachmentsCount(wikiId));
+        wikiData.setUserCount(this.activeUsersCounter.getWikiUsersCount(wikiId));
+        if (indexedUsage != null) {
+            wikiData.setDocumentsCount(indexedUsage.getDocumentsCount());
+            wikiData.setAttachmentsCount(indexedUsage.getAttachmentsCount());
+        } else {
+            wikiData.setDocumentsCount(getWikiDocumentsCount(wikiId));
+            wikiData.setAttachmentsCount(getWikiAttachmentsCount(wikiId));
+        }
         wikiData.setAttachmentsSize(getWikiAttachmentSize(wikiId));
 
         return wikiData;
     }
 
-    private Long getWikiUserCount(String wikiId) throws QueryException
-    {
-        StringBuilder statement = new StringBuilder(", BaseObject as obj, IntegerProperty as prop ");
-        statement.append("where doc.fullName = obj.name and obj.className = 'XWiki.XWikiUsers' and ");
-        statement.append("prop.id.id = obj.id and prop.id.name = 'active' and prop.value = '1'");
-
-        List<Long> results =
-            this.queryManager.createQuery(statement.toString(), Query.HQL).addFilter(this.countFilter).setWiki(wikiId)
-                .execute();
-        return results.get(0);
-    }
-
     private long getWikiDocumentsCount(String wikiId) throws QueryException
     {
         List<Long> results =
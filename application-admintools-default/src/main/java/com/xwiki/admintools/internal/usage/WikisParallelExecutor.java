@@ -0,0 +1,139 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.wiki.descriptor.WikiDescriptor;
+
+/**
+ * Run a task for each wiki of the instance on a bounded pool of threads, each task having its own execution context.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = WikisParallelExecutor.class)
+@Singleton
+public class WikisParallelExecutor implements Initializable, Disposable
+{
+    private static final int MAX_THREADS = 4;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
+    private ExecutorService executor;
+
+    /**
+     * Task executed for a single wiki.
+     *
+     * @param <T> the type of the task result
+     * @version $Id$
+     */
+    @FunctionalInterface
+    public interface WikiTask<T>
+    {
+        /**
+         * Execute the task for the given wiki.
+         *
+         * @param wikiDescriptor the wiki for which the task is executed
+         * @return the result of the task
+         * @throws Exception if the task fails
+         */
+        T execute(WikiDescriptor wikiDescriptor) throws Exception;
+    }
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.executor = Executors.newFixedThreadPool(MAX_THREADS,
+            new BasicThreadFactory.Builder().namingPattern("AdminTools wikis worker-%d").daemon(true).build());
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Execute the given task for each of the given wikis, in parallel, and wait for all of them to finish.
+     *
+     * @param wikis the wikis for which to execute the task
+     * @param task the task to execute
+     * @param <T> the type of the task result
+     * @return the results of the task mapped by wiki id, in the iteration order of the given wikis
+     * @throws Exception if any of the tasks failed
+     */
+    public <T> Map<String, T> execute(Collection<WikiDescriptor> wikis, WikiTask<T> task) throws Exception
+    {
+        Map<String, Future<T>> futures = new LinkedHashMap<>();
+        for (WikiDescriptor wikiDescriptor : wikis) {
+            futures.put(wikiDescriptor.getId(), this.executor.submit(() -> executeInContext(wikiDescriptor, task)));
+        }
+        Map<String, T> results = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, Future<T>> future : futures.entrySet()) {
+                results.put(future.getKey(), future.getValue().get());
+            }
+        } catch (ExecutionException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        return results;
+    }
+
+    private <T> T executeInContext(WikiDescriptor wikiDescriptor, WikiTask<T> task) throws Exception
+    {
+        this.executionContextManager.initialize(new ExecutionContext());
+        try {
+            return task.execute(wikiDescriptor);
+        } finally {
+            this.execution.removeContext();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.database;
+
+import org.xwiki.component.annotation.Role;
+
+/**
+ * Native query that reads the table statistics of the current database from its catalog views. Each implementation
+ * is named after the database it supports, as it is found in the database product name.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Role
+public interface DatabaseStatisticsQuery
+{
+    /**
+     * Get the native statement that retrieves, for each table of the current schema, the table name, the estimated
+     * number of rows, the table size, the indexes size and the estimated bloat size, in this order. The sizes are in
+     * bytes.
+     *
+     * @return the native SQL statement.
+     */
+    String getStatement();
+}
@@ -0,0 +1,51 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.database;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+
+/**
+ * {@link DatabaseStatisticsQuery} for HSQLDB, mostly used for local instances. The space is only reported for the
+ * cached tables, so the sizes of the memory tables are {@code 0}.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(HSQLStatisticsQuery.HINT)
+@Singleton
+public class HSQLStatisticsQuery implements DatabaseStatisticsQuery
+{
+    /**
+     * Component identifier.
+     */
+    public static final String HINT = "hsql";
+
+    @Override
+    public String getStatement()
+    {
+        return "select table_name, cardinality, coalesce(used_space, 0), 0, "
+            + "coalesce(allocated_space - used_space, 0) from information_schema.system_tablestats "
+            + "where table_schema = current_schema";
+    }
+}
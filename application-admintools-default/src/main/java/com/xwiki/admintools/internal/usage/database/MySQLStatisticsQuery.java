@@ -0,0 +1,49 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.database;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+
+/**
+ * {@link DatabaseStatisticsQuery} for MySQL. The free space reported by InnoDB is used as the bloat estimate.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(MySQLStatisticsQuery.HINT)
+@Singleton
+public class MySQLStatisticsQuery implements DatabaseStatisticsQuery
+{
+    /**
+     * Component identifier.
+     */
+    public static final String HINT = "mysql";
+
+    @Override
+    public String getStatement()
+    {
+        return "select table_name, table_rows, data_length, index_length, data_free from information_schema.tables "
+            + "where table_schema = database() and table_type = 'BASE TABLE'";
+    }
+}
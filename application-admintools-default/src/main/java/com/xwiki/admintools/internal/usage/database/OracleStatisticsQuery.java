@@ -0,0 +1,62 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.database;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+
+/**
+ * {@link DatabaseStatisticsQuery} for Oracle. The table size includes the LOB segments of the table, where the
+ * content of the large columns is stored, and the indexes size includes their LOB indexes. The bloat is estimated as
+ * the allocated space of the table segments not used by the rows, based on the optimizer statistics.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(OracleStatisticsQuery.HINT)
+@Singleton
+public class OracleStatisticsQuery implements DatabaseStatisticsQuery
+{
+    /**
+     * Component identifier.
+     */
+    public static final String HINT = "oracle";
+
+    @Override
+    public String getStatement()
+    {
+        return "select t.table_name, nvl(t.num_rows, 0), nvl(s.bytes, 0) + nvl(l.bytes, 0), "
+            + "nvl(ix.bytes, 0) + nvl(l.index_bytes, 0), "
+            + "greatest(nvl(s.bytes, 0) - nvl(t.num_rows * t.avg_row_len, 0), 0) from user_tables t "
+            + "left join (select segment_name, sum(bytes) bytes from user_segments "
+            + "where segment_type in ('TABLE', 'TABLE PARTITION') group by segment_name) s "
+            + "on s.segment_name = t.table_name "
+            + "left join (select lob.table_name, sum(ls.bytes) bytes, sum(nvl(lis.bytes, 0)) index_bytes "
+            + "from user_lobs lob join user_segments ls on ls.segment_name = lob.segment_name "
+            + "left join user_segments lis on lis.segment_name = lob.index_name group by lob.table_name) l "
+            + "on l.table_name = t.table_name "
+            + "left join (select i.table_name, sum(iseg.bytes) bytes from user_indexes i "
+            + "join user_segments iseg on iseg.segment_name = i.index_name where i.index_type <> 'LOB' "
+            + "group by i.table_name) ix on ix.table_name = t.table_name";
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.database;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+
+/**
+ * {@link DatabaseStatisticsQuery} for PostgreSQL. The bloat is estimated from the ratio of dead tuples reported by the
+ * statistics collector.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(PostgreSQLStatisticsQuery.HINT)
+@Singleton
+public class PostgreSQLStatisticsQuery implements DatabaseStatisticsQuery
+{
+    /**
+     * Component identifier.
+     */
+    public static final String HINT = "postgresql";
+
+    @Override
+    public String getStatement()
+    {
+        return "select c.relname, cast(greatest(c.reltuples, 0) as bigint), pg_table_size(c.oid), "
+            + "pg_indexes_size(c.oid), cast(case when c.reltuples + coalesce(s.n_dead_tup, 0) > 0 "
+            + "then pg_table_size(c.oid) * coalesce(s.n_dead_tup, 0) / (c.reltuples + coalesce(s.n_dead_tup, 0)) "
+            + "else 0 end as bigint) from pg_class c join pg_namespace n on n.oid = c.relnamespace "
+            + "left join pg_stat_user_tables s on s.relid = c.oid "
+            + "where c.relkind = 'r' and n.nspname = current_schema()";
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.duplicates;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+
+import com.xwiki.admintools.usage.DuplicateAttachmentGroup;
+import com.xwiki.admintools.usage.WikiDuplicateAttachments;
+
+/**
+ * Keep, for each indexed wiki, the size of each attachment and the hash of the content of the attachments that could
+ * be duplicates. Only the attachments sharing their size with another attachment of the wiki need to be hashed, so
+ * the attachments with a unique size are kept without a hash until another attachment with the same size shows up.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = AttachmentHashIndex.class)
+@Singleton
+public class AttachmentHashIndex
+{
+    private static final Comparator<DuplicateAttachmentGroup> WASTED_SIZE_COMPARATOR =
+        Comparator.comparingLong(DuplicateAttachmentGroup::getWastedSize);
+
+    private final Map<String, WikiHashes> wikis = new ConcurrentHashMap<>();
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    /**
+     * Start a new index for a wiki, dropping the previous one. The attachments added to the wiki after this call are
+     * indexed as they are added.
+     *
+     * @param wikiId the wiki to index.
+     */
+    public void reset(String wikiId)
+    {
+        this.wikis.put(wikiId, new WikiHashes());
+    }
+
+    /**
+     * Drop the index of a wiki.
+     *
+     * @param wikiId the wiki whose index is dropped.
+     */
+    public void remove(String wikiId)
+    {
+        this.wikis.remove(wikiId);
+    }
+
+    /**
+     * @param wikiId the wiki id.
+     * @return {@code true} if the wiki is indexed, or {@code false} otherwise.
+     */
+    public boolean isIndexed(String wikiId)
+    {
+        return this.wikis.containsKey(wikiId);
+    }
+
+    /**
+     * Add an attachment to the index of its wiki, or reset its hash if it was already indexed, since its content
+     * might have changed. Nothing is done if the wiki is not indexed.
+     *
+     * @param reference the attachment reference.
+     * @param size the size of the attachment content.
+     * @return {@code true} if another attachment has the same size, so the attachment needs to be hashed, or
+     *     {@code false} otherwise.
+     */
+    public boolean put(AttachmentReference reference, long size)
+    {
+        WikiHashes wikiHashes = getWikiHashes(reference);
+        return wikiHashes != null && wikiHashes.put(reference, size);
+    }
+
+    /**
+     * Set the content hash of an indexed attachment. The hash is ignored if the attachment was removed from the index
+     * or if its size changed in the meantime.
+     *
+     * @param reference the attachment reference.
+     * @param size the size of the hashed content.
+     * @param hash the hash of the content.
+     */
+    public void setHash(AttachmentReference reference, long size, String hash)
+    {
+        WikiHashes wikiHashes = getWikiHashes(reference);
+        if (wikiHashes != null) {
+            wikiHashes.setHash(reference, size, hash);
+        }
+    }
+
+    /**
+     * Remove an attachment from the index of its wiki.
+     *
+     * @param reference the attachment reference.
+     */
+    public void remove(AttachmentReference reference)
+    {
+        WikiHashes wikiHashes = getWikiHashes(reference);
+        if (wikiHashes != null) {
+            wikiHashes.remove(reference);
+        }
+    }
+
+    /**
+     * Get the attachments of a wiki that share their size with another attachment but were not hashed yet.
+     *
+     * @param wikiId the wiki id.
+     * @return the attachments to hash, the largest first, or an empty list if the wiki is not indexed.
+     */
+    public List<AttachmentReference> getPendingAttachments(String wikiId)
+    {
+        WikiHashes wikiHashes = this.wikis.get(wikiId);
+        return wikiHashes != null ? wikiHashes.getPending() : List.of();
+    }
+
+    /**
+     * Get the duplicate attachments of a wiki.
+     *
+     * @param wikiId the wiki id.
+     * @param groupsLimit the maximum number of returned groups of duplicates.
+     * @return the duplicates of the wiki, with the groups wasting the most space, or {@code null} if the wiki is not
+     *     indexed.
+     */
+    public WikiDuplicateAttachments getDuplicates(String wikiId, int groupsLimit)
+    {
+        WikiHashes wikiHashes = this.wikis.get(wikiId);
+        if (wikiHashes == null) {
+            return null;
+        }
+        WikiDuplicateAttachments duplicates = new WikiDuplicateAttachments(wikiId);
+        // The smallest group is the head of the queue, so it can be replaced in O(log N) when a larger one is found.
+        PriorityQueue<DuplicateAttachmentGroup> largestGroups =
+            new PriorityQueue<>(groupsLimit + 1, WASTED_SIZE_COMPARATOR);
+        synchronized (wikiHashes) {
+            duplicates.setAttachmentsCount(wikiHashes.entries.size());
+            duplicates.setHashedCount(wikiHashes.hashedCount);
+            for (Map.Entry<String, Set<AttachmentReference>> hashGroup : wikiHashes.byHash.entrySet()) {
+                if (hashGroup.getValue().size() < 2) {
+                    continue;
+                }
+                AttachmentReference first = hashGroup.getValue().iterator().next();
+                DuplicateAttachmentGroup group = new DuplicateAttachmentGroup(hashGroup.getKey(),
+                    wikiHashes.entries.get(first).size, serialize(hashGroup.getValue()));
+                duplicates.addGroup(group);
+                largestGroups.add(group);
+                if (largestGroups.size() > groupsLimit) {
+                    largestGroups.poll();
+                }
+            }
+        }
+        List<DuplicateAttachmentGroup> sortedGroups = new ArrayList<>(largestGroups);
+        sortedGroups.sort(WASTED_SIZE_COMPARATOR.reversed());
+        duplicates.setLargestGroups(sortedGroups);
+        return duplicates;
+    }
+
+    private List<String> serialize(Set<AttachmentReference> references)
+    {
+        List<String> serializedReferences = new ArrayList<>(references.size());
+        references.forEach(reference -> serializedReferences.add(this.serializer.serialize(reference)));
+        serializedReferences.sort(null);
+        return serializedReferences;
+    }
+
+    private WikiHashes getWikiHashes(AttachmentReference reference)
+    {
+        return this.wikis.get(reference.getDocumentReference().getWikiReference().getName());
+    }
+
+    private static final class IndexEntry
+    {
+        private final long size;
+
+        private String hash;
+
+        IndexEntry(long size)
+        {
+            this.size = size;
+        }
+    }
+
+    private static final class WikiHashes
+    {
+        private final Map<AttachmentReference, IndexEntry> entries = new HashMap<>();
+
+        private final Map<Long, Set<AttachmentReference>> bySize = new HashMap<>();
+
+        private final Map<String, Set<AttachmentReference>> byHash = new HashMap<>();
+
+        private long hashedCount;
+
+        synchronized boolean put(AttachmentReference reference, long size)
+        {
+            remove(reference);
+            this.entries.put(reference, new IndexEntry(size));
+            Set<AttachmentReference> sameSize = this.bySize.computeIfAbsent(size, key -> new HashSet<>());
+            sameSize.add(reference);
+            // Empty attachments don't waste any space, so there's no point in hashing them.
+            return size > 0 && sameSize.size() > 1;
+        }
+
+        synchronized void setHash(AttachmentReference reference, long size, String hash)
+        {
+            IndexEntry entry = this.entries.get(reference);
+            if (entry != null && entry.size == size && entry.hash == null) {
+                entry.hash = hash;
+                this.byHash.computeIfAbsent(hash, key -> new HashSet<>()).add(reference);
+                this.hashedCount++;
+            }
+        }
+
+        synchronized void remove(AttachmentReference reference)
+        {
+            IndexEntry entry = this.entries.remove(reference);
+            if (entry == null) {
+                return;
+            }
+            removeFromGroup(this.bySize, entry.size, reference);
+            if (entry.hash != null) {
+                removeFromGroup(this.byHash, entry.hash, reference);
+                this.hashedCount--;
+            }
+        }
+
+        synchronized List<AttachmentReference> getPending()
+        {
+            List<Map.Entry<AttachmentReference, IndexEntry>> pending = new ArrayList<>();
+            for (Map.Entry<AttachmentReference, IndexEntry> entry : this.entries.entrySet()) {
+                IndexEntry indexEntry = entry.getValue();
+                if (indexEntry.hash == null && indexEntry.size > 0 && this.bySize.get(indexEntry.size).size() > 1) {
+                    pending.add(entry);
+                }
+            }
+            pending.sort(Comparator.comparingLong(entry -> -entry.getValue().size));
+            List<AttachmentReference> references = new ArrayList<>(pending.size());
+            pending.forEach(entry -> references.add(entry.getKey()));
+            return references;
+        }
+
+        private <K> void removeFromGroup(Map<K, Set<AttachmentReference>> groups, K key,
+            AttachmentReference reference)
+        {
+            Set<AttachmentReference> group = groups.get(key);
+            group.remove(reference);
+            if (group.isEmpty()) {
+                groups.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.duplicates;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.model.reference.AttachmentReference;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xwiki.admintools.internal.jobs.BatchThrottler;
+
+/**
+ * Hash the content of the attachments that are pending in the {@link AttachmentHashIndex}. The content is streamed
+ * once, through a small buffer, and the reading is throttled so that hashing large attachments doesn't saturate the
+ * storage. The attachments added after a wiki was indexed are hashed in the background, on a single thread.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = AttachmentHasher.class)
+@Singleton
+public class AttachmentHasher implements Initializable, Disposable
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int KILOBYTE = 1024;
+
+    // The throttler expects batches of similar sizes, so the content is accounted in chunks of 1 MB, whatever the
+    // size of the hashed attachments.
+    private static final int THROTTLE_CHUNK_SIZE = 1024 * KILOBYTE;
+
+    private static final int BACKGROUND_MAX_KILOBYTES_PER_SECOND = 2048;
+
+    private static final int MAX_QUEUED_WIKIS = 100;
+
+    private final Set<String> queuedWikis = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    private AttachmentHashIndex attachmentHashIndex;
+
+    @Inject
+    private Provider<XWikiContext> wikiContextProvider;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private Logger logger;
+
+    private ThreadPoolExecutor executor;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED_WIKIS),
+            new BasicThreadFactory.Builder().namingPattern("AdminTools attachment hasher").daemon(true).build());
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Hash, in the background, the pending attachments of a wiki. A wiki is queued only once, since a single run
+     * hashes all its pending attachments.
+     *
+     * @param wikiId the wiki id.
+     */
+    public void submit(String wikiId)
+    {
+        if (!this.queuedWikis.add(wikiId)) {
+            return;
+        }
+        try {
+            this.executor.execute(() -> hashInContext(wikiId));
+        } catch (RejectedExecutionException e) {
+            this.queuedWikis.remove(wikiId);
+            this.logger.warn("Too many wikis are waiting for their attachments to be hashed, skipping wiki [{}].",
+                wikiId);
+        }
+    }
+
+    /**
+     * Hash the pending attachments of a wiki and add their hashes to the index.
+     *
+     * @param wikiId the wiki id.
+     * @param maxKilobytesPerSecond the maximum number of kilobytes read per second, or a value lower than 1 for no
+     *     limit.
+     * @param canceled tells if the hashing was canceled.
+     * @return the number of hashed attachments.
+     * @throws XWikiException if an attachment could not be loaded.
+     * @throws IOException if the content of an attachment could not be read.
+     * @throws InterruptedException if the thread is interrupted while paused.
+     */
+    public long hashPendingAttachments(String wikiId, int maxKilobytesPerSecond, BooleanSupplier canceled)
+        throws XWikiException, IOException, InterruptedException
+    {
+        ContentThrottle throttle = new ContentThrottle(new BatchThrottler(maxKilobytesPerSecond));
+        XWikiContext wikiContext = this.wikiContextProvider.get();
+        long hashedCount = 0;
+        for (AttachmentReference reference : this.attachmentHashIndex.getPendingAttachments(wikiId)) {
+            if (canceled.getAsBoolean()) {
+                break;
+            }
+            XWikiDocument document = wikiContext.getWiki().getDocument(reference.getDocumentReference(), wikiContext);
+            XWikiAttachment attachment = document.getAttachment(reference.getName());
+            if (attachment == null) {
+                // The attachment was deleted in the meantime.
+                this.attachmentHashIndex.remove(reference);
+            } else {
+                this.attachmentHashIndex.setHash(reference, attachment.getLongSize(),
+                    hash(attachment, throttle, wikiContext));
+                hashedCount++;
+            }
+        }
+        return hashedCount;
+    }
+
+    private String hash(XWikiAttachment attachment, ContentThrottle throttle, XWikiContext wikiContext)
+        throws XWikiException, IOException, InterruptedException
+    {
+        // The document comes from the cache, so the content is released after use if it wasn't already loaded.
+        boolean contentLoaded = attachment.getAttachment_content() != null;
+        MessageDigest digest = DigestUtils.getMd5Digest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream input = attachment.getContentInputStream(wikiContext)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                throttle.add(read);
+            }
+        } finally {
+            if (!contentLoaded) {
+                attachment.setAttachment_content(null);
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private void hashInContext(String wikiId)
+    {
+        this.queuedWikis.remove(wikiId);
+        try {
+            this.executionContextManager.initialize(new ExecutionContext());
+            hashPendingAttachments(wikiId, BACKGROUND_MAX_KILOBYTES_PER_SECOND, () -> false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            this.logger.warn("Failed to hash the new attachments of wiki [{}]. Root cause is: [{}]", wikiId,
+                ExceptionUtils.getRootCauseMessage(e));
+        } finally {
+            this.execution.removeContext();
+        }
+    }
+
+    private static final class ContentThrottle
+    {
+        private final BatchThrottler throttler;
+
+        private long chunkStart = System.currentTimeMillis();
+
+        private int chunkBytes;
+
+        ContentThrottle(BatchThrottler throttler)
+        {
+            this.throttler = throttler;
+        }
+
+        void add(int bytes) throws InterruptedException
+        {
+            this.chunkBytes += bytes;
+            if (this.chunkBytes >= THROTTLE_CHUNK_SIZE) {
+                this.throttler.throttle(this.chunkBytes / KILOBYTE, System.currentTimeMillis() - this.chunkStart);
+                this.chunkBytes = 0;
+                this.chunkStart = System.currentTimeMillis();
+            }
+        }
+    }
+}
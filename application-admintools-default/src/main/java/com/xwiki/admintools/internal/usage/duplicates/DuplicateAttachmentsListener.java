@@ -0,0 +1,94 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.duplicates;
+
+import java.util.Arrays;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AbstractAttachmentEvent;
+import com.xpn.xwiki.internal.event.AttachmentAddedEvent;
+import com.xpn.xwiki.internal.event.AttachmentDeletedEvent;
+import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
+
+/**
+ * Keeps the {@link AttachmentHashIndex} up to date when attachments of an indexed wiki are added, updated or deleted.
+ * The new content is hashed in the background, and only if another attachment of the wiki has the same size.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(DuplicateAttachmentsListener.HINT)
+@Singleton
+public class DuplicateAttachmentsListener extends AbstractEventListener
+{
+    /**
+     * The hint for the component.
+     */
+    public static final String HINT = "AdminToolsDuplicateAttachmentsListener";
+
+    @Inject
+    private AttachmentHashIndex attachmentHashIndex;
+
+    @Inject
+    private AttachmentHasher attachmentHasher;
+
+    /**
+     * Creates an event-listener filtering for attachment and wiki changes.
+     */
+    public DuplicateAttachmentsListener()
+    {
+        super(HINT, Arrays.asList(new AttachmentAddedEvent(), new AttachmentUpdatedEvent(),
+            new AttachmentDeletedEvent(), new WikiDeletedEvent()));
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (event instanceof WikiDeletedEvent) {
+            this.attachmentHashIndex.remove(((WikiDeletedEvent) event).getWikiId());
+            return;
+        }
+        XWikiDocument document = (XWikiDocument) source;
+        String wikiId = document.getDocumentReference().getWikiReference().getName();
+        if (!this.attachmentHashIndex.isIndexed(wikiId)) {
+            return;
+        }
+        String attachmentName = ((AbstractAttachmentEvent) event).getName();
+        AttachmentReference reference = new AttachmentReference(attachmentName, document.getDocumentReference());
+        XWikiAttachment attachment = document.getAttachment(attachmentName);
+        if (event instanceof AttachmentDeletedEvent || attachment == null) {
+            this.attachmentHashIndex.remove(reference);
+        } else if (this.attachmentHashIndex.put(reference, attachment.getLongSize())) {
+            this.attachmentHasher.submit(wikiId);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.extension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.extension.InstalledExtension;
+import org.xwiki.extension.repository.InstalledExtensionRepository;
+
+/**
+ * Keeps in memory the inventory of the installed extensions, with their versions and namespaces. The inventory is
+ * built from the {@link InstalledExtensionRepository} the first time it is needed and invalidated by
+ * {@link ExtensionInventoryListener} when an extension is installed, upgraded or uninstalled.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = ExtensionInventory.class)
+@Singleton
+public class ExtensionInventory
+{
+    private static final String ROOT_NAMESPACE = "{root}";
+
+    @Inject
+    private InstalledExtensionRepository installedExtensionRepository;
+
+    private volatile Map<String, ExtensionInventoryEntry> inventory;
+
+    private volatile Map<String, ExtensionInventoryEntry> snapshot;
+
+    /**
+     * Get the installed extension versions.
+     *
+     * @return the installed extension versions, sorted by id.
+     */
+    public Collection<ExtensionInventoryEntry> getExtensions()
+    {
+        return getInventory().values();
+    }
+
+    /**
+     * Get the number of installed extension versions.
+     *
+     * @return the number of installed extension versions.
+     */
+    public int getExtensionsCount()
+    {
+        return getInventory().size();
+    }
+
+    /**
+     * Get the extensions installed and uninstalled since the last snapshot. The first snapshot is the inventory that
+     * was computed the first time it was needed after the startup.
+     *
+     * @return the changes since the last snapshot.
+     */
+    public ExtensionInventoryDiff getChanges()
+    {
+        Map<String, ExtensionInventoryEntry> current = getInventory();
+        Map<String, ExtensionInventoryEntry> previous = this.snapshot;
+        List<ExtensionInventoryEntry> added = new ArrayList<>();
+        List<ExtensionInventoryEntry> removed = new ArrayList<>();
+        current.forEach((key, entry) -> {
+            if (!previous.containsKey(key)) {
+                added.add(entry);
+            }
+        });
+        previous.forEach((key, entry) -> {
+            if (!current.containsKey(key)) {
+                removed.add(entry);
+            }
+        });
+        return new ExtensionInventoryDiff(added, removed);
+    }
+
+    /**
+     * Use the current inventory as the reference for the next calls of {@link #getChanges()}. It is called when the
+     * inventory is exported in a support archive.
+     */
+    public void takeSnapshot()
+    {
+        this.snapshot = getInventory();
+    }
+
+    /**
+     * Drop the cached inventory, so that it is rebuilt on the next call.
+     */
+    public void invalidate()
+    {
+        this.inventory = null;
+    }
+
+    private Map<String, ExtensionInventoryEntry> getInventory()
+    {
+        Map<String, ExtensionInventoryEntry> currentInventory = this.inventory;
+        if (currentInventory == null) {
+            currentInventory = buildInventory();
+            this.inventory = currentInventory;
+            if (this.snapshot == null) {
+                this.snapshot = currentInventory;
+            }
+        }
+        return currentInventory;
+    }
+
+    private Map<String, ExtensionInventoryEntry> buildInventory()
+    {
+        List<InstalledExtension> installedExtensions =
+            new ArrayList<>(this.installedExtensionRepository.getInstalledExtensions());
+        installedExtensions.sort((first, second) -> first.getId().compareTo(second.getId()));
+        Map<String, ExtensionInventoryEntry> entries = new LinkedHashMap<>();
+        for (InstalledExtension installedExtension : installedExtensions) {
+            Collection<String> namespaces = installedExtension.getNamespaces();
+            List<String> entryNamespaces =
+                namespaces == null ? List.of(ROOT_NAMESPACE) : new ArrayList<>(namespaces);
+            ExtensionInventoryEntry entry = new ExtensionInventoryEntry(installedExtension.getId().getId(),
+                installedExtension.getId().getVersion().getValue(), entryNamespaces);
+            entries.put(installedExtension.getId().toString(), entry);
+        }
+        return Collections.unmodifiableMap(entries);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.extension;
+
+import java.util.List;
+
+/**
+ * The extensions that were installed and uninstalled since the last inventory snapshot. An upgraded extension appears
+ * as both removed, with its previous version, and added, with its new version.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+public class ExtensionInventoryDiff
+{
+    private final List<ExtensionInventoryEntry> added;
+
+    private final List<ExtensionInventoryEntry> removed;
+
+    /**
+     * Create a new inventory diff.
+     *
+     * @param added the extension versions installed since the snapshot.
+     * @param removed the extension versions uninstalled since the snapshot.
+     */
+    public ExtensionInventoryDiff(List<ExtensionInventoryEntry> added, List<ExtensionInventoryEntry> removed)
+    {
+        this.added = added;
+        this.removed = removed;
+    }
+
+    /**
+     * Get the extension versions installed since the snapshot.
+     *
+     * @return the extension versions installed since the snapshot.
+     */
+    public List<ExtensionInventoryEntry> getAdded()
+    {
+        return added;
+    }
+
+    /**
+     * Get the extension versions uninstalled since the snapshot.
+     *
+     * @return the extension versions uninstalled since the snapshot.
+     */
+    public List<ExtensionInventoryEntry> getRemoved()
+    {
+        return removed;
+    }
+
+    /**
+     * Check if the inventory changed since the snapshot.
+     *
+     * @return {@code true} if any extension was installed or uninstalled, {@code false} otherwise.
+     */
+    public boolean isEmpty()
+    {
+        return added.isEmpty() && removed.isEmpty();
+    }
+}
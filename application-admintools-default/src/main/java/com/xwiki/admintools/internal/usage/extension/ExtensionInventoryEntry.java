@@ -0,0 +1,81 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.extension;
+
+import java.util.List;
+
+/**
+ * An installed extension version, with the namespaces where it is installed.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+public class ExtensionInventoryEntry
+{
+    private final String id;
+
+    private final String version;
+
+    private final List<String> namespaces;
+
+    /**
+     * Create a new inventory entry.
+     *
+     * @param id the extension id.
+     * @param version the installed version.
+     * @param namespaces the namespaces where this version is installed.
+     */
+    public ExtensionInventoryEntry(String id, String version, List<String> namespaces)
+    {
+        this.id = id;
+        this.version = version;
+        this.namespaces = namespaces;
+    }
+
+    /**
+     * Get the extension id.
+     *
+     * @return the extension id.
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+    /**
+     * Get the installed version.
+     *
+     * @return the installed version.
+     */
+    public String getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Get the namespaces where this version is installed.
+     *
+     * @return the namespaces where this version is installed.
+     */
+    public List<String> getNamespaces()
+    {
+        return namespaces;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+
+/**
+ * Stores the daily usage points of each wiki in a file under the permanent directory. The points are appended as they
+ * are recorded and the series are kept in memory once read.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component(roles = UsageHistoryStore.class)
+@Singleton
+public class UsageHistoryStore
+{
+    private static final String FILE_EXTENSION = ".bin";
+
+    private static final int PROJECTION_DAYS = 30;
+
+    private final Map<String, UsageSeries> series = new HashMap<>();
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * Record the usage of a wiki for a day. Nothing is recorded if the wiki already has a point for this day or a more
+     * recent one.
+     *
+     * @param wikiId the wiki for which the usage is recorded.
+     * @param point the usage of the wiki.
+     * @return {@code true} if the point was recorded, {@code false} otherwise.
+     * @throws IOException if the point could not be written.
+     */
+    public synchronized boolean record(String wikiId, UsagePoint point) throws IOException
+    {
+        UsageSeries wikiSeries = getSeries(wikiId);
+        UsagePoint last = wikiSeries.getLast();
+        if (last != null && last.getDay() >= point.getDay()) {
+            return false;
+        }
+        Path file = getFile(wikiId);
+        Files.createDirectories(file.getParent());
+        try (OutputStream outputStream = new BufferedOutputStream(
+            Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))
+        {
+            if (last == null) {
+                outputStream.write(UsageSeries.FORMAT_VERSION);
+            }
+            UsageSeries.writePoint(outputStream, last, point);
+        }
+        wikiSeries.add(point);
+        return true;
+    }
+
+    /**
+     * Get the usage points of a wiki between two days.
+     *
+     * @param wikiId the wiki for which the usage is retrieved.
+     * @param fromDay the first day, inclusive, as a number of days since the epoch.
+     * @param toDay the last day, inclusive, as a number of days since the epoch.
+     * @return the usage points in the given range, sorted by day.
+     * @throws IOException if the usage history could not be read.
+     */
+    public synchronized List<UsagePoint> getRange(String wikiId, long fromDay, long toDay) throws IOException
+    {
+        return getSeries(wikiId).getRange(fromDay, toDay);
+    }
+
+    /**
+     * Get the most recent usage point of a wiki.
+     *
+     * @param wikiId the wiki for which the usage is retrieved.
+     * @return the most recent usage point, or {@code null} if no usage was recorded for the wiki.
+     * @throws IOException if the usage history could not be read.
+     */
+    public synchronized UsagePoint getLast(String wikiId) throws IOException
+    {
+        return getSeries(wikiId).getLast();
+    }
+
+    /**
+     * Project the attachments storage growth of the given wikis, using a least squares fit of the attachments size
+     * over the last 30 recorded days of each wiki.
+     *
+     * @param wikiIds the wikis whose growth is added up.
+     * @return the growth projection.
+     * @throws IOException if the usage history could not be read.
+     */
+    public synchronized UsageProjection getProjection(Collection<String> wikiIds) throws IOException
+    {
+        double bytesPerDay = 0;
+        for (String wikiId : wikiIds) {
+            UsageSeries wikiSeries = getSeries(wikiId);
+            if (wikiSeries.size() > 1) {
+                UsagePoint last = wikiSeries.getLast();
+                bytesPerDay += getSlope(wikiSeries.getRange(last.getDay() - PROJECTION_DAYS, last.getDay()));
+            }
+        }
+        return new UsageProjection(bytesPerDay, this.environment.getPermanentDirectory().getUsableSpace());
+    }
+
+    /**
+     * Delete the usage history of a wiki.
+     *
+     * @param wikiId the wiki whose usage history is deleted.
+     * @throws IOException if the usage history file could not be deleted.
+     */
+    public synchronized void delete(String wikiId) throws IOException
+    {
+        this.series.remove(wikiId);
+        Files.deleteIfExists(getFile(wikiId));
+    }
+
+    private double getSlope(List<UsagePoint> points)
+    {
+        if (points.size() < 2) {
+            return 0;
+        }
+        double meanDay = points.stream().mapToLong(UsagePoint::getDay).average().orElse(0);
+        double meanSize = points.stream().mapToLong(UsagePoint::getAttachmentsSize).average().orElse(0);
+        double covariance = 0;
+        double variance = 0;
+        for (UsagePoint point : points) {
+            double dayOffset = point.getDay() - meanDay;
+            covariance += dayOffset * (point.getAttachmentsSize() - meanSize);
+            variance += dayOffset * dayOffset;
+        }
+        return variance == 0 ? 0 : covariance / variance;
+    }
+
+    private UsageSeries getSeries(String wikiId) throws IOException
+    {
+        UsageSeries wikiSeries = this.series.get(wikiId);
+        if (wikiSeries == null) {
+            Path file = getFile(wikiId);
+            if (Files.exists(file)) {
+                try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+                    wikiSeries = UsageSeries.read(inputStream);
+                }
+                if (Files.size(file) > wikiSeries.getStoredLength()) {
+                    // Drop the point truncated by an interrupted write, so that the next points are appended after
+                    // the last complete one.
+                    this.logger.warn("Truncated usage history for wiki [{}], keeping its first [{}] points.", wikiId,
+                        wikiSeries.size());
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.truncate(wikiSeries.getStoredLength());
+                    }
+                }
+            } else {
+                wikiSeries = new UsageSeries();
+            }
+            this.series.put(wikiId, wikiSeries);
+        }
+        return wikiSeries;
+    }
+
+    private Path getFile(String wikiId)
+    {
+        return this.environment.getPermanentDirectory().toPath().resolve("adminTools").resolve("usageHistory")
+            .resolve(wikiId + FILE_EXTENSION);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.history;
+
+import java.time.LocalDate;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * The usage counters of a wiki at a given day.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class UsagePoint
+{
+    private final long day;
+
+    private final long documentsCount;
+
+    private final long attachmentsCount;
+
+    private final long attachmentsSize;
+
+    private final long usersCount;
+
+    /**
+     * Create a new usage point.
+     *
+     * @param day the day of the snapshot, as a number of days since the epoch.
+     * @param documentsCount the number of documents.
+     * @param attachmentsCount the number of attachments.
+     * @param attachmentsSize the size of the attachments, in bytes.
+     * @param usersCount the number of active users.
+     */
+    public UsagePoint(long day, long documentsCount, long attachmentsCount, long attachmentsSize, long usersCount)
+    {
+        this.day = day;
+        this.documentsCount = documentsCount;
+        this.attachmentsCount = attachmentsCount;
+        this.attachmentsSize = attachmentsSize;
+        this.usersCount = usersCount;
+    }
+
+    /**
+     * Get the day of the snapshot.
+     *
+     * @return the number of days since the epoch.
+     */
+    public long getDay()
+    {
+        return day;
+    }
+
+    /**
+     * Get the day of the snapshot as a date.
+     *
+     * @return the date of the snapshot.
+     */
+    public LocalDate getDate()
+    {
+        return LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * Get the number of documents.
+     *
+     * @return the number of documents.
+     */
+    public long getDocumentsCount()
+    {
+        return documentsCount;
+    }
+
+    /**
+     * Get the number of attachments.
+     *
+     * @return the number of attachments.
+     */
+    public long getAttachmentsCount()
+    {
+        return attachmentsCount;
+    }
+
+    /**
+     * Get the size of the attachments.
+     *
+     * @return the size of the attachments, in bytes.
+     */
+    public long getAttachmentsSize()
+    {
+        return attachmentsSize;
+    }
+
+    /**
+     * Get the number of active users.
+     *
+     * @return the number of active users.
+     */
+    public long getUsersCount()
+    {
+        return usersCount;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.history;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * A linear projection of the attachments storage growth, based on the recent usage history.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class UsageProjection
+{
+    private final double bytesPerDay;
+
+    private final long freeSpace;
+
+    /**
+     * Create a new projection.
+     *
+     * @param bytesPerDay the average growth of the attachments size, in bytes per day.
+     * @param freeSpace the usable space left on the disk of the permanent directory, in bytes.
+     */
+    public UsageProjection(double bytesPerDay, long freeSpace)
+    {
+        this.bytesPerDay = bytesPerDay;
+        this.freeSpace = freeSpace;
+    }
+
+    /**
+     * Get the average growth of the attachments size.
+     *
+     * @return the growth, in bytes per day.
+     */
+    public double getBytesPerDay()
+    {
+        return bytesPerDay;
+    }
+
+    /**
+     * Get the usable space left on the disk of the permanent directory.
+     *
+     * @return the free space, in bytes.
+     */
+    public long getFreeSpace()
+    {
+        return freeSpace;
+    }
+
+    /**
+     * Get the number of days until the disk is full, if the attachments keep growing at the same rate.
+     *
+     * @return the number of days, or {@code -1} if the attachments size is not growing.
+     */
+    public long getDaysUntilFull()
+    {
+        if (bytesPerDay <= 0) {
+            return -1;
+        }
+        return (long) (freeSpace / bytesPerDay);
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.history;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The usage points of a wiki, sorted by day. The values are kept in one primitive array per counter. On disk, each
+ * point is stored as the difference with the previous one, encoded as variable length integers, so that a daily point
+ * usually takes only a few bytes.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+public class UsageSeries
+{
+    /**
+     * The version of the storage format, written as the first byte of the file.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int DAY = 0;
+
+    private static final int DOCUMENTS = 1;
+
+    private static final int ATTACHMENTS = 2;
+
+    private static final int ATTACHMENTS_SIZE = 3;
+
+    private static final int USERS = 4;
+
+    private static final int COUNTERS = 5;
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private static final int VARINT_MASK = 0x7F;
+
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    private static final int VARINT_SHIFT = 7;
+
+    private long[][] values = new long[COUNTERS][INITIAL_CAPACITY];
+
+    private int size;
+
+    private long storedLength;
+
+    /**
+     * Get the number of points of the series.
+     *
+     * @return the number of points.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Get the number of bytes used by the complete points read by {@link #read(InputStream)}, including the format
+     * version. A truncated trailing point is not counted, and nothing is counted when no point could be read.
+     *
+     * @return the number of bytes of the read series that are valid.
+     */
+    public long getStoredLength()
+    {
+        return storedLength;
+    }
+
+    /**
+     * Get a point of the series.
+     *
+     * @param index the index of the point, starting with the oldest one.
+     * @return the usage point.
+     */
+    public UsagePoint get(int index)
+    {
+        return new UsagePoint(values[DAY][index], values[DOCUMENTS][index], values[ATTACHMENTS][index],
+            values[ATTACHMENTS_SIZE][index], values[USERS][index]);
+    }
+
+    /**
+     * Get the most recent point of the series.
+     *
+     * @return the most recent point, or {@code null} if the series is empty.
+     */
+    public UsagePoint getLast()
+    {
+        return size == 0 ? null : get(size - 1);
+    }
+
+    /**
+     * Add a point at the end of the series. The point must be more recent than the last point of the series.
+     *
+     * @param point the point to add.
+     */
+    public void add(UsagePoint point)
+    {
+        if (size == values[DAY].length) {
+            for (int i = 0; i < COUNTERS; i++) {
+                values[i] = Arrays.copyOf(values[i], size * 2);
+            }
+        }
+        long[] counters = toCounters(point);
+        for (int i = 0; i < COUNTERS; i++) {
+            values[i][size] = counters[i];
+        }
+        size++;
+    }
+
+    /**
+     * Get the points between two days.
+     *
+     * @param fromDay the first day, inclusive, as a number of days since the epoch.
+     * @param toDay the last day, inclusive, as a number of days since the epoch.
+     * @return the points in the given range, sorted by day.
+     */
+    public List<UsagePoint> getRange(long fromDay, long toDay)
+    {
+        int index = Arrays.binarySearch(values[DAY], 0, size, fromDay);
+        // When the day is not found, binarySearch returns (-(insertion point) - 1).
+        if (index < 0) {
+            index = -index - 1;
+        }
+        List<UsagePoint> points = new ArrayList<>();
+        while (index < size && values[DAY][index] <= toDay) {
+            points.add(get(index));
+            index++;
+        }
+        return points;
+    }
+
+    /**
+     * Write a point as the difference with the previous point of the series.
+     *
+     * @param outputStream the stream where the point is written.
+     * @param previous the previous point of the series, or {@code null} if this is the first one.
+     * @param point the point to write.
+     * @throws IOException if the point could not be written.
+     */
+    public static void writePoint(OutputStream outputStream, UsagePoint previous, UsagePoint point) throws IOException
+    {
+        long[] counters = toCounters(point);
+        long[] previousCounters = previous == null ? new long[COUNTERS] : toCounters(previous);
+        for (int i = 0; i < COUNTERS; i++) {
+            writeVarLong(outputStream, counters[i] - previousCounters[i]);
+        }
+    }
+
+    /**
+     * Read a series written with {@link #writePoint(OutputStream, UsagePoint, UsagePoint)}, after the format version.
+     * A trailing point truncated by an interrupted write is ignored, so the series ends with the last complete point.
+     *
+     * @param inputStream the stream from which the series is read.
+     * @return the read series.
+     * @throws IOException if the series could not be read or is in an unknown format.
+     */
+    public static UsageSeries read(InputStream inputStream) throws IOException
+    {
+        UsageSeries series = new UsageSeries();
+        CountingInputStream countingStream = new CountingInputStream(inputStream);
+        int version = countingStream.read();
+        if (version == -1) {
+            return series;
+        }
+        if (version != FORMAT_VERSION) {
+            throw new IOException(String.format("Unknown usage history format [%s].", version));
+        }
+        long[] counters = new long[COUNTERS];
+        try {
+            while (true) {
+                Long firstDelta = readVarLong(countingStream, true);
+                if (firstDelta == null) {
+                    return series;
+                }
+                long[] pointCounters = Arrays.copyOf(counters, COUNTERS);
+                pointCounters[0] += firstDelta;
+                for (int i = 1; i < COUNTERS; i++) {
+                    pointCounters[i] += readVarLong(countingStream, false);
+                }
+                counters = pointCounters;
+                series.add(new UsagePoint(counters[DAY], counters[DOCUMENTS], counters[ATTACHMENTS],
+                    counters[ATTACHMENTS_SIZE], counters[USERS]));
+                series.storedLength = countingStream.count;
+            }
+        } catch (EOFException e) {
+            return series;
+        }
+    }
+
+    private static long[] toCounters(UsagePoint point)
+    {
+        return new long[] { point.getDay(), point.getDocumentsCount(), point.getAttachmentsCount(),
+            point.getAttachmentsSize(), point.getUsersCount() };
+    }
+
+    private static void writeVarLong(OutputStream outputStream, long value) throws IOException
+    {
+        // ZigZag encoding, so that small negative differences also take few bytes.
+        long encoded = (value << 1) ^ (value >> 63);
+        while ((encoded & ~VARINT_MASK) != 0) {
+            outputStream.write((int) ((encoded & VARINT_MASK) | VARINT_CONTINUATION));
+            encoded >>>= VARINT_SHIFT;
+        }
+        outputStream.write((int) encoded);
+    }
+
+    private static Long readVarLong(InputStream inputStream, boolean endAllowed) throws IOException
+    {
+        long encoded = 0;
+        int shift = 0;
+        int read;
+        do {
+            read = inputStream.read();
+            if (read == -1) {
+                if (endAllowed && shift == 0) {
+                    return null;
+                }
+                throw new EOFException("Truncated usage history.");
+            }
+            encoded |= (long) (read & VARINT_MASK) << shift;
+            shift += VARINT_SHIFT;
+        } while ((read & VARINT_CONTINUATION) != 0);
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    private static final class CountingInputStream extends FilterInputStream
+    {
+        private long count;
+
+        CountingInputStream(InputStream inputStream)
+        {
+            super(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int read = super.read();
+            if (read != -1) {
+                count++;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.history;
+
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.wiki.descriptor.WikiDescriptor;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+import com.xwiki.admintools.internal.usage.UsageDataProvider;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiSizeResult;
+
+/**
+ * Records a daily usage point for each wiki in the {@link UsageHistoryStore}. The check runs every hour, so that a
+ * missed day is recorded soon after a restart, and a wiki is only recorded once per day. The usage history of a wiki
+ * is deleted together with the wiki.
+ * <p>
+ * The check runs on a single daemon thread owned by this component rather than as a job of the Scheduler
+ * application. A Scheduler job is a wiki page holding a script that needs programming rights, so it would add a
+ * dependency on that application and a page that can be edited, disabled or deleted, while the history has to be
+ * recorded for as long as the extension is installed. The hourly check only reads the last point of each wiki until
+ * a new day starts, and the thread is stopped when the component is disposed, e.g. when the extension is uninstalled.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(UsageSnapshotScheduler.HINT)
+@Singleton
+public class UsageSnapshotScheduler extends AbstractEventListener implements Initializable, Disposable
+{
+    /**
+     * The hint for the component.
+     */
+    public static final String HINT = "AdminToolsUsageSnapshotScheduler";
+
+    private static final long INITIAL_DELAY = 10;
+
+    private static final long CHECK_PERIOD = 60;
+
+    @Inject
+    private UsageHistoryStore usageHistoryStore;
+
+    @Inject
+    private Provider<UsageDataProvider> usageDataProvider;
+
+    @Inject
+    private Provider<WikiDescriptorManager> wikiDescriptorManagerProvider;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private Logger logger;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates an event-listener filtering for WikiDeletedEvent.
+     */
+    public UsageSnapshotScheduler()
+    {
+        super(HINT, new WikiDeletedEvent());
+    }
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        // Listeners are initialized when the extension is loaded, so the first check is delayed until the wiki is
+        // ready to be queried.
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+            new BasicThreadFactory.Builder().namingPattern("AdminTools usage snapshot").daemon(true).build());
+        this.executor.scheduleWithFixedDelay(this::takeSnapshotsInContext, INITIAL_DELAY, CHECK_PERIOD,
+            TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.executor.shutdownNow();
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        String wikiId = ((WikiDeletedEvent) event).getWikiId();
+        try {
+            this.usageHistoryStore.delete(wikiId);
+        } catch (Exception e) {
+            this.logger.warn("Failed to delete the usage history of wiki [{}]. Root cause is: [{}]", wikiId,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    /**
+     * Record the usage of the wikis that don't have a usage point for the current day yet.
+     */
+    public void takeSnapshots()
+    {
+        long today = LocalDate.now().toEpochDay();
+        try {
+            for (WikiDescriptor wikiDescriptor : this.wikiDescriptorManagerProvider.get().getAll()) {
+                takeSnapshot(wikiDescriptor, today);
+            }
+        } catch (Exception e) {
+            this.logger.warn("Failed to retrieve the wikis for the usage snapshot. Root cause is: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    private void takeSnapshot(WikiDescriptor wikiDescriptor, long today)
+    {
+        String wikiId = wikiDescriptor.getId();
+        try {
+            UsagePoint last = this.usageHistoryStore.getLast(wikiId);
+            if (last == null || last.getDay() < today) {
+                WikiSizeResult wikiSize = this.usageDataProvider.get().getWikiSize(wikiDescriptor);
+                this.usageHistoryStore.record(wikiId,
+                    new UsagePoint(today, toLong(wikiSize.getDocumentsCount()), toLong(wikiSize.getAttachmentsCount()),
+                        toLong(wikiSize.getAttachmentsSize()), toLong(wikiSize.getUserCount())));
+            }
+        } catch (Exception e) {
+            this.logger.warn("Failed to record the usage snapshot of wiki [{}]. Root cause is: [{}]", wikiId,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    private void takeSnapshotsInContext()
+    {
+        try {
+            this.executionContextManager.initialize(new ExecutionContext());
+            takeSnapshots();
+        } catch (Exception e) {
+            this.logger.warn("Failed to initialize the usage snapshot context. Root cause is: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+        } finally {
+            this.execution.removeContext();
+        }
+    }
+
+    private long toLong(Long value)
+    {
+        return value == null ? 0 : value;
+    }
+}
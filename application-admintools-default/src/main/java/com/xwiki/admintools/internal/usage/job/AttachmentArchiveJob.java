@@ -0,0 +1,289 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.job;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.suigeneris.jrcs.rcs.Version;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.GroupedJob;
+import org.xwiki.job.JobGroupPath;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentArchive;
+import com.xwiki.admintools.internal.jobs.BatchThrottler;
+import com.xwiki.admintools.jobs.AttachmentArchiveJobRequest;
+import com.xwiki.admintools.jobs.AttachmentArchiveJobStatus;
+import com.xwiki.admintools.jobs.JobResult;
+import com.xwiki.admintools.jobs.JobResultLevel;
+import com.xwiki.admintools.usage.AttachmentArchiveUsage;
+
+/**
+ * The Admin Tools job that computes the size and the number of versions of the attachment archives of the requested
+ * wikis, both per wiki and per document. The documents holding attachments are read in batches and the size of their
+ * archives is read with a single query on the archives table, without loading their content. The archives kept by the
+ * filesystem store are not in that table, so they are loaded through the store, whose metadata holds the size of each
+ * version. Some databases can't compute the length of a binary column in a query, in which case all the archives are
+ * loaded through the store. Only the documents with the largest attachments history are kept in memory.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(AttachmentArchiveJob.JOB_TYPE)
+public class AttachmentArchiveJob extends AbstractJob<AttachmentArchiveJobRequest, AttachmentArchiveJobStatus>
+    implements GroupedJob
+{
+    /**
+     * Admin Tools attachment archive job type.
+     */
+    public static final String JOB_TYPE = "admintools.attachmentarchive";
+
+    private static final String DOCUMENTS_STATEMENT = "select distinct doc.id, doc.fullName from XWikiDocument doc, "
+        + "XWikiAttachment attach where attach.docId = doc.id and doc.id > :lastId order by doc.id";
+
+    private static final String ATTACHMENTS_STATEMENT = "select attach.docId, attach.filename, attach.version, "
+        + "attach.longSize, length(archive.archive) from XWikiAttachment attach left join XWikiAttachmentArchive "
+        + "archive on archive.id = attach.id where attach.docId in (:ids)";
+
+    private static final String ATTACHMENTS_WITHOUT_ARCHIVE_STATEMENT = "select attach.docId, attach.filename, "
+        + "attach.version, attach.longSize from XWikiAttachment attach where attach.docId in (:ids)";
+
+    private static final String IDS = "ids";
+
+    private static final String VERSION_SEPARATOR = ".";
+
+    private static final Comparator<AttachmentArchiveUsage> HISTORY_SIZE_COMPARATOR =
+        Comparator.comparingLong(AttachmentArchiveUsage::getHistorySize);
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Inject
+    private Provider<XWikiContext> wikiContextProvider;
+
+    private boolean archiveLengthSupported = true;
+
+    @Override
+    public String getType()
+    {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public JobGroupPath getGroupPath()
+    {
+        return new JobGroupPath(List.of("adminTools", "attachmentArchive"));
+    }
+
+    @Override
+    protected AttachmentArchiveJobStatus createNewStatus(AttachmentArchiveJobRequest request)
+    {
+        return new AttachmentArchiveJobStatus(JOB_TYPE, request, observationManager, loggerManager);
+    }
+
+    /**
+     * Run the attachment archive job.
+     */
+    @Override
+    protected void runInternal()
+    {
+        XWikiContext wikiContext = wikiContextProvider.get();
+        String currentWiki = wikiContext.getWikiId();
+        BatchThrottler throttler = new BatchThrottler(request.getMaxRowsPerSecond());
+        this.progressManager.pushLevelProgress(request.getWikis().size(), this);
+        try {
+            for (String wikiId : request.getWikis()) {
+                if (status.isCanceled()) {
+                    break;
+                }
+                progressManager.startStep(this);
+                wikiContext.setWikiId(wikiId);
+                AttachmentArchiveUsage wikiUsage = analyseWiki(wikiId, throttler, wikiContext);
+                status.addLog(new JobResult("adminTools.jobs.attachmentArchive.wiki.success", JobResultLevel.INFO,
+                    wikiId, wikiUsage.getVersionsCount(), wikiUsage.getArchiveSize()));
+                progressManager.endStep(this);
+            }
+            if (status.isCanceled()) {
+                status.addLog(new JobResult("adminTools.jobs.attachmentArchive.canceled", JobResultLevel.WARN));
+            } else {
+                status.addLog(new JobResult("adminTools.jobs.attachmentArchive.success", JobResultLevel.INFO));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status.addLog(new JobResult("adminTools.jobs.attachmentArchive.canceled", JobResultLevel.WARN));
+        } catch (Exception e) {
+            logger.error("An error occurred while computing the attachment archives size.", e);
+            status.addLog(new JobResult("adminTools.jobs.attachmentArchive.fail", JobResultLevel.ERROR,
+                ExceptionUtils.getRootCauseMessage(e)));
+        } finally {
+            wikiContext.setWikiId(currentWiki);
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    private AttachmentArchiveUsage analyseWiki(String wikiId, BatchThrottler throttler, XWikiContext wikiContext)
+        throws Exception
+    {
+        int batchSize = request.getBatchSize();
+        int documentsLimit = request.getLargestDocumentsLimit();
+        WikiReference wikiReference = new WikiReference(wikiId);
+        AttachmentArchiveUsage wikiUsage = new AttachmentArchiveUsage(wikiId, null);
+        PriorityQueue<AttachmentArchiveUsage> largestDocuments =
+            new PriorityQueue<>(documentsLimit + 1, HISTORY_SIZE_COMPARATOR);
+        long lastId = Long.MIN_VALUE;
+        while (!status.isCanceled()) {
+            long batchStart = System.currentTimeMillis();
+            List<Object[]> rows = this.queryManager.createQuery(DOCUMENTS_STATEMENT, Query.HQL)
+                .bindValue("lastId", lastId).setLimit(batchSize).setWiki(wikiId).execute();
+            for (AttachmentArchiveUsage documentUsage : analyseDocuments(rows, wikiReference, wikiContext)) {
+                wikiUsage.add(documentUsage);
+                largestDocuments.add(documentUsage);
+                if (largestDocuments.size() > documentsLimit) {
+                    largestDocuments.poll();
+                }
+            }
+            if (rows.isEmpty()) {
+                break;
+            }
+            lastId = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+            if (rows.size() < batchSize) {
+                break;
+            }
+            throttler.throttle(rows.size(), System.currentTimeMillis() - batchStart);
+        }
+        List<AttachmentArchiveUsage> sortedDocuments = new ArrayList<>(largestDocuments);
+        sortedDocuments.sort(HISTORY_SIZE_COMPARATOR.reversed());
+        status.setWikiResults(wikiUsage, sortedDocuments);
+        return wikiUsage;
+    }
+
+    private List<AttachmentArchiveUsage> analyseDocuments(List<Object[]> documentRows, WikiReference wikiReference,
+        XWikiContext wikiContext) throws QueryException, XWikiException
+    {
+        Map<Long, AttachmentArchiveUsage> documentsUsage = new LinkedHashMap<>();
+        for (Object[] row : documentRows) {
+            documentsUsage.put(((Number) row[0]).longValue(),
+                new AttachmentArchiveUsage(wikiReference.getName(), (String) row[1]));
+        }
+        if (documentsUsage.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object[]> attachmentRows =
+            getAttachmentRows(new ArrayList<>(documentsUsage.keySet()), wikiReference.getName());
+        for (Object[] row : attachmentRows) {
+            AttachmentArchiveUsage documentUsage = documentsUsage.get(((Number) row[0]).longValue());
+            String version = (String) row[2];
+            long size = row[3] != null ? ((Number) row[3]).longValue() : 0;
+            if (row.length > 4 && row[4] != null) {
+                // The database archive holds every version, including the current one.
+                long archiveSize = ((Number) row[4]).longValue();
+                documentUsage.addAttachment(getVersionsCount(version), archiveSize, Math.max(archiveSize - size, 0));
+            } else {
+                DocumentReference documentReference =
+                    documentReferenceResolver.resolve(documentUsage.getDocumentName(), wikiReference);
+                analyseStoredArchive(documentUsage, documentReference, (String) row[1], wikiContext);
+            }
+        }
+        return new ArrayList<>(documentsUsage.values());
+    }
+
+    private List<Object[]> getAttachmentRows(List<Long> documentIds, String wikiId) throws QueryException
+    {
+        if (this.archiveLengthSupported) {
+            try {
+                return this.queryManager.createQuery(ATTACHMENTS_STATEMENT, Query.HQL).bindValue(IDS, documentIds)
+                    .setWiki(wikiId).execute();
+            } catch (QueryException e) {
+                // The length of a BLOB can't be computed in a query on some databases, e.g. Oracle.
+                this.archiveLengthSupported = false;
+                logger.warn("Failed to read the size of the attachment archives with a query, the archives will be "
+                    + "loaded instead. Root cause is: [{}]", ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+        return this.queryManager.createQuery(ATTACHMENTS_WITHOUT_ARCHIVE_STATEMENT, Query.HQL)
+            .bindValue(IDS, documentIds).setWiki(wikiId).execute();
+    }
+
+    private long getVersionsCount(String version)
+    {
+        // Attachment versions are numbered 1.1, 1.2 and so on, so the last number is the number of versions.
+        try {
+            return Long.parseLong(StringUtils.substringAfterLast(version, VERSION_SEPARATOR));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    private void analyseStoredArchive(AttachmentArchiveUsage documentUsage, DocumentReference documentReference,
+        String filename, XWikiContext wikiContext) throws XWikiException
+    {
+        XWikiAttachment attachment =
+            wikiContext.getWiki().getDocument(documentReference, wikiContext).getAttachment(filename);
+        if (attachment == null) {
+            return;
+        }
+        // The document comes from the cache, so the archive is released after use if it wasn't already loaded.
+        boolean archiveLoaded = attachment.getAttachment_archive() != null;
+        XWikiAttachmentArchive archive = attachment.loadArchive(wikiContext);
+        if (archive == null) {
+            return;
+        }
+        Version[] versions = archive.getVersions();
+        long archiveSize = 0;
+        long historySize = 0;
+        for (Version version : versions) {
+            // The revisions of the filesystem archive are read from its metadata, their content stays on disk.
+            XWikiAttachment revision = archive.getRevision(attachment, version.toString(), wikiContext);
+            long revisionSize = revision != null ? revision.getLongSize() : 0;
+            archiveSize += revisionSize;
+            if (!version.toString().equals(attachment.getVersion())) {
+                historySize += revisionSize;
+            }
+        }
+        documentUsage.addAttachment(versions.length, archiveSize, historySize);
+        if (!archiveLoaded) {
+            attachment.setAttachment_archive(null);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.job;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.GroupedJob;
+import org.xwiki.job.JobGroupPath;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.wiki.descriptor.WikiDescriptor;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
+
+import com.xwiki.admintools.internal.jobs.BatchThrottler;
+import com.xwiki.admintools.internal.usage.duplicates.AttachmentHashIndex;
+import com.xwiki.admintools.internal.usage.duplicates.AttachmentHasher;
+import com.xwiki.admintools.jobs.DuplicateAttachmentsJobRequest;
+import com.xwiki.admintools.jobs.DuplicateAttachmentsJobStatus;
+import com.xwiki.admintools.jobs.JobResult;
+import com.xwiki.admintools.jobs.JobResultLevel;
+import com.xwiki.admintools.usage.WikiDuplicateAttachments;
+
+/**
+ * The Admin Tools job that indexes the attachments of the requested wikis, in order to find the attachments having the
+ * same content. The attachments metadata is read first, so that only the content of the attachments sharing their size
+ * with another attachment is read and hashed. The wikis are indexed one after the other on the job thread, each one
+ * with its own throttlers, so the job doesn't compete with the interactive requests for the shared wikis executor.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(DuplicateAttachmentsJob.JOB_TYPE)
+public class DuplicateAttachmentsJob extends AbstractJob<DuplicateAttachmentsJobRequest, DuplicateAttachmentsJobStatus>
+    implements GroupedJob
+{
+    /**
+     * Admin Tools duplicate attachments job type.
+     */
+    public static final String JOB_TYPE = "admintools.duplicateattachments";
+
+    private static final String ATTACHMENTS_STATEMENT = "select attach.id, doc.fullName, attach.filename, "
+        + "attach.longSize from XWikiAttachment attach, XWikiDocument doc "
+        + "where attach.docId = doc.id and attach.id > :lastId order by attach.id";
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Inject
+    private AttachmentHashIndex attachmentHashIndex;
+
+    @Inject
+    private AttachmentHasher attachmentHasher;
+
+    @Inject
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @Override
+    public String getType()
+    {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public JobGroupPath getGroupPath()
+    {
+        return new JobGroupPath(List.of("adminTools", "duplicateAttachments"));
+    }
+
+    @Override
+    protected DuplicateAttachmentsJobStatus createNewStatus(DuplicateAttachmentsJobRequest request)
+    {
+        return new DuplicateAttachmentsJobStatus(JOB_TYPE, request, observationManager, loggerManager);
+    }
+
+    /**
+     * Run the duplicate attachments job.
+     */
+    @Override
+    protected void runInternal()
+    {
+        boolean progressStarted = false;
+        try {
+            Collection<WikiDescriptor> wikis = getWikis();
+            this.progressManager.pushLevelProgress(wikis.size(), this);
+            progressStarted = true;
+            Map<String, Long> results = new LinkedHashMap<>();
+            for (WikiDescriptor wiki : wikis) {
+                if (status.isCanceled()) {
+                    break;
+                }
+                progressManager.startStep(this);
+                results.put(wiki.getId(), indexWiki(wiki));
+                progressManager.endStep(this);
+            }
+            if (status.isCanceled()) {
+                // A partial index would report too few duplicates, so it's better to report none.
+                results.keySet().forEach(this.attachmentHashIndex::remove);
+                status.addLog(new JobResult("adminTools.jobs.duplicateAttachments.canceled", JobResultLevel.WARN));
+                return;
+            }
+            for (Map.Entry<String, Long> result : results.entrySet()) {
+                WikiDuplicateAttachments duplicates = this.attachmentHashIndex.getDuplicates(result.getKey(), 0);
+                status.addLog(new JobResult("adminTools.jobs.duplicateAttachments.wiki.success", JobResultLevel.INFO,
+                    result.getKey(), result.getValue(), duplicates.getDuplicatesCount(), duplicates.getWastedSize()));
+            }
+            status.addLog(new JobResult("adminTools.jobs.duplicateAttachments.success", JobResultLevel.INFO));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            request.getWikis().forEach(this.attachmentHashIndex::remove);
+            status.addLog(new JobResult("adminTools.jobs.duplicateAttachments.canceled", JobResultLevel.WARN));
+        } catch (Exception e) {
+            logger.error("An error occurred while looking for duplicate attachments.", e);
+            request.getWikis().forEach(this.attachmentHashIndex::remove);
+            status.addLog(new JobResult("adminTools.jobs.duplicateAttachments.fail", JobResultLevel.ERROR,
+                ExceptionUtils.getRootCauseMessage(e)));
+        } finally {
+            if (progressStarted) {
+                this.progressManager.popLevelProgress(this);
+            }
+        }
+    }
+
+    private Long indexWiki(WikiDescriptor wikiDescriptor) throws Exception
+    {
+        String wikiId = wikiDescriptor.getId();
+        WikiReference wikiReference = new WikiReference(wikiId);
+        // The index is reset before the scan, so that the attachments added during the scan are not missed.
+        this.attachmentHashIndex.reset(wikiId);
+        BatchThrottler throttler = new BatchThrottler(request.getMaxRowsPerSecond());
+        int batchSize = request.getBatchSize();
+        // Attachment ids are hashes, so they can be negative.
+        long lastId = Long.MIN_VALUE;
+        while (!status.isCanceled()) {
+            long batchStart = System.currentTimeMillis();
+            List<Object[]> rows = this.queryManager.createQuery(ATTACHMENTS_STATEMENT, Query.HQL)
+                .bindValue("lastId", lastId).setLimit(batchSize).setWiki(wikiId).execute();
+            for (Object[] row : rows) {
+                long size = row[3] instanceof Number ? ((Number) row[3]).longValue() : 0;
+                this.attachmentHashIndex.put(new AttachmentReference((String) row[2],
+                    this.documentReferenceResolver.resolve((String) row[1], wikiReference)), size);
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+            lastId = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+            throttler.throttle(rows.size(), System.currentTimeMillis() - batchStart);
+        }
+        return this.attachmentHasher.hashPendingAttachments(wikiId, request.getMaxKilobytesPerSecond(),
+            status::isCanceled);
+    }
+
+    private Collection<WikiDescriptor> getWikis() throws WikiManagerException
+    {
+        Collection<WikiDescriptor> wikis = new ArrayList<>();
+        for (String wikiId : request.getWikis()) {
+            WikiDescriptor wikiDescriptor = this.wikiDescriptorManager.getById(wikiId);
+            if (wikiDescriptor != null) {
+                wikis.add(wikiDescriptor);
+            }
+        }
+        return wikis;
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.job;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.util.ClientUtils;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.GroupedJob;
+import org.xwiki.job.JobGroupPath;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.SpaceReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xwiki.admintools.internal.jobs.BatchThrottler;
+import com.xwiki.admintools.internal.usage.EmptyDocumentsProvider;
+import com.xwiki.admintools.internal.usage.SpamPagesProvider;
+import com.xwiki.admintools.jobs.JobResult;
+import com.xwiki.admintools.jobs.JobResultLevel;
+import com.xwiki.admintools.jobs.PageCleanupJobRequest;
+import com.xwiki.admintools.jobs.PageCleanupJobStatus;
+
+/**
+ * The Admin Tools job that deletes, or moves under a given space, the pages of a wiki matched by the empty pages or by
+ * the spammed pages report. The matched pages are streamed from Solr with cursor paging, so only one batch is held in
+ * memory, and the job is throttled between batches. After each fully processed batch, the id of its last page is
+ * saved in the job status as a checkpoint after which a new run can resume.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(PageCleanupJob.JOB_TYPE)
+public class PageCleanupJob extends AbstractJob<PageCleanupJobRequest, PageCleanupJobStatus> implements GroupedJob
+{
+    /**
+     * Admin Tools page cleanup job type.
+     */
+    public static final String JOB_TYPE = "admintools.pagecleanup";
+
+    private static final String CURSOR_MARK_START = "*";
+
+    private static final String WIKI_NAME_KEY = "wikiName";
+
+    private static final String ID_FIELD = "id";
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    private EmptyDocumentsProvider emptyDocumentsProvider;
+
+    @Inject
+    private SpamPagesProvider spamPagesProvider;
+
+    @Inject
+    private DocumentReferenceResolver<SolrDocument> solrDocumentReferenceResolver;
+
+    @Inject
+    private SpaceReferenceResolver<String> spaceReferenceResolver;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @Inject
+    private Provider<XWikiContext> wikiContextProvider;
+
+    @Override
+    public String getType()
+    {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public JobGroupPath getGroupPath()
+    {
+        return new JobGroupPath(List.of("adminTools", "pageCleanup", request.getWikiId()));
+    }
+
+    @Override
+    protected PageCleanupJobStatus createNewStatus(PageCleanupJobRequest request)
+    {
+        return new PageCleanupJobStatus(JOB_TYPE, request, observationManager, loggerManager);
+    }
+
+    /**
+     * Run the page cleanup job.
+     */
+    @Override
+    protected void runInternal()
+    {
+        String cursorMark = CURSOR_MARK_START;
+        BatchThrottler throttler = new BatchThrottler(request.getMaxRowsPerSecond());
+        boolean progressStarted = false;
+        try {
+            List<String> filterStatements = getFilterStatements();
+            while (!status.isCanceled()) {
+                long batchStart = System.currentTimeMillis();
+                QueryResponse response = getBatch(filterStatements, cursorMark);
+                SolrDocumentList batch = response.getResults();
+                if (!progressStarted) {
+                    // When resuming, the pages before the checkpoint are filtered out, so only the remaining pages
+                    // are counted.
+                    status.setMatchedPages(batch.getNumFound());
+                    int steps = (int) Math.ceil((double) batch.getNumFound() / request.getBatchSize());
+                    this.progressManager.pushLevelProgress(Math.max(steps, 1), this);
+                    progressStarted = true;
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                progressManager.startStep(this);
+                boolean completed = processBatch(batch);
+                progressManager.endStep(this);
+                if (!completed) {
+                    break;
+                }
+                status.setCheckpoint((String) batch.get(batch.size() - 1).getFieldValue(ID_FIELD));
+                String nextCursorMark = response.getNextCursorMark();
+                // Solr returns the same cursor mark when there are no more results.
+                if (cursorMark.equals(nextCursorMark)) {
+                    break;
+                }
+                cursorMark = nextCursorMark;
+                throttler.throttle(batch.size(), System.currentTimeMillis() - batchStart);
+            }
+            status.addLog(new JobResult(getResultMessage(), JobResultLevel.INFO, status.getProcessedPages(),
+                status.getFailedPages()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status.addLog(new JobResult("adminTools.jobs.pageCleanup.canceled", JobResultLevel.WARN,
+                status.getProcessedPages(), status.getFailedPages()));
+        } catch (Exception e) {
+            logger.error("An error occurred while cleaning up the pages.", e);
+            status.addLog(new JobResult("adminTools.jobs.pageCleanup.fail", JobResultLevel.ERROR,
+                ExceptionUtils.getRootCauseMessage(e)));
+        } finally {
+            if (progressStarted) {
+                this.progressManager.popLevelProgress(this);
+            }
+        }
+    }
+
+    private String getResultMessage()
+    {
+        if (status.isCanceled()) {
+            return "adminTools.jobs.pageCleanup.canceled";
+        } else if (request.isDryRun()) {
+            return "adminTools.jobs.pageCleanup.dryRun.success";
+        }
+        return "adminTools.jobs.pageCleanup.success";
+    }
+
+    private List<String> getFilterStatements()
+    {
+        Map<String, String> filters = Map.of(WIKI_NAME_KEY, request.getWikiId());
+        List<String> filterStatements = new ArrayList<>();
+        if (PageCleanupJobRequest.SPAMMED_PAGES_REPORT.equals(request.getReport())) {
+            filterStatements.addAll(this.spamPagesProvider.getFilterStatements(request.getMinComments(), filters));
+        } else if (PageCleanupJobRequest.EMPTY_PAGES_REPORT.equals(request.getReport())) {
+            filterStatements.addAll(this.emptyDocumentsProvider.getFilterStatements(filters));
+        } else {
+            throw new IllegalArgumentException("Unknown report: " + request.getReport());
+        }
+        if (StringUtils.isNotEmpty(request.getTargetSpace())) {
+            // The moved pages are indexed again under a new id, so they must not be returned again by the cursor.
+            String targetSpace = this.localEntityReferenceSerializer.serialize(getTargetSpace());
+            filterStatements.add(String.format("-space_prefix:%s", ClientUtils.escapeQueryChars(targetSpace)));
+        }
+        if (StringUtils.isNotEmpty(request.getCheckpoint())) {
+            // The pages are processed in the order of their id, so resume after the last page of the checkpoint.
+            filterStatements.add(
+                String.format("%s:{%s TO *]", ID_FIELD, ClientUtils.escapeQueryChars(request.getCheckpoint())));
+        }
+        return filterStatements;
+    }
+
+    private QueryResponse getBatch(List<String> filterStatements, String cursorMark) throws QueryException
+    {
+        Query query = this.queryManager.createQuery("*", "solr");
+        query.bindValue("fq", filterStatements);
+        query.bindValue("fl", "id, wiki, spaces, space_exact, name, locale");
+        // Cursor paging requires a sort on the unique key.
+        query.bindValue("sort", ID_FIELD + " asc");
+        query.bindValue("cursorMark", cursorMark);
+        query.setLimit(request.getBatchSize());
+        return (QueryResponse) query.execute().get(0);
+    }
+
+    /**
+     * Delete or move the pages of the given batch.
+     *
+     * @param batch the pages to process.
+     * @return {@code true} if all the pages of the batch were processed, {@code false} if the job was canceled before.
+     */
+    private boolean processBatch(SolrDocumentList batch)
+    {
+        XWikiContext wikiContext = wikiContextProvider.get();
+        XWiki wiki = wikiContext.getWiki();
+        String currentWiki = wikiContext.getWikiId();
+        try {
+            wikiContext.setWikiId(request.getWikiId());
+            for (SolrDocument solrDocument : batch) {
+                if (status.isCanceled()) {
+                    return false;
+                }
+                DocumentReference documentReference = this.solrDocumentReferenceResolver.resolve(solrDocument);
+                String serializedReference = this.entityReferenceSerializer.serialize(documentReference);
+                try {
+                    if (!request.isDryRun()) {
+                        cleanup(wiki, documentReference, wikiContext);
+                    }
+                    status.addProcessedPage(serializedReference, true);
+                } catch (XWikiException e) {
+                    logger.warn("Failed to clean up page [{}]. Root cause is: [{}]", serializedReference,
+                        ExceptionUtils.getRootCauseMessage(e));
+                    status.addProcessedPage(serializedReference, false);
+                }
+            }
+        } finally {
+            wikiContext.setWikiId(currentWiki);
+        }
+        return true;
+    }
+
+    private void cleanup(XWiki wiki, DocumentReference documentReference, XWikiContext wikiContext)
+        throws XWikiException
+    {
+        if (StringUtils.isEmpty(request.getTargetSpace())) {
+            // The deleted pages go to the recycle bin, so they can still be restored.
+            wiki.deleteDocument(wiki.getDocument(documentReference, wikiContext), true, wikiContext);
+        } else {
+            wiki.renameDocument(documentReference, getTargetReference(documentReference), false, List.of(), List.of(),
+                wikiContext);
+        }
+    }
+
+    private DocumentReference getTargetReference(DocumentReference documentReference)
+    {
+        // Keep the full path of the page under the target space, to avoid name collisions between nested pages.
+        SpaceReference targetSpace = getTargetSpace();
+        for (SpaceReference spaceReference : documentReference.getSpaceReferences()) {
+            targetSpace = new SpaceReference(spaceReference.getName(), targetSpace);
+        }
+        return new DocumentReference(documentReference.getName(), targetSpace);
+    }
+
+    private SpaceReference getTargetSpace()
+    {
+        return this.spaceReferenceResolver.resolve(request.getTargetSpace(), new WikiReference(request.getWikiId()));
+    }
+}
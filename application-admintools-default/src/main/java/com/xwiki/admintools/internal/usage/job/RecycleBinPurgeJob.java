@@ -0,0 +1,184 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.job;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.GroupedJob;
+import org.xwiki.job.JobGroupPath;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xwiki.admintools.internal.jobs.BatchThrottler;
+import com.xwiki.admintools.jobs.JobResult;
+import com.xwiki.admintools.jobs.JobResultLevel;
+import com.xwiki.admintools.jobs.RecycleBinPurgeJobRequest;
+import com.xwiki.admintools.jobs.RecycleBinPurgeJobStatus;
+
+/**
+ * The Admin Tools job that removes from the recycle bins of the requested wikis the documents and attachments deleted
+ * more than a given number of days ago. The entries are removed in batches, each batch in its own transaction, and
+ * the job is throttled between batches so that it doesn't degrade the live wiki.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(RecycleBinPurgeJob.JOB_TYPE)
+public class RecycleBinPurgeJob extends AbstractJob<RecycleBinPurgeJobRequest, RecycleBinPurgeJobStatus>
+    implements GroupedJob
+{
+    /**
+     * Admin Tools recycle bin purge job type.
+     */
+    public static final String JOB_TYPE = "admintools.recyclebinpurge";
+
+    private static final String DELETED_DOCUMENTS_TABLE = "XWikiDeletedDocument";
+
+    private static final String DELETED_ATTACHMENTS_TABLE = "DeletedAttachment";
+
+    private static final String IDS_STATEMENT =
+        "select ddoc.id from %s as ddoc where ddoc.date < :date and ddoc.id > :lastId order by ddoc.id";
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    private Provider<XWikiContext> wikiContextProvider;
+
+    @Override
+    public String getType()
+    {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public JobGroupPath getGroupPath()
+    {
+        return new JobGroupPath(List.of("adminTools", "recycleBinPurge"));
+    }
+
+    @Override
+    protected RecycleBinPurgeJobStatus createNewStatus(RecycleBinPurgeJobRequest request)
+    {
+        return new RecycleBinPurgeJobStatus(JOB_TYPE, request, observationManager, loggerManager);
+    }
+
+    /**
+     * Run the recycle bin purge job.
+     */
+    @Override
+    protected void runInternal()
+    {
+        XWikiContext wikiContext = wikiContextProvider.get();
+        String currentWiki = wikiContext.getWikiId();
+        Date maxDate = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(request.getOlderThanDays()));
+        BatchThrottler throttler = new BatchThrottler(request.getMaxRowsPerSecond());
+        this.progressManager.pushLevelProgress(request.getWikis().size(), this);
+        try {
+            for (String wikiId : request.getWikis()) {
+                if (status.isCanceled()) {
+                    break;
+                }
+                progressManager.startStep(this);
+                wikiContext.setWikiId(wikiId);
+                long documents = purge(wikiId, DELETED_DOCUMENTS_TABLE, maxDate, throttler, wikiContext);
+                long attachments = purge(wikiId, DELETED_ATTACHMENTS_TABLE, maxDate, throttler, wikiContext);
+                logger.info("Purged [{}] deleted documents and [{}] deleted attachments from wiki [{}].", documents,
+                    attachments, wikiId);
+                status.addLog(new JobResult("adminTools.jobs.recycleBinPurge.wiki.success", JobResultLevel.INFO,
+                    wikiId, documents, attachments));
+                progressManager.endStep(this);
+            }
+            if (status.isCanceled()) {
+                status.addLog(new JobResult("adminTools.jobs.recycleBinPurge.canceled", JobResultLevel.WARN));
+            } else {
+                status.addLog(new JobResult("adminTools.jobs.recycleBinPurge.success", JobResultLevel.INFO));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status.addLog(new JobResult("adminTools.jobs.recycleBinPurge.canceled", JobResultLevel.WARN));
+        } catch (Exception e) {
+            logger.error("An error occurred while purging the recycle bins.", e);
+            status.addLog(new JobResult("adminTools.jobs.recycleBinPurge.fail", JobResultLevel.ERROR,
+                ExceptionUtils.getRootCauseMessage(e)));
+        } finally {
+            wikiContext.setWikiId(currentWiki);
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    private long purge(String wikiId, String table, Date maxDate, BatchThrottler throttler, XWikiContext wikiContext)
+        throws Exception
+    {
+        int batchSize = request.getBatchSize();
+        long lastId = Long.MIN_VALUE;
+        long purged = 0;
+        while (!status.isCanceled()) {
+            long batchStart = System.currentTimeMillis();
+            // Keyset pagination on the entry id, so that each batch query stays cheap even on huge recycle bins.
+            List<Long> ids = this.queryManager.createQuery(String.format(IDS_STATEMENT, table), Query.HQL)
+                .bindValue("date", maxDate).bindValue("lastId", lastId).setLimit(batchSize).setWiki(wikiId).execute();
+            if (ids.isEmpty()) {
+                break;
+            }
+            deleteBatch(table, ids, wikiContext);
+            purged += ids.size();
+            if (DELETED_DOCUMENTS_TABLE.equals(table)) {
+                status.addDeletedDocuments(ids.size());
+            } else {
+                status.addDeletedAttachments(ids.size());
+            }
+            lastId = ids.get(ids.size() - 1);
+            if (ids.size() < batchSize) {
+                break;
+            }
+            throttler.throttle(ids.size(), System.currentTimeMillis() - batchStart);
+        }
+        return purged;
+    }
+
+    private void deleteBatch(String table, List<Long> ids, XWikiContext wikiContext) throws XWikiException
+    {
+        XWiki wiki = wikiContext.getWiki();
+        wiki.getHibernateStore().executeWrite(wikiContext, session -> {
+            for (Long id : ids) {
+                if (DELETED_DOCUMENTS_TABLE.equals(table)) {
+                    wiki.getRecycleBinStore().deleteFromRecycleBin(id, wikiContext, false);
+                } else {
+                    wiki.getAttachmentRecycleBinStore().deleteFromRecycleBin(id, wikiContext, false);
+                }
+            }
+            return null;
+        });
+    }
+}
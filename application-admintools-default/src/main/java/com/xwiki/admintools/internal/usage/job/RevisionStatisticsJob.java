@@ -0,0 +1,181 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.job;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.GroupedJob;
+import org.xwiki.job.JobGroupPath;
+import org.xwiki.wiki.descriptor.WikiDescriptor;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
+
+import com.xwiki.admintools.internal.jobs.BatchThrottler;
+import com.xwiki.admintools.internal.jobs.ExecutionContextForkJoinThreadFactory;
+import com.xwiki.admintools.internal.usage.RevisionStatisticsProvider;
+import com.xwiki.admintools.jobs.JobResult;
+import com.xwiki.admintools.jobs.JobResultLevel;
+import com.xwiki.admintools.jobs.RevisionStatisticsJobRequest;
+import com.xwiki.admintools.jobs.RevisionStatisticsJobStatus;
+import com.xwiki.admintools.usage.WikiRevisionUsage;
+
+/**
+ * The Admin Tools job that computes the number and the size of the document revisions of the requested wikis. The
+ * wikis are analysed in parallel, each one with its own throttler, on a small pool owned by the job, so the job doesn't
+ * compete with the interactive requests for the shared wikis executor. The results are kept in the job status as a
+ * snapshot of the revisions usage.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named(RevisionStatisticsJob.JOB_TYPE)
+public class RevisionStatisticsJob extends AbstractJob<RevisionStatisticsJobRequest, RevisionStatisticsJobStatus>
+    implements GroupedJob
+{
+    /**
+     * Admin Tools revision statistics job type.
+     */
+    public static final String JOB_TYPE = "admintools.revisionstatistics";
+
+    @Inject
+    private RevisionStatisticsProvider revisionStatisticsProvider;
+
+    @Inject
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
+    @Override
+    public String getType()
+    {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public JobGroupPath getGroupPath()
+    {
+        return new JobGroupPath(List.of("adminTools", "revisionStatistics"));
+    }
+
+    @Override
+    protected RevisionStatisticsJobStatus createNewStatus(RevisionStatisticsJobRequest request)
+    {
+        return new RevisionStatisticsJobStatus(JOB_TYPE, request, observationManager, loggerManager);
+    }
+
+    /**
+     * Run the revision statistics job.
+     */
+    @Override
+    protected void runInternal()
+    {
+        boolean progressStarted = false;
+        ForkJoinPool pool = null;
+        List<Future<WikiRevisionUsage>> futures = new ArrayList<>();
+        try {
+            Collection<WikiDescriptor> wikis = getWikis();
+            this.progressManager.pushLevelProgress(wikis.size(), this);
+            progressStarted = true;
+            pool = new ForkJoinPool(Math.max(Math.min(request.getParallelism(), wikis.size()), 1),
+                new ExecutionContextForkJoinThreadFactory(this.executionContextManager, this.execution,
+                    "AdminTools revision statistics worker-"), null, false);
+            for (WikiDescriptor wiki : wikis) {
+                // Each wiki gets its own throttler, since the throttler keeps the latency statistics of a single scan.
+                futures.add(pool.submit(() -> this.revisionStatisticsProvider.getWikiRevisionUsage(wiki.getId(),
+                    request.getBatchSize(), request.getLargestDocumentsLimit(),
+                    new BatchThrottler(request.getMaxRowsPerSecond()), status::isCanceled)));
+            }
+            List<WikiRevisionUsage> results = new ArrayList<>();
+            // The progress is updated on the job thread, as the wikis analyses end.
+            for (Future<WikiRevisionUsage> future : futures) {
+                progressManager.startStep(this);
+                results.add(getResult(future));
+                progressManager.endStep(this);
+            }
+            if (status.isCanceled()) {
+                status.addLog(new JobResult("adminTools.jobs.revisionStatistics.canceled", JobResultLevel.WARN));
+                return;
+            }
+            status.setResults(results, request.getLargestDocumentsLimit());
+            for (WikiRevisionUsage wikiUsage : results) {
+                status.addLog(new JobResult("adminTools.jobs.revisionStatistics.wiki.success", JobResultLevel.INFO,
+                    wikiUsage.getWikiId(), wikiUsage.getRevisionsCount(), wikiUsage.getRevisionsSize()));
+            }
+            status.addLog(new JobResult("adminTools.jobs.revisionStatistics.success", JobResultLevel.INFO));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status.addLog(new JobResult("adminTools.jobs.revisionStatistics.canceled", JobResultLevel.WARN));
+        } catch (Exception e) {
+            logger.error("An error occurred while computing the revision statistics.", e);
+            status.addLog(new JobResult("adminTools.jobs.revisionStatistics.fail", JobResultLevel.ERROR,
+                ExceptionUtils.getRootCauseMessage(e)));
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            if (progressStarted) {
+                this.progressManager.popLevelProgress(this);
+            }
+        }
+    }
+
+    private WikiRevisionUsage getResult(Future<WikiRevisionUsage> future) throws Exception
+    {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private Collection<WikiDescriptor> getWikis() throws WikiManagerException
+    {
+        Collection<WikiDescriptor> wikis = new ArrayList<>();
+        for (String wikiId : request.getWikis()) {
+            WikiDescriptor wikiDescriptor = this.wikiDescriptorManager.getById(wikiId);
+            if (wikiDescriptor != null) {
+                wikis.add(wikiDescriptor);
+            }
+        }
+        return wikis;
+    }
+}
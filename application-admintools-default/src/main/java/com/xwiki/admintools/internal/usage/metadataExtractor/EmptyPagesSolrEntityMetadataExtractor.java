@@ -23,6 +23,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.solr.common.SolrInputDocument;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
@@ -49,14 +50,22 @@ public class EmptyPagesSolrEntityMetadataExtractor implements SolrEntityMetadata
     public boolean extract(XWikiDocument entity, SolrInputDocument solrDocument)
     {
         try {
-            boolean isEmpty =
-                entity.getXObjects().isEmpty() && entity.getAttachmentList().isEmpty() && entity.getContent().trim()
-                    .isEmpty() && entity.getXClassXML().trim().isEmpty();
-            solrDocument.setField("AdminTools.DocumentContentEmpty_boolean", isEmpty);
+            solrDocument.setField("AdminTools.DocumentContentEmpty_boolean", isEmpty(entity));
         } catch (Exception e) {
             this.logger.error("Failed to index the right for document [{}]", entity.getDocumentReference(), e);
         }
 
         return true;
     }
+
+    /**
+     * This runs for every indexed document, so the checks are ordered from the cheapest to the most expensive and stop
+     * at the first element that is not empty. The content is scanned in place instead of being trimmed, and the class
+     * is checked for properties instead of being serialized to XML.
+     */
+    private boolean isEmpty(XWikiDocument entity)
+    {
+        return entity.getAttachmentList().isEmpty() && entity.getXObjects().isEmpty() && StringUtils.isBlank(
+            entity.getContent()) && entity.getXClass().getPropertyList().isEmpty();
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.metadataExtractor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.search.solr.SolrEntityMetadataExtractor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.PropertyInterface;
+
+/**
+ * This extractor stores the rights objects of a XWiki document in the Solr index, so that the rights can be reported
+ * without loading the documents. Each {@code XWiki.XWikiRights} object is stored as a JSON value of the multi-valued
+ * "AdminTools.Rights_string" field and each {@code XWiki.XWikiGlobalRights} object as a value of the
+ * "AdminTools.GlobalRights_string" field.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Component
+@Named("rights-doc")
+@Singleton
+public class RightsSolrEntityMetadataExtractor implements SolrEntityMetadataExtractor<XWikiDocument>
+{
+    /**
+     * The field holding the {@code XWiki.XWikiRights} objects of a document.
+     */
+    public static final String RIGHTS_FIELD = "AdminTools.Rights_string";
+
+    /**
+     * The field holding the {@code XWiki.XWikiGlobalRights} objects of a document.
+     */
+    public static final String GLOBAL_RIGHTS_FIELD = "AdminTools.GlobalRights_string";
+
+    private static final String XWIKI = "XWiki";
+
+    private static final EntityReference RIGHTS_CLASS = new LocalDocumentReference(XWIKI, "XWikiRights");
+
+    private static final EntityReference GLOBAL_RIGHTS_CLASS = new LocalDocumentReference(XWIKI, "XWikiGlobalRights");
+
+    private static final List<String> PROPERTIES = List.of("users", "groups", "levels", "allow");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Inject
+    private Logger logger;
+
+    @Override
+    public boolean extract(XWikiDocument entity, SolrInputDocument solrDocument)
+    {
+        try {
+            extractRightsObjects(entity.getXObjects(RIGHTS_CLASS), RIGHTS_FIELD, solrDocument);
+            extractRightsObjects(entity.getXObjects(GLOBAL_RIGHTS_CLASS), GLOBAL_RIGHTS_FIELD, solrDocument);
+        } catch (Exception e) {
+            this.logger.error("Failed to index the right for document [{}]", entity.getDocumentReference(), e);
+        }
+
+        return true;
+    }
+
+    private void extractRightsObjects(List<BaseObject> rightsObjects, String fieldName,
+        SolrInputDocument solrDocument) throws JsonProcessingException
+    {
+        for (BaseObject rightsObject : rightsObjects) {
+            // Removed objects leave null entries in the objects list.
+            if (rightsObject == null) {
+                continue;
+            }
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String propertyName : PROPERTIES) {
+                PropertyInterface property = rightsObject.get(propertyName);
+                values.put(propertyName, property != null ? property.toFormString() : "");
+            }
+            solrDocument.addField(fieldName, OBJECT_MAPPER.writeValueAsString(values));
+        }
+    }
+}
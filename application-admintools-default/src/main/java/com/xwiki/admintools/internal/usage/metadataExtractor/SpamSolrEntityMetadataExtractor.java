@@ -19,12 +19,16 @@
  */
 package com.xwiki.admintools.internal.usage.metadataExtractor;
 
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.solr.common.SolrInputDocument;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
@@ -37,7 +41,10 @@ import com.xpn.xwiki.objects.BaseObject;
 
 /**
  * This extractor retrieves all comment objects associated with the given XWiki document and stores their count in the
- * Solr index under the field "AdminTools.NumberOfComments_sortInt".
+ * Solr index under the field "AdminTools.NumberOfComments_sortInt". Alongside the count, it also stores a few comment
+ * features used to compute a spam score in Solr: the date of the latest comment, the number of distinct authors, the
+ * average number of links per comment and the ratio of guest comments. The recency of the comments is computed by
+ * Solr from the latest comment date at query time, so it doesn't depend on when the document was indexed.
  *
  * @version $Id$
  * @since 1.1
@@ -49,6 +56,8 @@ public class SpamSolrEntityMetadataExtractor implements SolrEntityMetadataExtrac
 {
     private static final EntityReference COMMENTSCLASS_REFERENCE = new LocalDocumentReference("XWiki", "XWikiComments");
 
+    private static final String GUEST_USER = "XWikiGuest";
+
     @Inject
     private Logger logger;
 
@@ -56,12 +65,55 @@ public class SpamSolrEntityMetadataExtractor implements SolrEntityMetadataExtrac
     public boolean extract(XWikiDocument entity, SolrInputDocument solrDocument)
     {
         try {
-            List<BaseObject> results = entity.getXObjects(COMMENTSCLASS_REFERENCE);
-            solrDocument.setField("AdminTools.NumberOfComments_sortInt", results.size());
+            extractCommentsFeatures(entity.getXObjects(COMMENTSCLASS_REFERENCE), solrDocument);
         } catch (Exception e) {
             this.logger.error("Failed to index the right for document [{}]", entity.getDocumentReference(), e);
         }
 
         return true;
     }
+
+    private void extractCommentsFeatures(List<BaseObject> comments, SolrInputDocument solrDocument)
+    {
+        int commentsCount = 0;
+        Date latestDate = null;
+        int guestCount = 0;
+        int linksCount = 0;
+        Set<String> authors = new HashSet<>();
+        for (BaseObject comment : comments) {
+            // Removed objects leave null entries in the objects list.
+            if (comment == null) {
+                continue;
+            }
+            commentsCount++;
+            Date date = comment.getDateValue("date");
+            if (date != null && (latestDate == null || date.after(latestDate))) {
+                latestDate = date;
+            }
+            String author = comment.getStringValue("author");
+            if (StringUtils.isBlank(author) || author.endsWith(GUEST_USER)) {
+                guestCount++;
+            } else {
+                authors.add(author);
+            }
+            linksCount += countLinks(comment.getLargeStringValue("comment"));
+        }
+        solrDocument.setField("AdminTools.NumberOfComments_sortInt", commentsCount);
+        if (latestDate != null) {
+            solrDocument.setField("AdminTools.LatestCommentDate_sortDate", latestDate);
+        }
+        solrDocument.setField("AdminTools.CommentAuthors_sortInt", authors.size());
+        solrDocument.setField("AdminTools.CommentLinkDensity_sortFloat",
+            commentsCount == 0 ? 0F : (float) linksCount / commentsCount);
+        solrDocument.setField("AdminTools.GuestCommentsRatio_sortFloat",
+            commentsCount == 0 ? 0F : (float) guestCount / commentsCount);
+    }
+
+    private int countLinks(String content)
+    {
+        if (StringUtils.isEmpty(content)) {
+            return 0;
+        }
+        return StringUtils.countMatches(content, "http://") + StringUtils.countMatches(content, "https://");
+    }
 }
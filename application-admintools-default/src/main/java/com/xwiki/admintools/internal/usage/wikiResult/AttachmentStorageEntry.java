@@ -0,0 +1,120 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.wikiResult;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Store the storage info of a single attachment.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class AttachmentStorageEntry
+{
+    private final String documentName;
+
+    private final String space;
+
+    private final String fileName;
+
+    private final String mimeType;
+
+    private final long size;
+
+    /**
+     * Initialise an {@link AttachmentStorageEntry} with the given attachment info.
+     *
+     * @param documentName the full name of the document that holds the attachment.
+     * @param space the space of the document that holds the attachment.
+     * @param fileName the name of the attachment.
+     * @param mimeType the MIME type of the attachment.
+     * @param size the size of the attachment, in bytes.
+     */
+    public AttachmentStorageEntry(String documentName, String space, String fileName, String mimeType, long size)
+    {
+        this.documentName = documentName;
+        this.space = space;
+        this.fileName = fileName;
+        this.mimeType = mimeType;
+        this.size = size;
+    }
+
+    /**
+     * Get the full name of the document that holds the attachment.
+     *
+     * @return the full name of the document.
+     */
+    public String getDocumentName()
+    {
+        return documentName;
+    }
+
+    /**
+     * Get the space of the document that holds the attachment.
+     *
+     * @return the space of the document.
+     */
+    public String getSpace()
+    {
+        return space;
+    }
+
+    /**
+     * Get the name of the attachment.
+     *
+     * @return the name of the attachment.
+     */
+    public String getFileName()
+    {
+        return fileName;
+    }
+
+    /**
+     * Get the MIME type of the attachment.
+     *
+     * @return the MIME type of the attachment.
+     */
+    public String getMimeType()
+    {
+        return mimeType;
+    }
+
+    /**
+     * Get the size of the attachment.
+     *
+     * @return the size of the attachment, in bytes.
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Get the size of the attachment in a human readable format.
+     *
+     * @return the readable size of the attachment.
+     */
+    public String getReadableSize()
+    {
+        return WikiSizeResult.toReadableSize(size);
+    }
+}
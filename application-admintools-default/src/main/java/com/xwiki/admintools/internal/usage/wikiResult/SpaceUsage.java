@@ -0,0 +1,209 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.wikiResult;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Store the number of documents and the number and size of the attachments of a space. The own values only count the
+ * documents of the space, while the total values also include all its nested spaces.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class SpaceUsage
+{
+    private final String reference;
+
+    private final String name;
+
+    private final SpaceUsage parent;
+
+    private int childrenCount;
+
+    private long documentsCount;
+
+    private long attachmentsCount;
+
+    private long attachmentsSize;
+
+    private long totalDocumentsCount;
+
+    private long totalAttachmentsCount;
+
+    private long totalAttachmentsSize;
+
+    /**
+     * Initialise an empty {@link SpaceUsage}.
+     *
+     * @param reference the local reference of the space, serialized.
+     * @param name the name of the space.
+     * @param parent the parent space, or {@code null} for a top level space.
+     */
+    public SpaceUsage(String reference, String name, SpaceUsage parent)
+    {
+        this.reference = reference;
+        this.name = name;
+        this.parent = parent;
+        if (parent != null) {
+            parent.childrenCount++;
+        }
+    }
+
+    /**
+     * Add documents of this space, also counting them in the totals of all its ancestors.
+     *
+     * @param count the number of documents.
+     */
+    public void addDocuments(long count)
+    {
+        this.documentsCount += count;
+        for (SpaceUsage space = this; space != null; space = space.parent) {
+            space.totalDocumentsCount += count;
+        }
+    }
+
+    /**
+     * Add attachments of this space, also counting them in the totals of all its ancestors.
+     *
+     * @param count the number of attachments.
+     * @param size the size of the attachments, in bytes.
+     */
+    public void addAttachments(long count, long size)
+    {
+        this.attachmentsCount += count;
+        this.attachmentsSize += size;
+        for (SpaceUsage space = this; space != null; space = space.parent) {
+            space.totalAttachmentsCount += count;
+            space.totalAttachmentsSize += size;
+        }
+    }
+
+    /**
+     * Get the local reference of the space, serialized.
+     *
+     * @return the space reference.
+     */
+    public String getReference()
+    {
+        return reference;
+    }
+
+    /**
+     * Get the name of the space.
+     *
+     * @return the space name.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Get the parent space.
+     *
+     * @return the parent space, or {@code null} for a top level space.
+     */
+    public SpaceUsage getParent()
+    {
+        return parent;
+    }
+
+    /**
+     * Get the number of direct nested spaces.
+     *
+     * @return the number of nested spaces.
+     */
+    public int getChildrenCount()
+    {
+        return childrenCount;
+    }
+
+    /**
+     * Get the number of documents of this space, without its nested spaces.
+     *
+     * @return the number of documents.
+     */
+    public long getDocumentsCount()
+    {
+        return documentsCount;
+    }
+
+    /**
+     * Get the number of attachments of this space, without its nested spaces.
+     *
+     * @return the number of attachments.
+     */
+    public long getAttachmentsCount()
+    {
+        return attachmentsCount;
+    }
+
+    /**
+     * Get the size of the attachments of this space, without its nested spaces.
+     *
+     * @return the attachments size, in bytes.
+     */
+    public long getAttachmentsSize()
+    {
+        return attachmentsSize;
+    }
+
+    /**
+     * Get the number of documents of this space and all its nested spaces.
+     *
+     * @return the total number of documents.
+     */
+    public long getTotalDocumentsCount()
+    {
+        return totalDocumentsCount;
+    }
+
+    /**
+     * Get the number of attachments of this space and all its nested spaces.
+     *
+     * @return the total number of attachments.
+     */
+    public long getTotalAttachmentsCount()
+    {
+        return totalAttachmentsCount;
+    }
+
+    /**
+     * Get the size of the attachments of this space and all its nested spaces.
+     *
+     * @return the total attachments size, in bytes.
+     */
+    public long getTotalAttachmentsSize()
+    {
+        return totalAttachmentsSize;
+    }
+
+    /**
+     * Get the size of the attachments of this space and all its nested spaces in a human readable format.
+     *
+     * @return the readable total attachments size.
+     */
+    public String getReadableTotalAttachmentsSize()
+    {
+        return WikiSizeResult.toReadableSize(totalAttachmentsSize);
+    }
+}
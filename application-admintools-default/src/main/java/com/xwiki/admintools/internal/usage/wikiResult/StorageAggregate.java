@@ -0,0 +1,100 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.wikiResult;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Store the number and the total size of the attachments that share a common property, like the space or the MIME
+ * type.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class StorageAggregate
+{
+    private final String name;
+
+    private long count;
+
+    private long size;
+
+    /**
+     * Initialise an empty {@link StorageAggregate}.
+     *
+     * @param name the value of the property shared by the aggregated attachments.
+     */
+    public StorageAggregate(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Add an attachment to this aggregate.
+     *
+     * @param attachmentSize the size of the attachment, in bytes.
+     */
+    public void add(long attachmentSize)
+    {
+        this.count++;
+        this.size += attachmentSize;
+    }
+
+    /**
+     * Get the value of the property shared by the aggregated attachments.
+     *
+     * @return the name of the aggregate.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Get the number of aggregated attachments.
+     *
+     * @return the number of attachments.
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Get the total size of the aggregated attachments.
+     *
+     * @return the total size, in bytes.
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Get the total size of the aggregated attachments in a human readable format.
+     *
+     * @return the readable total size.
+     */
+    public String getReadableSize()
+    {
+        return WikiSizeResult.toReadableSize(size);
+    }
+}
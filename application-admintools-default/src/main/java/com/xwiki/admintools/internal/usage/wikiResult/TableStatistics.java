@@ -0,0 +1,130 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.wikiResult;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Store the statistics of a database table, as reported by the database catalog.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class TableStatistics
+{
+    private final String tableName;
+
+    private final long rowsEstimate;
+
+    private final long tableSize;
+
+    private final long indexesSize;
+
+    private final long bloatSize;
+
+    /**
+     * Initialise a {@link TableStatistics} with the given values.
+     *
+     * @param tableName the name of the table.
+     * @param rowsEstimate the estimated number of rows of the table.
+     * @param tableSize the size of the table data, in bytes.
+     * @param indexesSize the size of the table indexes, in bytes.
+     * @param bloatSize the estimated size of the unused space of the table, in bytes.
+     */
+    public TableStatistics(String tableName, long rowsEstimate, long tableSize, long indexesSize, long bloatSize)
+    {
+        this.tableName = tableName;
+        this.rowsEstimate = rowsEstimate;
+        this.tableSize = tableSize;
+        this.indexesSize = indexesSize;
+        this.bloatSize = bloatSize;
+    }
+
+    /**
+     * Get the name of the table.
+     *
+     * @return the table name.
+     */
+    public String getTableName()
+    {
+        return tableName;
+    }
+
+    /**
+     * Get the estimated number of rows of the table.
+     *
+     * @return the rows estimate.
+     */
+    public long getRowsEstimate()
+    {
+        return rowsEstimate;
+    }
+
+    /**
+     * Get the size of the table data.
+     *
+     * @return the table size, in bytes.
+     */
+    public long getTableSize()
+    {
+        return tableSize;
+    }
+
+    /**
+     * Get the size of the table indexes.
+     *
+     * @return the indexes size, in bytes.
+     */
+    public long getIndexesSize()
+    {
+        return indexesSize;
+    }
+
+    /**
+     * Get the estimated size of the unused space of the table.
+     *
+     * @return the bloat size, in bytes.
+     */
+    public long getBloatSize()
+    {
+        return bloatSize;
+    }
+
+    /**
+     * Get the total size of the table, including the indexes.
+     *
+     * @return the total size, in bytes.
+     */
+    public long getTotalSize()
+    {
+        return tableSize + indexesSize;
+    }
+
+    /**
+     * Get the total size of the table, including the indexes, in a human readable format.
+     *
+     * @return the readable total size.
+     */
+    public String getReadableTotalSize()
+    {
+        return WikiSizeResult.toReadableSize(getTotalSize());
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.wikiResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Store info about the attachments storage of a wiki: the largest attachments and the storage used by each space and
+ * MIME type.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class WikiAttachmentsStorage
+{
+    private final String wikiId;
+
+    private long attachmentsCount;
+
+    private long attachmentsSize;
+
+    private List<AttachmentStorageEntry> largestAttachments = new ArrayList<>();
+
+    private List<StorageAggregate> spaces = new ArrayList<>();
+
+    private List<StorageAggregate> mimeTypes = new ArrayList<>();
+
+    /**
+     * Initialise an empty {@link WikiAttachmentsStorage} for the given wiki.
+     *
+     * @param wikiId the id of the wiki.
+     */
+    public WikiAttachmentsStorage(String wikiId)
+    {
+        this.wikiId = wikiId;
+    }
+
+    /**
+     * Get the wiki id.
+     *
+     * @return the wiki id.
+     */
+    public String getWikiId()
+    {
+        return wikiId;
+    }
+
+    /**
+     * Get the number of analysed attachments.
+     *
+     * @return the number of attachments in wiki.
+     */
+    public long getAttachmentsCount()
+    {
+        return attachmentsCount;
+    }
+
+    /**
+     * Set the number of analysed attachments.
+     *
+     * @param attachmentsCount the number of attachments in wiki.
+     */
+    public void setAttachmentsCount(long attachmentsCount)
+    {
+        this.attachmentsCount = attachmentsCount;
+    }
+
+    /**
+     * Get the total size of the analysed attachments.
+     *
+     * @return the total size of the attachments, in bytes.
+     */
+    public long getAttachmentsSize()
+    {
+        return attachmentsSize;
+    }
+
+    /**
+     * Set the total size of the analysed attachments.
+     *
+     * @param attachmentsSize the total size of the attachments, in bytes.
+     */
+    public void setAttachmentsSize(long attachmentsSize)
+    {
+        this.attachmentsSize = attachmentsSize;
+    }
+
+    /**
+     * Get the total size of the analysed attachments in a human readable format.
+     *
+     * @return the readable total size of the attachments.
+     */
+    public String getReadableAttachmentsSize()
+    {
+        return WikiSizeResult.toReadableSize(attachmentsSize);
+    }
+
+    /**
+     * Get the largest attachments of the wiki, sorted by size in descending order.
+     *
+     * @return the largest attachments.
+     */
+    public List<AttachmentStorageEntry> getLargestAttachments()
+    {
+        return largestAttachments;
+    }
+
+    /**
+     * Set the largest attachments of the wiki.
+     *
+     * @param largestAttachments the largest attachments, sorted by size in descending order.
+     */
+    public void setLargestAttachments(List<AttachmentStorageEntry> largestAttachments)
+    {
+        this.largestAttachments = largestAttachments;
+    }
+
+    /**
+     * Get the storage used by each space, sorted by size in descending order.
+     *
+     * @return the per space storage.
+     */
+    public List<StorageAggregate> getSpaces()
+    {
+        return spaces;
+    }
+
+    /**
+     * Set the storage used by each space.
+     *
+     * @param spaces the per space storage, sorted by size in descending order.
+     */
+    public void setSpaces(List<StorageAggregate> spaces)
+    {
+        this.spaces = spaces;
+    }
+
+    /**
+     * Get the storage used by each MIME type, sorted by size in descending order.
+     *
+     * @return the per MIME type storage.
+     */
+    public List<StorageAggregate> getMimeTypes()
+    {
+        return mimeTypes;
+    }
+
+    /**
+     * Set the storage used by each MIME type.
+     *
+     * @param mimeTypes the per MIME type storage, sorted by size in descending order.
+     */
+    public void setMimeTypes(List<StorageAggregate> mimeTypes)
+    {
+        this.mimeTypes = mimeTypes;
+    }
+}
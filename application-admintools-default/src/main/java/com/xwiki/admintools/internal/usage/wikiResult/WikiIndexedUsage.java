@@ -0,0 +1,148 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.wikiResult;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Stores the usage info of a wiki, as computed from the Solr index.
+ *
+ * @version $Id$
+ * @since 1.4.1
+ */
+@Unstable
+public class WikiIndexedUsage
+{
+    private final String wikiId;
+
+    private long documentsCount;
+
+    private long attachmentsCount;
+
+    private long emptyDocumentsCount;
+
+    private final NavigableMap<Integer, Long> commentsDistribution = new TreeMap<>();
+
+    /**
+     * Initialise an empty {@link WikiIndexedUsage} for the given wiki.
+     *
+     * @param wikiId the id of the wiki.
+     */
+    public WikiIndexedUsage(String wikiId)
+    {
+        this.wikiId = wikiId;
+    }
+
+    /**
+     * Get the wiki id.
+     *
+     * @return the wiki id.
+     */
+    public String getWikiId()
+    {
+        return wikiId;
+    }
+
+    /**
+     * Get the number of indexed documents in this wiki.
+     *
+     * @return the number of indexed documents in wiki.
+     */
+    public long getDocumentsCount()
+    {
+        return documentsCount;
+    }
+
+    /**
+     * Set the number of indexed documents in this wiki.
+     *
+     * @param documentsCount the number of indexed documents in wiki.
+     */
+    public void setDocumentsCount(long documentsCount)
+    {
+        this.documentsCount = documentsCount;
+    }
+
+    /**
+     * Get the number of indexed attachments in this wiki.
+     *
+     * @return the number of indexed attachments in wiki.
+     */
+    public long getAttachmentsCount()
+    {
+        return attachmentsCount;
+    }
+
+    /**
+     * Set the number of indexed attachments in this wiki.
+     *
+     * @param attachmentsCount the number of indexed attachments in wiki.
+     */
+    public void setAttachmentsCount(long attachmentsCount)
+    {
+        this.attachmentsCount = attachmentsCount;
+    }
+
+    /**
+     * Get the number of documents flagged as empty in this wiki.
+     *
+     * @return the number of empty documents in wiki.
+     */
+    public long getEmptyDocumentsCount()
+    {
+        return emptyDocumentsCount;
+    }
+
+    /**
+     * Set the number of documents flagged as empty in this wiki.
+     *
+     * @param emptyDocumentsCount the number of empty documents in wiki.
+     */
+    public void setEmptyDocumentsCount(long emptyDocumentsCount)
+    {
+        this.emptyDocumentsCount = emptyDocumentsCount;
+    }
+
+    /**
+     * Get the distribution of the number of comments, where the key is a number of comments and the value is the
+     * number of documents having exactly that many comments. Documents without comments are not included.
+     *
+     * @return the comments distribution, sorted by the number of comments.
+     */
+    public Map<Integer, Long> getCommentsDistribution()
+    {
+        return commentsDistribution;
+    }
+
+    /**
+     * Get the number of documents that have at least the given number of comments.
+     *
+     * @param minComments the minimum number of comments for a document to be counted.
+     * @return the number of documents with at least {@code minComments} comments.
+     */
+    public long getDocumentsOverComments(int minComments)
+    {
+        return commentsDistribution.tailMap(minComments, true).values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -19,6 +19,9 @@
  */
 package com.xwiki.admintools.internal.usage.wikiResult;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.xwiki.stability.Unstable;
 
 import com.xwiki.admintools.usage.WikiUsageResult;
@@ -40,6 +43,10 @@ public class WikiRecycleBins implements WikiUsageResult
 
     private Long attachmentsCount;
 
+    private Long attachmentsSize = 0L;
+
+    private Map<String, Long> ageHistogram = new LinkedHashMap<>();
+
     /**
      * Initialise an empty {@link WikiRecycleBins}.
      */
@@ -128,4 +135,65 @@ public class WikiRecycleBins implements WikiUsageResult
     {
         this.wikiId = wikiId;
     }
+
+    /**
+     * Get the stored size of the deleted attachments in this wiki.
+     *
+     * @return the stored size of the deleted attachments, in bytes, or {@code null} if it is still being computed.
+     * @since 1.4.1
+     */
+    @Override
+    public Long getAttachmentsSize()
+    {
+        return attachmentsSize;
+    }
+
+    /**
+     * Set the stored size of the deleted attachments in this wiki.
+     *
+     * @param attachmentsSize the stored size of the deleted attachments, in bytes.
+     * @since 1.4.1
+     */
+    @Override
+    public void setAttachmentsSize(Long attachmentsSize)
+    {
+        this.attachmentsSize = attachmentsSize;
+    }
+
+    /**
+     * Get the stored size of the deleted attachments, converted to the corresponding unit of measurement. The deleted
+     * documents are not counted, since the recycle bin store doesn't keep their size.
+     *
+     * @return a {@link String} with the stored size of the attachment recycle bin of this wiki, or {@code null} if it
+     *     is still being computed.
+     * @since 1.4.1
+     */
+    public String getReadableStoredSize()
+    {
+        return attachmentsSize == null ? null : WikiSizeResult.toReadableSize(attachmentsSize);
+    }
+
+    /**
+     * Get the number of deleted documents and attachments of this wiki, grouped by how long ago they were deleted.
+     * The keys are, in order: {@code week}, {@code month}, {@code quarter}, {@code year} and {@code older}, each
+     * bucket holding the items that are not in the previous ones.
+     *
+     * @return the age histogram of the deleted items.
+     * @since 1.4.1
+     */
+    public Map<String, Long> getAgeHistogram()
+    {
+        return ageHistogram;
+    }
+
+    /**
+     * Set the age histogram of the deleted items of this wiki.
+     *
+     * @param ageHistogram the number of deleted items for each age bucket.
+     * @since 1.4.1
+     */
+    public void setAgeHistogram(Map<String, Long> ageHistogram)
+    {
+        this.ageHistogram = ageHistogram;
+    }
 }
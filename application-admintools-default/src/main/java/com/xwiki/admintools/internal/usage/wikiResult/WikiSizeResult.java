@@ -135,13 +135,18 @@ public class WikiSizeResult implements WikiUsageResult
      */
     public String getReadableAttachmentSize()
     {
-        if (this.attachmentsSize == null || this.attachmentsSize <= 0) {
+        return toReadableSize(this.attachmentsSize);
+    }
+
+    static String toReadableSize(Long size)
+    {
+        if (size == null || size <= 0) {
             return "0";
         }
         List<String> units = List.of("B", "KB", "MB", "GB");
-        int digitGroup = (int) (Math.log10(this.attachmentsSize) / Math.log10(1024));
+        int digitGroup = Math.min((int) (Math.log10(size) / Math.log10(1024)), units.size() - 1);
         DecimalFormat decimalFormat = new DecimalFormat("#,##0.#");
-        String resultedSize = decimalFormat.format(this.attachmentsSize / Math.pow(1024, digitGroup));
+        String resultedSize = decimalFormat.format(size / Math.pow(1024, digitGroup));
 
         return String.format("%s %s", resultedSize, units.get(digitGroup));
     }
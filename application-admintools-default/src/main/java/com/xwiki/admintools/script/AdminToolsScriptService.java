@@ -20,6 +20,9 @@
 package com.xwiki.admintools.script;
 
 import java.io.IOException;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -32,9 +35,13 @@ import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.job.Job;
 import org.xwiki.job.JobExecutor;
+import org.xwiki.job.JobStatusStore;
+import org.xwiki.job.event.status.JobStatus;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.ModelContext;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
 import org.xwiki.script.service.ScriptService;
 import org.xwiki.security.authorization.AccessDeniedException;
 import org.xwiki.security.authorization.AuthorizationException;
@@ -46,16 +53,45 @@ import org.xwiki.wiki.manager.WikiManagerException;
 
 import com.xwiki.admintools.configuration.AdminToolsConfiguration;
 import com.xwiki.admintools.health.cache.CacheInfo;
+import com.xwiki.admintools.health.cache.SecurityCacheStatistics;
 import com.xwiki.admintools.internal.AdminToolsManager;
 import com.xwiki.admintools.internal.health.cache.CacheManager;
+import com.xwiki.admintools.internal.health.cache.SecurityCacheInspector;
 import com.xwiki.admintools.internal.health.job.HealthCheckJob;
 import com.xwiki.admintools.internal.network.NetworkManager;
 import com.xwiki.admintools.internal.security.CheckSecurityCache;
 import com.xwiki.admintools.internal.security.EntityRightsProvider;
+import com.xwiki.admintools.internal.security.UserDisplayNameCache;
+import com.xwiki.admintools.internal.security.job.RightsMatrixJob;
+import com.xwiki.admintools.internal.security.job.StaleSecurityCacheJob;
+import com.xwiki.admintools.internal.usage.job.AttachmentArchiveJob;
+import com.xwiki.admintools.internal.usage.job.DuplicateAttachmentsJob;
+import com.xwiki.admintools.internal.usage.job.PageCleanupJob;
+import com.xwiki.admintools.internal.usage.job.RecycleBinPurgeJob;
+import com.xwiki.admintools.internal.usage.job.RevisionStatisticsJob;
+import com.xwiki.admintools.internal.usage.history.UsagePoint;
+import com.xwiki.admintools.internal.usage.history.UsageProjection;
+import com.xwiki.admintools.internal.usage.wikiResult.SpaceUsage;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiAttachmentsStorage;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiIndexedUsage;
 import com.xwiki.admintools.internal.usage.wikiResult.WikiRecycleBins;
 import com.xwiki.admintools.internal.usage.wikiResult.WikiSizeResult;
+import com.xwiki.admintools.jobs.AttachmentArchiveJobRequest;
+import com.xwiki.admintools.jobs.AttachmentArchiveJobStatus;
+import com.xwiki.admintools.jobs.DuplicateAttachmentsJobRequest;
+import com.xwiki.admintools.jobs.DuplicateAttachmentsJobStatus;
 import com.xwiki.admintools.jobs.HealthCheckJobRequest;
+import com.xwiki.admintools.jobs.PageCleanupJobRequest;
+import com.xwiki.admintools.jobs.RecycleBinPurgeJobRequest;
+import com.xwiki.admintools.jobs.RevisionStatisticsJobRequest;
+import com.xwiki.admintools.jobs.RevisionStatisticsJobStatus;
+import com.xwiki.admintools.jobs.RightsMatrixJobRequest;
+import com.xwiki.admintools.jobs.RightsMatrixJobStatus;
+import com.xwiki.admintools.jobs.StaleSecurityCacheJobRequest;
+import com.xwiki.admintools.jobs.StaleSecurityCacheJobStatus;
 import com.xwiki.admintools.security.RightsResult;
+import com.xwiki.admintools.security.RightsResultsPage;
+import com.xwiki.admintools.usage.WikiDuplicateAttachments;
 
 /**
  * Admin Tools script services.
@@ -79,6 +115,9 @@ public class AdminToolsScriptService implements ScriptService
     @Inject
     private JobExecutor jobExecutor;
 
+    @Inject
+    private JobStatusStore jobStatusStore;
+
     @Inject
     private ModelContext modelContext;
 
@@ -97,6 +136,12 @@ public class AdminToolsScriptService implements ScriptService
     @Inject
     private CacheManager cacheManager;
 
+    @Inject
+    private SecurityCacheInspector securityCacheInspector;
+
+    @Inject
+    private UserDisplayNameCache userDisplayNameCache;
+
     /**
      * Get a sorted and filtered {@code List} with the JMX managed caches.
      *
@@ -128,6 +173,21 @@ public class AdminToolsScriptService implements ScriptService
         return cacheManager.getCacheDetailedView(name);
     }
 
+    /**
+     * Get aggregate statistics about the security cache, such as its hit, miss and eviction rates, the coverage of each
+     * entity type and the entities that are the most expensive to recompute.
+     *
+     * @return the statistics of the security cache
+     * @throws AccessDeniedException if the requesting user lacks admin rights.
+     * @since 1.4.1
+     */
+    @Unstable
+    public SecurityCacheStatistics getSecurityCacheStatistics() throws Exception
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return securityCacheInspector.getStatistics();
+    }
+
     /**
      * Retrieve JSON data from the given network endpoint.
      *
@@ -200,16 +260,56 @@ public class AdminToolsScriptService implements ScriptService
      * @param sortColumn the column used for sorting.
      * @param order the sorting order (asc or desc).
      * @param entityType the type of entity for which rights are retrieved.
-     * @return a filtered and sorted {@link List} of {@link RightsResult}.
+     * @return the first 200 entries of the filtered and sorted {@link List} of {@link RightsResult}.
      * @since 1.2
+     * @deprecated since 1.4.1, use {@link #getEntityRights(Map, String, String, String, int, int)} instead, which
+     *     returns any page of the entries and their total number
      */
     @Unstable
+    @Deprecated
     public List<RightsResult> getEntityRights(Map<String, String> filters, String sortColumn, String order,
-        String entityType)
+        String entityType) throws AccessDeniedException
     {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
         return entityRightsProvider.getEntityRights(filters, sortColumn, order, entityType);
     }
 
+    /**
+     * Retrieves a page of the filtered and sorted {@link RightsResult} representing the rights for the given
+     * parameters, together with the exact number of matching rights entries.
+     *
+     * @param filters a map of filters to apply.
+     * @param sortColumn the column used for sorting.
+     * @param order the sorting order (asc or desc).
+     * @param entityType the type of entity for which rights are retrieved.
+     * @param offset the index of the first entry of the page.
+     * @param limit the maximum number of entries of the page.
+     * @return a {@link RightsResultsPage} with the sorted entries of the page and the total number of entries.
+     * @since 1.4.1
+     */
+    @Unstable
+    public RightsResultsPage getEntityRights(Map<String, String> filters, String sortColumn, String order,
+        String entityType, int offset, int limit) throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return entityRightsProvider.getEntityRights(filters, sortColumn, order, entityType, offset, limit);
+    }
+
+    /**
+     * Get the display name of a user or group shown in the rights reports. The display names are cached, so that
+     * showing the same user or group on many rows doesn't load its profile document each time.
+     *
+     * @param entity the reference of the user or group, resolved relative to the current wiki.
+     * @return the display name of the user or group.
+     * @since 1.4.1
+     */
+    @Unstable
+    public String getUserDisplayName(String entity) throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return userDisplayNameCache.getDisplayName(entity);
+    }
+
     /**
      * Retrieve all the configuration information in a format given by the associated templates generated by the data
      * providers.
@@ -242,6 +342,111 @@ public class AdminToolsScriptService implements ScriptService
         return this.adminToolsManager.getWikiSizeResults(filters, sortColumn, order);
     }
 
+    /**
+     * Get the usage info of all the wikis, as computed from the Solr index with a single request. This includes the
+     * documents and attachments count, the number of empty documents and the distribution of comments.
+     *
+     * @return a {@link Map} with the wiki ids as keys and the indexed usage info as values, or an empty {@link Map}
+     *     if the Solr index is not in sync with the database.
+     * @throws AccessDeniedException if the requesting user lacks admin rights.
+     * @since 1.4.1
+     */
+    @Unstable
+    public Map<String, WikiIndexedUsage> getIndexedWikisUsage() throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return this.adminToolsManager.getIndexedWikisUsage();
+    }
+
+    /**
+     * Get the attachments storage info of a wiki: its largest attachments and the number and size of the attachments
+     * of each space and MIME type. The current user needs admin rights on the given wiki.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @return a {@link WikiAttachmentsStorage} with the attachments storage info of the wiki.
+     * @throws AccessDeniedException if the requesting user lacks admin rights on the wiki.
+     * @since 1.4.1
+     */
+    @Unstable
+    public WikiAttachmentsStorage getWikiAttachmentsStorage(String wikiId) throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN, new WikiReference(wikiId));
+        return this.adminToolsManager.getWikiAttachmentsStorage(wikiId);
+    }
+
+    /**
+     * Get the usage of the direct nested spaces of a space: their number of documents and attachments and the size of
+     * their attachments, both for the space alone and including its nested spaces. The current user needs admin
+     * rights on the given wiki.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param parentSpace the serialized local reference of the parent space, or an empty value for the top level
+     *     spaces.
+     * @return the usage of the nested spaces, sorted by their total attachments size in descending order.
+     * @throws AccessDeniedException if the requesting user lacks admin rights on the wiki.
+     * @since 1.4.1
+     */
+    @Unstable
+    public List<SpaceUsage> getSpacesUsage(String wikiId, String parentSpace) throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN, new WikiReference(wikiId));
+        return this.adminToolsManager.getSpacesUsage(wikiId, parentSpace);
+    }
+
+    /**
+     * Get the daily usage points of a wiki, with its number of documents, attachments and users and its attachments
+     * size, between two dates. The current user needs admin rights on the given wiki.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param from the first day, inclusive, or {@code null} to start with the oldest recorded day.
+     * @param to the last day, inclusive, or {@code null} to end with the most recent recorded day.
+     * @return the usage points in the given range, sorted by day.
+     * @throws AccessDeniedException if the requesting user lacks admin rights on the wiki.
+     * @since 1.4.1
+     */
+    @Unstable
+    public List<UsagePoint> getUsageHistory(String wikiId, Date from, Date to) throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN, new WikiReference(wikiId));
+        long toDay = to == null ? Long.MAX_VALUE : toEpochDay(to);
+        return this.adminToolsManager.getUsageHistory(wikiId, toEpochDay(from), toDay);
+    }
+
+    /**
+     * Get a linear projection of the attachments storage growth of all the wikis, based on their last 30 recorded
+     * days, with the number of days until the disk of the permanent directory is full.
+     *
+     * @return the growth projection, or {@code null} if it could not be computed.
+     * @throws AccessDeniedException if the requesting user lacks admin rights.
+     * @since 1.4.1
+     */
+    @Unstable
+    public UsageProjection getUsageProjection() throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return this.adminToolsManager.getUsageProjection();
+    }
+
+    /**
+     * Get the attachments of a wiki that have the same content as another attachment of the wiki, as found by the
+     * last duplicate attachments job and kept up to date since. The current user needs admin rights on the given
+     * wiki.
+     *
+     * @param wikiId the wiki for which the data will be retrieved.
+     * @param groupsLimit the maximum number of returned groups of duplicates.
+     * @return the number of duplicates and the wasted size of the wiki, with the groups of duplicates wasting the most
+     *     space, or {@code null} if the duplicate attachments job didn't index the wiki yet.
+     * @throws AccessDeniedException if the requesting user lacks admin rights on the wiki.
+     * @since 1.4.1
+     */
+    @Unstable
+    public WikiDuplicateAttachments getDuplicateAttachments(String wikiId, int groupsLimit)
+        throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN, new WikiReference(wikiId));
+        return this.adminToolsManager.getDuplicateAttachments(wikiId, groupsLimit);
+    }
+
     /**
      * Get a specific data provider information in a format given by the associated template.
      *
@@ -325,6 +530,23 @@ public class AdminToolsScriptService implements ScriptService
         return adminToolsManager.getPagesOverGivenNumberOfComments(maxComments, filters, order);
     }
 
+    /**
+     * Retrieve the pages that have more than a given number of comments, ranked by their spam score.
+     *
+     * @param maxComments maximum number of comments below which the page is ignored.
+     * @param filters {@link Map} of filters to be applied on the gathered list.
+     * @param order the order of the sort.
+     * @return a {@link SolrDocumentList} with the needed fields set, including the {@code spamScore}.
+     * @since 1.4.1
+     */
+    @Unstable
+    public SolrDocumentList getPagesBySpamScore(long maxComments, Map<String, String> filters, String order)
+        throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return adminToolsManager.getPagesBySpamScore(maxComments, filters, order);
+    }
+
     /**
      * Retrieve the empty documents from the XWiki instance.
      *
@@ -388,6 +610,400 @@ public class AdminToolsScriptService implements ScriptService
         return List.of("adminTools", "healthCheck", currentWiki);
     }
 
+    /**
+     * Start a job that removes from the recycle bins of the given wikis the documents and attachments deleted more than
+     * a given number of days ago. If such a job is already running, return it instead. The current user needs admin
+     * rights on each of the given wikis.
+     *
+     * @param wikis the ids of the wikis whose recycle bins are purged.
+     * @param olderThanDays only the entries deleted more than this number of days ago are purged, at least {@code 1}.
+     * @param batchSize the number of entries deleted in a single transaction, at least {@code 1}.
+     * @param maxRowsPerSecond the maximum number of entries deleted per second, or {@code 0} for no limit.
+     * @return the asynchronous background job that will execute the request.
+     * @throws IllegalArgumentException if the number of days or the batch size is not positive, or if the maximum
+     *     number of entries deleted per second is negative.
+     * @since 1.4.1
+     */
+    @Unstable
+    public Job purgeRecycleBins(List<String> wikis, int olderThanDays, int batchSize, int maxRowsPerSecond)
+        throws Exception
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        // A query limit of 0 means no limit, so a non positive batch size would purge a whole bin in one transaction.
+        if (olderThanDays < 1 || batchSize < 1 || maxRowsPerSecond < 0) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid recycle bins purge parameters: olderThanDays [%d], batchSize [%d], maxRowsPerSecond [%d].",
+                olderThanDays, batchSize, maxRowsPerSecond));
+        }
+        for (String wikiId : wikis) {
+            this.contextualAuthorizationManager.checkAccess(Right.ADMIN, new WikiReference(wikiId));
+        }
+        List<String> requestId = this.getRecycleBinPurgeJobId();
+        Job job = this.jobExecutor.getJob(requestId);
+        if (job == null) {
+            RecycleBinPurgeJobRequest purgeJobRequest = new RecycleBinPurgeJobRequest(wikis, olderThanDays, requestId);
+            purgeJobRequest.setBatchSize(batchSize);
+            purgeJobRequest.setMaxRowsPerSecond(maxRowsPerSecond);
+            return this.jobExecutor.execute(RecycleBinPurgeJob.JOB_TYPE, purgeJobRequest);
+        } else {
+            return job;
+        }
+    }
+
+    /**
+     * Get the recycle bin purge job id.
+     *
+     * @return the recycle bin purge job id.
+     * @since 1.4.1
+     */
+    @Unstable
+    public List<String> getRecycleBinPurgeJobId() throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return List.of("adminTools", "recycleBinPurge");
+    }
+
+    /**
+     * Start a job that deletes, or moves under a given space, the pages of a wiki matched by the empty pages or by the
+     * spammed pages report. If such a job is already running for the wiki, return it instead. The current user needs
+     * admin rights on the given wiki.
+     *
+     * @param report the report matching the pages, either {@code empty} or {@code spam}.
+     * @param wikiId the id of the wiki whose pages are cleaned up.
+     * @param dryRun {@code true} to only list the matched pages, without changing them.
+     * @param targetSpace the space under which the matched pages are moved, or {@code null} to delete them.
+     * @param checkpoint the checkpoint saved in the status of a previous run, to resume it, or {@code null}.
+     * @return the asynchronous background job that will execute the request.
+     * @since 1.4.1
+     */
+    @Unstable
+    public Job cleanupPages(String report, String wikiId, boolean dryRun, String targetSpace, String checkpoint)
+        throws Exception
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN, new WikiReference(wikiId));
+        List<String> requestId = this.getPageCleanupJobId(wikiId);
+        Job job = this.jobExecutor.getJob(requestId);
+        if (job == null) {
+            PageCleanupJobRequest cleanupJobRequest = new PageCleanupJobRequest(report, wikiId, requestId);
+            cleanupJobRequest.setMinComments(this.adminToolsConfig.getSpamSize());
+            cleanupJobRequest.setDryRun(dryRun);
+            cleanupJobRequest.setTargetSpace(targetSpace);
+            cleanupJobRequest.setCheckpoint(checkpoint);
+            return this.jobExecutor.execute(PageCleanupJob.JOB_TYPE, cleanupJobRequest);
+        } else {
+            return job;
+        }
+    }
+
+    /**
+     * Get the page cleanup job id for the given wiki.
+     *
+     * @param wikiId the id of the wiki whose pages are cleaned up.
+     * @return the page cleanup job id.
+     * @since 1.4.1
+     */
+    @Unstable
+    public List<String> getPageCleanupJobId(String wikiId) throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN, new WikiReference(wikiId));
+        return List.of("adminTools", "pageCleanup", wikiId);
+    }
+
+    /**
+     * Start a job that computes the size and the number of versions of the attachment archives of the given wikis, per
+     * wiki and per document. If such a job is already running, return it instead. The current user needs admin rights
+     * on each of the given wikis.
+     *
+     * @param wikis the ids of the analysed wikis.
+     * @return the asynchronous background job that will execute the request.
+     * @since 1.4.1
+     */
+    @Unstable
+    public Job computeAttachmentArchivesSize(List<String> wikis) throws Exception
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        for (String wikiId : wikis) {
+            this.contextualAuthorizationManager.checkAccess(Right.ADMIN, new WikiReference(wikiId));
+        }
+        List<String> requestId = this.getAttachmentArchiveJobId();
+        Job job = this.jobExecutor.getJob(requestId);
+        if (job == null) {
+            AttachmentArchiveJobRequest archiveJobRequest = new AttachmentArchiveJobRequest(wikis, requestId);
+            return this.jobExecutor.execute(AttachmentArchiveJob.JOB_TYPE, archiveJobRequest);
+        } else {
+            return job;
+        }
+    }
+
+    /**
+     * Get the attachment archive job id.
+     *
+     * @return the attachment archive job id.
+     * @since 1.4.1
+     */
+    @Unstable
+    public List<String> getAttachmentArchiveJobId() throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return List.of("adminTools", "attachmentArchive");
+    }
+
+    /**
+     * Get the status of the last attachment archive job, which holds the last computed size of the attachment
+     * archives. The job is shared by the whole instance, so the status is returned only if the current user has admin
+     * rights on all the wikis it analysed.
+     *
+     * @return the status of the running or of the last finished attachment archive job, or {@code null} if the size
+     *     was never computed or was computed for wikis the current user doesn't administrate.
+     * @since 1.4.1
+     */
+    @Unstable
+    public AttachmentArchiveJobStatus getAttachmentArchives() throws AccessDeniedException
+    {
+        JobStatus jobStatus = getJobStatus(this.getAttachmentArchiveJobId());
+        if (jobStatus instanceof AttachmentArchiveJobStatus) {
+            AttachmentArchiveJobStatus archiveStatus = (AttachmentArchiveJobStatus) jobStatus;
+            return hasAdminOnWikis(archiveStatus.getRequest().getWikis()) ? archiveStatus : null;
+        }
+        return null;
+    }
+
+    /**
+     * Start a job that computes the number and the size of the document revisions of the given wikis, per wiki and per
+     * document. If such a job is already running, return it instead. The current user needs admin rights on each of
+     * the given wikis.
+     *
+     * @param wikis the ids of the analysed wikis.
+     * @return the asynchronous background job that will execute the request.
+     * @since 1.4.1
+     */
+    @Unstable
+    public Job computeRevisionStatistics(List<String> wikis) throws Exception
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        for (String wikiId : wikis) {
+            this.contextualAuthorizationManager.checkAccess(Right.ADMIN, new WikiReference(wikiId));
+        }
+        List<String> requestId = this.getRevisionStatisticsJobId();
+        Job job = this.jobExecutor.getJob(requestId);
+        if (job == null) {
+            RevisionStatisticsJobRequest statisticsJobRequest = new RevisionStatisticsJobRequest(wikis, requestId);
+            return this.jobExecutor.execute(RevisionStatisticsJob.JOB_TYPE, statisticsJobRequest);
+        } else {
+            return job;
+        }
+    }
+
+    /**
+     * Get the revision statistics job id.
+     *
+     * @return the revision statistics job id.
+     * @since 1.4.1
+     */
+    @Unstable
+    public List<String> getRevisionStatisticsJobId() throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return List.of("adminTools", "revisionStatistics");
+    }
+
+    /**
+     * Get the status of the last revision statistics job, which holds the last computed snapshot of the revisions
+     * usage. The job is shared by the whole instance, so the status is returned only if the current user has admin
+     * rights on all the wikis it analysed.
+     *
+     * @return the status of the running or of the last finished revision statistics job, or {@code null} if the
+     *     statistics were never computed or were computed for wikis the current user doesn't administrate.
+     * @since 1.4.1
+     */
+    @Unstable
+    public RevisionStatisticsJobStatus getRevisionStatistics() throws AccessDeniedException
+    {
+        JobStatus jobStatus = getJobStatus(this.getRevisionStatisticsJobId());
+        if (jobStatus instanceof RevisionStatisticsJobStatus) {
+            RevisionStatisticsJobStatus statisticsStatus = (RevisionStatisticsJobStatus) jobStatus;
+            return hasAdminOnWikis(statisticsStatus.getRequest().getWikis()) ? statisticsStatus : null;
+        }
+        return null;
+    }
+
+    /**
+     * Start a job that hashes the content of the attachments of the given wikis, in order to find the attachments
+     * having the same content. If such a job is already running, return it instead. The current user needs admin
+     * rights on each of the given wikis.
+     *
+     * @param wikis the ids of the analysed wikis.
+     * @return the asynchronous background job that will execute the request.
+     * @since 1.4.1
+     */
+    @Unstable
+    public Job computeDuplicateAttachments(List<String> wikis) throws Exception
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        for (String wikiId : wikis) {
+            this.contextualAuthorizationManager.checkAccess(Right.ADMIN, new WikiReference(wikiId));
+        }
+        List<String> requestId = this.getDuplicateAttachmentsJobId();
+        Job job = this.jobExecutor.getJob(requestId);
+        if (job == null) {
+            DuplicateAttachmentsJobRequest duplicatesJobRequest = new DuplicateAttachmentsJobRequest(wikis, requestId);
+            return this.jobExecutor.execute(DuplicateAttachmentsJob.JOB_TYPE, duplicatesJobRequest);
+        } else {
+            return job;
+        }
+    }
+
+    /**
+     * Get the duplicate attachments job id.
+     *
+     * @return the duplicate attachments job id.
+     * @since 1.4.1
+     */
+    @Unstable
+    public List<String> getDuplicateAttachmentsJobId() throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return List.of("adminTools", "duplicateAttachments");
+    }
+
+    /**
+     * Get the status of the last duplicate attachments job. The job is shared by the whole instance, so the status is
+     * returned only if the current user has admin rights on all the wikis it analysed.
+     *
+     * @return the status of the running or of the last finished duplicate attachments job, or {@code null} if the job
+     *     was never started or was started for wikis the current user doesn't administrate.
+     * @since 1.4.1
+     */
+    @Unstable
+    public DuplicateAttachmentsJobStatus getDuplicateAttachmentsJobStatus() throws AccessDeniedException
+    {
+        JobStatus jobStatus = getJobStatus(this.getDuplicateAttachmentsJobId());
+        if (jobStatus instanceof DuplicateAttachmentsJobStatus) {
+            DuplicateAttachmentsJobStatus duplicatesStatus = (DuplicateAttachmentsJobStatus) jobStatus;
+            return hasAdminOnWikis(duplicatesStatus.getRequest().getWikis()) ? duplicatesStatus : null;
+        }
+        return null;
+    }
+
+    /**
+     * Start a job that computes the effective rights of a user on all the pages of a space tree and writes them to a
+     * matrix file. If such a job is already running, return it instead. The current user needs admin rights on the
+     * wiki of the space.
+     *
+     * @param userReference the user whose rights are computed.
+     * @param spaceReference the root of the space tree.
+     * @return the asynchronous background job that will execute the request.
+     * @since 1.4.1
+     */
+    @Unstable
+    public Job computeRightsMatrix(DocumentReference userReference, SpaceReference spaceReference) throws Exception
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN, spaceReference.getWikiReference());
+        List<String> requestId = this.getRightsMatrixJobId();
+        Job job = this.jobExecutor.getJob(requestId);
+        if (job == null) {
+            RightsMatrixJobRequest matrixJobRequest =
+                new RightsMatrixJobRequest(userReference, spaceReference, requestId);
+            return this.jobExecutor.execute(RightsMatrixJob.JOB_TYPE, matrixJobRequest);
+        } else {
+            return job;
+        }
+    }
+
+    /**
+     * Get the rights matrix job id.
+     *
+     * @return the rights matrix job id.
+     * @since 1.4.1
+     */
+    @Unstable
+    public List<String> getRightsMatrixJobId() throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return List.of("adminTools", "rightsMatrix");
+    }
+
+    /**
+     * Get the status of the last rights matrix job. The job is shared by the whole instance, so the status is returned
+     * only if the current user has admin rights on the wiki of the space tree.
+     *
+     * @return the status of the running or of the last finished rights matrix job, or {@code null} if the job was
+     *     never started or was started for a wiki the current user doesn't administrate.
+     * @since 1.4.1
+     */
+    @Unstable
+    public RightsMatrixJobStatus getRightsMatrixJobStatus() throws AccessDeniedException
+    {
+        JobStatus jobStatus = getJobStatus(this.getRightsMatrixJobId());
+        if (jobStatus instanceof RightsMatrixJobStatus) {
+            RightsMatrixJobStatus matrixStatus = (RightsMatrixJobStatus) jobStatus;
+            SpaceReference spaceReference = matrixStatus.getRequest().getSpaceReference();
+            return spaceReference != null
+                && hasAdminOnWikis(List.of(spaceReference.getWikiReference().getName())) ? matrixStatus : null;
+        }
+        return null;
+    }
+
+    /**
+     * Start a job that compares a sample of the security cache entries of a wiki with the rights stored in the wiki and
+     * reports the stale ones. If such a job is already running, return it instead. The current user needs admin rights
+     * on the wiki.
+     *
+     * @param wikiReference the wiki whose entities are checked.
+     * @param invalidate {@code true} if the stale entries should be removed from the security cache, or {@code false}
+     *     if they should only be reported.
+     * @return the asynchronous background job that will execute the request.
+     * @since 1.4.1
+     */
+    @Unstable
+    public Job checkStaleSecurityCache(WikiReference wikiReference, boolean invalidate) throws Exception
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN, wikiReference);
+        List<String> requestId = this.getStaleSecurityCacheJobId();
+        Job job = this.jobExecutor.getJob(requestId);
+        if (job == null) {
+            StaleSecurityCacheJobRequest staleCacheJobRequest =
+                new StaleSecurityCacheJobRequest(wikiReference, invalidate, requestId);
+            return this.jobExecutor.execute(StaleSecurityCacheJob.JOB_TYPE, staleCacheJobRequest);
+        } else {
+            return job;
+        }
+    }
+
+    /**
+     * Get the stale security cache job id.
+     *
+     * @return the stale security cache job id.
+     * @since 1.4.1
+     */
+    @Unstable
+    public List<String> getStaleSecurityCacheJobId() throws AccessDeniedException
+    {
+        this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
+        return List.of("adminTools", "staleSecurityCache");
+    }
+
+    /**
+     * Get the status of the last stale security cache job. The job is shared by the whole instance, so the status is
+     * returned only if the current user has admin rights on the checked wiki.
+     *
+     * @return the status of the running or of the last finished stale security cache job, or {@code null} if the job
+     *     was never started or was started for a wiki the current user doesn't administrate.
+     * @since 1.4.1
+     */
+    @Unstable
+    public StaleSecurityCacheJobStatus getStaleSecurityCacheJobStatus() throws AccessDeniedException
+    {
+        JobStatus jobStatus = getJobStatus(this.getStaleSecurityCacheJobId());
+        if (jobStatus instanceof StaleSecurityCacheJobStatus) {
+            StaleSecurityCacheJobStatus staleCacheStatus = (StaleSecurityCacheJobStatus) jobStatus;
+            WikiReference wikiReference = staleCacheStatus.getRequest().getWikiReference();
+            return wikiReference != null && hasAdminOnWikis(List.of(wikiReference.getName())) ? staleCacheStatus
+                : null;
+        }
+        return null;
+    }
+
     /**
      * Check if the used server is compatible with Admin tools installation.
      *
@@ -418,4 +1034,24 @@ public class AdminToolsScriptService implements ScriptService
         this.contextualAuthorizationManager.checkAccess(Right.ADMIN);
         return adminToolsManager.getWikisRecycleBinsSize(filters, sortColumn, order);
     }
+
+    private long toEpochDay(Date date)
+    {
+        if (date == null) {
+            return Long.MIN_VALUE;
+        }
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    private JobStatus getJobStatus(List<String> jobId)
+    {
+        Job job = this.jobExecutor.getJob(jobId);
+        return job != null ? job.getStatus() : this.jobStatusStore.getJobStatus(jobId);
+    }
+
+    private boolean hasAdminOnWikis(Collection<String> wikis)
+    {
+        return wikis != null && wikis.stream()
+            .allMatch(wikiId -> this.contextualAuthorizationManager.hasAccess(Right.ADMIN, new WikiReference(wikiId)));
+    }
 }
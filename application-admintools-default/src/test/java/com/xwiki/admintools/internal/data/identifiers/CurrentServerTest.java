@@ -39,6 +39,10 @@ import com.xwiki.admintools.internal.usage.UsageDataProvider;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -111,6 +115,20 @@ class CurrentServerTest
         assertEquals(serverInfo, currentServer.getCurrentServer());
     }
 
+    @Test
+    void updateCurrentServerReadsMetadataOnce()
+    {
+        ServerInfo otherServerInfo = mock(ServerInfo.class);
+        when(otherServerInfo.getComponentHint()).thenReturn("jetty");
+        when(supportedServers.get()).thenReturn(List.of(otherServerInfo, serverInfo));
+        clearInvocations(usageDataProvider);
+
+        currentServer.updateCurrentServer();
+
+        assertEquals(serverInfo, currentServer.getCurrentServer());
+        verify(usageDataProvider, times(1)).getServerMetadata();
+    }
+
     @Test
     void getSupportedServers()
     {
@@ -0,0 +1,114 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.files.resources;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xwiki.admintools.internal.usage.extension.ExtensionInventory;
+import com.xwiki.admintools.internal.usage.extension.ExtensionInventoryDiff;
+import com.xwiki.admintools.internal.usage.extension.ExtensionInventoryEntry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link ExtensionInventoryDataResource}.
+ */
+@ComponentTest
+class ExtensionInventoryDataResourceTest
+{
+    @InjectMockComponents
+    private ExtensionInventoryDataResource extensionInventoryDataResource;
+
+    @MockComponent
+    private ExtensionInventory extensionInventory;
+
+    @Mock
+    private ZipOutputStream zipOutputStream;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach()
+    {
+        ExtensionInventoryEntry entry = new ExtensionInventoryEntry("org.xwiki:wiki", "2.1", List.of("wiki:xwiki"));
+        when(extensionInventory.getExtensionsCount()).thenReturn(1);
+        when(extensionInventory.getExtensions()).thenReturn(List.of(entry));
+        when(extensionInventory.getChanges()).thenReturn(new ExtensionInventoryDiff(List.of(entry), List.of()));
+    }
+
+    @Test
+    void getIdentifier()
+    {
+        assertEquals(ExtensionInventoryDataResource.HINT, extensionInventoryDataResource.getIdentifier());
+    }
+
+    @Test
+    void getByteData() throws Exception
+    {
+        String json = new String(extensionInventoryDataResource.getByteData(null));
+
+        assertTrue(json.contains("\"count\" : 1"));
+        assertTrue(json.contains("\"id\" : \"org.xwiki:wiki\""));
+        assertTrue(json.contains("\"added\""));
+        verify(extensionInventory, never()).takeSnapshot();
+    }
+
+    @Test
+    void addZipEntry() throws Exception
+    {
+        extensionInventoryDataResource.addZipEntry(zipOutputStream, null);
+
+        verify(zipOutputStream).putNextEntry(any(ZipEntry.class));
+        verify(zipOutputStream).closeEntry();
+        verify(extensionInventory).takeSnapshot();
+    }
+
+    @Test
+    void addZipEntryError() throws Exception
+    {
+        doThrow(new IOException("zip error")).when(zipOutputStream).putNextEntry(any(ZipEntry.class));
+
+        extensionInventoryDataResource.addZipEntry(zipOutputStream, null);
+
+        assertEquals("Could not add the extensions inventory to the archive. Root cause is: [IOException: zip error]",
+            logCapture.getMessage(0));
+        verify(extensionInventory, never()).takeSnapshot();
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.health.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Provider;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.SecurityReferenceFactory;
+import org.xwiki.security.authorization.SecurityEntryReader;
+import org.xwiki.security.authorization.SecurityRule;
+import org.xwiki.security.authorization.SecurityRuleEntry;
+import org.xwiki.security.authorization.cache.SecurityCache;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xwiki.admintools.health.cache.SecurityCacheStatistics;
+import com.xwiki.admintools.internal.health.cache.data.CacheDataUtil;
+
+import groovy.jmx.GroovyMBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link SecurityCacheInspector}.
+ */
+@ComponentTest
+class SecurityCacheInspectorTest
+{
+    private static final WikiReference WIKI_REFERENCE = new WikiReference("xwiki");
+
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("xwiki", "Space", "Page");
+
+    @InjectMockComponents
+    private SecurityCacheInspector securityCacheInspector;
+
+    @MockComponent
+    private CacheDataUtil cacheDataUtil;
+
+    @MockComponent
+    private GroovyMBeanUtil groovyMBeanUtil;
+
+    @MockComponent
+    private SecurityCache securityCache;
+
+    @MockComponent
+    private SecurityEntryReader securityEntryReader;
+
+    @MockComponent
+    private SecurityReferenceFactory securityReferenceFactory;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Mock
+    private XWikiContext context;
+
+    @Mock
+    private ObjectName otherCache;
+
+    @Mock
+    private ObjectName securityCacheName;
+
+    @Mock
+    private GroovyMBean securityCacheBean;
+
+    @Mock
+    private Query query;
+
+    @Mock
+    private SecurityReference wikiSecurityReference;
+
+    @Mock
+    private SecurityRuleEntry ruleEntry;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(cacheDataUtil.getCacheSet("Statistics")).thenReturn(Set.of(otherCache, securityCacheName));
+        when(otherCache.getKeyProperty("name")).thenReturn("\"xwiki.store.pageexistcache\"");
+        when(securityCacheName.getKeyProperty("name")).thenReturn(
+            "\"platform.security.authorization.cache(local)\"");
+        when(groovyMBeanUtil.getGroovyMBean(securityCacheName)).thenReturn(securityCacheBean);
+        when(securityCacheBean.getProperty("hits")).thenReturn(80L);
+        when(securityCacheBean.getProperty("misses")).thenReturn(20L);
+        when(securityCacheBean.getProperty("evictions")).thenReturn(5L);
+        when(securityCacheBean.getProperty("numberOfEntries")).thenReturn(-1);
+        when(securityCacheBean.getProperty("approximateEntries")).thenReturn(100L);
+
+        when(xcontextProvider.get()).thenReturn(context);
+        when(context.getWikiReference()).thenReturn(WIKI_REFERENCE);
+        when(queryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(query);
+        when(query.bindValue(eq("start"), anyLong())).thenReturn(query);
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(query.setWiki("xwiki")).thenReturn(query);
+        List<Object> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, "Space.Page" });
+        when(query.execute()).thenReturn(rows);
+        when(documentReferenceResolver.resolve("Space.Page", WIKI_REFERENCE)).thenReturn(DOCUMENT_REFERENCE);
+        when(serializer.serialize(any())).thenAnswer(invocation -> invocation.getArgument(0).toString());
+
+        when(securityReferenceFactory.newEntityReference(any()))
+            .thenAnswer(invocation -> mock(SecurityReference.class));
+        when(securityReferenceFactory.newEntityReference(WIKI_REFERENCE)).thenReturn(wikiSecurityReference);
+        when(securityCache.get(wikiSecurityReference)).thenReturn(ruleEntry);
+        when(securityEntryReader.read(any())).thenReturn(ruleEntry);
+        when(ruleEntry.getRules()).thenReturn(List.of(mock(SecurityRule.class), mock(SecurityRule.class)));
+    }
+
+    @Test
+    void getStatistics() throws Exception
+    {
+        SecurityCacheStatistics statistics = securityCacheInspector.getStatistics();
+
+        assertEquals(80, statistics.getHits());
+        assertEquals(20, statistics.getMisses());
+        assertEquals(5, statistics.getEvictions());
+        assertEquals(100, statistics.getNumberOfEntries());
+        assertEquals(0.8, statistics.getHitRatio());
+        assertEquals(Map.of("wiki", 1.0, "document", 0.0, "space", 0.0), statistics.getCoverageByType());
+        assertEquals(3, statistics.getExpensiveEntries().size());
+        assertEquals(2, statistics.getExpensiveEntries().get(0).getRulesCount());
+        assertTrue(statistics.getSampleTime() > 0);
+    }
+
+    @Test
+    void getStatisticsIsKeptForPolling() throws Exception
+    {
+        SecurityCacheStatistics statistics = securityCacheInspector.getStatistics();
+
+        assertSame(statistics, securityCacheInspector.getStatistics());
+        verify(cacheDataUtil, times(1)).getCacheSet("Statistics");
+        verify(query, times(1)).execute();
+    }
+
+    @Test
+    void getStatisticsKeepsTheSamplePerWiki() throws Exception
+    {
+        SecurityCacheStatistics statistics = securityCacheInspector.getStatistics();
+
+        when(context.getWikiReference()).thenReturn(new WikiReference("subwiki"));
+        when(query.setWiki("subwiki")).thenReturn(query);
+        when(query.execute()).thenReturn(new ArrayList<>());
+        SecurityCacheStatistics subwikiStatistics = securityCacheInspector.getStatistics();
+
+        assertEquals(Map.of("wiki", 1.0, "document", 0.0, "space", 0.0), statistics.getCoverageByType());
+        assertEquals(3, statistics.getExpensiveEntries().size());
+        assertEquals(80, subwikiStatistics.getHits());
+        assertEquals(1, subwikiStatistics.getExpensiveEntries().size());
+        verify(query).setWiki("subwiki");
+
+        when(context.getWikiReference()).thenReturn(WIKI_REFERENCE);
+        assertSame(statistics, securityCacheInspector.getStatistics());
+    }
+
+    @Test
+    void getStatisticsWithSamplingError() throws Exception
+    {
+        when(query.execute()).thenThrow(new QueryException("Query error", null, null));
+
+        SecurityCacheStatistics statistics = securityCacheInspector.getStatistics();
+
+        assertEquals(80, statistics.getHits());
+        assertTrue(statistics.getCoverageByType().isEmpty());
+        assertEquals("Failed to sample the security cache entries. Root cause is: [QueryException: Query error]",
+            logCapture.getMessage(0));
+    }
+}
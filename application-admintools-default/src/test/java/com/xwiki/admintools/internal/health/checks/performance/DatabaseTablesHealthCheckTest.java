@@ -0,0 +1,233 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.health.checks.performance;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.environment.Environment;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xwiki.admintools.internal.usage.DatabaseStatisticsProvider;
+import com.xwiki.admintools.internal.usage.wikiResult.TableStatistics;
+import com.xwiki.admintools.jobs.JobResult;
+import com.xwiki.admintools.jobs.JobResultLevel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link DatabaseTablesHealthCheck}.
+ */
+@ComponentTest
+class DatabaseTablesHealthCheckTest
+{
+    private static final long MB = 1024L * 1024;
+
+    @InjectMockComponents
+    private DatabaseTablesHealthCheck databaseTablesHealthCheck;
+
+    @MockComponent
+    private DatabaseStatisticsProvider databaseStatisticsProvider;
+
+    @MockComponent
+    private Provider<XWikiContext> wikiContextProvider;
+
+    @MockComponent
+    private Environment environment;
+
+    @Mock
+    private XWikiContext wikiContext;
+
+    @XWikiTempDir
+    private File permanentDirectory;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(wikiContextProvider.get()).thenReturn(wikiContext);
+        when(wikiContext.getMainXWiki()).thenReturn("xwiki");
+        when(environment.getPermanentDirectory()).thenReturn(permanentDirectory);
+    }
+
+    @Test
+    void check() throws Exception
+    {
+        when(databaseStatisticsProvider.getTablesStatistics("xwiki")).thenReturn(
+            List.of(new TableStatistics("xwikidoc", 100, 200 * MB, 10 * MB, 0)));
+
+        JobResult result = databaseTablesHealthCheck.check();
+
+        assertEquals("adminTools.dashboard.healthcheck.database.tables.info", result.getMessage());
+        assertEquals(JobResultLevel.INFO, result.getLevel());
+        assertEquals(String.valueOf(200 * MB + 10 * MB), readBaseline().getProperty("xwikidoc"));
+    }
+
+    @Test
+    void checkGrowth() throws Exception
+    {
+        writeBaseline(2, "xwikircs", 150 * MB);
+        when(databaseStatisticsProvider.getTablesStatistics("xwiki")).thenReturn(
+            List.of(new TableStatistics("xwikircs", 300, 400 * MB, 0, 0)));
+
+        JobResult result = databaseTablesHealthCheck.check();
+
+        assertEquals("adminTools.dashboard.healthcheck.database.tables.growth", result.getMessage());
+        assertEquals(JobResultLevel.WARN, result.getLevel());
+        assertEquals(List.of("xwikircs", 2L), result.getParameters());
+        assertEquals("The database tables [[xwikircs]] more than doubled in size in the last [2] days.",
+            logCapture.getMessage(0));
+    }
+
+    @Test
+    void checkGrowthWithRecentBaseline() throws Exception
+    {
+        when(databaseStatisticsProvider.getTablesStatistics("xwiki")).thenReturn(
+            List.of(new TableStatistics("xwikircs", 100, 150 * MB, 0, 0)),
+            List.of(new TableStatistics("xwikircs", 300, 400 * MB, 0, 0)));
+
+        assertEquals(JobResultLevel.INFO, databaseTablesHealthCheck.check().getLevel());
+        // The baseline is less than a day old, so the growth can't be told apart from a short burst.
+        assertEquals(JobResultLevel.INFO, databaseTablesHealthCheck.check().getLevel());
+    }
+
+    @Test
+    void checkGrowthWithExpiredBaseline() throws Exception
+    {
+        writeBaseline(40, "xwikircs", 150 * MB);
+        when(databaseStatisticsProvider.getTablesStatistics("xwiki")).thenReturn(
+            List.of(new TableStatistics("xwikircs", 300, 400 * MB, 0, 0)));
+
+        assertEquals(JobResultLevel.INFO, databaseTablesHealthCheck.check().getLevel());
+        assertEquals(String.valueOf(400 * MB), readBaseline().getProperty("xwikircs"));
+    }
+
+    @Test
+    void checkGrowthOfSmallTable() throws Exception
+    {
+        writeBaseline(2, "xwikircs", MB);
+        when(databaseStatisticsProvider.getTablesStatistics("xwiki")).thenReturn(
+            List.of(new TableStatistics("xwikircs", 10, 10 * MB, 0, 0)));
+
+        assertEquals(JobResultLevel.INFO, databaseTablesHealthCheck.check().getLevel());
+    }
+
+    @Test
+    void checkWithCorruptedBaseline() throws Exception
+    {
+        Path file = getBaselineFile();
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "timestamp=abc");
+        when(databaseStatisticsProvider.getTablesStatistics("xwiki")).thenReturn(
+            List.of(new TableStatistics("xwikircs", 10, 10 * MB, 0, 0)));
+
+        assertEquals(JobResultLevel.INFO, databaseTablesHealthCheck.check().getLevel());
+        assertTrue(logCapture.getMessage(0).startsWith("Failed to read the database tables baseline."));
+        assertNotEquals("abc", readBaseline().getProperty("timestamp"));
+    }
+
+    @Test
+    void checkBloat() throws Exception
+    {
+        when(databaseStatisticsProvider.getTablesStatistics("xwiki")).thenReturn(
+            List.of(new TableStatistics("xwikiattachment_content", 100, 500 * MB, 0, 300 * MB)));
+
+        JobResult result = databaseTablesHealthCheck.check();
+
+        assertEquals("adminTools.dashboard.healthcheck.database.tables.bloat", result.getMessage());
+        assertEquals(JobResultLevel.WARN, result.getLevel());
+        assertEquals("Most of the space of the database tables [[xwikiattachment_content]] is unused.",
+            logCapture.getMessage(0));
+    }
+
+    @Test
+    void checkUnavailable() throws Exception
+    {
+        when(databaseStatisticsProvider.getTablesStatistics("xwiki")).thenReturn(List.of());
+
+        assertEquals("adminTools.dashboard.healthcheck.database.tables.unavailable",
+            databaseTablesHealthCheck.check().getMessage());
+    }
+
+    @Test
+    void checkError() throws Exception
+    {
+        when(databaseStatisticsProvider.getTablesStatistics("xwiki")).thenThrow(
+            new XWikiException(0, 0, "catalog error"));
+
+        JobResult result = databaseTablesHealthCheck.check();
+
+        assertEquals("adminTools.dashboard.healthcheck.database.tables.error", result.getMessage());
+        assertEquals(JobResultLevel.WARN, result.getLevel());
+        assertTrue(logCapture.getMessage(0).startsWith("Failed to retrieve the database tables statistics."));
+    }
+
+    private void writeBaseline(int daysAgo, String tableName, long size) throws IOException
+    {
+        Properties baseline = new Properties();
+        baseline.setProperty("timestamp",
+            String.valueOf(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(daysAgo) - TimeUnit.HOURS.toMillis(1)));
+        baseline.setProperty(tableName, String.valueOf(size));
+        Path file = getBaselineFile();
+        Files.createDirectories(file.getParent());
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            baseline.store(outputStream, null);
+        }
+    }
+
+    private Properties readBaseline() throws IOException
+    {
+        Properties baseline = new Properties();
+        try (InputStream inputStream = Files.newInputStream(getBaselineFile())) {
+            baseline.load(inputStream);
+        }
+        return baseline;
+    }
+
+    private Path getBaselineFile()
+    {
+        return permanentDirectory.toPath().resolve("adminTools").resolve("databaseTables.properties");
+    }
+}
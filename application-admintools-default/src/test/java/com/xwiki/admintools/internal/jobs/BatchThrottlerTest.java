@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.jobs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit test for {@link BatchThrottler}.
+ */
+class BatchThrottlerTest
+{
+    @Test
+    void computePauseRateLimit()
+    {
+        BatchThrottler throttler = new BatchThrottler(100);
+
+        // 50 rows at 100 rows per second take at least 500ms.
+        assertEquals(400, throttler.computePause(50, 100));
+        assertEquals(350, throttler.computePause(50, 150));
+    }
+
+    @Test
+    void computePauseWithoutRateLimit()
+    {
+        BatchThrottler throttler = new BatchThrottler(0);
+
+        assertEquals(0, throttler.computePause(1000, 20));
+        assertEquals(0, throttler.computePause(1000, 30));
+        assertEquals(1, throttler.getBackoff());
+    }
+
+    @Test
+    void computePauseBacksOffOnLatency()
+    {
+        BatchThrottler throttler = new BatchThrottler(0);
+        throttler.computePause(100, 10);
+
+        // The batch took much longer than usual, so the throttler backs off.
+        assertEquals(100, throttler.computePause(100, 100));
+        assertEquals(2, throttler.getBackoff());
+        assertEquals(300, throttler.computePause(100, 100));
+        assertEquals(4, throttler.getBackoff());
+
+        // The latency went back to normal, so the back-off decreases.
+        assertEquals(10, throttler.computePause(100, 10));
+        assertEquals(2, throttler.getBackoff());
+        assertEquals(0, throttler.computePause(100, 10));
+        assertEquals(1, throttler.getBackoff());
+    }
+
+    @Test
+    void throttle() throws InterruptedException
+    {
+        List<Long> pauses = new ArrayList<>();
+        BatchThrottler throttler = new BatchThrottler(10)
+        {
+            @Override
+            protected void sleep(long millis)
+            {
+                pauses.add(millis);
+            }
+        };
+
+        throttler.throttle(5, 100);
+        throttler.throttle(5, 600);
+
+        assertEquals(List.of(400L, 600L), pauses);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.jobs;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit test for {@link ExecutionContextForkJoinThreadFactory}.
+ */
+class ExecutionContextForkJoinThreadFactoryTest
+{
+    @Test
+    void workersHaveAnExecutionContext() throws Exception
+    {
+        ExecutionContextManager executionContextManager = mock(ExecutionContextManager.class);
+        Execution execution = mock(Execution.class);
+        ForkJoinPool pool = new ForkJoinPool(1,
+            new ExecutionContextForkJoinThreadFactory(executionContextManager, execution, "worker-"), null, false);
+
+        String workerName = pool.submit(() -> Thread.currentThread().getName()).get();
+        pool.shutdown();
+
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals("worker-0", workerName);
+        verify(executionContextManager).initialize(any(ExecutionContext.class));
+        verify(execution).removeContext();
+    }
+}
@@ -19,7 +19,10 @@
  */
 package com.xwiki.admintools.internal.rest;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,7 +40,10 @@ import org.xwiki.job.Job;
 import org.xwiki.job.JobException;
 import org.xwiki.job.JobExecutor;
 import org.xwiki.job.JobGroupPath;
+import org.xwiki.job.JobStatusStore;
+import org.xwiki.job.event.status.JobStatus;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.SpaceReference;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.security.authorization.AccessDeniedException;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
@@ -45,6 +51,7 @@ import org.xwiki.security.authorization.Right;
 import org.xwiki.test.LogLevel;
 import org.xwiki.test.annotation.BeforeComponent;
 import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.XWikiTempDir;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
@@ -52,13 +59,17 @@ import org.xwiki.test.junit5.mockito.MockComponent;
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.web.XWikiRequest;
+import com.xwiki.admintools.health.cache.SecurityCacheStatistics;
 import com.xwiki.admintools.internal.files.ImportantFilesManager;
 import com.xwiki.admintools.internal.files.resources.logs.LogsDataResource;
+import com.xwiki.admintools.internal.health.cache.SecurityCacheInspector;
 import com.xwiki.admintools.internal.health.cache.data.CacheDataFlusher;
 import com.xwiki.admintools.internal.uploadJob.UploadJob;
 import com.xwiki.admintools.jobs.JobResult;
 import com.xwiki.admintools.jobs.PackageUploadJobRequest;
 import com.xwiki.admintools.jobs.PackageUploadJobStatus;
+import com.xwiki.admintools.jobs.RightsMatrixJobRequest;
+import com.xwiki.admintools.jobs.RightsMatrixJobStatus;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -105,6 +116,15 @@ class DefaultAdminToolsResourceTest
     @MockComponent
     private CacheDataFlusher cacheDataFlusher;
 
+    @MockComponent
+    private JobStatusStore jobStatusStore;
+
+    @MockComponent
+    private SecurityCacheInspector securityCacheInspector;
+
+    @XWikiTempDir
+    private File tmpDir;
+
     @Mock
     private DocumentReference user;
 
@@ -364,4 +384,94 @@ class DefaultAdminToolsResourceTest
         assertEquals(404, defaultAdminToolsResource.flushJMXEntryCache("test").getStatus());
         assertEquals("[test] JMX cache not found.", logCapture.getMessage(0));
     }
+
+    @Test
+    void getRightsMatrix() throws Exception
+    {
+        File matrixFile = new File(tmpDir, "rightsMatrix.csv");
+        Files.writeString(matrixFile.toPath(), "page,view\n\"xwiki:Space.Page\",allow\n");
+        RightsMatrixJobStatus matrixJobStatus = mock(RightsMatrixJobStatus.class);
+        when(jobStatusStore.getJobStatus(List.of("adminTools", "rightsMatrix"))).thenReturn(matrixJobStatus);
+        when(matrixJobStatus.getState()).thenReturn(JobStatus.State.FINISHED);
+        when(matrixJobStatus.getMatrixFile()).thenReturn(matrixFile.getPath());
+        when(matrixJobStatus.getRequest()).thenReturn(new RightsMatrixJobRequest(new DocumentReference("xwiki",
+            "XWiki", "User"), new SpaceReference("xwiki", "Space"), List.of("adminTools", "rightsMatrix")));
+
+        Response response = defaultAdminToolsResource.getRightsMatrix();
+        assertEquals(200, response.getStatus());
+        assertEquals("attachment; filename=rightsMatrix.csv", response.getHeaderString("Content-Disposition"));
+        ((InputStream) response.getEntity()).close();
+    }
+
+    @Test
+    void getRightsMatrixNoRightsOnSpaceWiki() throws Exception
+    {
+        RightsMatrixJobStatus matrixJobStatus = mock(RightsMatrixJobStatus.class);
+        when(jobStatusStore.getJobStatus(List.of("adminTools", "rightsMatrix"))).thenReturn(matrixJobStatus);
+        when(matrixJobStatus.getState()).thenReturn(JobStatus.State.FINISHED);
+        when(matrixJobStatus.getMatrixFile()).thenReturn("rightsMatrix.csv");
+        SpaceReference spaceReference = new SpaceReference("mainWiki", "Space");
+        when(matrixJobStatus.getRequest()).thenReturn(new RightsMatrixJobRequest(new DocumentReference("mainWiki",
+            "XWiki", "User"), spaceReference, List.of("adminTools", "rightsMatrix")));
+        doThrow(new AccessDeniedException(Right.ADMIN, user, null)).when(contextualAuthorizationManager)
+            .checkAccess(Right.ADMIN, spaceReference.getWikiReference());
+
+        WebApplicationException exception =
+            assertThrows(WebApplicationException.class, () -> this.defaultAdminToolsResource.getRightsMatrix());
+        assertEquals(401, exception.getResponse().getStatus());
+        assertEquals("Failed to get the rights matrix due to restricted rights.", logCapture.getMessage(0));
+    }
+
+    @Test
+    void getRightsMatrixNotFinished()
+    {
+        RightsMatrixJobStatus matrixJobStatus = mock(RightsMatrixJobStatus.class);
+        when(jobExecutor.getJob(List.of("adminTools", "rightsMatrix"))).thenReturn(job);
+        when(job.getStatus()).thenReturn(matrixJobStatus);
+        when(matrixJobStatus.getState()).thenReturn(JobStatus.State.RUNNING);
+
+        assertEquals(404, defaultAdminToolsResource.getRightsMatrix().getStatus());
+    }
+
+    @Test
+    void getRightsMatrixNeverComputed()
+    {
+        assertEquals(404, defaultAdminToolsResource.getRightsMatrix().getStatus());
+    }
+
+    @Test
+    void getSecurityCacheStatistics() throws Exception
+    {
+        SecurityCacheStatistics statistics = new SecurityCacheStatistics();
+        when(securityCacheInspector.getStatistics()).thenReturn(statistics);
+
+        Response response = defaultAdminToolsResource.getSecurityCacheStatistics();
+        assertEquals(200, response.getStatus());
+        assertEquals(statistics, response.getEntity());
+    }
+
+    @Test
+    void getSecurityCacheStatisticsNoRights() throws AccessDeniedException
+    {
+        doThrow(new AccessDeniedException(Right.ADMIN, user, null)).when(contextualAuthorizationManager)
+            .checkAccess(Right.ADMIN);
+        WebApplicationException exception = assertThrows(WebApplicationException.class, () -> {
+            this.defaultAdminToolsResource.getSecurityCacheStatistics();
+        });
+        assertEquals(401, exception.getResponse().getStatus());
+        assertEquals("Failed to get the security cache statistics due to restricted rights.",
+            logCapture.getMessage(0));
+    }
+
+    @Test
+    void getSecurityCacheStatisticsError() throws Exception
+    {
+        when(securityCacheInspector.getStatistics()).thenThrow(new JMException("JMX error"));
+        WebApplicationException exception = assertThrows(WebApplicationException.class, () -> {
+            this.defaultAdminToolsResource.getSecurityCacheStatistics();
+        });
+        assertEquals(500, exception.getResponse().getStatus());
+        assertEquals("Failed to get the security cache statistics. Root cause: [JMException: JMX error]",
+            logCapture.getMessage(0));
+    }
 }
@@ -38,6 +38,7 @@ import org.xwiki.security.SecurityReference;
 import org.xwiki.security.SecurityReferenceFactory;
 import org.xwiki.security.UserSecurityReference;
 import org.xwiki.security.authorization.AuthorizationException;
+import org.xwiki.security.authorization.ReadableSecurityRule;
 import org.xwiki.security.authorization.SecurityAccessEntry;
 import org.xwiki.security.authorization.SecurityEntryReader;
 import org.xwiki.security.authorization.SecurityRule;
@@ -57,6 +58,7 @@ import com.xwiki.licensing.Licensor;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -252,4 +254,24 @@ class CheckSecurityCacheTest
         assertEquals(expectedRes.get("Users"), res.get("Users"));
         assertEquals(expectedRes.get("Groups"), res.get("Groups"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void extractRuleUsersGroupsMissingGroups()
+    {
+        when(securityRule.toString()).thenReturn("Users=[XWiki.Admin]");
+        Map<String, String> res = checkSecurityCache.extractRuleUsersGroups(securityRule);
+        assertEquals("XWiki.Admin", res.get("Users"));
+        assertEquals("", res.get("Groups"));
+    }
+
+    @Test
+    void extractRuleUsersGroupsReadableRule()
+    {
+        ReadableSecurityRule readableRule = mock(ReadableSecurityRule.class);
+        when(readableRule.getUsers()).thenReturn(Arrays.asList(new DocumentReference("xwiki", "XWiki", "Admin"), null));
+        when(readableRule.getGroups()).thenReturn(List.of());
+        Map<String, String> res = checkSecurityCache.extractRuleUsersGroups(readableRule);
+        assertEquals("xwiki:XWiki.Admin,XWikiGuest", res.get("Users"));
+        assertEquals("", res.get("Groups"));
+    }
+}
@@ -21,6 +21,7 @@ package com.xwiki.admintools.internal.security;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import javax.inject.Named;
@@ -35,9 +36,11 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import org.mockito.Mock;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.LocalDocumentReference;
 import org.xwiki.model.reference.SpaceReference;
 import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryManager;
 import org.xwiki.query.SecureQuery;
@@ -51,13 +54,18 @@ import org.xwiki.test.junit5.mockito.MockComponent;
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
-import com.xpn.xwiki.doc.XWikiDocument;
-import com.xpn.xwiki.objects.BaseObject;
-import com.xpn.xwiki.objects.classes.StringClass;
 import com.xwiki.admintools.security.RightsResult;
+import com.xwiki.admintools.security.RightsResultsPage;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ComponentTest
@@ -100,24 +108,6 @@ class EntityRightsProviderTest
     DocumentReference docRefGlobal =
         new DocumentReference(new LocalDocumentReference("XWiki", "XWikiPreferences"), new WikiReference("xwiki"));
 
-    @Mock
-    StringClass stringClass1;
-
-    @Mock
-    StringClass stringClass2;
-
-    @Mock
-    StringClass stringClass3;
-
-    @Mock
-    StringClass stringClass4;
-
-    @Mock
-    StringClass stringClass5;
-
-    @Mock
-    StringClass stringClass6;
-
     @Mock
     SpaceReference spaceReference1;
 
@@ -142,12 +132,18 @@ class EntityRightsProviderTest
     @MockComponent
     private SolrUtils solrUtils;
 
+    @MockComponent
+    private UserDisplayNameCache userDisplayNameCache;
+
     @MockComponent
     private QueryResponse queryResponse;
 
     @MockComponent
     private QueryResponse queryResponse2;
 
+    @Mock
+    private QueryResponse queryResponse3;
+
     private SolrDocumentList solrDocuments = new SolrDocumentList();
 
     private SolrDocumentList solrDocuments2 = new SolrDocumentList();
@@ -172,41 +168,33 @@ class EntityRightsProviderTest
     @Named("current")
     private DocumentReferenceResolver<String> documentReferenceResolver;
 
-    @Mock
-    private XWikiDocument doc1;
-
-    @Mock
-    private XWikiDocument doc2;
-
-    @Mock
-    private XWikiDocument doc3;
-
-    @Mock
-    private XWikiDocument docGlobal;
+    @MockComponent
+    private QueryManager hqlQueryManager;
 
-    @Mock
-    private BaseObject obj1;
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
 
     @Mock
-    private BaseObject obj2;
+    private Query hqlQuery;
 
     @Mock
-    private BaseObject obj3;
+    private Query pageRightsQuery;
 
     @Mock
-    private BaseObject obj4;
+    private Query globalRightsQuery;
 
     @Mock
-    private BaseObject obj5;
+    private Query spaceRightsQuery;
 
     @Mock
-    private BaseObject obj6;
+    private Query wikiRightsQuery;
 
     @RegisterExtension
     private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.ERROR);
 
     @BeforeEach
-    void setUp() throws QueryException, XWikiException
+    void setUp() throws QueryException
     {
         when(solrUtils.toCompleteFilterQueryString("searchedDocument")).thenReturn("escapedSearchDocument");
         when(solrUtils.toCompleteFilterQueryString("searchedSpace")).thenReturn("escapedSearchedSpace");
@@ -221,12 +209,14 @@ class EntityRightsProviderTest
         filterStatements2.add("-name:XWikiPreferences");
         when(queryManager.createQuery(queryStatement1, "solr")).thenReturn(query);
 
-        when(query.bindValue("fl", "title_, reference, wiki, name, spaces")).thenReturn(query);
+        when(query.bindValue("fl", "title_, reference, wiki, name, spaces, AdminTools.Rights_string")).thenReturn(
+            query);
         when(query.bindValue("fq", filterStatements)).thenReturn(query);
         when(query.setLimit(200)).thenReturn(query);
 
         when(queryManager.createQuery(queryStatement2, "solr")).thenReturn(query1);
-        when(query1.bindValue("fl", "title_, reference, wiki, name, spaces")).thenReturn(query1);
+        when(query1.bindValue("fl", "title_, reference, wiki, name, spaces, AdminTools.GlobalRights_string"))
+            .thenReturn(query1);
         when(query1.bindValue("fq", filterStatements3)).thenReturn(query1);
         when(query1.setLimit(200)).thenReturn(query1);
 
@@ -245,58 +235,40 @@ class EntityRightsProviderTest
         when(solrDocumentReferenceResolver.resolve(solrDocument1)).thenReturn(docRef1);
         when(solrDocumentReferenceResolver.resolve(solrDocument2)).thenReturn(docRef2);
         when(solrDocumentReferenceResolver.resolve(solrDocument3)).thenReturn(docRef3);
-        when(wiki.getDocument(docRef1, context)).thenReturn(doc1);
-        when(wiki.getDocument(docRef2, context)).thenReturn(doc2);
-        when(wiki.getDocument(docRef3, context)).thenReturn(doc3);
-        when(wiki.getDocument(docRefGlobal, context)).thenReturn(docGlobal);
-        when(doc1.getXObjects(DOCUMENT_RIGHTS_CLASS)).thenReturn(List.of(obj1, obj1));
-        when(doc2.getXObjects(DOCUMENT_RIGHTS_CLASS)).thenReturn(List.of(obj3, obj4));
-        when(doc3.getXObjects(GLOBAL_RIGHTS_CLASS)).thenReturn(List.of(obj5, obj6));
-        when(docGlobal.getXObjects(GLOBAL_RIGHTS_CLASS)).thenReturn(List.of(obj5, obj6, obj2));
-
-        when(doc1.getDocumentReference()).thenReturn(docRef1);
-        when(doc2.getDocumentReference()).thenReturn(docRef2);
-        when(doc3.getDocumentReference()).thenReturn(docRef3);
-        when(docGlobal.getDocumentReference()).thenReturn(docRefGlobal);
-
-        when(obj1.get("groups")).thenReturn(stringClass1);
-        when(stringClass1.toFormString()).thenReturn("stringClass1");
-        when(obj2.get("groups")).thenReturn(stringClass2);
-        when(stringClass2.toFormString()).thenReturn("stringClass2");
-        when(obj3.get("groups")).thenReturn(stringClass3);
-        when(stringClass3.toFormString()).thenReturn("stringClass3");
-        when(obj4.get("groups")).thenReturn(stringClass4);
-        when(stringClass4.toFormString()).thenReturn("");
-        when(obj5.get("groups")).thenReturn(stringClass5);
-        when(stringClass5.toFormString()).thenReturn("stringClass5");
-        when(obj6.get("groups")).thenReturn(stringClass6);
-        when(stringClass6.toFormString()).thenReturn("stringClass6");
-
-        when(obj1.get("levels")).thenReturn(stringClass1);
-        when(stringClass1.toFormString()).thenReturn("stringClass1");
-        when(obj2.get("levels")).thenReturn(stringClass2);
-        when(stringClass2.toFormString()).thenReturn("stringClass2");
-        when(obj3.get("levels")).thenReturn(stringClass3);
-        when(stringClass3.toFormString()).thenReturn("stringClass3");
-        when(obj4.get("levels")).thenReturn(stringClass4);
-        when(stringClass4.toFormString()).thenReturn("");
-        when(obj5.get("levels")).thenReturn(stringClass5);
-        when(stringClass5.toFormString()).thenReturn("stringClass5");
-        when(obj6.get("levels")).thenReturn(stringClass6);
-        when(stringClass6.toFormString()).thenReturn("stringClass6");
-
-        when(obj1.get("allow")).thenReturn(stringClass1);
-        when(stringClass1.toFormString()).thenReturn("stringClass1");
-        when(obj2.get("allow")).thenReturn(stringClass2);
-        when(stringClass2.toFormString()).thenReturn("stringClass2");
-        when(obj3.get("allow")).thenReturn(stringClass3);
-        when(stringClass3.toFormString()).thenReturn("stringClass3");
-        when(obj4.get("allow")).thenReturn(stringClass4);
-        when(stringClass4.toFormString()).thenReturn("");
-        when(obj5.get("allow")).thenReturn(stringClass5);
-        when(stringClass5.toFormString()).thenReturn("stringClass5");
-        when(obj6.get("allow")).thenReturn(stringClass6);
-        when(stringClass6.toFormString()).thenReturn("stringClass6");
+        when(localSerializer.serialize(docRef1)).thenReturn("docSpace1.docTitle");
+        when(localSerializer.serialize(docRef2)).thenReturn("docSpace2.docTitle2");
+        when(localSerializer.serialize(docRef3)).thenReturn("docSpace3.docTitle3");
+        when(localSerializer.serialize(docRefGlobal)).thenReturn("XWiki.XWikiPreferences");
+
+        when(hqlQueryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(hqlQuery);
+        when(hqlQuery.bindValue("className", "XWiki.XWikiRights")).thenReturn(pageRightsQuery);
+        when(hqlQuery.bindValue("className", "XWiki.XWikiGlobalRights")).thenReturn(globalRightsQuery);
+        when(pageRightsQuery.bindValue(anyString(), any())).thenReturn(pageRightsQuery);
+        when(pageRightsQuery.setWiki("xwiki")).thenReturn(pageRightsQuery);
+        when(globalRightsQuery.bindValue(eq("documents"), any())).thenAnswer(
+            invocation -> invocation.<List<String>>getArgument(1).contains("XWiki.XWikiPreferences") ? wikiRightsQuery
+                : spaceRightsQuery);
+        when(spaceRightsQuery.bindValue(anyString(), any())).thenReturn(spaceRightsQuery);
+        when(spaceRightsQuery.setWiki("xwiki")).thenReturn(spaceRightsQuery);
+        when(wikiRightsQuery.bindValue(anyString(), any())).thenReturn(wikiRightsQuery);
+        when(wikiRightsQuery.setWiki("xwiki")).thenReturn(wikiRightsQuery);
+
+        // The first page has the same rights object twice and the second one has an object with no entity.
+        List<Object> pageRights = new ArrayList<>();
+        addRightsObject(pageRights, "docSpace1.docTitle", 0, "stringClass1");
+        addRightsObject(pageRights, "docSpace1.docTitle", 1, "stringClass1");
+        addRightsObject(pageRights, "docSpace2.docTitle2", 0, "stringClass3");
+        addRightsObject(pageRights, "docSpace2.docTitle2", 1, "");
+        when(pageRightsQuery.execute()).thenReturn(pageRights);
+        List<Object> spaceRights = new ArrayList<>();
+        addRightsObject(spaceRights, "docSpace3.docTitle3", 0, "stringClass5");
+        addRightsObject(spaceRights, "docSpace3.docTitle3", 1, "stringClass6");
+        when(spaceRightsQuery.execute()).thenReturn(spaceRights);
+        List<Object> wikiRights = new ArrayList<>();
+        addRightsObject(wikiRights, "XWiki.XWikiPreferences", 0, "stringClass5");
+        addRightsObject(wikiRights, "XWiki.XWikiPreferences", 1, "stringClass6");
+        addRightsObject(wikiRights, "XWiki.XWikiPreferences", 2, "stringClass2");
+        when(wikiRightsQuery.execute()).thenReturn(wikiRights);
 
         when(documentReferenceResolver.resolve("XWiki.XWikiPreferences")).thenReturn(docRefGlobal);
         when(documentReferenceResolver.resolve("searchedWiki:XWiki.XWikiPreferences")).thenReturn(docRef4);
@@ -347,4 +319,106 @@ class EntityRightsProviderTest
             "There was an error while processing the rights for entity [groups]: [RuntimeException: Query error]",
             logCapture.getMessage(0));
     }
+
+    @Test
+    void testGetEntityRights_EntityFilter()
+    {
+        when(userDisplayNameCache.getSearchKey("stringClass5")).thenReturn("admin group");
+        when(userDisplayNameCache.getSearchKey("stringClass6")).thenReturn("editors");
+        when(userDisplayNameCache.getSearchKey("stringClass2")).thenReturn("other admins");
+        Map<String, String> filters = Map.of("type", "Global", "entity", "admin");
+
+        List<RightsResult> rightsResults = entityRightsProvider.getEntityRights(filters, "level", "desc", "groups");
+        assertEquals(2, rightsResults.size());
+        assertEquals("stringClass5", rightsResults.get(0).getLevel());
+        assertEquals("stringClass2", rightsResults.get(1).getLevel());
+    }
+
+    @Test
+    void testGetEntityRights_DisplayNamesFromCache() throws XWikiException
+    {
+        when(userDisplayNameCache.getSearchKey("stringClass1")).thenReturn("group");
+        when(userDisplayNameCache.getSearchKey("stringClass3")).thenReturn("group");
+        Map<String, String> filters = Map.of("type", "Page", "entity", "Group");
+
+        List<RightsResult> rightsResults = entityRightsProvider.getEntityRights(filters, "level", "desc", "groups");
+        assertEquals(2, rightsResults.size());
+        verify(wiki, never()).getUserName(anyString(), any(), anyBoolean(), any(XWikiContext.class));
+        verify(wiki, never()).getDocument(any(DocumentReference.class), any());
+    }
+
+    @Test
+    void testGetEntityRights_IndexedRights() throws QueryException
+    {
+        when(solrDocument1.getFieldValues("AdminTools.Rights_string")).thenReturn(
+            List.of("{\"groups\":\"stringClass1\",\"levels\":\"view,edit\",\"allow\":\"1\"}",
+                "{\"users\":\"stringClass6\",\"levels\":\"comment\",\"allow\":\"0\"}"));
+        List<Object> pageRights = new ArrayList<>();
+        addRightsObject(pageRights, "docSpace2.docTitle2", 0, "stringClass3");
+        when(pageRightsQuery.execute()).thenReturn(pageRights);
+        Map<String, String> filters = Map.of("type", "Page");
+
+        List<RightsResult> rightsResults = entityRightsProvider.getEntityRights(filters, "level", "desc", "groups");
+        assertEquals(2, rightsResults.size());
+        assertEquals("view,edit", rightsResults.get(0).getLevel());
+        assertEquals("xwiki:docSpace1.docTitle", rightsResults.get(0).getEntity());
+        assertEquals("Allowed", rightsResults.get(0).getPolicy());
+        assertEquals("stringClass3", rightsResults.get(1).getLevel());
+        // Only the document that was not indexed with its rights is read from the database.
+        verify(pageRightsQuery).bindValue("documents", List.of("docSpace2.docTitle2"));
+        verify(pageRightsQuery).bindValue("entityType", "groups");
+    }
+
+    @Test
+    void testGetEntityRights_CursorPaging() throws QueryException
+    {
+        SolrDocumentList nextSolrDocuments = new SolrDocumentList();
+        nextSolrDocuments.add(solrDocument3);
+        when(queryResponse.getNextCursorMark()).thenReturn("nextCursor");
+        when(queryResponse3.getResults()).thenReturn(nextSolrDocuments);
+        when(queryResponse3.getNextCursorMark()).thenReturn("nextCursor");
+        when(query.execute()).thenReturn(List.of(queryResponse), List.of(queryResponse3));
+        List<Object> pageRights = new ArrayList<>();
+        addRightsObject(pageRights, "docSpace1.docTitle", 0, "stringClass1");
+        addRightsObject(pageRights, "docSpace1.docTitle", 1, "stringClass1");
+        addRightsObject(pageRights, "docSpace2.docTitle2", 0, "stringClass3");
+        List<Object> nextPageRights = new ArrayList<>();
+        addRightsObject(nextPageRights, "docSpace3.docTitle3", 0, "stringClass2");
+        when(pageRightsQuery.execute()).thenReturn(pageRights, nextPageRights);
+        Map<String, String> filters = Map.of("type", "Page");
+
+        RightsResultsPage page = entityRightsProvider.getEntityRights(filters, "level", "asc", "groups", 1, 2);
+        assertEquals(3, page.getTotal());
+        assertEquals(2, page.getResults().size());
+        assertEquals("stringClass2", page.getResults().get(0).getLevel());
+        assertEquals("stringClass3", page.getResults().get(1).getLevel());
+        verify(query).bindValue("cursorMark", "*");
+        verify(query).bindValue("cursorMark", "nextCursor");
+        verify(query, times(2)).bindValue("sort", "id asc");
+    }
+
+    @Test
+    void testGetEntityRights_TranslationsInDifferentBatches() throws QueryException
+    {
+        // The second batch holds the French translation of the first document of the first batch.
+        SolrDocumentList nextSolrDocuments = new SolrDocumentList();
+        nextSolrDocuments.add(solrDocument3);
+        when(solrDocumentReferenceResolver.resolve(solrDocument3)).thenReturn(
+            new DocumentReference(docRef1, Locale.FRENCH));
+        when(queryResponse.getNextCursorMark()).thenReturn("nextCursor");
+        when(queryResponse3.getResults()).thenReturn(nextSolrDocuments);
+        when(queryResponse3.getNextCursorMark()).thenReturn("nextCursor");
+        when(query.execute()).thenReturn(List.of(queryResponse), List.of(queryResponse3));
+        Map<String, String> filters = Map.of("type", "Page");
+
+        RightsResultsPage page = entityRightsProvider.getEntityRights(filters, "level", "asc", "groups", 0, 10);
+        assertEquals(2, page.getTotal());
+        assertEquals(docRef1, page.getResults().get(0).getDocReference());
+        verify(pageRightsQuery, times(1)).execute();
+    }
+
+    private void addRightsObject(List<Object> rows, String documentName, int number, String value)
+    {
+        rows.add(new Object[] { documentName, number, value, value, 1 });
+    }
 }
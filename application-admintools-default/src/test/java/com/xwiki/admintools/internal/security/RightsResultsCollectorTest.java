@@ -0,0 +1,115 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.security;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+
+import com.xwiki.admintools.security.RightsResult;
+import com.xwiki.admintools.security.RightsResultsPage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for {@link RightsResultsCollector}.
+ */
+class RightsResultsCollectorTest
+{
+    private static final Comparator<RightsResult> LEVEL_COMPARATOR = Comparator.comparing(RightsResult::getLevel);
+
+    @Test
+    void getPage()
+    {
+        RightsResultsCollector collector = new RightsResultsCollector(LEVEL_COMPARATOR, 2, 3);
+        for (String level : List.of("g", "c", "a", "f", "b", "h", "e", "d")) {
+            collector.accept(createResult("Page", level, level));
+        }
+
+        RightsResultsPage page = collector.getPage();
+        assertEquals(8, page.getTotal());
+        assertEquals(List.of("c", "d", "e"), getLevels(page));
+    }
+
+    @Test
+    void getPageAfterLastEntry()
+    {
+        RightsResultsCollector collector = new RightsResultsCollector(LEVEL_COMPARATOR.reversed(), 5, 10);
+        collector.accept(createResult("Page", "a", "a"));
+        collector.accept(createResult("Page", "b", "b"));
+
+        RightsResultsPage page = collector.getPage();
+        assertEquals(2, page.getTotal());
+        assertTrue(page.getResults().isEmpty());
+    }
+
+    @Test
+    void getPageWithEqualEntries()
+    {
+        RightsResultsCollector collector = new RightsResultsCollector(LEVEL_COMPARATOR, 0, 2);
+        collector.accept(createResult("Page", "view", "c"));
+        collector.accept(createResult("Page", "view", "a"));
+        collector.accept(createResult("Page", "view", "b"));
+
+        RightsResultsPage firstPage = collector.getPage();
+        assertEquals(List.of("xwiki:Space.a", "xwiki:Space.b"),
+            firstPage.getResults().stream().map(result -> result.getDocReference().toString())
+                .collect(Collectors.toList()));
+
+        collector = new RightsResultsCollector(LEVEL_COMPARATOR, 2, 2);
+        collector.accept(createResult("Page", "view", "b"));
+        collector.accept(createResult("Page", "view", "c"));
+        collector.accept(createResult("Page", "view", "a"));
+        assertEquals("xwiki:Space.c", collector.getPage().getResults().get(0).getDocReference().toString());
+    }
+
+    @Test
+    void getPageUnsorted()
+    {
+        RightsResultsCollector collector = new RightsResultsCollector(null, 1, 2);
+        for (String level : List.of("c", "a", "d", "b")) {
+            collector.accept(createResult("Space", level, level));
+        }
+
+        RightsResultsPage page = collector.getPage();
+        assertEquals(4, page.getTotal());
+        assertEquals(List.of("a", "d"), getLevels(page));
+    }
+
+    private RightsResult createResult(String type, String level, String documentName)
+    {
+        RightsResult result = new RightsResult(type);
+        result.setLevel(level);
+        result.setEntity("xwiki:XWiki.XWikiAdminGroup");
+        result.setPolicy("Allowed");
+        result.setSpace("Space");
+        result.setDocReference(new DocumentReference("xwiki", "Space", documentName));
+        return result;
+    }
+
+    private List<String> getLevels(RightsResultsPage page)
+    {
+        return page.getResults().stream().map(RightsResult::getLevel).collect(Collectors.toList());
+    }
+}
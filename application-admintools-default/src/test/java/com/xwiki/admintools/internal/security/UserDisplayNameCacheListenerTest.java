@@ -0,0 +1,78 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.security;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link UserDisplayNameCacheListener}.
+ */
+@ComponentTest
+class UserDisplayNameCacheListenerTest
+{
+    @InjectMockComponents
+    private UserDisplayNameCacheListener userDisplayNameCacheListener;
+
+    @MockComponent
+    private UserDisplayNameCache userDisplayNameCache;
+
+    @Mock
+    private XWikiDocument document;
+
+    @Test
+    void onEventDocumentUpdated()
+    {
+        DocumentReference userReference = new DocumentReference("xwiki", "XWiki", "User");
+        when(document.getDocumentReference()).thenReturn(userReference);
+
+        userDisplayNameCacheListener.onEvent(new DocumentUpdatedEvent(userReference), document, null);
+        verify(userDisplayNameCache).remove(userReference);
+    }
+
+    @Test
+    void onEventDocumentCreated()
+    {
+        DocumentReference userReference = new DocumentReference("xwiki", "XWiki", "NewUser");
+        when(document.getDocumentReference()).thenReturn(userReference);
+
+        userDisplayNameCacheListener.onEvent(new DocumentCreatedEvent(userReference), document, null);
+        verify(userDisplayNameCache).remove(userReference);
+    }
+
+    @Test
+    void onEventWikiDeleted()
+    {
+        userDisplayNameCacheListener.onEvent(new WikiDeletedEvent("wiki"), null, null);
+        verify(userDisplayNameCache).removeAll();
+    }
+}
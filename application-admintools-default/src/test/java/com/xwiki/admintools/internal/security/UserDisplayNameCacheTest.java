@@ -0,0 +1,129 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.security;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link UserDisplayNameCache}.
+ */
+@ComponentTest
+class UserDisplayNameCacheTest
+{
+    private static final String USER = "xwiki:XWiki.User";
+
+    private static final DocumentReference USER_REFERENCE = new DocumentReference("xwiki", "XWiki", "User");
+
+    @InjectMockComponents
+    private UserDisplayNameCache userDisplayNameCache;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Mock
+    private XWikiContext context;
+
+    @Mock
+    private XWiki wiki;
+
+    private final Map<String, Object> cacheEntries = new HashMap<>();
+
+    private Cache<Object> cache;
+
+    @BeforeComponent
+    void beforeComponent() throws Exception
+    {
+        this.cache = mock(Cache.class);
+        when(this.cache.get(anyString())).thenAnswer(invocation -> cacheEntries.get(invocation.getArgument(0)));
+        doAnswer(invocation -> cacheEntries.put(invocation.getArgument(0), invocation.getArgument(1))).when(
+            this.cache).set(anyString(), any());
+        doAnswer(invocation -> cacheEntries.remove(invocation.getArgument(0))).when(this.cache).remove(anyString());
+        when(cacheManager.createNewCache(any(LRUCacheConfiguration.class))).thenReturn(this.cache);
+    }
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(xcontextProvider.get()).thenReturn(context);
+        when(context.getWiki()).thenReturn(wiki);
+        when(documentReferenceResolver.resolve("XWiki.User")).thenReturn(USER_REFERENCE);
+        when(serializer.serialize(USER_REFERENCE)).thenReturn(USER);
+        when(wiki.getUserName(USER, null, false, context)).thenReturn("John Doe ");
+    }
+
+    @Test
+    void getDisplayName()
+    {
+        assertEquals("John Doe", userDisplayNameCache.getDisplayName("XWiki.User"));
+        assertEquals("john doe", userDisplayNameCache.getSearchKey("XWiki.User"));
+        verify(wiki, times(1)).getUserName(USER, null, false, context);
+    }
+
+    @Test
+    void remove()
+    {
+        userDisplayNameCache.getDisplayName("XWiki.User");
+        userDisplayNameCache.remove(USER_REFERENCE);
+        when(wiki.getUserName(USER, null, false, context)).thenReturn("Jane Doe");
+
+        assertEquals("Jane Doe", userDisplayNameCache.getDisplayName("XWiki.User"));
+        verify(wiki, times(2)).getUserName(USER, null, false, context);
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.security.job;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.SpaceReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.security.authorization.AuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xwiki.admintools.jobs.RightsMatrixJobRequest;
+import com.xwiki.admintools.jobs.RightsMatrixJobStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link RightsMatrixJob}.
+ */
+@ComponentTest
+class RightsMatrixJobTest
+{
+    private static final String WIKI_ID = "xwiki";
+
+    private static final WikiReference WIKI_REFERENCE = new WikiReference(WIKI_ID);
+
+    private static final SpaceReference ROOT = new SpaceReference(WIKI_ID, "Root");
+
+    private static final DocumentReference USER = new DocumentReference(WIKI_ID, "XWiki", "User");
+
+    @InjectMockComponents
+    private RightsMatrixJob rightsMatrixJob;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private AuthorizationManager authorizationManager;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @MockComponent
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @MockComponent
+    private SpaceReferenceResolver<String> spaceReferenceResolver;
+
+    @MockComponent
+    private Environment environment;
+
+    @Mock
+    private Query query;
+
+    @XWikiTempDir
+    private File tmpDir;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    private String statement;
+
+    private final Map<String, Object> bindings = new HashMap<>();
+
+    private final Map<String, List<String>> spaceDocuments = Map.of("Root", List.of("Root.A", "Root.B"), "Root.Child",
+        List.of("Root.Child.C"), "Root.Locked", List.of("Root.Locked.D"));
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(environment.getPermanentDirectory()).thenReturn(tmpDir);
+        // The tasks are run by a single worker, so the query mock is never used by two threads at the same time.
+        when(queryManager.createQuery(anyString(), eq(Query.HQL))).thenAnswer(invocation -> {
+            this.statement = invocation.getArgument(0);
+            this.bindings.clear();
+            return query;
+        });
+        when(query.bindValue(anyString(), any())).thenAnswer(invocation -> {
+            this.bindings.put(invocation.getArgument(0), invocation.getArgument(1));
+            return query;
+        });
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(query.setWiki(WIKI_ID)).thenReturn(query);
+        when(query.execute()).thenAnswer(invocation -> getResults());
+
+        when(localSerializer.serialize(any())).thenAnswer(invocation -> toLocalString(invocation.getArgument(0)));
+        when(serializer.serialize(any())).thenAnswer(
+            invocation -> WIKI_ID + ':' + toLocalString(invocation.getArgument(0)));
+        when(documentReferenceResolver.resolve(anyString(), eq(WIKI_REFERENCE))).thenAnswer(invocation -> {
+            List<String> names = Arrays.asList(invocation.<String>getArgument(0).split("\\."));
+            return new DocumentReference(WIKI_ID, names.subList(0, names.size() - 1), names.get(names.size() - 1));
+        });
+        when(spaceReferenceResolver.resolve(anyString(), eq(WIKI_REFERENCE))).thenAnswer(
+            invocation -> new SpaceReference(WIKI_ID, Arrays.asList(invocation.<String>getArgument(0).split("\\."))));
+
+        // The user can view everything except the locked space and can edit only the page with its own rights.
+        when(authorizationManager.hasAccess(eq(Right.VIEW), eq(USER), any())).thenAnswer(
+            invocation -> !invocation.getArgument(2).toString().contains("Locked"));
+        when(authorizationManager.hasAccess(Right.EDIT, USER, new DocumentReference(WIKI_ID, "Root", "B")))
+            .thenReturn(true);
+    }
+
+    @Test
+    void createNewStatus()
+    {
+        assertEquals(RightsMatrixJobStatus.class,
+            rightsMatrixJob.createNewStatus(new RightsMatrixJobRequest()).getClass());
+    }
+
+    @Test
+    void runInternal() throws Exception
+    {
+        RightsMatrixJobRequest request = new RightsMatrixJobRequest(USER, ROOT, List.of("rightsMatrix"));
+        request.setRights(List.of("view", "edit", "unknown"));
+        request.setParallelism(1);
+        File matrixDirectory = new File(tmpDir, "adminTools/rightsMatrix");
+        matrixDirectory.mkdirs();
+        File previousMatrixFile = new File(matrixDirectory, "rightsMatrix-1.csv");
+        Files.writeString(previousMatrixFile.toPath(), "page,view\n");
+
+        rightsMatrixJob.initialize(request);
+        rightsMatrixJob.runInternal();
+        RightsMatrixJobStatus status = rightsMatrixJob.getStatus();
+
+        File matrixFile = new File(status.getMatrixFile());
+        assertEquals(matrixDirectory, matrixFile.getParentFile());
+        assertFalse(previousMatrixFile.exists());
+        List<String> rows = Files.readAllLines(matrixFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals("page,view,edit", rows.get(0));
+        assertEquals(List.of("\"xwiki:Root.A\",allow,deny", "\"xwiki:Root.B\",allow,allow",
+                "\"xwiki:Root.Child.C\",allow,deny", "\"xwiki:Root.Locked.D\",deny,deny"),
+            rows.subList(1, rows.size()).stream().sorted().collect(Collectors.toList()));
+        assertEquals(5, status.getTotalPages());
+        assertEquals(4, status.getEvaluatedPages());
+        // The pages without rights and the child space without rights reuse the evaluation of their space.
+        assertEquals(4, status.getReusedEvaluations());
+        verify(authorizationManager, times(2)).hasAccess(any(), eq(USER), eq(ROOT));
+        verify(authorizationManager, never()).hasAccess(any(), eq(USER),
+            eq(new SpaceReference(WIKI_ID, List.of("Root", "Child"))));
+        verify(authorizationManager, never()).hasAccess(any(), eq(USER),
+            eq(new DocumentReference(WIKI_ID, "Root", "A")));
+        assertEquals(1, status.getJobResults().size());
+        assertEquals("adminTools.jobs.rightsMatrix.success", status.getJobResults().get(0).getMessage());
+        assertEquals(List.of(4L, 4L), status.getJobResults().get(0).getParameters());
+    }
+
+    @Test
+    void runInternalWithError() throws Exception
+    {
+        when(query.execute()).thenThrow(new QueryException("Query error", null, null));
+
+        rightsMatrixJob.initialize(new RightsMatrixJobRequest(USER, ROOT, List.of("rightsMatrix")));
+        rightsMatrixJob.runInternal();
+        RightsMatrixJobStatus status = rightsMatrixJob.getStatus();
+
+        assertTrue(logCapture.getMessage(0)
+            .startsWith("An error occurred while computing the rights matrix of user [xwiki:XWiki.User]"));
+        assertEquals(1, status.getJobResults().size());
+        assertEquals("adminTools.jobs.rightsMatrix.fail", status.getJobResults().get(0).getMessage());
+    }
+
+    private Object getResults()
+    {
+        if (this.statement.startsWith("select count(doc.id)")) {
+            return List.of(5L);
+        } else if (this.statement.contains("XWiki.XWikiGlobalRights")) {
+            return List.of("Root.Locked.WebPreferences".equals(this.bindings.get("preferences")) ? 1L : 0L);
+        } else if (this.statement.contains("XWiki.XWikiRights")) {
+            return "Root".equals(this.bindings.get("space")) ? List.of("Root.B") : List.of();
+        } else if (this.statement.contains("from XWikiSpace")) {
+            return "Root".equals(this.bindings.get("parent")) ? List.of("Root.Child", "Root.Locked") : List.of();
+        }
+        return this.spaceDocuments.get((String) this.bindings.get("space"));
+    }
+
+    private String toLocalString(EntityReference reference)
+    {
+        return reference.getReversedReferenceChain().stream().skip(1).map(EntityReference::getName)
+            .collect(Collectors.joining("."));
+    }
+}
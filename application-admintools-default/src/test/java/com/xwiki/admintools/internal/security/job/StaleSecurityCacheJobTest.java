@@ -0,0 +1,225 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.security.job;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.SecurityReferenceFactory;
+import org.xwiki.security.authorization.SecurityEntryReader;
+import org.xwiki.security.authorization.SecurityRule;
+import org.xwiki.security.authorization.SecurityRuleEntry;
+import org.xwiki.security.authorization.cache.SecurityCache;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xwiki.admintools.jobs.JobResultLevel;
+import com.xwiki.admintools.jobs.StaleSecurityCacheJobRequest;
+import com.xwiki.admintools.jobs.StaleSecurityCacheJobStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link StaleSecurityCacheJob}.
+ */
+@ComponentTest
+class StaleSecurityCacheJobTest
+{
+    private static final String WIKI_ID = "xwiki";
+
+    private static final WikiReference WIKI_REFERENCE = new WikiReference(WIKI_ID);
+
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference(WIKI_ID, "Space", "Page");
+
+    private static final List<String> JOB_ID = List.of("adminTools", "staleSecurityCache");
+
+    @InjectMockComponents
+    private StaleSecurityCacheJob staleSecurityCacheJob;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    private SecurityCache securityCache;
+
+    @MockComponent
+    private SecurityEntryReader securityEntryReader;
+
+    @MockComponent
+    private SecurityReferenceFactory securityReferenceFactory;
+
+    @Mock
+    private Query query;
+
+    @Mock
+    private SecurityReference wikiSecurityReference;
+
+    @Mock
+    private SecurityReference spaceSecurityReference;
+
+    @Mock
+    private SecurityReference documentSecurityReference;
+
+    @Mock
+    private SecurityRuleEntry cachedWikiEntry;
+
+    @Mock
+    private SecurityRuleEntry liveWikiEntry;
+
+    @Mock
+    private SecurityRuleEntry cachedDocumentEntry;
+
+    @Mock
+    private SecurityRuleEntry liveDocumentEntry;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(queryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(query);
+        when(query.bindValue(anyString(), any())).thenReturn(query);
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(query.setWiki(WIKI_ID)).thenReturn(query);
+        List<Object> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, "Space.Page" });
+        when(query.execute()).thenReturn(rows);
+        when(documentReferenceResolver.resolve("Space.Page", WIKI_REFERENCE)).thenReturn(DOCUMENT_REFERENCE);
+        when(serializer.serialize(DOCUMENT_REFERENCE)).thenReturn("xwiki:Space.Page");
+
+        when(securityReferenceFactory.newEntityReference(WIKI_REFERENCE)).thenReturn(wikiSecurityReference);
+        when(securityReferenceFactory.newEntityReference(DOCUMENT_REFERENCE.getLastSpaceReference()))
+            .thenReturn(spaceSecurityReference);
+        when(securityReferenceFactory.newEntityReference(DOCUMENT_REFERENCE)).thenReturn(documentSecurityReference);
+
+        SecurityRule wikiRule = mock(SecurityRule.class);
+        when(securityCache.get(wikiSecurityReference)).thenReturn(cachedWikiEntry);
+        when(cachedWikiEntry.getRules()).thenReturn(List.of(wikiRule));
+        when(securityEntryReader.read(wikiSecurityReference)).thenReturn(liveWikiEntry);
+        when(liveWikiEntry.getRules()).thenReturn(List.of(wikiRule));
+    }
+
+    @Test
+    void createNewStatus()
+    {
+        assertEquals(StaleSecurityCacheJobStatus.class,
+            staleSecurityCacheJob.createNewStatus(new StaleSecurityCacheJobRequest()).getClass());
+    }
+
+    @Test
+    void runInternalWithStaleEntry() throws Exception
+    {
+        when(securityCache.get(documentSecurityReference)).thenReturn(cachedDocumentEntry);
+        when(cachedDocumentEntry.getRules()).thenReturn(List.of(mock(SecurityRule.class)));
+        when(securityEntryReader.read(documentSecurityReference)).thenReturn(liveDocumentEntry);
+        when(liveDocumentEntry.getRules()).thenReturn(List.of(mock(SecurityRule.class)));
+
+        StaleSecurityCacheJobRequest request = new StaleSecurityCacheJobRequest(WIKI_REFERENCE, true, JOB_ID);
+        request.setInitialSamplingRate(1);
+        staleSecurityCacheJob.initialize(request);
+        staleSecurityCacheJob.runInternal();
+        StaleSecurityCacheJobStatus status = staleSecurityCacheJob.getStatus();
+
+        verify(query).bindValue("lastId", Long.MIN_VALUE);
+        verify(securityCache).remove(documentSecurityReference);
+        verify(securityCache, never()).remove(wikiSecurityReference);
+        assertEquals(3, status.getCheckedEntries());
+        assertEquals(2, status.getCachedEntries());
+        assertEquals(1, status.getStaleEntriesCount());
+        assertEquals(List.of("xwiki:Space.Page"), status.getStaleEntries());
+        assertEquals(0.5, status.getDivergenceRate());
+        assertEquals(1, status.getInvalidatedEntries());
+        assertEquals(1, status.getSamplingRate());
+        assertEquals(1, status.getJobResults().size());
+        assertEquals("adminTools.jobs.staleSecurityCache.success", status.getJobResults().get(0).getMessage());
+        assertEquals(JobResultLevel.WARN, status.getJobResults().get(0).getLevel());
+        assertEquals(List.of(3L, 1L, 2L, 1L), status.getJobResults().get(0).getParameters());
+    }
+
+    @Test
+    void runInternalWithoutStaleEntry() throws Exception
+    {
+        when(securityCache.get(documentSecurityReference)).thenReturn(cachedDocumentEntry);
+        SecurityRule documentRule = mock(SecurityRule.class);
+        when(cachedDocumentEntry.getRules()).thenReturn(List.of(documentRule));
+        when(securityEntryReader.read(documentSecurityReference)).thenReturn(liveDocumentEntry);
+        when(liveDocumentEntry.getRules()).thenReturn(List.of(documentRule));
+
+        StaleSecurityCacheJobRequest request = new StaleSecurityCacheJobRequest(WIKI_REFERENCE, true, JOB_ID);
+        request.setInitialSamplingRate(1);
+        request.setMinSamplingRate(0.1);
+        staleSecurityCacheJob.initialize(request);
+        staleSecurityCacheJob.runInternal();
+        StaleSecurityCacheJobStatus status = staleSecurityCacheJob.getStatus();
+
+        verify(securityCache, never()).remove(any(SecurityReference.class));
+        assertEquals(0, status.getStaleEntriesCount());
+        assertEquals(0, status.getDivergenceRate());
+        // The batch didn't hold any stale entry, so fewer pages are checked in the next one.
+        assertEquals(0.5, status.getSamplingRate());
+        assertEquals(JobResultLevel.INFO, status.getJobResults().get(0).getLevel());
+    }
+
+    @Test
+    void runInternalWithError() throws Exception
+    {
+        when(query.execute()).thenThrow(new QueryException("Query error", null, null));
+
+        staleSecurityCacheJob.initialize(new StaleSecurityCacheJobRequest(WIKI_REFERENCE, false, JOB_ID));
+        staleSecurityCacheJob.runInternal();
+        StaleSecurityCacheJobStatus status = staleSecurityCacheJob.getStatus();
+
+        assertTrue(logCapture.getMessage(0)
+            .startsWith("An error occurred while looking for stale security cache entries in wiki ["));
+        assertEquals(1, status.getJobResults().size());
+        assertEquals("adminTools.jobs.staleSecurityCache.fail", status.getJobResults().get(0).getMessage());
+    }
+}
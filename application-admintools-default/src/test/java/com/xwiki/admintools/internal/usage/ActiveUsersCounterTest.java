@@ -0,0 +1,192 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.List;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link ActiveUsersCounter}.
+ */
+@ComponentTest
+class ActiveUsersCounterTest
+{
+    private static final String WIKI_ID = "wikiId";
+
+    private static final String WIKI_ID_2 = "wikiId2";
+
+    @InjectMockComponents
+    private ActiveUsersCounter activeUsersCounter;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    @Named("count")
+    private QueryFilter countFilter;
+
+    @MockComponent
+    private Provider<WikiDescriptorManager> wikiDescriptorManagerProvider;
+
+    @Mock
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @Mock
+    private Query usersQuery;
+
+    @Mock
+    private Query usersQuery2;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(queryManager.createQuery(contains("obj.className = 'XWiki.XWikiUsers'"), eq(Query.HQL))).thenReturn(
+            usersQuery);
+        when(usersQuery.addFilter(countFilter)).thenReturn(usersQuery);
+        when(usersQuery.setWiki(WIKI_ID)).thenReturn(usersQuery);
+        when(usersQuery.setWiki(WIKI_ID_2)).thenReturn(usersQuery2);
+        when(usersQuery.execute()).thenReturn(List.of(10L));
+        when(usersQuery2.execute()).thenReturn(List.of(5L));
+
+        when(wikiDescriptorManagerProvider.get()).thenReturn(wikiDescriptorManager);
+        when(wikiDescriptorManager.getAllIds()).thenReturn(List.of(WIKI_ID, WIKI_ID_2));
+    }
+
+    @AfterEach
+    void afterEach() throws Exception
+    {
+        activeUsersCounter.dispose();
+    }
+
+    @Test
+    void getWikiUsersCount() throws QueryException
+    {
+        assertEquals(10L, activeUsersCounter.getWikiUsersCount(WIKI_ID));
+        assertEquals(10L, activeUsersCounter.getWikiUsersCount(WIKI_ID));
+        verify(usersQuery, times(1)).execute();
+    }
+
+    @Test
+    void getWikiUsersCountUpdated() throws QueryException
+    {
+        activeUsersCounter.update(WIKI_ID, 1);
+        assertEquals(10L, activeUsersCounter.getWikiUsersCount(WIKI_ID));
+
+        activeUsersCounter.update(WIKI_ID, 2);
+        activeUsersCounter.update(WIKI_ID, -1);
+        assertEquals(11L, activeUsersCounter.getWikiUsersCount(WIKI_ID));
+        verify(usersQuery, times(1)).execute();
+    }
+
+    @Test
+    void getWikiUsersCountRemoved() throws QueryException
+    {
+        activeUsersCounter.getWikiUsersCount(WIKI_ID);
+        activeUsersCounter.remove(WIKI_ID);
+        activeUsersCounter.getWikiUsersCount(WIKI_ID);
+
+        verify(usersQuery, times(2)).execute();
+    }
+
+    @Test
+    void getInstanceUsersCount() throws Exception
+    {
+        assertEquals(15L, activeUsersCounter.getInstanceUsersCount());
+
+        activeUsersCounter.update(WIKI_ID_2, 3);
+        assertEquals(18L, activeUsersCounter.getInstanceUsersCount());
+        verify(queryManager, times(2)).createQuery(anyString(), eq(Query.HQL));
+    }
+
+    @Test
+    void reconcile() throws QueryException
+    {
+        activeUsersCounter.getWikiUsersCount(WIKI_ID);
+        activeUsersCounter.update(WIKI_ID, 3);
+        when(usersQuery.execute()).thenReturn(List.of(12L));
+
+        activeUsersCounter.reconcile();
+
+        assertEquals(12L, activeUsersCounter.getWikiUsersCount(WIKI_ID));
+        verify(usersQuery, times(2)).execute();
+        verify(usersQuery2, never()).execute();
+    }
+
+    @Test
+    void reconcileKeepsUpdatesReceivedDuringRecompute() throws QueryException
+    {
+        activeUsersCounter.getWikiUsersCount(WIKI_ID);
+        // A user is activated while the users are counted again, after the count query read the database.
+        when(usersQuery.execute()).then(invocation -> {
+            activeUsersCounter.update(WIKI_ID, 1);
+            return List.of(12L);
+        });
+
+        activeUsersCounter.reconcile();
+
+        assertEquals(13L, activeUsersCounter.getWikiUsersCount(WIKI_ID));
+        activeUsersCounter.update(WIKI_ID, -2);
+        assertEquals(11L, activeUsersCounter.getWikiUsersCount(WIKI_ID));
+    }
+
+    @Test
+    void reconcileWithError() throws QueryException
+    {
+        activeUsersCounter.getWikiUsersCount(WIKI_ID);
+        when(usersQuery.execute()).thenThrow(new QueryException("Count error", usersQuery, null));
+
+        activeUsersCounter.reconcile();
+        activeUsersCounter.update(WIKI_ID, 1);
+
+        assertEquals(11L, activeUsersCounter.getWikiUsersCount(WIKI_ID));
+        assertEquals("Failed to recompute the active users of wiki [wikiId]. Root cause is: "
+            + "[QueryException: Count error. Query statement = [null]]", logCapture.getMessage(0));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link ActiveUsersListener}.
+ */
+@ComponentTest
+class ActiveUsersListenerTest
+{
+    private static final String WIKI_ID = "wikiId";
+
+    @InjectMockComponents
+    private ActiveUsersListener activeUsersListener;
+
+    @MockComponent
+    private ActiveUsersCounter activeUsersCounter;
+
+    @Mock
+    private XWikiDocument document;
+
+    @Mock
+    private XWikiDocument originalDocument;
+
+    @Mock
+    private BaseObject userObject;
+
+    @Mock
+    private BaseObject originalUserObject;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(document.getDocumentReference()).thenReturn(new DocumentReference(WIKI_ID, "XWiki", "user"));
+        when(document.getOriginalDocument()).thenReturn(originalDocument);
+    }
+
+    @Test
+    void onEventUserCreated()
+    {
+        mockUser(document, userObject, 1);
+
+        activeUsersListener.onEvent(new DocumentCreatedEvent(), document, null);
+
+        verify(activeUsersCounter).update(WIKI_ID, 1);
+    }
+
+    @Test
+    void onEventUserDeactivated()
+    {
+        mockUser(originalDocument, originalUserObject, 1);
+        mockUser(document, userObject, 0);
+
+        activeUsersListener.onEvent(new DocumentUpdatedEvent(), document, null);
+
+        verify(activeUsersCounter).update(WIKI_ID, -1);
+    }
+
+    @Test
+    void onEventActiveUserUpdated()
+    {
+        mockUser(originalDocument, originalUserObject, 1);
+        mockUser(document, userObject, 1);
+
+        activeUsersListener.onEvent(new DocumentUpdatedEvent(), document, null);
+
+        verify(activeUsersCounter, never()).update(anyString(), anyLong());
+    }
+
+    @Test
+    void onEventUserDeleted()
+    {
+        mockUser(originalDocument, originalUserObject, 1);
+
+        activeUsersListener.onEvent(new DocumentDeletedEvent(), document, null);
+
+        verify(activeUsersCounter).update(WIKI_ID, -1);
+    }
+
+    @Test
+    void onEventNotUserDocument()
+    {
+        activeUsersListener.onEvent(new DocumentCreatedEvent(), document, null);
+
+        verify(activeUsersCounter, never()).update(anyString(), anyLong());
+    }
+
+    @Test
+    void onEventWikiDeleted()
+    {
+        activeUsersListener.onEvent(new WikiDeletedEvent(WIKI_ID), null, null);
+
+        verify(activeUsersCounter).remove(WIKI_ID);
+    }
+
+    private void mockUser(XWikiDocument userDocument, BaseObject object, int active)
+    {
+        when(userDocument.getXObject(any(EntityReference.class))).thenReturn(object);
+        when(object.getIntValue("active")).thenReturn(active);
+    }
+}
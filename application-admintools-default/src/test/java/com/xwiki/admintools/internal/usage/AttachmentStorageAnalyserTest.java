@@ -0,0 +1,204 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xwiki.admintools.internal.usage.wikiResult.AttachmentStorageEntry;
+import com.xwiki.admintools.internal.usage.wikiResult.StorageAggregate;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiAttachmentsStorage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link AttachmentStorageAnalyser}.
+ */
+@ComponentTest
+class AttachmentStorageAnalyserTest
+{
+    private static final String WIKI_ID = "wikiId";
+
+    @InjectMockComponents
+    private AttachmentStorageAnalyser attachmentStorageAnalyser;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @Mock
+    private Query query;
+
+    @BeforeEach
+    void beforeEach() throws QueryException
+    {
+        when(queryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(query);
+        when(query.bindValue(anyString(), any())).thenReturn(query);
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(query.setWiki(WIKI_ID)).thenReturn(query);
+    }
+
+    @Test
+    void getWikiAttachmentsStorage() throws QueryException
+    {
+        List<Object> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, "Space1.Page1", "Space1", "image.png", 300L, "image/png" });
+        rows.add(new Object[] { 2L, "Space1.Page2", "Space1", "archive.zip", 1000L, "application/zip" });
+        rows.add(new Object[] { 3L, "Space2.Page1", "Space2", "photo.png", 200L, "image/png" });
+        rows.add(new Object[] { 4L, "Space2.Page2", "Space2", "file", 100L, null });
+        when(query.execute()).thenReturn(rows);
+
+        WikiAttachmentsStorage result = attachmentStorageAnalyser.getWikiAttachmentsStorage(WIKI_ID);
+
+        assertEquals(WIKI_ID, result.getWikiId());
+        assertEquals(4, result.getAttachmentsCount());
+        assertEquals(1600, result.getAttachmentsSize());
+
+        List<AttachmentStorageEntry> largest = result.getLargestAttachments();
+        assertEquals(4, largest.size());
+        assertEquals("archive.zip", largest.get(0).getFileName());
+        assertEquals("Space1.Page2", largest.get(0).getDocumentName());
+        assertEquals("file", largest.get(3).getFileName());
+        assertEquals("unknown", largest.get(3).getMimeType());
+
+        List<StorageAggregate> spaces = result.getSpaces();
+        assertEquals(2, spaces.size());
+        assertEquals("Space1", spaces.get(0).getName());
+        assertEquals(2, spaces.get(0).getCount());
+        assertEquals(1300, spaces.get(0).getSize());
+        assertEquals("Space2", spaces.get(1).getName());
+        assertEquals(300, spaces.get(1).getSize());
+
+        List<StorageAggregate> mimeTypes = result.getMimeTypes();
+        assertEquals(3, mimeTypes.size());
+        assertEquals("application/zip", mimeTypes.get(0).getName());
+        assertEquals("image/png", mimeTypes.get(1).getName());
+        assertEquals(2, mimeTypes.get(1).getCount());
+        assertEquals(500, mimeTypes.get(1).getSize());
+        assertEquals("unknown", mimeTypes.get(2).getName());
+        verify(query).bindValue("lastId", Long.MIN_VALUE);
+    }
+
+    @Test
+    void getWikiAttachmentsStorageKeepsOnlyLargestAttachments() throws QueryException
+    {
+        List<Object> firstBatch = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) {
+            firstBatch.add(new Object[] { i, "Space.Page", "Space", "file" + i, i, "text/plain" });
+        }
+        List<Object> secondBatch = new ArrayList<>();
+        secondBatch.add(new Object[] { 1000L, "Space.Other", "Space", "large.bin", 5000L, "text/plain" });
+        when(query.execute()).thenReturn(firstBatch, secondBatch);
+
+        WikiAttachmentsStorage result = attachmentStorageAnalyser.getWikiAttachmentsStorage(WIKI_ID);
+
+        assertEquals(1001, result.getAttachmentsCount());
+        List<AttachmentStorageEntry> largest = result.getLargestAttachments();
+        assertEquals(AttachmentStorageAnalyser.LARGEST_ATTACHMENTS_LIMIT, largest.size());
+        assertEquals("large.bin", largest.get(0).getFileName());
+        assertEquals(999, largest.get(1).getSize());
+        assertTrue(largest.stream().allMatch(entry -> entry.getSize() == 5000 || entry.getSize() >= 951));
+        assertEquals(1, result.getSpaces().size());
+        assertEquals(1001, result.getSpaces().get(0).getCount());
+        verify(query).bindValue("lastId", 999L);
+        verify(query, times(2)).execute();
+    }
+
+    @Test
+    void getWikiAttachmentsStorageFromCache() throws QueryException
+    {
+        when(query.execute()).thenReturn(new ArrayList<>());
+
+        WikiAttachmentsStorage result = attachmentStorageAnalyser.getWikiAttachmentsStorage(WIKI_ID);
+
+        assertSame(result, attachmentStorageAnalyser.getWikiAttachmentsStorage(WIKI_ID));
+        assertEquals(0, result.getAttachmentsCount());
+        verify(query, times(1)).execute();
+    }
+
+    @Test
+    void getWikiAttachmentsStorageConcurrently() throws Exception
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(query.execute()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new ArrayList<>();
+        });
+        AtomicReference<WikiAttachmentsStorage> firstResult = new AtomicReference<>();
+        AtomicReference<WikiAttachmentsStorage> secondResult = new AtomicReference<>();
+        Thread firstThread = new Thread(() -> firstResult.set(getStorage()));
+        Thread secondThread = new Thread(() -> secondResult.set(getStorage()));
+
+        firstThread.start();
+        started.await(5, TimeUnit.SECONDS);
+        secondThread.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (secondThread.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        firstThread.join();
+        secondThread.join();
+
+        assertSame(firstResult.get(), secondResult.get());
+        verify(query, times(1)).execute();
+    }
+
+    @Test
+    void getWikiAttachmentsStorageQueryError() throws QueryException
+    {
+        when(query.execute()).thenThrow(new QueryException("Query error", null, null));
+
+        assertThrows(QueryException.class, () -> attachmentStorageAnalyser.getWikiAttachmentsStorage(WIKI_ID));
+    }
+
+    private WikiAttachmentsStorage getStorage()
+    {
+        try {
+            return attachmentStorageAnalyser.getWikiAttachmentsStorage(WIKI_ID);
+        } catch (QueryException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.store.XWikiHibernateBaseStore;
+import com.xpn.xwiki.store.XWikiHibernateStore;
+import com.xwiki.admintools.internal.data.identifiers.CurrentServer;
+import com.xwiki.admintools.internal.usage.database.DatabaseStatisticsQuery;
+import com.xwiki.admintools.internal.usage.wikiResult.TableStatistics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link DatabaseStatisticsProvider}.
+ */
+@ComponentTest
+class DatabaseStatisticsProviderTest
+{
+    private static final String STATEMENT = "select statistics";
+
+    @InjectMockComponents
+    private DatabaseStatisticsProvider databaseStatisticsProvider;
+
+    @MockComponent
+    private Provider<XWikiContext> wikiContextProvider;
+
+    @MockComponent
+    private UsageDataProvider usageDataProvider;
+
+    @MockComponent
+    private CurrentServer currentServer;
+
+    @MockComponent
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @Mock
+    private ComponentManager componentManager;
+
+    @Mock
+    private DatabaseStatisticsQuery statisticsQuery;
+
+    @Mock
+    private XWikiContext wikiContext;
+
+    @Mock
+    private XWiki wiki;
+
+    @Mock
+    private XWikiHibernateStore hibernateStore;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private NativeQuery<Object[]> nativeQuery;
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(wikiContextProvider.get()).thenReturn(wikiContext);
+        when(wikiContext.getWikiId()).thenReturn("xwiki");
+        when(wikiContext.getWiki()).thenReturn(wiki);
+        when(wiki.getHibernateStore()).thenReturn(hibernateStore);
+        when(hibernateStore.executeRead(eq(wikiContext), any())).thenAnswer(
+            invocation -> invocation.<XWikiHibernateBaseStore.HibernateCallback<?>>getArgument(1)
+                .doInHibernate(session));
+        when(session.createNativeQuery(STATEMENT)).thenReturn(nativeQuery);
+
+        when(usageDataProvider.getDatabaseMetadata()).thenReturn(Map.of("name", "PostgreSQL"));
+        when(currentServer.getSupportedDBs()).thenReturn(List.of("MySQL", "HSQL", "PostgreSQL"));
+        when(componentManagerProvider.get()).thenReturn(componentManager);
+        when(componentManager.getInstance(DatabaseStatisticsQuery.class, "postgresql")).thenReturn(statisticsQuery);
+        when(statisticsQuery.getStatement()).thenReturn(STATEMENT);
+    }
+
+    @Test
+    void getTablesStatistics() throws Exception
+    {
+        when(nativeQuery.getResultList()).thenReturn(
+            List.of(new Object[] { "xwikidoc", 10, 1000L, 200L, 0L },
+                new Object[] { "xwikiattachment_content", 5L, 5000L, 100, 50L }));
+
+        List<TableStatistics> statistics = databaseStatisticsProvider.getTablesStatistics("wiki1");
+
+        assertEquals(2, statistics.size());
+        assertEquals("xwikiattachment_content", statistics.get(0).getTableName());
+        assertEquals(5100L, statistics.get(0).getTotalSize());
+        assertEquals(50L, statistics.get(0).getBloatSize());
+        assertEquals("xwikidoc", statistics.get(1).getTableName());
+        assertEquals(10L, statistics.get(1).getRowsEstimate());
+        verify(wikiContext).setWikiId("wiki1");
+        verify(wikiContext).setWikiId("xwiki");
+    }
+
+    @Test
+    void getTablesStatisticsCached() throws Exception
+    {
+        when(nativeQuery.getResultList()).thenReturn(List.of());
+
+        databaseStatisticsProvider.getTablesStatistics("wiki1");
+        databaseStatisticsProvider.getTablesStatistics("wiki1");
+        databaseStatisticsProvider.getTablesStatistics("wiki2");
+
+        verify(nativeQuery, times(2)).getResultList();
+    }
+
+    @Test
+    void getTablesStatisticsUnsupportedDatabase() throws Exception
+    {
+        when(usageDataProvider.getDatabaseMetadata()).thenReturn(Map.of("name", "Derby"));
+
+        assertTrue(databaseStatisticsProvider.getTablesStatistics("wiki1").isEmpty());
+        verify(componentManager, never()).getInstance(any(), anyString());
+        verify(hibernateStore, never()).executeRead(any(), any());
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.List;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.DeletedAttachment;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.store.AttachmentRecycleBinStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link DeletedAttachmentsSizeCalculator}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DeletedAttachmentsSizeCalculatorTest
+{
+    private static final String WIKI_ID = "wikiId";
+
+    @InjectMockComponents
+    private DeletedAttachmentsSizeCalculator calculator;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @MockComponent
+    private ExecutionContextManager executionContextManager;
+
+    @MockComponent
+    private Execution execution;
+
+    @Mock
+    private Query idsQuery;
+
+    @Mock
+    private Query keptCountQuery;
+
+    @Mock
+    private XWikiContext xcontext;
+
+    @Mock
+    private XWiki wiki;
+
+    @Mock
+    private AttachmentRecycleBinStore attachmentRecycleBinStore;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(queryManager.createQuery("select ddoc.id from DeletedAttachment as ddoc where ddoc.id > :lastId "
+            + "order by ddoc.id", Query.HQL)).thenReturn(idsQuery);
+        when(idsQuery.bindValue(eq("lastId"), any())).thenReturn(idsQuery);
+        when(idsQuery.setLimit(anyInt())).thenReturn(idsQuery);
+        when(idsQuery.setWiki(WIKI_ID)).thenReturn(idsQuery);
+
+        when(queryManager.createQuery("select count(ddoc.id) from DeletedAttachment as ddoc where ddoc.id <= :maxId",
+            Query.HQL)).thenReturn(keptCountQuery);
+        when(keptCountQuery.bindValue(eq("maxId"), any())).thenReturn(keptCountQuery);
+        when(keptCountQuery.setWiki(WIKI_ID)).thenReturn(keptCountQuery);
+
+        when(xcontextProvider.get()).thenReturn(xcontext);
+        when(xcontext.getWiki()).thenReturn(wiki);
+        when(xcontext.getWikiId()).thenReturn("xwiki");
+        when(wiki.getAttachmentRecycleBinStore()).thenReturn(attachmentRecycleBinStore);
+    }
+
+    @AfterEach
+    void afterEach() throws Exception
+    {
+        calculator.dispose();
+    }
+
+    @Test
+    void getSizeEmptyRecycleBin()
+    {
+        assertEquals(0L, calculator.getSize(WIKI_ID, 0, 0));
+        verify(idsQuery, never()).execute();
+    }
+
+    @Test
+    void getSizeComputedInBackground() throws Exception
+    {
+        when(idsQuery.execute()).thenReturn(List.of(41L, 42L));
+        mockDeletedAttachment(41L, 2048L);
+        mockDeletedAttachment(42L, 512L);
+
+        assertNull(calculator.getSize(WIKI_ID, 2, 42));
+        assertEquals(2560L, waitForSize(2, 42));
+        assertEquals(2560L, calculator.getSize(WIKI_ID, 2, 42));
+
+        verify(attachmentRecycleBinStore, times(2)).getDeletedAttachment(anyLong(), any(), eq(true));
+        verify(xcontext).setWikiId(WIKI_ID);
+        verify(xcontext).setWikiId("xwiki");
+    }
+
+    @Test
+    void getSizeReadsOnlyNewDeletedAttachments() throws Exception
+    {
+        when(idsQuery.execute()).thenReturn(List.of(42L));
+        mockDeletedAttachment(42L, 1024L);
+        calculator.getSize(WIKI_ID, 1, 42);
+        assertEquals(1024L, waitForSize(1, 42));
+
+        // The attachment counted before is still in the recycle bin, so only the new one is read.
+        when(keptCountQuery.execute()).thenReturn(List.of(1L));
+        when(idsQuery.execute()).thenReturn(List.of(43L));
+        mockDeletedAttachment(43L, 100L);
+
+        assertNull(calculator.getSize(WIKI_ID, 2, 43));
+        assertEquals(1124L, waitForSize(2, 43));
+        verify(idsQuery).bindValue("lastId", 42L);
+        verify(attachmentRecycleBinStore, times(1)).getDeletedAttachment(42L, xcontext, true);
+    }
+
+    @Test
+    void getSizeScansAgainWhenAttachmentsWereRemoved() throws Exception
+    {
+        when(idsQuery.execute()).thenReturn(List.of(41L, 42L));
+        mockDeletedAttachment(41L, 2048L);
+        mockDeletedAttachment(42L, 512L);
+        calculator.getSize(WIKI_ID, 2, 42);
+        assertEquals(2560L, waitForSize(2, 42));
+
+        // One of the counted attachments was restored, so the whole recycle bin is read again.
+        when(keptCountQuery.execute()).thenReturn(List.of(1L));
+        when(idsQuery.execute()).thenReturn(List.of(42L, 43L));
+        mockDeletedAttachment(43L, 100L);
+
+        calculator.getSize(WIKI_ID, 2, 43);
+        assertEquals(612L, waitForSize(2, 43));
+        verify(idsQuery, times(2)).bindValue("lastId", Long.MIN_VALUE);
+    }
+
+    @Test
+    void getSizeWithError() throws Exception
+    {
+        when(idsQuery.execute()).thenThrow(new QueryException("Query error", idsQuery, null));
+
+        assertNull(calculator.getSize(WIKI_ID, 1, 42));
+        long timeout = System.currentTimeMillis() + 5000;
+        while (logCapture.size() == 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+
+        assertEquals("Failed to compute the size of the deleted attachments of wiki [wikiId]. Root cause is: "
+            + "[QueryException: Query error. Query statement = [null]]", logCapture.getMessage(0));
+    }
+
+    private long waitForSize(long count, long maxId) throws InterruptedException
+    {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < timeout) {
+            Long size = calculator.getSize(WIKI_ID, count, maxId);
+            if (size != null) {
+                return size;
+            }
+            Thread.sleep(10);
+        }
+        return fail("The size of the deleted attachments was not computed in time.");
+    }
+
+    private void mockDeletedAttachment(long id, long size) throws Exception
+    {
+        DeletedAttachment deletedAttachment = mock(DeletedAttachment.class);
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(attachmentRecycleBinStore.getDeletedAttachment(id, xcontext, true)).thenReturn(deletedAttachment);
+        when(deletedAttachment.restoreAttachment()).thenReturn(attachment);
+        when(attachment.getLongSize()).thenReturn(size);
+    }
+}
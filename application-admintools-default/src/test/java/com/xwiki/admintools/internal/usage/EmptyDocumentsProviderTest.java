@@ -19,11 +19,13 @@
  */
 package com.xwiki.admintools.internal.usage;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.inject.Named;
+import javax.inject.Provider;
 
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
@@ -32,6 +34,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryManager;
@@ -39,6 +42,14 @@ import org.xwiki.search.solr.SolrUtils;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.wiki.descriptor.WikiDescriptor;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -86,6 +97,27 @@ class EmptyDocumentsProviderTest
     @MockComponent
     private SolrUtils solrUtils;
 
+    @MockComponent
+    private Provider<WikiDescriptorManager> wikiDescriptorManagerProvider;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Mock
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @Mock
+    private WikiDescriptor wikiDescriptor;
+
+    @Mock
+    private WikiDescriptor wikiDescriptor2;
+
+    @Mock
+    private XWikiContext xWikiContext;
+
+    @Mock
+    private XWiki xWiki;
+
     @BeforeEach
     void beforeEach() throws QueryException
     {
@@ -131,4 +163,52 @@ class EmptyDocumentsProviderTest
 
         assertEquals("Query error", exception.getMessage());
     }
+
+    @Test
+    void applyDocumentsSortByWikiNameResolvesEachWikiOnce() throws WikiManagerException
+    {
+        when(xcontextProvider.get()).thenReturn(xWikiContext);
+        when(wikiDescriptorManagerProvider.get()).thenReturn(wikiDescriptorManager);
+        when(wikiDescriptorManager.getById("wiki1")).thenReturn(wikiDescriptor);
+        when(wikiDescriptorManager.getById("wiki2")).thenReturn(wikiDescriptor2);
+        when(wikiDescriptor.getPrettyName()).thenReturn("Zeta");
+        when(wikiDescriptor2.getPrettyName()).thenReturn("Alpha");
+        List<DocumentReference> references = new ArrayList<>();
+        references.add(new DocumentReference("wiki1", "Space", "Page A"));
+        references.add(new DocumentReference("wiki2", "Space", "Page B"));
+        references.add(new DocumentReference("wiki1", "Space", "Page C"));
+        references.add(new DocumentReference("wiki2", "Space", "Page D"));
+
+        emptyDocumentsProvider.applyDocumentsSort(references, "wikiName", "asc");
+
+        assertEquals("wiki2", references.get(0).getWikiReference().getName());
+        assertEquals("wiki2", references.get(1).getWikiReference().getName());
+        assertEquals("wiki1", references.get(3).getWikiReference().getName());
+        verify(wikiDescriptorManager, Mockito.times(1)).getById("wiki1");
+        verify(wikiDescriptorManager, Mockito.times(1)).getById("wiki2");
+    }
+
+    @Test
+    void applyDocumentsSortLoadsEachDocumentOnce() throws XWikiException
+    {
+        when(xcontextProvider.get()).thenReturn(xWikiContext);
+        when(xWikiContext.getWiki()).thenReturn(xWiki);
+        List<DocumentReference> references = new ArrayList<>();
+        for (String title : List.of("Charlie", "Alpha", "Bravo")) {
+            DocumentReference reference = new DocumentReference("wiki", "Space", title);
+            XWikiDocument document = Mockito.mock(XWikiDocument.class);
+            when(document.getTitle()).thenReturn(title);
+            when(xWiki.getDocument(reference, xWikiContext)).thenReturn(document);
+            references.add(reference);
+        }
+
+        emptyDocumentsProvider.applyDocumentsSort(references, "docName", "asc");
+
+        assertEquals("Alpha", references.get(0).getName());
+        assertEquals("Bravo", references.get(1).getName());
+        assertEquals("Charlie", references.get(2).getName());
+        for (DocumentReference reference : references) {
+            verify(xWiki, Mockito.times(1)).getDocument(reference, xWikiContext);
+        }
+    }
 }
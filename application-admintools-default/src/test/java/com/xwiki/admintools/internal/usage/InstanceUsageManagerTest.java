@@ -19,6 +19,7 @@
  */
 package com.xwiki.admintools.internal.usage;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -49,6 +50,9 @@ import org.xwiki.wiki.manager.WikiManagerException;
 import com.xpn.xwiki.XWikiContext;
 import com.xwiki.admintools.ServerInfo;
 import com.xwiki.admintools.internal.data.identifiers.CurrentServer;
+import com.xwiki.admintools.internal.usage.history.UsageHistoryStore;
+import com.xwiki.admintools.internal.usage.wikiResult.SpaceUsage;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiAttachmentsStorage;
 import com.xwiki.admintools.internal.usage.wikiResult.WikiRecycleBins;
 import com.xwiki.admintools.internal.usage.wikiResult.WikiSizeResult;
 import com.xwiki.licensing.Licensor;
@@ -57,6 +61,7 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -103,6 +108,15 @@ class InstanceUsageManagerTest
     @MockComponent
     private EmptyDocumentsProvider emptyDocumentsProvider;
 
+    @MockComponent
+    private AttachmentStorageAnalyser attachmentStorageAnalyser;
+
+    @MockComponent
+    private SpaceUsageProvider spaceUsageProvider;
+
+    @MockComponent
+    private UsageHistoryStore usageHistoryStore;
+
     @Mock
     private ServerInfo serverInfo;
 
@@ -271,6 +285,29 @@ class InstanceUsageManagerTest
             logCapture.getMessage(0));
     }
 
+    @Test
+    void getSpamRankedPages() throws Exception
+    {
+        SolrDocumentList docs = new SolrDocumentList();
+        docs.add(solrDocument);
+        when(spamPagesProvider.getDocumentsBySpamScore(2, filters, SORT_ORDER)).thenReturn(docs);
+
+        assertEquals(docs.get(0), instanceUsageManager.getSpamRankedPages(2, filters, SORT_ORDER).get(0));
+    }
+
+    @Test
+    void getSpamRankedPagesError() throws Exception
+    {
+        when(spamPagesProvider.getDocumentsBySpamScore(2, filters, SORT_ORDER)).thenThrow(
+            new RuntimeException("Runtime error"));
+        Exception exception = assertThrows(RuntimeException.class,
+            () -> instanceUsageManager.getSpamRankedPages(2, filters, SORT_ORDER));
+        assertEquals("java.lang.RuntimeException: Runtime error", exception.getMessage());
+        assertEquals(
+            "There have been issues while ranking wikis spammed pages. Root cause is: [RuntimeException: Runtime error]",
+            logCapture.getMessage(0));
+    }
+
     @Test
     void getEmptyPages() throws QueryException
     {
@@ -320,4 +357,50 @@ class InstanceUsageManagerTest
             "There have been issues while gathering wikis recycle bins data. Root cause is: [RuntimeException: Runtime error]",
             logCapture.getMessage(0));
     }
+
+    @Test
+    void getWikiAttachmentsStorage() throws QueryException
+    {
+        WikiAttachmentsStorage storage = new WikiAttachmentsStorage("wikiId");
+        when(attachmentStorageAnalyser.getWikiAttachmentsStorage("wikiId")).thenReturn(storage);
+        assertEquals(storage, instanceUsageManager.getWikiAttachmentsStorage("wikiId"));
+    }
+
+    @Test
+    void getWikiAttachmentsStorageError() throws QueryException
+    {
+        when(attachmentStorageAnalyser.getWikiAttachmentsStorage("wikiId")).thenThrow(
+            new QueryException("Query error", null, null));
+        assertThrows(RuntimeException.class, () -> instanceUsageManager.getWikiAttachmentsStorage("wikiId"));
+        assertTrue(logCapture.getMessage(0).startsWith("There have been issues while analysing the attachments "
+            + "storage of wiki [wikiId]. Root cause is: [QueryException: Query error"));
+    }
+
+    @Test
+    void getSpacesUsage() throws QueryException
+    {
+        List<SpaceUsage> spaces = List.of(new SpaceUsage("Main", "Main", null));
+        when(spaceUsageProvider.getSpacesUsage("wikiId", "")).thenReturn(spaces);
+        assertEquals(spaces, instanceUsageManager.getSpacesUsage("wikiId", ""));
+    }
+
+    @Test
+    void getSpacesUsageError() throws QueryException
+    {
+        when(spaceUsageProvider.getSpacesUsage("wikiId", "")).thenThrow(new QueryException("Query error", null, null));
+        assertThrows(RuntimeException.class, () -> instanceUsageManager.getSpacesUsage("wikiId", ""));
+        assertTrue(logCapture.getMessage(0).startsWith("There have been issues while computing the spaces usage of "
+            + "wiki [wikiId]. Root cause is: [QueryException: Query error"));
+    }
+
+    @Test
+    void getUsageProjectionError() throws Exception
+    {
+        when(wikiDescriptorManager.getAllIds()).thenReturn(List.of("wikiId"));
+        when(usageHistoryStore.getProjection(List.of("wikiId"))).thenThrow(new IOException("Read error"));
+
+        assertNull(instanceUsageManager.getUsageProjection());
+        assertEquals("There have been issues while projecting the usage growth. Root cause is: "
+            + "[IOException: Read error]", logCapture.getMessage(0));
+    }
 }
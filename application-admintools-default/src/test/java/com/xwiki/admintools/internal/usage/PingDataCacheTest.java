@@ -0,0 +1,109 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.Map;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.activeinstalls2.internal.PingDataProvider;
+import org.xwiki.activeinstalls2.internal.data.DatabasePing;
+import org.xwiki.activeinstalls2.internal.data.Ping;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link PingDataCache}.
+ */
+@ComponentTest
+class PingDataCacheTest
+{
+    @InjectMockComponents
+    private PingDataCache pingDataCache;
+
+    @MockComponent
+    private Provider<Map<String, PingDataProvider>> pingDataProviders;
+
+    @Mock
+    private PingDataProvider databasePingDataProvider;
+
+    @Mock
+    private PingDataProvider servletPingDataProvider;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(pingDataProviders.get()).thenReturn(
+            Map.of(PingDataCache.DATABASE, databasePingDataProvider, PingDataCache.SERVLET, servletPingDataProvider));
+    }
+
+    @Test
+    void getPing()
+    {
+        doAnswer(invocation -> {
+            invocation.<Ping>getArgument(0).setDatabase(new DatabasePing());
+            return null;
+        }).when(databasePingDataProvider).provideData(any(Ping.class));
+
+        Ping ping = pingDataCache.getPing(PingDataCache.DATABASE);
+
+        assertSame(ping, pingDataCache.getPing(PingDataCache.DATABASE));
+        verify(databasePingDataProvider, times(1)).provideData(any(Ping.class));
+    }
+
+    @Test
+    void getPingWithoutSectionIsNotCached()
+    {
+        Ping ping = pingDataCache.getPing(PingDataCache.SERVLET);
+
+        assertNull(ping.getServletContainer());
+        assertNotSame(ping, pingDataCache.getPing(PingDataCache.SERVLET));
+        verify(servletPingDataProvider, times(2)).provideData(any(Ping.class));
+    }
+
+    @Test
+    void getPingMissingProvider()
+    {
+        when(pingDataProviders.get()).thenReturn(Map.of(PingDataCache.DATABASE, databasePingDataProvider));
+
+        assertNull(pingDataCache.getPing(PingDataCache.SERVLET).getServletContainer());
+        assertEquals("No ping data provider found for [servlet].", logCapture.getMessage(0));
+    }
+}
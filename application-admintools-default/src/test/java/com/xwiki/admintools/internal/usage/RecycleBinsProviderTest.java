@@ -21,7 +21,9 @@ package com.xwiki.admintools.internal.usage;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -38,12 +40,15 @@ import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 import org.xwiki.wiki.descriptor.WikiDescriptor;
 import org.xwiki.wiki.descriptor.WikiDescriptorManager;
-import org.xwiki.wiki.manager.WikiManagerException;
 
 import com.xwiki.admintools.internal.usage.wikiResult.WikiRecycleBins;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 @ComponentTest
@@ -89,8 +94,14 @@ class RecycleBinsProviderTest
     @MockComponent
     private WikiDescriptorManager wikiDescriptorManager;
 
+    @MockComponent
+    private WikisParallelExecutor wikisParallelExecutor;
+
+    @MockComponent
+    private DeletedAttachmentsSizeCalculator deletedAttachmentsSizeCalculator;
+
     @BeforeEach
-    void beforeEach() throws QueryException, WikiManagerException
+    void beforeEach() throws Exception
     {
         Collection<WikiDescriptor> wikiDescriptors = new ArrayList<>();
         wikiDescriptors.add(wikiDescriptor);
@@ -98,12 +109,22 @@ class RecycleBinsProviderTest
         when(wikiDescriptorManagerProvider.get()).thenReturn(wikiDescriptorManager);
         when(wikiDescriptorManager.getAll()).thenReturn(wikiDescriptors);
 
-        when(queryManager.createQuery("select count(ddoc) from DeletedAttachment as ddoc", Query.XWQL)).thenReturn(
+        when(wikisParallelExecutor.execute(any(), any())).thenAnswer(invocation -> {
+            Collection<WikiDescriptor> wikis = invocation.getArgument(0);
+            WikisParallelExecutor.WikiTask<?> task = invocation.getArgument(1);
+            Map<String, Object> results = new LinkedHashMap<>();
+            for (WikiDescriptor wiki : wikis) {
+                results.put(wiki.getId(), task.execute(wiki));
+            }
+            return results;
+        });
+
+        when(queryManager.createQuery(contains("from DeletedAttachment as ddoc"), eq(Query.HQL))).thenReturn(
             createQueryAttach);
         when(createQueryAttach.setWiki(wikiId1)).thenReturn(setWikiQueryAttach);
         when(createQueryAttach.setWiki(wikiId2)).thenReturn(setWikiQueryAttach2);
 
-        when(queryManager.createQuery("select count(ddoc) from XWikiDeletedDocument as ddoc", Query.XWQL)).thenReturn(
+        when(queryManager.createQuery(contains("from XWikiDeletedDocument as ddoc"), eq(Query.HQL))).thenReturn(
             createQueryDoc);
         when(createQueryDoc.setWiki(wikiId1)).thenReturn(setWikiQueryDoc);
         when(createQueryDoc.setWiki(wikiId2)).thenReturn(setWikiQueryDoc2);
@@ -112,13 +133,13 @@ class RecycleBinsProviderTest
     }
 
     @Test
-    void getAllWikisRecycleBinInfo() throws QueryException, WikiManagerException
+    void getAllWikisRecycleBinInfo() throws Exception
     {
         when(wikiDescriptor.getPrettyName()).thenReturn("wiki pretty name");
-        when(setWikiQueryAttach.execute()).thenReturn(List.of(4L));
-        when(setWikiQueryDoc.execute()).thenReturn(List.of(23L));
-        when(setWikiQueryAttach2.execute()).thenReturn(List.of(15L));
-        when(setWikiQueryDoc2.execute()).thenReturn(List.of(12L));
+        when(setWikiQueryAttach.execute()).thenReturn(stats(4L));
+        when(setWikiQueryDoc.execute()).thenReturn(stats(23L));
+        when(setWikiQueryAttach2.execute()).thenReturn(stats(15L));
+        when(setWikiQueryDoc2.execute()).thenReturn(stats(12L));
 
         List<WikiRecycleBins> wikisRecycleBins =
             recycleBinsProvider.getWikisRecycleBinsSize(new HashMap<>(Map.of("totalCount", "27")), "",
@@ -130,13 +151,13 @@ class RecycleBinsProviderTest
     }
 
     @Test
-    void checkFilters() throws QueryException, WikiManagerException
+    void checkFilters() throws Exception
     {
-        when(setWikiQueryAttach.execute()).thenReturn(List.of(4L));
-        when(setWikiQueryDoc.execute()).thenReturn(List.of(23L));
+        when(setWikiQueryAttach.execute()).thenReturn(stats(4L));
+        when(setWikiQueryDoc.execute()).thenReturn(stats(23L));
 
-        when(setWikiQueryAttach2.execute()).thenReturn(List.of(15L));
-        when(setWikiQueryDoc2.execute()).thenReturn(List.of(2L));
+        when(setWikiQueryAttach2.execute()).thenReturn(stats(15L));
+        when(setWikiQueryDoc2.execute()).thenReturn(stats(2L));
 
         Map<String, String> filters =
             new HashMap<>(Map.of("documentsCount", "23", "attachmentsCount", "4", "totalCount", "27"));
@@ -147,16 +168,16 @@ class RecycleBinsProviderTest
     }
 
     @Test
-    void checkSort() throws QueryException, WikiManagerException
+    void checkSort() throws Exception
     {
         when(wikiDescriptor.getPrettyName()).thenReturn("wiki pretty name");
         when(wikiDescriptor2.getPrettyName()).thenReturn("wiki2 pretty name");
 
-        when(setWikiQueryAttach.execute()).thenReturn(List.of(4L));
-        when(setWikiQueryDoc.execute()).thenReturn(List.of(23L));
+        when(setWikiQueryAttach.execute()).thenReturn(stats(4L));
+        when(setWikiQueryDoc.execute()).thenReturn(stats(23L));
 
-        when(setWikiQueryAttach2.execute()).thenReturn(List.of(15L));
-        when(setWikiQueryDoc2.execute()).thenReturn(List.of(23L));
+        when(setWikiQueryAttach2.execute()).thenReturn(stats(15L));
+        when(setWikiQueryDoc2.execute()).thenReturn(stats(23L));
 
         Map<String, String> filters =
             new HashMap<>(Map.of("documentsCount", "23", "attachmentsCount", "", "totalCount", ""));
@@ -168,10 +189,10 @@ class RecycleBinsProviderTest
     }
 
     @Test
-    void getWikiRecycleBinsSize() throws QueryException
+    void getWikiRecycleBinsSize() throws Exception
     {
-        when(setWikiQueryAttach.execute()).thenReturn(List.of(4L));
-        when(setWikiQueryDoc.execute()).thenReturn(List.of(23L));
+        when(setWikiQueryAttach.execute()).thenReturn(stats(4L));
+        when(setWikiQueryDoc.execute()).thenReturn(stats(23L));
 
         WikiRecycleBins wikiRecycleBins = recycleBinsProvider.getWikiRecycleBinsSize(wikiDescriptor);
 
@@ -180,10 +201,75 @@ class RecycleBinsProviderTest
         assertEquals(27L, wikiRecycleBins.getTotal());
     }
 
+    @Test
+    void getWikiRecycleBinsSizeAndAgeHistogram() throws Exception
+    {
+        when(setWikiQueryAttach.execute()).thenReturn(stats(2L, 42L, 1L, 1L, 2L, 2L));
+        when(setWikiQueryDoc.execute()).thenReturn(stats(5L, 12L, 2L, 2L, 3L, 4L));
+        when(deletedAttachmentsSizeCalculator.getSize(wikiId1, 2L, 42L)).thenReturn(2560L);
+
+        WikiRecycleBins wikiRecycleBins = recycleBinsProvider.getWikiRecycleBinsSize(wikiDescriptor);
+
+        assertEquals(2L, wikiRecycleBins.getAttachmentsCount());
+        assertEquals(2560L, wikiRecycleBins.getAttachmentsSize());
+        assertEquals(5L, wikiRecycleBins.getDocumentsCount());
+        assertEquals(List.of(3L, 0L, 2L, 1L, 1L), new ArrayList<>(wikiRecycleBins.getAgeHistogram().values()));
+        assertEquals(List.of("week", "month", "quarter", "year", "older"),
+            new ArrayList<>(wikiRecycleBins.getAgeHistogram().keySet()));
+    }
+
+    @Test
+    void getWikiRecycleBinsSizePendingDeletedAttachmentsSize() throws Exception
+    {
+        when(setWikiQueryAttach.execute()).thenReturn(stats(1L, 42L, 1L, 1L, 1L, 1L));
+        when(setWikiQueryDoc.execute()).thenReturn(stats(0L));
+        when(deletedAttachmentsSizeCalculator.getSize(wikiId1, 1L, 42L)).thenReturn(null);
+
+        WikiRecycleBins wikiRecycleBins = recycleBinsProvider.getWikiRecycleBinsSize(wikiDescriptor);
+
+        assertNull(wikiRecycleBins.getAttachmentsSize());
+        assertNull(wikiRecycleBins.getReadableStoredSize());
+    }
+
+    @Test
+    void checkSortByPendingDeletedAttachmentsSize() throws Exception
+    {
+        when(wikiDescriptor.getPrettyName()).thenReturn("wiki pretty name");
+        when(wikiDescriptor2.getPrettyName()).thenReturn("wiki2 pretty name");
+        when(setWikiQueryAttach.execute()).thenReturn(stats(4L, 4L, 4L, 4L, 4L, 4L));
+        when(setWikiQueryDoc.execute()).thenReturn(stats(0L));
+        when(setWikiQueryAttach2.execute()).thenReturn(stats(2L, 2L, 2L, 2L, 2L, 2L));
+        when(setWikiQueryDoc2.execute()).thenReturn(stats(0L));
+        when(deletedAttachmentsSizeCalculator.getSize(wikiId1, 4L, 4L)).thenReturn(1024L);
+        when(deletedAttachmentsSizeCalculator.getSize(wikiId2, 2L, 2L)).thenReturn(null);
+
+        List<WikiRecycleBins> testResults =
+            recycleBinsProvider.getWikisRecycleBinsSize(new HashMap<>(), "attachmentsSize", "asc");
+
+        assertEquals("wiki2 pretty name", testResults.get(0).getWikiName());
+        assertEquals("wiki pretty name", testResults.get(1).getWikiName());
+    }
+
+    @Test
+    void getWikiRecycleBinsSizeEmptyBins() throws Exception
+    {
+        when(setWikiQueryAttach.execute()).thenReturn(
+            Collections.singletonList(new Object[] { 0L, 0, null, null, null, null }));
+        when(setWikiQueryDoc.execute()).thenReturn(
+            Collections.singletonList(new Object[] { 0L, 0, null, null, null, null }));
+        when(deletedAttachmentsSizeCalculator.getSize(wikiId1, 0L, 0L)).thenReturn(0L);
+
+        WikiRecycleBins wikiRecycleBins = recycleBinsProvider.getWikiRecycleBinsSize(wikiDescriptor);
+
+        assertEquals(0L, wikiRecycleBins.getTotal());
+        assertEquals(0L, wikiRecycleBins.getAttachmentsSize());
+        assertEquals(0L, wikiRecycleBins.getAgeHistogram().get("older"));
+    }
+
     @Test
     void getWikiRecycleBinsSizeQueryError() throws QueryException
     {
-        when(setWikiQueryAttach.execute()).thenReturn(List.of(4L));
+        when(setWikiQueryAttach.execute()).thenReturn(stats(4L));
         when(setWikiQueryDoc.execute()).thenThrow(
             new QueryException("An error occurred while executing the documents query!", setWikiQueryDoc,
                 new RuntimeException()));
@@ -193,4 +279,14 @@ class RecycleBinsProviderTest
         assertEquals("An error occurred while executing the documents query!. Query statement = [null]",
             exception.getMessage());
     }
+
+    private List<Object> stats(long count)
+    {
+        return stats(count, 0L, count, count, count, count);
+    }
+
+    private List<Object> stats(long count, long maxId, long week, long month, long quarter, long year)
+    {
+        return Collections.singletonList(new Object[] { count, maxId, week, month, quarter, year });
+    }
 }
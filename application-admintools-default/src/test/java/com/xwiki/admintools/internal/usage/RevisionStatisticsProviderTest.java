@@ -0,0 +1,152 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xwiki.admintools.internal.jobs.BatchThrottler;
+import com.xwiki.admintools.usage.DocumentRevisionUsage;
+import com.xwiki.admintools.usage.WikiRevisionUsage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link RevisionStatisticsProvider}.
+ */
+@ComponentTest
+class RevisionStatisticsProviderTest
+{
+    private static final String WIKI_ID = "wikiId";
+
+    @InjectMockComponents
+    private RevisionStatisticsProvider revisionStatisticsProvider;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @Mock
+    private Query revisionsQuery;
+
+    @Mock
+    private Query documentsQuery;
+
+    private final BatchThrottler throttler = mock(BatchThrottler.class);
+
+    @BeforeEach
+    void beforeEach() throws QueryException
+    {
+        mockQuery(revisionsQuery, "from XWikiRCSNodeContent");
+        mockQuery(documentsQuery, "from XWikiDocument");
+    }
+
+    @Test
+    void getWikiRevisionUsage() throws Exception
+    {
+        List<Object> firstBatch = new ArrayList<>();
+        firstBatch.add(new Object[] { 1L, 10L, 1000L });
+        firstBatch.add(new Object[] { 2L, 3L, 50L });
+        List<Object> secondBatch = new ArrayList<>();
+        secondBatch.add(new Object[] { 3L, 5L, 400L });
+        when(revisionsQuery.execute()).thenReturn(firstBatch, secondBatch);
+        List<Object> documents = new ArrayList<>();
+        documents.add(new Object[] { 1L, "Space.Page1", "" });
+        documents.add(new Object[] { 3L, "Space.Page3", "fr" });
+        when(documentsQuery.execute()).thenReturn(documents);
+
+        WikiRevisionUsage result =
+            revisionStatisticsProvider.getWikiRevisionUsage(WIKI_ID, 2, 2, throttler, () -> false);
+
+        assertEquals(WIKI_ID, result.getWikiId());
+        assertEquals(3, result.getDocumentsCount());
+        assertEquals(18, result.getRevisionsCount());
+        assertEquals(1450, result.getRevisionsSize());
+        List<DocumentRevisionUsage> largestDocuments = result.getLargestDocuments();
+        assertEquals(2, largestDocuments.size());
+        assertEquals(1L, largestDocuments.get(0).getDocumentId());
+        assertEquals("Space.Page1", largestDocuments.get(0).getDocumentName());
+        assertEquals(10, largestDocuments.get(0).getRevisionsCount());
+        assertEquals(3L, largestDocuments.get(1).getDocumentId());
+        assertEquals("fr", largestDocuments.get(1).getLanguage());
+        verify(revisionsQuery).bindValue("lastId", Long.MIN_VALUE);
+        verify(revisionsQuery).bindValue("lastId", 2L);
+        verify(throttler, times(1)).throttle(eq(2), anyLong());
+        verify(documentsQuery).bindValue(eq("ids"), any());
+    }
+
+    @Test
+    void getWikiRevisionUsageWithMissingDocument() throws Exception
+    {
+        List<Object> rows = new ArrayList<>();
+        rows.add(new Object[] { 5L, 2L, 20L });
+        when(revisionsQuery.execute()).thenReturn(rows);
+        when(documentsQuery.execute()).thenReturn(new ArrayList<>());
+
+        WikiRevisionUsage result =
+            revisionStatisticsProvider.getWikiRevisionUsage(WIKI_ID, 10, 5, throttler, () -> false);
+
+        assertEquals(1, result.getLargestDocuments().size());
+        assertNull(result.getLargestDocuments().get(0).getDocumentName());
+        verify(throttler, never()).throttle(anyInt(), anyLong());
+    }
+
+    @Test
+    void getWikiRevisionUsageCanceled() throws Exception
+    {
+        WikiRevisionUsage result =
+            revisionStatisticsProvider.getWikiRevisionUsage(WIKI_ID, 10, 5, throttler, () -> true);
+
+        assertEquals(0, result.getRevisionsCount());
+        assertTrue(result.getLargestDocuments().isEmpty());
+        verify(revisionsQuery, never()).execute();
+        verify(documentsQuery, never()).execute();
+    }
+
+    private void mockQuery(Query query, String statement) throws QueryException
+    {
+        when(queryManager.createQuery(contains(statement), eq(Query.HQL))).thenReturn(query);
+        when(query.bindValue(anyString(), any())).thenReturn(query);
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(query.setWiki(WIKI_ID)).thenReturn(query);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Provider;
+
+import org.apache.solr.client.solrj.response.PivotField;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.util.NamedList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.search.solr.internal.api.SolrIndexer;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xwiki.admintools.internal.usage.wikiResult.WikiIndexedUsage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ComponentTest
+class SolrUsageDataProviderTest
+{
+    @InjectMockComponents
+    private SolrUsageDataProvider solrUsageDataProvider;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private Provider<SolrIndexer> solrIndexerProvider;
+
+    @Mock
+    private SolrIndexer solrIndexer;
+
+    @Mock
+    private Query query;
+
+    @Mock
+    private QueryResponse queryResponse;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach() throws QueryException
+    {
+        when(solrIndexerProvider.get()).thenReturn(solrIndexer);
+        when(queryManager.createQuery("*", "solr")).thenReturn(query);
+        when(query.execute()).thenReturn(List.of(queryResponse));
+    }
+
+    @Test
+    void getIndexedUsage()
+    {
+        NamedList<List<PivotField>> pivots = new NamedList<>();
+        pivots.add("wiki,type",
+            List.of(pivotField("wikiId", 0, List.of(pivotField("DOCUMENT", 120, null), pivotField("ATTACHMENT", 30,
+                null)))));
+        pivots.add("wiki,AdminTools.DocumentContentEmpty_boolean",
+            List.of(pivotField("wikiId", 0, List.of(pivotField(true, 7, null), pivotField(false, 113, null)))));
+        pivots.add("wiki,AdminTools.NumberOfComments_sortInt", List.of(pivotField("wikiId", 0,
+            List.of(pivotField(0, 100, null), pivotField(3, 15, null), pivotField(60, 5, null)))));
+        when(queryResponse.getFacetPivot()).thenReturn(pivots);
+
+        Map<String, WikiIndexedUsage> results = solrUsageDataProvider.getIndexedUsage();
+
+        assertEquals(1, results.size());
+        WikiIndexedUsage usage = results.get("wikiId");
+        assertEquals(120, usage.getDocumentsCount());
+        assertEquals(30, usage.getAttachmentsCount());
+        assertEquals(7, usage.getEmptyDocumentsCount());
+        assertEquals(Map.of(3, 15L, 60, 5L), usage.getCommentsDistribution());
+        assertEquals(5, usage.getDocumentsOverComments(50));
+        assertEquals(20, usage.getDocumentsOverComments(3));
+    }
+
+    @Test
+    void getIndexedUsageIndexNotInSync() throws QueryException
+    {
+        when(solrIndexer.getQueueSize()).thenReturn(12);
+
+        assertTrue(solrUsageDataProvider.getIndexedUsage().isEmpty());
+        verify(queryManager, never()).createQuery("*", "solr");
+    }
+
+    @Test
+    void getIndexedUsageQueryError() throws QueryException
+    {
+        when(query.execute()).thenThrow(new QueryException("solr error", query, null));
+
+        assertTrue(solrUsageDataProvider.getIndexedUsage().isEmpty());
+        assertEquals("Failed to retrieve the usage info from the Solr index. Root cause is: [QueryException: solr "
+            + "error. Query statement = [null]]", logCapture.getMessage(0));
+    }
+
+    private PivotField pivotField(Object value, int count, List<PivotField> pivot)
+    {
+        PivotField pivotField = mock(PivotField.class);
+        when(pivotField.getValue()).thenReturn(value);
+        when(pivotField.getCount()).thenReturn(count);
+        when(pivotField.getPivot()).thenReturn(pivot);
+        return pivotField;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xwiki.admintools.internal.usage.wikiResult.SpaceUsage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link SpaceUsageProvider}.
+ */
+@ComponentTest
+class SpaceUsageProviderTest
+{
+    private static final String WIKI_ID = "wikiId";
+
+    @InjectMockComponents
+    private SpaceUsageProvider spaceUsageProvider;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @Mock
+    private Query documentsQuery;
+
+    @Mock
+    private Query attachmentsQuery;
+
+    @BeforeEach
+    void beforeEach() throws QueryException
+    {
+        when(queryManager.createQuery(contains("from XWikiDocument doc where"), eq(Query.HQL))).thenReturn(
+            documentsQuery);
+        when(queryManager.createQuery(contains("from XWikiAttachment attach"), eq(Query.HQL))).thenReturn(
+            attachmentsQuery);
+        when(documentsQuery.setWiki(WIKI_ID)).thenReturn(documentsQuery);
+        when(attachmentsQuery.setWiki(WIKI_ID)).thenReturn(attachmentsQuery);
+
+        when(documentsQuery.execute()).thenReturn(
+            List.of(new Object[] { "Main", 3L }, new Object[] { "Sandbox", 2L }, new Object[] { "Sandbox.Nested", 4L },
+                new Object[] { "Sandbox.Nested.Deep", 1L }, new Object[] { "Help.Escaped\\.Name", 5L }));
+        when(attachmentsQuery.execute()).thenReturn(
+            List.of(new Object[] { "Main", 1L, 100L }, new Object[] { "Sandbox.Nested.Deep", 2L, 2000L }));
+    }
+
+    @Test
+    void getSpacesUsage() throws QueryException
+    {
+        List<SpaceUsage> topLevelSpaces = spaceUsageProvider.getSpacesUsage(WIKI_ID, "");
+
+        assertEquals(3, topLevelSpaces.size());
+        SpaceUsage sandbox = topLevelSpaces.get(0);
+        assertEquals("Sandbox", sandbox.getReference());
+        assertEquals(2L, sandbox.getDocumentsCount());
+        assertEquals(7L, sandbox.getTotalDocumentsCount());
+        assertEquals(2L, sandbox.getTotalAttachmentsCount());
+        assertEquals(2000L, sandbox.getTotalAttachmentsSize());
+        assertEquals(0L, sandbox.getAttachmentsSize());
+        assertEquals(1, sandbox.getChildrenCount());
+        assertEquals("Main", topLevelSpaces.get(1).getReference());
+        assertEquals("Help", topLevelSpaces.get(2).getReference());
+        assertEquals(5L, topLevelSpaces.get(2).getTotalDocumentsCount());
+        assertEquals(0L, topLevelSpaces.get(2).getDocumentsCount());
+    }
+
+    @Test
+    void getNestedSpacesUsage() throws QueryException
+    {
+        List<SpaceUsage> nestedSpaces = spaceUsageProvider.getSpacesUsage(WIKI_ID, "Sandbox.Nested");
+
+        assertEquals(1, nestedSpaces.size());
+        assertEquals("Deep", nestedSpaces.get(0).getName());
+        assertEquals("Sandbox.Nested.Deep", nestedSpaces.get(0).getReference());
+
+        List<SpaceUsage> escapedSpaces = spaceUsageProvider.getSpacesUsage(WIKI_ID, "Help");
+        assertEquals("Escaped.Name", escapedSpaces.get(0).getName());
+        assertEquals("Help.Escaped\\.Name", escapedSpaces.get(0).getReference());
+
+        assertTrue(spaceUsageProvider.getSpacesUsage(WIKI_ID, "Missing").isEmpty());
+        assertTrue(spaceUsageProvider.getSpacesUsage(WIKI_ID, "Main").isEmpty());
+    }
+
+    @Test
+    void getSpaceUsage() throws QueryException
+    {
+        SpaceUsage nested = spaceUsageProvider.getSpaceUsage(WIKI_ID, "Sandbox.Nested");
+
+        assertEquals(5L, nested.getTotalDocumentsCount());
+        assertEquals("Sandbox", nested.getParent().getReference());
+        assertNull(spaceUsageProvider.getSpaceUsage(WIKI_ID, "Missing"));
+    }
+
+    @Test
+    void getSpacesUsageCached() throws QueryException
+    {
+        spaceUsageProvider.getSpacesUsage(WIKI_ID, "");
+        spaceUsageProvider.getSpacesUsage(WIKI_ID, "Sandbox");
+
+        verify(documentsQuery, times(1)).execute();
+        verify(attachmentsQuery, times(1)).execute();
+    }
+}
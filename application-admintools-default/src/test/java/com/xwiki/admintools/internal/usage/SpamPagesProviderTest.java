@@ -41,6 +41,10 @@ import org.xwiki.test.junit5.mockito.MockComponent;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ComponentTest
@@ -141,6 +145,18 @@ class SpamPagesProviderTest
             Map.of("docName", "searchedDocument", "wikiName", "searchedWiki"), "desc").size());
     }
 
+    @Test
+    void getDocumentsBySpamScore() throws Exception
+    {
+        assertEquals(solrDocuments,
+            spamPagesProvider.getDocumentsBySpamScore(maxComments, Map.of("docName", ""), "desc"));
+
+        verify(commentsQuery).bindValue("fq", filterStatements);
+        verify(commentsQuery).bindValue(eq("sort"), startsWith("sum(product(0.3,"));
+        verify(commentsQuery).bindValue(eq("fl"), contains("spamScore:sum("));
+        verify(commentsQuery).checkCurrentUser(true);
+    }
+
     @Test
     void getDocumentsOverGivenNumberOfCommentsError() throws Exception
     {
@@ -31,6 +31,8 @@ import javax.inject.Provider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.xwiki.activeinstalls2.internal.data.Ping;
+import org.xwiki.activeinstalls2.internal.data.ServletContainerPing;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryFilter;
@@ -43,10 +45,13 @@ import org.xwiki.wiki.descriptor.WikiDescriptor;
 import org.xwiki.wiki.descriptor.WikiDescriptorManager;
 import org.xwiki.wiki.manager.WikiManagerException;
 
+import com.xwiki.admintools.internal.usage.wikiResult.WikiIndexedUsage;
 import com.xwiki.admintools.internal.usage.wikiResult.WikiSizeResult;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ComponentTest
@@ -77,18 +82,20 @@ class UsageDataProviderTest
     @MockComponent
     private WikiDescriptorManager wikiDescriptorManager;
 
+    @MockComponent
+    private SolrUsageDataProvider solrUsageDataProvider;
 
-    @Mock
-    private WikiDescriptor wikiDescriptor;
+    @MockComponent
+    private ActiveUsersCounter activeUsersCounter;
 
-    @Mock
-    private WikiDescriptor wikiDescriptor2;
+    @MockComponent
+    private PingDataCache pingDataCache;
 
     @Mock
-    private Query usersQuery;
+    private WikiDescriptor wikiDescriptor;
 
     @Mock
-    private Query usersQuery2;
+    private WikiDescriptor wikiDescriptor2;
 
     @Mock
     private Query docQuery;
@@ -120,13 +127,6 @@ class UsageDataProviderTest
         when(wikiDescriptor.getId()).thenReturn(WIKI_ID);
         when(wikiDescriptor2.getId()).thenReturn(WIKI_ID_2);
 
-        when(queryManager.createQuery(", BaseObject as obj, IntegerProperty as prop "
-            + "where doc.fullName = obj.name and obj.className = 'XWiki.XWikiUsers' and "
-            + "prop.id.id = obj.id and prop.id.name = 'active' and prop.value = '1'", "hql")).thenReturn(usersQuery);
-        when(usersQuery.addFilter(countFilter)).thenReturn(usersQuery);
-        when(usersQuery.setWiki(WIKI_ID)).thenReturn(usersQuery);
-        when(usersQuery.setWiki(WIKI_ID_2)).thenReturn(usersQuery2);
-
         when(queryManager.createQuery("", "xwql")).thenReturn(docQuery);
         when(docQuery.addFilter(countFilter)).thenReturn(docQuery);
         when(docQuery.setWiki(WIKI_ID)).thenReturn(docQuery);
@@ -144,13 +144,34 @@ class UsageDataProviderTest
         when(attCountQuery.setWiki(WIKI_ID_2)).thenReturn(attCountQuery2);
     }
 
+    @Test
+    void getServerMetadata()
+    {
+        ServletContainerPing servletContainerPing = new ServletContainerPing();
+        servletContainerPing.setName("Apache Tomcat");
+        servletContainerPing.setVersion("9.0.80");
+        Ping ping = new Ping();
+        ping.setServletContainer(servletContainerPing);
+        when(pingDataCache.getPing(PingDataCache.SERVLET)).thenReturn(ping);
+
+        assertEquals(Map.of("name", "Apache Tomcat", "version", "9.0.80"), usageDataProvider.getServerMetadata());
+    }
+
+    @Test
+    void getDatabaseMetadataMissing()
+    {
+        when(pingDataCache.getPing(PingDataCache.DATABASE)).thenReturn(new Ping());
+
+        assertEquals(Map.of(), usageDataProvider.getDatabaseMetadata());
+    }
+
     @Test
     void getWikiSizeInfo() throws Exception
     {
 
         when(wikiDescriptor.getPrettyName()).thenReturn("XWiki Wiki Name");
 
-        when(usersQuery.execute()).thenReturn(List.of(1234L));
+        when(activeUsersCounter.getWikiUsersCount(WIKI_ID)).thenReturn(1234L);
         when(docQuery.execute()).thenReturn(List.of(12345L));
         when(attSizeQuery.execute()).thenReturn(List.of(123456789L));
         when(attCountQuery.execute()).thenReturn(List.of(123456L));
@@ -171,7 +192,8 @@ class UsageDataProviderTest
         when(wikiDescriptor.getId()).thenReturn(WIKI_ID);
         when(wikiDescriptor.getPrettyName()).thenReturn("XWiki Wiki Name");
 
-        when(usersQuery.execute()).thenThrow(new QueryException("user query error", usersQuery, new Exception()));
+        when(activeUsersCounter.getWikiUsersCount(WIKI_ID)).thenThrow(
+            new QueryException("user query error", null, new Exception()));
 
         assertThrows(QueryException.class, () -> usageDataProvider.getWikiSize(wikiDescriptor));
     }
@@ -179,13 +201,13 @@ class UsageDataProviderTest
     @Test
     void getWikisSize() throws QueryException, WikiManagerException
     {
-        when(usersQuery.execute()).thenReturn(List.of(1234L));
+        when(activeUsersCounter.getWikiUsersCount(WIKI_ID)).thenReturn(1234L);
         when(docQuery.execute()).thenReturn(List.of(12345L));
         when(attSizeQuery.execute()).thenReturn(List.of(123456789L));
         when(attCountQuery.execute()).thenReturn(List.of(123456L));
         when(wikiDescriptor.getPrettyName()).thenReturn("wiki pretty name");
 
-        when(usersQuery2.execute()).thenReturn(List.of(123L));
+        when(activeUsersCounter.getWikiUsersCount(WIKI_ID_2)).thenReturn(123L);
         when(docQuery2.execute()).thenReturn(List.of(1234L));
         when(attSizeQuery2.execute()).thenReturn(List.of(1234567L));
         when(attCountQuery2.execute()).thenReturn(List.of(12345L));
@@ -205,12 +227,12 @@ class UsageDataProviderTest
     {
         when(wikiDescriptor2.getPrettyName()).thenReturn("wiki name 2");
 
-        when(usersQuery.execute()).thenReturn(List.of(1234L));
+        when(activeUsersCounter.getWikiUsersCount(WIKI_ID)).thenReturn(1234L);
         when(docQuery.execute()).thenReturn(List.of(12345L));
         when(attSizeQuery.execute()).thenReturn(List.of(123456789L));
         when(attCountQuery.execute()).thenReturn(List.of(123456L));
 
-        when(usersQuery2.execute()).thenReturn(List.of(123L));
+        when(activeUsersCounter.getWikiUsersCount(WIKI_ID_2)).thenReturn(123L);
         when(docQuery2.execute()).thenReturn(List.of(1234L));
         when(attSizeQuery2.execute()).thenReturn(List.of(1234567L));
         when(attCountQuery2.execute()).thenReturn(List.of(12345L));
@@ -230,12 +252,12 @@ class UsageDataProviderTest
         when(wikiDescriptor.getPrettyName()).thenReturn("wiki name");
         when(wikiDescriptor2.getPrettyName()).thenReturn("wiki name 2");
 
-        when(usersQuery.execute()).thenReturn(List.of(1234L));
+        when(activeUsersCounter.getWikiUsersCount(WIKI_ID)).thenReturn(1234L);
         when(docQuery.execute()).thenReturn(List.of(12345L));
         when(attSizeQuery.execute()).thenReturn(List.of(123456789L));
         when(attCountQuery.execute()).thenReturn(List.of(123456L));
 
-        when(usersQuery2.execute()).thenReturn(List.of(123L));
+        when(activeUsersCounter.getWikiUsersCount(WIKI_ID_2)).thenReturn(123L);
         when(docQuery2.execute()).thenReturn(List.of(1234L));
         when(attSizeQuery2.execute()).thenReturn(List.of(1234567L));
         when(attCountQuery2.execute()).thenReturn(List.of(12345L));
@@ -250,4 +272,33 @@ class UsageDataProviderTest
         assertEquals("wiki name 2", testResults.get(0).getWikiName());
         assertEquals("wiki name", testResults.get(1).getWikiName());
     }
+
+    @Test
+    void getWikisSizeFromIndex() throws QueryException, WikiManagerException
+    {
+        WikiIndexedUsage indexedUsage = new WikiIndexedUsage(WIKI_ID);
+        indexedUsage.setDocumentsCount(200L);
+        indexedUsage.setAttachmentsCount(20L);
+        when(solrUsageDataProvider.getIndexedUsage()).thenReturn(Map.of(WIKI_ID, indexedUsage));
+        when(wikiDescriptor.getPrettyName()).thenReturn("wiki name");
+        when(wikiDescriptor2.getPrettyName()).thenReturn("wiki name 2");
+
+        when(activeUsersCounter.getWikiUsersCount(WIKI_ID)).thenReturn(1234L);
+        when(attSizeQuery.execute()).thenReturn(List.of(123456789L));
+
+        when(activeUsersCounter.getWikiUsersCount(WIKI_ID_2)).thenReturn(123L);
+        when(docQuery2.execute()).thenReturn(List.of(1234L));
+        when(attSizeQuery2.execute()).thenReturn(List.of(1234567L));
+        when(attCountQuery2.execute()).thenReturn(List.of(12345L));
+
+        List<WikiSizeResult> testResults = usageDataProvider.getWikisSize(new HashMap<>(), "wikiName", "asc");
+
+        assertEquals(2, testResults.size());
+        assertEquals(200L, testResults.get(0).getDocumentsCount());
+        assertEquals(20L, testResults.get(0).getAttachmentsCount());
+        assertEquals(1234L, testResults.get(1).getDocumentsCount());
+        assertEquals(12345L, testResults.get(1).getAttachmentsCount());
+        verify(docQuery, never()).execute();
+        verify(attCountQuery, never()).execute();
+    }
 }
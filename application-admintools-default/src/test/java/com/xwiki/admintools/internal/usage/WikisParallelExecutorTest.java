@@ -0,0 +1,97 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.wiki.descriptor.WikiDescriptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ComponentTest
+class WikisParallelExecutorTest
+{
+    @InjectMockComponents
+    private WikisParallelExecutor wikisParallelExecutor;
+
+    @MockComponent
+    private ExecutionContextManager executionContextManager;
+
+    @MockComponent
+    private Execution execution;
+
+    @Mock
+    private WikiDescriptor wikiDescriptor;
+
+    @Mock
+    private WikiDescriptor wikiDescriptor2;
+
+    @AfterEach
+    void afterEach() throws Exception
+    {
+        wikisParallelExecutor.dispose();
+    }
+
+    @Test
+    void execute() throws Exception
+    {
+        when(wikiDescriptor.getId()).thenReturn("wiki1");
+        when(wikiDescriptor2.getId()).thenReturn("wiki2");
+        List<WikiDescriptor> wikis = new ArrayList<>(List.of(wikiDescriptor2, wikiDescriptor));
+
+        Map<String, String> results = wikisParallelExecutor.execute(wikis, wiki -> wiki.getId().toUpperCase());
+
+        assertEquals(List.of("wiki2", "wiki1"), new ArrayList<>(results.keySet()));
+        assertEquals("WIKI2", results.get("wiki2"));
+        assertEquals("WIKI1", results.get("wiki1"));
+        verify(executionContextManager, times(2)).initialize(any(ExecutionContext.class));
+        verify(execution, times(2)).removeContext();
+    }
+
+    @Test
+    void executeWithError()
+    {
+        when(wikiDescriptor.getId()).thenReturn("wiki1");
+
+        IOException exception = assertThrows(IOException.class,
+            () -> wikisParallelExecutor.execute(List.of(wikiDescriptor), wiki -> {
+                throw new IOException("Task error");
+            }));
+
+        assertEquals("Task error", exception.getMessage());
+    }
+}
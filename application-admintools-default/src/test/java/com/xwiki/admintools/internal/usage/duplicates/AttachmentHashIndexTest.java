@@ -0,0 +1,208 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.duplicates;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xwiki.admintools.usage.DuplicateAttachmentGroup;
+import com.xwiki.admintools.usage.WikiDuplicateAttachments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link AttachmentHashIndex}.
+ */
+@ComponentTest
+class AttachmentHashIndexTest
+{
+    private static final String WIKI_ID = "wikiId";
+
+    private static final AttachmentReference ATTACHMENT_1 = attachment("Page1", "file.pdf");
+
+    private static final AttachmentReference ATTACHMENT_2 = attachment("Page2", "copy.pdf");
+
+    private static final AttachmentReference ATTACHMENT_3 = attachment("Page3", "other.pdf");
+
+    private static final AttachmentReference ATTACHMENT_4 = attachment("Page4", "image.png");
+
+    @InjectMockComponents
+    private AttachmentHashIndex attachmentHashIndex;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(serializer.serialize(any())).thenAnswer(
+            invocation -> ((AttachmentReference) invocation.getArgument(0)).getDocumentReference().getName() + "@"
+                + ((AttachmentReference) invocation.getArgument(0)).getName());
+    }
+
+    @Test
+    void putWithoutIndex()
+    {
+        assertFalse(attachmentHashIndex.isIndexed(WIKI_ID));
+        assertFalse(attachmentHashIndex.put(ATTACHMENT_1, 100));
+        assertNull(attachmentHashIndex.getDuplicates(WIKI_ID, 10));
+        assertTrue(attachmentHashIndex.getPendingAttachments(WIKI_ID).isEmpty());
+    }
+
+    @Test
+    void getPendingAttachments()
+    {
+        attachmentHashIndex.reset(WIKI_ID);
+        assertFalse(attachmentHashIndex.put(ATTACHMENT_1, 100));
+        assertFalse(attachmentHashIndex.put(ATTACHMENT_4, 500));
+        assertTrue(attachmentHashIndex.put(ATTACHMENT_2, 100));
+        assertFalse(attachmentHashIndex.put(ATTACHMENT_3, 0));
+
+        // Only the attachments sharing their size with another attachment need to be hashed.
+        List<AttachmentReference> pending = attachmentHashIndex.getPendingAttachments(WIKI_ID);
+        assertEquals(2, pending.size());
+        assertTrue(pending.containsAll(List.of(ATTACHMENT_1, ATTACHMENT_2)));
+
+        attachmentHashIndex.setHash(ATTACHMENT_1, 100, "hash1");
+        assertEquals(List.of(ATTACHMENT_2), attachmentHashIndex.getPendingAttachments(WIKI_ID));
+    }
+
+    @Test
+    void getPendingAttachmentsLargestFirst()
+    {
+        attachmentHashIndex.reset(WIKI_ID);
+        attachmentHashIndex.put(ATTACHMENT_1, 100);
+        attachmentHashIndex.put(ATTACHMENT_2, 100);
+        attachmentHashIndex.put(ATTACHMENT_3, 500);
+        attachmentHashIndex.put(ATTACHMENT_4, 500);
+
+        List<AttachmentReference> pending = attachmentHashIndex.getPendingAttachments(WIKI_ID);
+        assertEquals(4, pending.size());
+        assertTrue(List.of(ATTACHMENT_3, ATTACHMENT_4).containsAll(pending.subList(0, 2)));
+    }
+
+    @Test
+    void getDuplicates()
+    {
+        attachmentHashIndex.reset(WIKI_ID);
+        attachmentHashIndex.put(ATTACHMENT_1, 100);
+        attachmentHashIndex.put(ATTACHMENT_2, 100);
+        attachmentHashIndex.put(ATTACHMENT_3, 100);
+        attachmentHashIndex.put(ATTACHMENT_4, 500);
+        attachmentHashIndex.setHash(ATTACHMENT_1, 100, "hash1");
+        attachmentHashIndex.setHash(ATTACHMENT_2, 100, "hash1");
+        attachmentHashIndex.setHash(ATTACHMENT_3, 100, "hash2");
+
+        WikiDuplicateAttachments duplicates = attachmentHashIndex.getDuplicates(WIKI_ID, 10);
+        assertEquals(WIKI_ID, duplicates.getWikiId());
+        assertEquals(4, duplicates.getAttachmentsCount());
+        assertEquals(3, duplicates.getHashedCount());
+        assertEquals(1, duplicates.getDuplicatesCount());
+        assertEquals(100, duplicates.getWastedSize());
+        assertEquals(1, duplicates.getLargestGroups().size());
+        DuplicateAttachmentGroup group = duplicates.getLargestGroups().get(0);
+        assertEquals("hash1", group.getHash());
+        assertEquals(100, group.getSize());
+        assertEquals(List.of("Page1@file.pdf", "Page2@copy.pdf"), group.getAttachments());
+    }
+
+    @Test
+    void getDuplicatesKeepsLargestGroups()
+    {
+        attachmentHashIndex.reset(WIKI_ID);
+        attachmentHashIndex.put(ATTACHMENT_1, 100);
+        attachmentHashIndex.put(ATTACHMENT_2, 100);
+        attachmentHashIndex.put(ATTACHMENT_3, 500);
+        attachmentHashIndex.put(ATTACHMENT_4, 500);
+        attachmentHashIndex.setHash(ATTACHMENT_1, 100, "small");
+        attachmentHashIndex.setHash(ATTACHMENT_2, 100, "small");
+        attachmentHashIndex.setHash(ATTACHMENT_3, 500, "large");
+        attachmentHashIndex.setHash(ATTACHMENT_4, 500, "large");
+
+        WikiDuplicateAttachments duplicates = attachmentHashIndex.getDuplicates(WIKI_ID, 1);
+        assertEquals(2, duplicates.getDuplicatesCount());
+        assertEquals(600, duplicates.getWastedSize());
+        assertEquals(1, duplicates.getLargestGroups().size());
+        assertEquals("large", duplicates.getLargestGroups().get(0).getHash());
+    }
+
+    @Test
+    void putResetsHash()
+    {
+        attachmentHashIndex.reset(WIKI_ID);
+        attachmentHashIndex.put(ATTACHMENT_1, 100);
+        attachmentHashIndex.put(ATTACHMENT_2, 100);
+        attachmentHashIndex.setHash(ATTACHMENT_1, 100, "hash1");
+        attachmentHashIndex.setHash(ATTACHMENT_2, 100, "hash1");
+
+        // The content of an updated attachment might have changed.
+        assertTrue(attachmentHashIndex.put(ATTACHMENT_2, 100));
+        assertEquals(List.of(ATTACHMENT_2), attachmentHashIndex.getPendingAttachments(WIKI_ID));
+        assertEquals(0, attachmentHashIndex.getDuplicates(WIKI_ID, 10).getDuplicatesCount());
+    }
+
+    @Test
+    void setHashIgnoresChangedSize()
+    {
+        attachmentHashIndex.reset(WIKI_ID);
+        attachmentHashIndex.put(ATTACHMENT_1, 100);
+        attachmentHashIndex.put(ATTACHMENT_2, 100);
+        attachmentHashIndex.setHash(ATTACHMENT_1, 200, "hash1");
+
+        assertEquals(0, attachmentHashIndex.getDuplicates(WIKI_ID, 10).getHashedCount());
+    }
+
+    @Test
+    void remove()
+    {
+        attachmentHashIndex.reset(WIKI_ID);
+        attachmentHashIndex.put(ATTACHMENT_1, 100);
+        attachmentHashIndex.put(ATTACHMENT_2, 100);
+        attachmentHashIndex.setHash(ATTACHMENT_1, 100, "hash1");
+        attachmentHashIndex.setHash(ATTACHMENT_2, 100, "hash1");
+
+        attachmentHashIndex.remove(ATTACHMENT_2);
+        WikiDuplicateAttachments duplicates = attachmentHashIndex.getDuplicates(WIKI_ID, 10);
+        assertEquals(1, duplicates.getAttachmentsCount());
+        assertEquals(1, duplicates.getHashedCount());
+        assertEquals(0, duplicates.getWastedSize());
+
+        attachmentHashIndex.remove(WIKI_ID);
+        assertFalse(attachmentHashIndex.isIndexed(WIKI_ID));
+    }
+
+    private static AttachmentReference attachment(String page, String fileName)
+    {
+        return new AttachmentReference(fileName, new DocumentReference(WIKI_ID, "Space", page));
+    }
+}
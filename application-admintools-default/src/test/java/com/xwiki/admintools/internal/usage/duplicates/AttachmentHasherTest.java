@@ -0,0 +1,123 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.duplicates;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.inject.Provider;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link AttachmentHasher}.
+ */
+@ComponentTest
+class AttachmentHasherTest
+{
+    private static final String WIKI_ID = "wikiId";
+
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference(WIKI_ID, "Space", "Page");
+
+    private static final AttachmentReference ATTACHMENT_REFERENCE =
+        new AttachmentReference("file.pdf", DOCUMENT_REFERENCE);
+
+    private static final byte[] CONTENT = "attachment content".getBytes(StandardCharsets.UTF_8);
+
+    @InjectMockComponents
+    private AttachmentHasher attachmentHasher;
+
+    @MockComponent
+    private AttachmentHashIndex attachmentHashIndex;
+
+    @MockComponent
+    private Provider<XWikiContext> wikiContextProvider;
+
+    @Mock
+    private XWikiContext wikiContext;
+
+    @Mock
+    private XWiki wiki;
+
+    @Mock
+    private XWikiDocument document;
+
+    @Mock
+    private XWikiAttachment attachment;
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(wikiContextProvider.get()).thenReturn(wikiContext);
+        when(wikiContext.getWiki()).thenReturn(wiki);
+        when(wiki.getDocument(DOCUMENT_REFERENCE, wikiContext)).thenReturn(document);
+        when(attachmentHashIndex.getPendingAttachments(WIKI_ID)).thenReturn(List.of(ATTACHMENT_REFERENCE));
+    }
+
+    @Test
+    void hashPendingAttachments() throws Exception
+    {
+        when(document.getAttachment("file.pdf")).thenReturn(attachment);
+        when(attachment.getLongSize()).thenReturn((long) CONTENT.length);
+        when(attachment.getContentInputStream(wikiContext)).thenReturn(new ByteArrayInputStream(CONTENT));
+
+        assertEquals(1, attachmentHasher.hashPendingAttachments(WIKI_ID, 0, () -> false));
+        verify(attachmentHashIndex).setHash(ATTACHMENT_REFERENCE, CONTENT.length, DigestUtils.md5Hex(CONTENT));
+        // The content wasn't loaded before hashing, so it's released.
+        verify(attachment).setAttachment_content(null);
+    }
+
+    @Test
+    void hashPendingAttachmentsWithDeletedAttachment() throws Exception
+    {
+        assertEquals(0, attachmentHasher.hashPendingAttachments(WIKI_ID, 0, () -> false));
+        verify(attachmentHashIndex).remove(ATTACHMENT_REFERENCE);
+        verify(attachmentHashIndex, never()).setHash(any(), anyLong(), anyString());
+    }
+
+    @Test
+    void hashPendingAttachmentsCanceled() throws Exception
+    {
+        assertEquals(0, attachmentHasher.hashPendingAttachments(WIKI_ID, 0, () -> true));
+        verify(wiki, never()).getDocument(any(DocumentReference.class), any());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.duplicates;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AttachmentAddedEvent;
+import com.xpn.xwiki.internal.event.AttachmentDeletedEvent;
+import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link DuplicateAttachmentsListener}.
+ */
+@ComponentTest
+class DuplicateAttachmentsListenerTest
+{
+    private static final String WIKI_ID = "wikiId";
+
+    private static final String FILE_NAME = "file.pdf";
+
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference(WIKI_ID, "Space", "Page");
+
+    private static final AttachmentReference ATTACHMENT_REFERENCE =
+        new AttachmentReference(FILE_NAME, DOCUMENT_REFERENCE);
+
+    @InjectMockComponents
+    private DuplicateAttachmentsListener duplicateAttachmentsListener;
+
+    @MockComponent
+    private AttachmentHashIndex attachmentHashIndex;
+
+    @MockComponent
+    private AttachmentHasher attachmentHasher;
+
+    @Mock
+    private XWikiDocument document;
+
+    @Mock
+    private XWikiAttachment attachment;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(document.getDocumentReference()).thenReturn(DOCUMENT_REFERENCE);
+        when(document.getAttachment(FILE_NAME)).thenReturn(attachment);
+        when(attachment.getLongSize()).thenReturn(100L);
+        when(attachmentHashIndex.isIndexed(WIKI_ID)).thenReturn(true);
+    }
+
+    @Test
+    void onEventAttachmentAdded()
+    {
+        when(attachmentHashIndex.put(ATTACHMENT_REFERENCE, 100L)).thenReturn(true);
+
+        duplicateAttachmentsListener.onEvent(new AttachmentAddedEvent("Space.Page", FILE_NAME), document, null);
+        verify(attachmentHasher).submit(WIKI_ID);
+    }
+
+    @Test
+    void onEventAttachmentUpdatedWithUniqueSize()
+    {
+        when(attachmentHashIndex.put(ATTACHMENT_REFERENCE, 100L)).thenReturn(false);
+
+        duplicateAttachmentsListener.onEvent(new AttachmentUpdatedEvent("Space.Page", FILE_NAME), document, null);
+        verify(attachmentHashIndex).put(ATTACHMENT_REFERENCE, 100L);
+        verify(attachmentHasher, never()).submit(anyString());
+    }
+
+    @Test
+    void onEventAttachmentDeleted()
+    {
+        duplicateAttachmentsListener.onEvent(new AttachmentDeletedEvent("Space.Page", FILE_NAME), document, null);
+        verify(attachmentHashIndex).remove(ATTACHMENT_REFERENCE);
+        verify(attachmentHashIndex, never()).put(any(), anyLong());
+    }
+
+    @Test
+    void onEventWikiNotIndexed()
+    {
+        when(attachmentHashIndex.isIndexed(WIKI_ID)).thenReturn(false);
+
+        duplicateAttachmentsListener.onEvent(new AttachmentAddedEvent("Space.Page", FILE_NAME), document, null);
+        verify(attachmentHashIndex, never()).put(any(), anyLong());
+        verify(attachmentHasher, never()).submit(anyString());
+    }
+
+    @Test
+    void onEventWikiDeleted()
+    {
+        duplicateAttachmentsListener.onEvent(new WikiDeletedEvent(WIKI_ID), null, null);
+        verify(attachmentHashIndex).remove(WIKI_ID);
+    }
+}
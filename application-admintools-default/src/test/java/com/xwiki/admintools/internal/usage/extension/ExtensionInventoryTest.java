@@ -0,0 +1,114 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.extension;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.extension.ExtensionId;
+import org.xwiki.extension.InstalledExtension;
+import org.xwiki.extension.repository.InstalledExtensionRepository;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link ExtensionInventory}.
+ */
+@ComponentTest
+class ExtensionInventoryTest
+{
+    @InjectMockComponents
+    private ExtensionInventory extensionInventory;
+
+    @MockComponent
+    private InstalledExtensionRepository installedExtensionRepository;
+
+    @Mock
+    private InstalledExtension rootExtension;
+
+    @Mock
+    private InstalledExtension wikiExtension;
+
+    @Mock
+    private InstalledExtension upgradedWikiExtension;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(rootExtension.getId()).thenReturn(new ExtensionId("org.xwiki:root", "1.0"));
+        when(wikiExtension.getId()).thenReturn(new ExtensionId("org.xwiki:wiki", "2.0"));
+        when(wikiExtension.getNamespaces()).thenReturn(List.of("wiki:xwiki", "wiki:wiki1"));
+        when(upgradedWikiExtension.getId()).thenReturn(new ExtensionId("org.xwiki:wiki", "2.1"));
+        when(upgradedWikiExtension.getNamespaces()).thenReturn(List.of("wiki:xwiki"));
+        when(installedExtensionRepository.getInstalledExtensions()).thenReturn(List.of(wikiExtension, rootExtension));
+    }
+
+    @Test
+    void getExtensions()
+    {
+        List<ExtensionInventoryEntry> extensions = List.copyOf(extensionInventory.getExtensions());
+
+        assertEquals(2, extensionInventory.getExtensionsCount());
+        assertEquals("org.xwiki:root", extensions.get(0).getId());
+        assertEquals(List.of("{root}"), extensions.get(0).getNamespaces());
+        assertEquals("2.0", extensions.get(1).getVersion());
+        assertEquals(List.of("wiki:xwiki", "wiki:wiki1"), extensions.get(1).getNamespaces());
+        verify(installedExtensionRepository, times(1)).getInstalledExtensions();
+    }
+
+    @Test
+    void getChanges()
+    {
+        assertTrue(extensionInventory.getChanges().isEmpty());
+
+        when(installedExtensionRepository.getInstalledExtensions()).thenReturn(
+            List.of(rootExtension, upgradedWikiExtension));
+        extensionInventory.invalidate();
+        ExtensionInventoryDiff changes = extensionInventory.getChanges();
+
+        assertEquals(1, changes.getAdded().size());
+        assertEquals("2.1", changes.getAdded().get(0).getVersion());
+        assertEquals(1, changes.getRemoved().size());
+        assertEquals("2.0", changes.getRemoved().get(0).getVersion());
+
+        extensionInventory.takeSnapshot();
+        assertTrue(extensionInventory.getChanges().isEmpty());
+    }
+
+    @Test
+    void invalidate()
+    {
+        extensionInventory.getExtensionsCount();
+        extensionInventory.invalidate();
+        when(installedExtensionRepository.getInstalledExtensions()).thenReturn(List.of(rootExtension));
+
+        assertEquals(1, extensionInventory.getExtensionsCount());
+        verify(installedExtensionRepository, times(2)).getInstalledExtensions();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.history;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.environment.Environment;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link UsageHistoryStore}.
+ */
+@ComponentTest
+class UsageHistoryStoreTest
+{
+    private static final String WIKI_ID = "wikiId";
+
+    @InjectMockComponents
+    private UsageHistoryStore usageHistoryStore;
+
+    @MockComponent
+    private Environment environment;
+
+    @XWikiTempDir
+    private File permanentDirectory;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(environment.getPermanentDirectory()).thenReturn(permanentDirectory);
+    }
+
+    @Test
+    void record() throws Exception
+    {
+        assertTrue(usageHistoryStore.record(WIKI_ID, new UsagePoint(100, 10, 1, 1000, 2)));
+        assertTrue(usageHistoryStore.record(WIKI_ID, new UsagePoint(101, 12, 2, 3000, 2)));
+        assertFalse(usageHistoryStore.record(WIKI_ID, new UsagePoint(101, 13, 2, 3000, 2)));
+
+        assertEquals(12, usageHistoryStore.getLast(WIKI_ID).getDocumentsCount());
+        assertTrue(Files.exists(
+            permanentDirectory.toPath().resolve("adminTools").resolve("usageHistory").resolve("wikiId.bin")));
+
+        // A new store reads the points written by the previous one.
+        UsageHistoryStore otherStore = new UsageHistoryStore();
+        ReflectionUtils.setFieldValue(otherStore, "environment", environment);
+        List<UsagePoint> points = otherStore.getRange(WIKI_ID, 0, 1000);
+        assertEquals(2, points.size());
+        assertEquals(3000, points.get(1).getAttachmentsSize());
+    }
+
+    @Test
+    void recordAfterTruncatedPoint() throws Exception
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.write(UsageSeries.FORMAT_VERSION);
+        UsagePoint first = new UsagePoint(100, 10, 1, 1000, 2);
+        UsageSeries.writePoint(outputStream, null, first);
+        UsageSeries.writePoint(outputStream, first, new UsagePoint(101, 5000, 2, 3000, 2));
+        byte[] bytes = outputStream.toByteArray();
+        Path file = permanentDirectory.toPath().resolve("adminTools").resolve("usageHistory").resolve("wikiId.bin");
+        Files.createDirectories(file.getParent());
+        // Simulate a write interrupted in the middle of the second point.
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertEquals(100, usageHistoryStore.getLast(WIKI_ID).getDay());
+        assertEquals("Truncated usage history for wiki [wikiId], keeping its first [1] points.",
+            logCapture.getMessage(0));
+        assertTrue(usageHistoryStore.record(WIKI_ID, new UsagePoint(102, 12, 2, 3000, 2)));
+
+        UsageHistoryStore otherStore = new UsageHistoryStore();
+        ReflectionUtils.setFieldValue(otherStore, "environment", environment);
+        List<UsagePoint> points = otherStore.getRange(WIKI_ID, 0, 1000);
+        assertEquals(2, points.size());
+        assertEquals(12, points.get(1).getDocumentsCount());
+    }
+
+    @Test
+    void getProjection() throws Exception
+    {
+        for (int day = 0; day < 10; day++) {
+            usageHistoryStore.record(WIKI_ID, new UsagePoint(day, 0, 0, 1000L + day * 500L, 0));
+            usageHistoryStore.record("otherWiki", new UsagePoint(day, 0, 0, 2000L + day * 100L, 0));
+        }
+
+        UsageProjection projection = usageHistoryStore.getProjection(List.of(WIKI_ID, "otherWiki", "emptyWiki"));
+
+        assertEquals(600, projection.getBytesPerDay(), 0.001);
+        assertEquals(permanentDirectory.getUsableSpace() / 600, projection.getDaysUntilFull(), 1);
+    }
+
+    @Test
+    void getProjectionNotGrowing() throws Exception
+    {
+        usageHistoryStore.record(WIKI_ID, new UsagePoint(1, 0, 0, 1000, 0));
+        usageHistoryStore.record(WIKI_ID, new UsagePoint(2, 0, 0, 500, 0));
+
+        assertEquals(-1, usageHistoryStore.getProjection(List.of(WIKI_ID)).getDaysUntilFull());
+    }
+
+    @Test
+    void delete() throws Exception
+    {
+        usageHistoryStore.record(WIKI_ID, new UsagePoint(100, 10, 1, 1000, 2));
+        usageHistoryStore.delete(WIKI_ID);
+
+        assertNull(usageHistoryStore.getLast(WIKI_ID));
+    }
+}
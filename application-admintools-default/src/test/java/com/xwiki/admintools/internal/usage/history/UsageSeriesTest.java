@@ -0,0 +1,114 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for {@link UsageSeries}.
+ */
+class UsageSeriesTest
+{
+    @Test
+    void roundTrip() throws IOException
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.write(UsageSeries.FORMAT_VERSION);
+        UsagePoint previous = null;
+        for (int i = 0; i < 100; i++) {
+            // The attachments size decreases sometimes, to check the negative differences.
+            UsagePoint point = new UsagePoint(19000 + i * 2, 1000 + i, 50 + i % 7, 5_000_000_000L + (i % 3) * -4096L,
+                20);
+            UsageSeries.writePoint(outputStream, previous, point);
+            previous = point;
+        }
+
+        UsageSeries series = UsageSeries.read(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        assertEquals(100, series.size());
+        assertEquals(19198, series.getLast().getDay());
+        assertEquals(1099, series.getLast().getDocumentsCount());
+        assertEquals(5_000_000_000L, series.get(0).getAttachmentsSize());
+        assertEquals(5_000_000_000L - 8192L, series.get(2).getAttachmentsSize());
+        assertEquals(50 + 99 % 7, series.getLast().getAttachmentsCount());
+        assertEquals(20, series.get(50).getUsersCount());
+        // Only the first point stores the full values, the others only store small differences.
+        assertTrue(outputStream.size() < 100 * 12);
+    }
+
+    @Test
+    void readEmpty() throws IOException
+    {
+        assertEquals(0, UsageSeries.read(new ByteArrayInputStream(new byte[0])).size());
+    }
+
+    @Test
+    void readUnknownFormat()
+    {
+        assertThrows(IOException.class, () -> UsageSeries.read(new ByteArrayInputStream(new byte[] { 42 })));
+    }
+
+    @Test
+    void readTruncated() throws IOException
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.write(UsageSeries.FORMAT_VERSION);
+        UsagePoint first = new UsagePoint(19000, 1, 2, 3, 4);
+        UsageSeries.writePoint(outputStream, null, first);
+        int completeLength = outputStream.size();
+        UsageSeries.writePoint(outputStream, first, new UsagePoint(19001, 1000, 2, 3, 4));
+        byte[] bytes = outputStream.toByteArray();
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        UsageSeries series = UsageSeries.read(new ByteArrayInputStream(truncated));
+
+        assertEquals(1, series.size());
+        assertEquals(19000, series.getLast().getDay());
+        assertEquals(completeLength, series.getStoredLength());
+    }
+
+    @Test
+    void getRange()
+    {
+        UsageSeries series = new UsageSeries();
+        for (int day = 10; day <= 100; day += 10) {
+            series.add(new UsagePoint(day, day, 0, 0, 0));
+        }
+
+        List<UsagePoint> range = series.getRange(25, 60);
+
+        assertEquals(4, range.size());
+        assertEquals(30, range.get(0).getDay());
+        assertEquals(60, range.get(3).getDay());
+        assertEquals(1, series.getRange(100, 200).size());
+        assertTrue(series.getRange(101, 200).isEmpty());
+        assertEquals(10, series.getRange(Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.history;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.query.QueryException;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.wiki.descriptor.WikiDescriptor;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+import com.xwiki.admintools.internal.usage.UsageDataProvider;
+import com.xwiki.admintools.internal.usage.wikiResult.WikiSizeResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link UsageSnapshotScheduler}.
+ */
+@ComponentTest
+class UsageSnapshotSchedulerTest
+{
+    @InjectMockComponents
+    private UsageSnapshotScheduler usageSnapshotScheduler;
+
+    @MockComponent
+    private UsageHistoryStore usageHistoryStore;
+
+    @MockComponent
+    private Provider<UsageDataProvider> usageDataProviderProvider;
+
+    @MockComponent
+    private Provider<WikiDescriptorManager> wikiDescriptorManagerProvider;
+
+    @Mock
+    private UsageDataProvider usageDataProvider;
+
+    @Mock
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @Mock
+    private WikiDescriptor wikiDescriptor;
+
+    @Mock
+    private WikiDescriptor recordedWikiDescriptor;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    private final long today = LocalDate.now().toEpochDay();
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(usageDataProviderProvider.get()).thenReturn(usageDataProvider);
+        when(wikiDescriptorManagerProvider.get()).thenReturn(wikiDescriptorManager);
+        when(wikiDescriptorManager.getAll()).thenReturn(List.of(wikiDescriptor, recordedWikiDescriptor));
+        when(wikiDescriptor.getId()).thenReturn("wiki1");
+        when(recordedWikiDescriptor.getId()).thenReturn("wiki2");
+        when(usageHistoryStore.getLast("wiki1")).thenReturn(new UsagePoint(today - 1, 0, 0, 0, 0));
+        when(usageHistoryStore.getLast("wiki2")).thenReturn(new UsagePoint(today, 0, 0, 0, 0));
+    }
+
+    @Test
+    void takeSnapshots() throws Exception
+    {
+        WikiSizeResult wikiSize = new WikiSizeResult();
+        wikiSize.setDocumentsCount(10L);
+        wikiSize.setAttachmentsCount(2L);
+        wikiSize.setUserCount(3L);
+        when(usageDataProvider.getWikiSize(wikiDescriptor)).thenReturn(wikiSize);
+
+        usageSnapshotScheduler.takeSnapshots();
+
+        ArgumentCaptor<UsagePoint> pointCaptor = ArgumentCaptor.forClass(UsagePoint.class);
+        verify(usageHistoryStore).record(eq("wiki1"), pointCaptor.capture());
+        assertEquals(today, pointCaptor.getValue().getDay());
+        assertEquals(10, pointCaptor.getValue().getDocumentsCount());
+        assertEquals(0, pointCaptor.getValue().getAttachmentsSize());
+        assertEquals(3, pointCaptor.getValue().getUsersCount());
+        verify(usageHistoryStore, never()).record(eq("wiki2"), any());
+    }
+
+    @Test
+    void takeSnapshotsError() throws Exception
+    {
+        when(usageDataProvider.getWikiSize(wikiDescriptor)).thenThrow(new QueryException("query error", null, null));
+
+        usageSnapshotScheduler.takeSnapshots();
+
+        verify(usageHistoryStore, never()).record(any(), any());
+        assertTrue(logCapture.getMessage(0).startsWith(
+            "Failed to record the usage snapshot of wiki [wiki1]. Root cause is: [QueryException: query error"));
+    }
+
+    @Test
+    void onEventWikiDeleted() throws Exception
+    {
+        usageSnapshotScheduler.onEvent(new WikiDeletedEvent("wiki1"), null, null);
+
+        verify(usageHistoryStore).delete("wiki1");
+    }
+}
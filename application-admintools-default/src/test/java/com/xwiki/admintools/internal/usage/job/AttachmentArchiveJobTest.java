@@ -0,0 +1,273 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.job;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.suigeneris.jrcs.rcs.Version;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentArchive;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xwiki.admintools.jobs.AttachmentArchiveJobRequest;
+import com.xwiki.admintools.jobs.AttachmentArchiveJobStatus;
+import com.xwiki.admintools.usage.AttachmentArchiveUsage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link AttachmentArchiveJob}.
+ */
+@ComponentTest
+class AttachmentArchiveJobTest
+{
+    private static final String WIKI_ID = "wiki1";
+
+    private static final WikiReference WIKI_REFERENCE = new WikiReference(WIKI_ID);
+
+    @InjectMockComponents
+    private AttachmentArchiveJob archiveJob;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @MockComponent
+    private Provider<XWikiContext> wikiContextProvider;
+
+    @Mock
+    private XWikiContext wikiContext;
+
+    @Mock
+    private XWiki wiki;
+
+    @Mock
+    private Query query;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach() throws QueryException
+    {
+        when(wikiContextProvider.get()).thenReturn(wikiContext);
+        when(wikiContext.getWikiId()).thenReturn("xwiki");
+        when(wikiContext.getWiki()).thenReturn(wiki);
+        when(queryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(query);
+        when(query.bindValue(anyString(), any())).thenReturn(query);
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(query.setWiki(anyString())).thenReturn(query);
+    }
+
+    @Test
+    void createNewStatus()
+    {
+        assertEquals(AttachmentArchiveJobStatus.class,
+            archiveJob.createNewStatus(new AttachmentArchiveJobRequest()).getClass());
+    }
+
+    @Test
+    void runInternal() throws Exception
+    {
+        List<Object> firstBatch = new ArrayList<>();
+        firstBatch.add(new Object[] { 1L, "Space.Page1" });
+        firstBatch.add(new Object[] { 2L, "Space.Page2" });
+        List<Object> firstAttachments = new ArrayList<>();
+        firstAttachments.add(new Object[] { 1L, "file1.txt", "1.3", 300L, 600L });
+        firstAttachments.add(new Object[] { 2L, "file2.txt", "1.1", 50L, 50L });
+        List<Object> secondBatch = new ArrayList<>();
+        secondBatch.add(new Object[] { 3L, "Space.Page3" });
+        List<Object> secondAttachments = new ArrayList<>();
+        secondAttachments.add(new Object[] { 3L, "file3.txt", "1.2", 20L, null });
+        when(query.execute()).thenReturn(firstBatch, firstAttachments, secondBatch, secondAttachments);
+        XWikiAttachment page3Attachment = mockStoredArchive("Page3", "file3.txt", 10L, 20L);
+
+        AttachmentArchiveJobRequest request = new AttachmentArchiveJobRequest(List.of(WIKI_ID), List.of("archive"));
+        request.setBatchSize(2);
+        request.setMaxRowsPerSecond(0);
+        request.setLargestDocumentsLimit(2);
+        archiveJob.initialize(request);
+        archiveJob.runInternal();
+        AttachmentArchiveJobStatus status = archiveJob.getStatus();
+
+        AttachmentArchiveUsage wikiUsage = status.getWikisUsage().get(WIKI_ID);
+        assertNull(wikiUsage.getDocumentName());
+        assertEquals(3, wikiUsage.getAttachmentsCount());
+        assertEquals(6, wikiUsage.getVersionsCount());
+        assertEquals(680, wikiUsage.getArchiveSize());
+        assertEquals(310, wikiUsage.getHistorySize());
+
+        List<AttachmentArchiveUsage> largestDocuments = status.getLargestDocuments(WIKI_ID);
+        assertEquals(2, largestDocuments.size());
+        assertEquals("Space.Page1", largestDocuments.get(0).getDocumentName());
+        assertEquals(300, largestDocuments.get(0).getHistorySize());
+        assertEquals("Space.Page3", largestDocuments.get(1).getDocumentName());
+        assertEquals(10, largestDocuments.get(1).getHistorySize());
+
+        assertEquals(2, status.getJobResults().size());
+        assertEquals("adminTools.jobs.attachmentArchive.wiki.success", status.getJobResults().get(0).getMessage());
+        assertEquals(List.of(WIKI_ID, 6L, 680L), status.getJobResults().get(0).getParameters());
+        assertEquals("adminTools.jobs.attachmentArchive.success", status.getJobResults().get(1).getMessage());
+        verify(query).bindValue("lastId", 2L);
+        verify(query).bindValue("ids", List.of(1L, 2L));
+        verify(query).bindValue("ids", List.of(3L));
+        verify(page3Attachment).setAttachment_archive(null);
+        verify(wiki, never()).getDocument(new DocumentReference(WIKI_ID, "Space", "Page1"), wikiContext);
+        verify(wikiContext).setWikiId(WIKI_ID);
+        verify(wikiContext).setWikiId("xwiki");
+    }
+
+    @Test
+    void runInternalWithoutArchiveLengthQuery() throws Exception
+    {
+        List<Object> firstBatch = new ArrayList<>();
+        firstBatch.add(new Object[] { 1L, "Space.Page1" });
+        List<Object> firstAttachments = new ArrayList<>();
+        firstAttachments.add(new Object[] { 1L, "file1.txt", "1.2", 20L });
+        List<Object> secondBatch = new ArrayList<>();
+        secondBatch.add(new Object[] { 2L, "Space.Page2" });
+        List<Object> secondAttachments = new ArrayList<>();
+        secondAttachments.add(new Object[] { 2L, "file2.txt", "1.1", 5L });
+        Query archiveLengthQuery = mock(Query.class);
+        when(queryManager.createQuery(contains("length(archive.archive)"), eq(Query.HQL))).thenReturn(
+            archiveLengthQuery);
+        when(archiveLengthQuery.bindValue(anyString(), any())).thenReturn(archiveLengthQuery);
+        when(archiveLengthQuery.setWiki(anyString())).thenReturn(archiveLengthQuery);
+        when(archiveLengthQuery.execute()).thenThrow(
+            new QueryException("Inconsistent datatypes", archiveLengthQuery, null));
+        when(query.execute()).thenReturn(firstBatch, firstAttachments, secondBatch, secondAttachments,
+            new ArrayList<>());
+        mockStoredArchive("Page1", "file1.txt", 10L, 20L);
+        mockStoredArchive("Page2", "file2.txt", 5L);
+
+        AttachmentArchiveJobRequest request = new AttachmentArchiveJobRequest(List.of(WIKI_ID), List.of("archive"));
+        request.setBatchSize(1);
+        request.setMaxRowsPerSecond(0);
+        archiveJob.initialize(request);
+        archiveJob.runInternal();
+        AttachmentArchiveJobStatus status = archiveJob.getStatus();
+
+        AttachmentArchiveUsage wikiUsage = status.getWikisUsage().get(WIKI_ID);
+        assertEquals(3, wikiUsage.getVersionsCount());
+        assertEquals(35, wikiUsage.getArchiveSize());
+        assertEquals(10, wikiUsage.getHistorySize());
+        assertEquals("adminTools.jobs.attachmentArchive.success", status.getJobResults().get(1).getMessage());
+        // The archive length query is not tried again once it failed.
+        verify(archiveLengthQuery).execute();
+        assertEquals("Failed to read the size of the attachment archives with a query, the archives will be loaded "
+            + "instead. Root cause is: [QueryException: Inconsistent datatypes. Query statement = [null]]",
+            logCapture.getMessage(0));
+    }
+
+    @Test
+    void runInternalWithError() throws Exception
+    {
+        List<Object> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, "Space.Page1" });
+        List<Object> attachments = new ArrayList<>();
+        attachments.add(new Object[] { 1L, "file1.txt", "1.1", 10L, null });
+        when(query.execute()).thenReturn(rows, attachments);
+        DocumentReference documentReference = new DocumentReference(WIKI_ID, "Space", "Page1");
+        when(documentReferenceResolver.resolve("Space.Page1", WIKI_REFERENCE)).thenReturn(documentReference);
+        when(wiki.getDocument(documentReference, wikiContext)).thenThrow(new XWikiException(0, 0, "Load error"));
+
+        archiveJob.initialize(new AttachmentArchiveJobRequest(List.of(WIKI_ID), List.of("archive")));
+        archiveJob.runInternal();
+        AttachmentArchiveJobStatus status = archiveJob.getStatus();
+
+        assertEquals("An error occurred while computing the attachment archives size.", logCapture.getMessage(0));
+        assertEquals(1, status.getJobResults().size());
+        assertEquals("adminTools.jobs.attachmentArchive.fail", status.getJobResults().get(0).getMessage());
+        assertNull(status.getWikisUsage().get(WIKI_ID));
+        verify(wikiContext).setWikiId("xwiki");
+    }
+
+    @Test
+    void runInternalCanceled() throws Exception
+    {
+        AttachmentArchiveJobRequest request = new AttachmentArchiveJobRequest(List.of(WIKI_ID), List.of("archive"));
+        archiveJob.initialize(request);
+        archiveJob.getStatus().cancel();
+        archiveJob.runInternal();
+
+        assertEquals("adminTools.jobs.attachmentArchive.canceled",
+            archiveJob.getStatus().getJobResults().get(0).getMessage());
+        verify(query, never()).execute();
+    }
+
+    /**
+     * Mock a document with an attachment kept by the filesystem store, whose last version is the current one.
+     */
+    private XWikiAttachment mockStoredArchive(String name, String filename, long... versionSizes)
+        throws XWikiException
+    {
+        DocumentReference documentReference = new DocumentReference(WIKI_ID, "Space", name);
+        when(documentReferenceResolver.resolve("Space." + name, WIKI_REFERENCE)).thenReturn(documentReference);
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(wiki.getDocument(documentReference, wikiContext)).thenReturn(document);
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(document.getAttachment(filename)).thenReturn(attachment);
+        XWikiAttachmentArchive archive = mock(XWikiAttachmentArchive.class);
+        when(attachment.loadArchive(wikiContext)).thenReturn(archive);
+        when(attachment.getVersion()).thenReturn("1." + versionSizes.length);
+        Version[] versions = new Version[versionSizes.length];
+        for (int i = 0; i < versionSizes.length; i++) {
+            versions[i] = new Version(1, i + 1);
+            XWikiAttachment revision = mock(XWikiAttachment.class);
+            when(revision.getLongSize()).thenReturn(versionSizes[i]);
+            when(archive.getRevision(attachment, "1." + (i + 1), wikiContext)).thenReturn(revision);
+        }
+        when(archive.getVersions()).thenReturn(versions);
+        return attachment;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.job;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.wiki.descriptor.WikiDescriptor;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+import com.xwiki.admintools.internal.usage.duplicates.AttachmentHashIndex;
+import com.xwiki.admintools.internal.usage.duplicates.AttachmentHasher;
+import com.xwiki.admintools.jobs.DuplicateAttachmentsJobRequest;
+import com.xwiki.admintools.jobs.DuplicateAttachmentsJobStatus;
+import com.xwiki.admintools.usage.DuplicateAttachmentGroup;
+import com.xwiki.admintools.usage.WikiDuplicateAttachments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link DuplicateAttachmentsJob}.
+ */
+@ComponentTest
+class DuplicateAttachmentsJobTest
+{
+    private static final String WIKI_ID = "wiki1";
+
+    private static final WikiReference WIKI_REFERENCE = new WikiReference(WIKI_ID);
+
+    @InjectMockComponents
+    private DuplicateAttachmentsJob duplicatesJob;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @MockComponent
+    private AttachmentHashIndex attachmentHashIndex;
+
+    @MockComponent
+    private AttachmentHasher attachmentHasher;
+
+    @MockComponent
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @Mock
+    private WikiDescriptor wikiDescriptor;
+
+    @Mock
+    private Query query;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(wikiDescriptor.getId()).thenReturn(WIKI_ID);
+        when(wikiDescriptorManager.getById(WIKI_ID)).thenReturn(wikiDescriptor);
+        when(queryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(query);
+        when(query.bindValue(anyString(), any())).thenReturn(query);
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(query.setWiki(WIKI_ID)).thenReturn(query);
+    }
+
+    @Test
+    void createNewStatus()
+    {
+        assertEquals(DuplicateAttachmentsJobStatus.class,
+            duplicatesJob.createNewStatus(new DuplicateAttachmentsJobRequest()).getClass());
+    }
+
+    @Test
+    void runInternal() throws Exception
+    {
+        DocumentReference page1 = new DocumentReference(WIKI_ID, "Space", "Page1");
+        DocumentReference page2 = new DocumentReference(WIKI_ID, "Space", "Page2");
+        when(documentReferenceResolver.resolve("Space.Page1", WIKI_REFERENCE)).thenReturn(page1);
+        when(documentReferenceResolver.resolve("Space.Page2", WIKI_REFERENCE)).thenReturn(page2);
+        List<Object> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, "Space.Page1", "file.pdf", 100L });
+        rows.add(new Object[] { 2L, "Space.Page2", "copy.pdf", 100L });
+        when(query.execute()).thenReturn(rows);
+        when(attachmentHasher.hashPendingAttachments(eq(WIKI_ID), anyInt(), any())).thenReturn(2L);
+        WikiDuplicateAttachments duplicates = new WikiDuplicateAttachments(WIKI_ID);
+        duplicates.addGroup(new DuplicateAttachmentGroup("hash", 100, List.of("file.pdf", "copy.pdf")));
+        when(attachmentHashIndex.getDuplicates(WIKI_ID, 0)).thenReturn(duplicates);
+
+        duplicatesJob.initialize(new DuplicateAttachmentsJobRequest(List.of(WIKI_ID, "missing"),
+            List.of("duplicates")));
+        duplicatesJob.runInternal();
+        DuplicateAttachmentsJobStatus status = duplicatesJob.getStatus();
+
+        verify(attachmentHashIndex).reset(WIKI_ID);
+        verify(attachmentHashIndex).put(new AttachmentReference("file.pdf", page1), 100L);
+        verify(attachmentHashIndex).put(new AttachmentReference("copy.pdf", page2), 100L);
+        verify(query).bindValue("lastId", Long.MIN_VALUE);
+        assertEquals(2, status.getJobResults().size());
+        assertEquals("adminTools.jobs.duplicateAttachments.wiki.success", status.getJobResults().get(0).getMessage());
+        assertEquals(List.of(WIKI_ID, 2L, 1L, 100L), status.getJobResults().get(0).getParameters());
+        assertEquals("adminTools.jobs.duplicateAttachments.success", status.getJobResults().get(1).getMessage());
+    }
+
+    @Test
+    void runInternalWithError() throws Exception
+    {
+        when(query.execute()).thenThrow(new QueryException("Query error", null, null));
+
+        duplicatesJob.initialize(new DuplicateAttachmentsJobRequest(List.of(WIKI_ID), List.of("duplicates")));
+        duplicatesJob.runInternal();
+        DuplicateAttachmentsJobStatus status = duplicatesJob.getStatus();
+
+        assertEquals("An error occurred while looking for duplicate attachments.", logCapture.getMessage(0));
+        assertEquals(1, status.getJobResults().size());
+        assertEquals("adminTools.jobs.duplicateAttachments.fail", status.getJobResults().get(0).getMessage());
+        // A partial index would report too few duplicates.
+        verify(attachmentHashIndex).remove(WIKI_ID);
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.job;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.SpaceReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xwiki.admintools.internal.usage.EmptyDocumentsProvider;
+import com.xwiki.admintools.internal.usage.SpamPagesProvider;
+import com.xwiki.admintools.jobs.PageCleanupJobRequest;
+import com.xwiki.admintools.jobs.PageCleanupJobStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link PageCleanupJob}.
+ */
+@ComponentTest
+class PageCleanupJobTest
+{
+    private static final List<String> FILTER_STATEMENTS = List.of("type:DOCUMENT", "wiki:wiki1");
+
+    @InjectMockComponents
+    private PageCleanupJob cleanupJob;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private EmptyDocumentsProvider emptyDocumentsProvider;
+
+    @MockComponent
+    private SpamPagesProvider spamPagesProvider;
+
+    @MockComponent
+    private DocumentReferenceResolver<SolrDocument> solrDocumentReferenceResolver;
+
+    @MockComponent
+    private SpaceReferenceResolver<String> spaceReferenceResolver;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @MockComponent
+    private Provider<XWikiContext> wikiContextProvider;
+
+    @Mock
+    private XWikiContext wikiContext;
+
+    @Mock
+    private XWiki wiki;
+
+    @Mock
+    private Query query;
+
+    @Mock
+    private SolrDocument solrDocument1;
+
+    @Mock
+    private SolrDocument solrDocument2;
+
+    @Mock
+    private SolrDocument solrDocument3;
+
+    @Mock
+    private XWikiDocument document1;
+
+    @Mock
+    private XWikiDocument document2;
+
+    private final DocumentReference reference1 = new DocumentReference("wiki1", List.of("A", "B"), "Page1");
+
+    private final DocumentReference reference2 = new DocumentReference("wiki1", "A", "Page2");
+
+    private final DocumentReference reference3 = new DocumentReference("wiki1", "C", "Page3");
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(wikiContextProvider.get()).thenReturn(wikiContext);
+        when(wikiContext.getWiki()).thenReturn(wiki);
+        when(wikiContext.getWikiId()).thenReturn("xwiki");
+        when(queryManager.createQuery("*", "solr")).thenReturn(query);
+        when(query.bindValue(anyString(), any())).thenReturn(query);
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(emptyDocumentsProvider.getFilterStatements(Map.of("wikiName", "wiki1"))).thenReturn(FILTER_STATEMENTS);
+        when(spamPagesProvider.getFilterStatements(20, Map.of("wikiName", "wiki1"))).thenReturn(FILTER_STATEMENTS);
+
+        when(solrDocument1.getFieldValue("id")).thenReturn("wiki1:A.B.Page1_");
+        when(solrDocument2.getFieldValue("id")).thenReturn("wiki1:A.Page2_");
+        when(solrDocument3.getFieldValue("id")).thenReturn("wiki1:C.Page3_");
+        when(solrDocumentReferenceResolver.resolve(solrDocument1)).thenReturn(reference1);
+        when(solrDocumentReferenceResolver.resolve(solrDocument2)).thenReturn(reference2);
+        when(solrDocumentReferenceResolver.resolve(solrDocument3)).thenReturn(reference3);
+        when(entityReferenceSerializer.serialize(reference1)).thenReturn("wiki1:A.B.Page1");
+        when(entityReferenceSerializer.serialize(reference2)).thenReturn("wiki1:A.Page2");
+        when(entityReferenceSerializer.serialize(reference3)).thenReturn("wiki1:C.Page3");
+        when(wiki.getDocument(reference1, wikiContext)).thenReturn(document1);
+        when(wiki.getDocument(reference2, wikiContext)).thenReturn(document2);
+    }
+
+    @Test
+    void createNewStatus()
+    {
+        assertEquals(PageCleanupJobStatus.class, cleanupJob.createNewStatus(new PageCleanupJobRequest()).getClass());
+    }
+
+    @Test
+    void runInternalDryRun() throws Exception
+    {
+        when(query.execute()).thenReturn(List.of(response(3, "c1", solrDocument1, solrDocument2)),
+            List.of(response(3, "c2", solrDocument3)), List.of(response(3, "c2")));
+        PageCleanupJobRequest request = createRequest(PageCleanupJobRequest.SPAMMED_PAGES_REPORT);
+        request.setMinComments(20);
+        request.setDryRun(true);
+
+        cleanupJob.initialize(request);
+        cleanupJob.runInternal();
+        PageCleanupJobStatus status = cleanupJob.getStatus();
+
+        assertEquals(3, status.getMatchedPages());
+        assertEquals(3, status.getProcessedPages());
+        assertEquals(List.of("wiki1:A.B.Page1", "wiki1:A.Page2", "wiki1:C.Page3"), status.getSamples());
+        assertEquals("wiki1:C.Page3_", status.getCheckpoint());
+        assertEquals("adminTools.jobs.pageCleanup.dryRun.success", status.getJobResults().get(0).getMessage());
+        verify(query).bindValue("fq", FILTER_STATEMENTS);
+        verify(query).bindValue("cursorMark", "*");
+        verify(query).bindValue("cursorMark", "c1");
+        verify(query).bindValue("sort", "id asc");
+        verify(wiki, never()).deleteDocument(any(XWikiDocument.class), anyBoolean(), any(XWikiContext.class));
+    }
+
+    @Test
+    void runInternalDeleteFromCheckpoint() throws Exception
+    {
+        when(query.execute()).thenReturn(List.of(response(2, "c2", solrDocument1, solrDocument2)),
+            List.of(response(2, "c2")));
+        doThrow(new XWikiException(0, 0, "Delete error")).when(wiki).deleteDocument(document2, true, wikiContext);
+        PageCleanupJobRequest request = createRequest(PageCleanupJobRequest.EMPTY_PAGES_REPORT);
+        request.setCheckpoint("wiki1:A.Page0_");
+
+        cleanupJob.initialize(request);
+        cleanupJob.runInternal();
+        PageCleanupJobStatus status = cleanupJob.getStatus();
+
+        assertEquals(2, status.getMatchedPages());
+        assertEquals(1, status.getProcessedPages());
+        assertEquals(1, status.getFailedPages());
+        assertEquals("adminTools.jobs.pageCleanup.success", status.getJobResults().get(0).getMessage());
+        assertTrue(logCapture.getMessage(0).startsWith("Failed to clean up page [wiki1:A.Page2]."));
+        verify(query).bindValue("fq", List.of("type:DOCUMENT", "wiki:wiki1", "id:{wiki1\\:A.Page0_ TO *]"));
+        verify(query).bindValue("cursorMark", "*");
+        verify(wiki).deleteDocument(document1, true, wikiContext);
+        verify(wikiContext).setWikiId("wiki1");
+        verify(wikiContext).setWikiId("xwiki");
+    }
+
+    @Test
+    void runInternalCanceledKeepsCheckpoint() throws Exception
+    {
+        when(query.execute()).thenReturn(List.of(response(4, "c1", solrDocument1, solrDocument2)),
+            List.of(response(4, "c2", solrDocument3, solrDocument1)));
+        PageCleanupJobRequest request = createRequest(PageCleanupJobRequest.EMPTY_PAGES_REPORT);
+        request.setDryRun(true);
+        cleanupJob.initialize(request);
+        // Cancel the job in the middle of the second batch.
+        when(entityReferenceSerializer.serialize(reference3)).then(invocation -> {
+            cleanupJob.getStatus().cancel();
+            return "wiki1:C.Page3";
+        });
+
+        cleanupJob.runInternal();
+        PageCleanupJobStatus status = cleanupJob.getStatus();
+
+        assertEquals(3, status.getProcessedPages());
+        assertEquals("wiki1:A.Page2_", status.getCheckpoint());
+        assertEquals("adminTools.jobs.pageCleanup.canceled", status.getJobResults().get(0).getMessage());
+    }
+
+    @Test
+    void runInternalMove() throws Exception
+    {
+        when(query.execute()).thenReturn(List.of(response(1, "c1", solrDocument1)), List.of(response(1, "c1")));
+        SpaceReference quarantine = new SpaceReference("Quarantine", new WikiReference("wiki1"));
+        when(spaceReferenceResolver.resolve("Quarantine", new WikiReference("wiki1"))).thenReturn(quarantine);
+        when(localEntityReferenceSerializer.serialize(quarantine)).thenReturn("Quarantine");
+        PageCleanupJobRequest request = createRequest(PageCleanupJobRequest.EMPTY_PAGES_REPORT);
+        request.setTargetSpace("Quarantine");
+
+        cleanupJob.initialize(request);
+        cleanupJob.runInternal();
+
+        assertEquals(1, cleanupJob.getStatus().getProcessedPages());
+        verify(wiki).renameDocument(reference1,
+            new DocumentReference("wiki1", List.of("Quarantine", "A", "B"), "Page1"), false, List.of(), List.of(),
+            wikiContext);
+    }
+
+    @Test
+    void runInternalMoveExcludesTargetSpace() throws Exception
+    {
+        // The target space sorts after the matched pages, so the moved pages would otherwise be returned again by the
+        // cursor once they are indexed under their new id.
+        when(query.execute()).thenReturn(List.of(response(3, "c1", solrDocument1, solrDocument2)),
+            List.of(response(3, "c2", solrDocument3)), List.of(response(3, "c2")));
+        SpaceReference target = new SpaceReference("wiki1", List.of("Z Archive", "Spam"));
+        when(spaceReferenceResolver.resolve("Z Archive.Spam", new WikiReference("wiki1"))).thenReturn(target);
+        when(localEntityReferenceSerializer.serialize(target)).thenReturn("Z Archive.Spam");
+        PageCleanupJobRequest request = createRequest(PageCleanupJobRequest.EMPTY_PAGES_REPORT);
+        request.setTargetSpace("Z Archive.Spam");
+
+        cleanupJob.initialize(request);
+        cleanupJob.runInternal();
+        PageCleanupJobStatus status = cleanupJob.getStatus();
+
+        assertEquals(3, status.getMatchedPages());
+        assertEquals(3, status.getProcessedPages());
+        verify(query).bindValue("fq", List.of("type:DOCUMENT", "wiki:wiki1", "-space_prefix:Z\\ Archive.Spam"));
+        verify(wiki).renameDocument(reference3,
+            new DocumentReference("wiki1", List.of("Z Archive", "Spam", "C"), "Page3"), false, List.of(), List.of(),
+            wikiContext);
+    }
+
+    @Test
+    void runInternalUnknownReport()
+    {
+        cleanupJob.initialize(createRequest("unknown"));
+        cleanupJob.runInternal();
+        PageCleanupJobStatus status = cleanupJob.getStatus();
+
+        assertEquals("An error occurred while cleaning up the pages.", logCapture.getMessage(0));
+        assertEquals("adminTools.jobs.pageCleanup.fail", status.getJobResults().get(0).getMessage());
+    }
+
+    private PageCleanupJobRequest createRequest(String report)
+    {
+        PageCleanupJobRequest request = new PageCleanupJobRequest(report, "wiki1", List.of("cleanup"));
+        request.setBatchSize(2);
+        request.setMaxRowsPerSecond(0);
+        return request;
+    }
+
+    private QueryResponse response(long numFound, String nextCursorMark, SolrDocument... documents)
+    {
+        SolrDocumentList results = new SolrDocumentList();
+        results.addAll(List.of(documents));
+        results.setNumFound(numFound);
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(results);
+        when(response.getNextCursorMark()).thenReturn(nextCursorMark);
+        return response;
+    }
+}
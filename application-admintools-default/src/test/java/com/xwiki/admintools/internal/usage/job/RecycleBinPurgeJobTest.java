@@ -0,0 +1,175 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.job;
+
+import java.util.List;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.store.AttachmentRecycleBinStore;
+import com.xpn.xwiki.store.XWikiHibernateBaseStore;
+import com.xpn.xwiki.store.XWikiHibernateStore;
+import com.xpn.xwiki.store.XWikiRecycleBinStoreInterface;
+import com.xwiki.admintools.jobs.RecycleBinPurgeJobRequest;
+import com.xwiki.admintools.jobs.RecycleBinPurgeJobStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link RecycleBinPurgeJob}.
+ */
+@ComponentTest
+class RecycleBinPurgeJobTest
+{
+    @InjectMockComponents
+    private RecycleBinPurgeJob purgeJob;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private Provider<XWikiContext> wikiContextProvider;
+
+    @Mock
+    private XWikiContext wikiContext;
+
+    @Mock
+    private XWiki wiki;
+
+    @Mock
+    private XWikiHibernateStore hibernateStore;
+
+    @Mock
+    private XWikiRecycleBinStoreInterface recycleBinStore;
+
+    @Mock
+    private AttachmentRecycleBinStore attachmentRecycleBinStore;
+
+    @Mock
+    private Query documentsQuery;
+
+    @Mock
+    private Query attachmentsQuery;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(wikiContextProvider.get()).thenReturn(wikiContext);
+        when(wikiContext.getWikiId()).thenReturn("xwiki");
+        when(wikiContext.getWiki()).thenReturn(wiki);
+        when(wiki.getHibernateStore()).thenReturn(hibernateStore);
+        when(wiki.getRecycleBinStore()).thenReturn(recycleBinStore);
+        when(wiki.getAttachmentRecycleBinStore()).thenReturn(attachmentRecycleBinStore);
+        when(hibernateStore.executeWrite(eq(wikiContext), any())).thenAnswer(
+            invocation -> invocation.<XWikiHibernateBaseStore.HibernateCallback<?>>getArgument(1).doInHibernate(null));
+
+        mockQuery(documentsQuery, "XWikiDeletedDocument");
+        mockQuery(attachmentsQuery, "DeletedAttachment");
+    }
+
+    @Test
+    void createNewStatus()
+    {
+        assertEquals(RecycleBinPurgeJobStatus.class,
+            purgeJob.createNewStatus(new RecycleBinPurgeJobRequest()).getClass());
+    }
+
+    @Test
+    void runInternal() throws Exception
+    {
+        when(documentsQuery.execute()).thenReturn(List.of(1L, 2L), List.of(3L));
+        when(attachmentsQuery.execute()).thenReturn(List.of());
+        RecycleBinPurgeJobRequest request = new RecycleBinPurgeJobRequest(List.of("wiki1"), 30, List.of("purge"));
+        request.setBatchSize(2);
+        request.setMaxRowsPerSecond(0);
+
+        purgeJob.initialize(request);
+        purgeJob.runInternal();
+        RecycleBinPurgeJobStatus status = purgeJob.getStatus();
+
+        assertEquals(3, status.getDeletedDocuments());
+        assertEquals(0, status.getDeletedAttachments());
+        assertEquals(2, status.getJobResults().size());
+        assertEquals("adminTools.jobs.recycleBinPurge.wiki.success", status.getJobResults().get(0).getMessage());
+        assertEquals(List.of("wiki1", 3L, 0L), status.getJobResults().get(0).getParameters());
+        assertEquals("adminTools.jobs.recycleBinPurge.success", status.getJobResults().get(1).getMessage());
+        verify(recycleBinStore).deleteFromRecycleBin(1L, wikiContext, false);
+        verify(recycleBinStore).deleteFromRecycleBin(3L, wikiContext, false);
+        verify(documentsQuery).bindValue("lastId", 2L);
+        verify(attachmentRecycleBinStore, never()).deleteFromRecycleBin(anyLong(), any(), eq(false));
+        verify(wikiContext).setWikiId("wiki1");
+        verify(wikiContext).setWikiId("xwiki");
+    }
+
+    @Test
+    void runInternalWithError() throws Exception
+    {
+        when(documentsQuery.execute()).thenReturn(List.of(1L));
+        when(hibernateStore.executeWrite(eq(wikiContext), any())).thenThrow(
+            new XWikiException(0, 0, "Delete error"));
+        RecycleBinPurgeJobRequest request = new RecycleBinPurgeJobRequest(List.of("wiki1"), 30, List.of("purge"));
+
+        purgeJob.initialize(request);
+        purgeJob.runInternal();
+        RecycleBinPurgeJobStatus status = purgeJob.getStatus();
+
+        assertEquals("An error occurred while purging the recycle bins.", logCapture.getMessage(0));
+        assertEquals(1, status.getJobResults().size());
+        assertEquals("adminTools.jobs.recycleBinPurge.fail", status.getJobResults().get(0).getMessage());
+        assertEquals(0, status.getDeletedDocuments());
+        verify(wikiContext).setWikiId("xwiki");
+    }
+
+    private void mockQuery(Query query, String table) throws QueryException
+    {
+        when(queryManager.createQuery(contains("from " + table + " as"), eq(Query.HQL))).thenReturn(query);
+        when(query.bindValue(anyString(), any())).thenReturn(query);
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(query.setWiki(anyString())).thenReturn(query);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.job;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.xwiki.query.QueryException;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.wiki.descriptor.WikiDescriptor;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+import com.xwiki.admintools.internal.jobs.BatchThrottler;
+import com.xwiki.admintools.internal.usage.RevisionStatisticsProvider;
+import com.xwiki.admintools.jobs.RevisionStatisticsJobRequest;
+import com.xwiki.admintools.jobs.RevisionStatisticsJobStatus;
+import com.xwiki.admintools.usage.DocumentRevisionUsage;
+import com.xwiki.admintools.usage.WikiRevisionUsage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link RevisionStatisticsJob}.
+ */
+@ComponentTest
+class RevisionStatisticsJobTest
+{
+    @InjectMockComponents
+    private RevisionStatisticsJob statisticsJob;
+
+    @MockComponent
+    private RevisionStatisticsProvider revisionStatisticsProvider;
+
+    @MockComponent
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @Mock
+    private WikiDescriptor wikiDescriptor1;
+
+    @Mock
+    private WikiDescriptor wikiDescriptor2;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(wikiDescriptor1.getId()).thenReturn("wiki1");
+        when(wikiDescriptor2.getId()).thenReturn("wiki2");
+        when(wikiDescriptorManager.getById("wiki1")).thenReturn(wikiDescriptor1);
+        when(wikiDescriptorManager.getById("wiki2")).thenReturn(wikiDescriptor2);
+    }
+
+    @Test
+    void createNewStatus()
+    {
+        assertEquals(RevisionStatisticsJobStatus.class,
+            statisticsJob.createNewStatus(new RevisionStatisticsJobRequest()).getClass());
+    }
+
+    @Test
+    void runInternal() throws Exception
+    {
+        WikiRevisionUsage wiki1Usage = new WikiRevisionUsage("wiki1");
+        wiki1Usage.addDocument(10, 1000);
+        wiki1Usage.setLargestDocuments(List.of(new DocumentRevisionUsage("wiki1", 1L, 10, 1000)));
+        WikiRevisionUsage wiki2Usage = new WikiRevisionUsage("wiki2");
+        wiki2Usage.addDocument(3, 300);
+        wiki2Usage.addDocument(20, 2000);
+        wiki2Usage.setLargestDocuments(List.of(new DocumentRevisionUsage("wiki2", 2L, 20, 2000),
+            new DocumentRevisionUsage("wiki2", 3L, 3, 300)));
+        when(revisionStatisticsProvider.getWikiRevisionUsage(eq("wiki1"), anyInt(), anyInt(), any(), any()))
+            .thenReturn(wiki1Usage);
+        when(revisionStatisticsProvider.getWikiRevisionUsage(eq("wiki2"), anyInt(), anyInt(), any(), any()))
+            .thenReturn(wiki2Usage);
+
+        RevisionStatisticsJobRequest request =
+            new RevisionStatisticsJobRequest(List.of("wiki1", "wiki2", "missing"), List.of("revisions"));
+        request.setLargestDocumentsLimit(2);
+        statisticsJob.initialize(request);
+        statisticsJob.runInternal();
+        RevisionStatisticsJobStatus status = statisticsJob.getStatus();
+
+        assertEquals(2, status.getWikisUsage().size());
+        assertEquals(2300, status.getWikisUsage().get("wiki2").getRevisionsSize());
+        List<DocumentRevisionUsage> largestDocuments = status.getLargestDocuments();
+        assertEquals(2, largestDocuments.size());
+        assertEquals(2L, largestDocuments.get(0).getDocumentId());
+        assertEquals(1L, largestDocuments.get(1).getDocumentId());
+        assertEquals(3, status.getJobResults().size());
+        assertEquals("adminTools.jobs.revisionStatistics.wiki.success", status.getJobResults().get(0).getMessage());
+        assertEquals(List.of("wiki1", 10L, 1000L), status.getJobResults().get(0).getParameters());
+        assertEquals("adminTools.jobs.revisionStatistics.success", status.getJobResults().get(2).getMessage());
+    }
+
+    @Test
+    void runInternalInParallel() throws Exception
+    {
+        // Each wiki analysis waits for the other one to start, so the job ends only if they run in parallel.
+        CountDownLatch started = new CountDownLatch(2);
+        when(revisionStatisticsProvider.getWikiRevisionUsage(any(), anyInt(), anyInt(), any(), any())).then(
+            invocation -> {
+                started.countDown();
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+                return new WikiRevisionUsage(invocation.getArgument(0));
+            });
+
+        RevisionStatisticsJobRequest request =
+            new RevisionStatisticsJobRequest(List.of("wiki1", "wiki2"), List.of("revisions"));
+        request.setParallelism(2);
+        statisticsJob.initialize(request);
+        statisticsJob.runInternal();
+        RevisionStatisticsJobStatus status = statisticsJob.getStatus();
+
+        assertEquals(2, status.getWikisUsage().size());
+        assertEquals("adminTools.jobs.revisionStatistics.wiki.success", status.getJobResults().get(0).getMessage());
+        assertEquals("wiki1", status.getJobResults().get(0).getParameters().get(0));
+        assertEquals("wiki2", status.getJobResults().get(1).getParameters().get(0));
+        ArgumentCaptor<BatchThrottler> throttler1 = ArgumentCaptor.forClass(BatchThrottler.class);
+        ArgumentCaptor<BatchThrottler> throttler2 = ArgumentCaptor.forClass(BatchThrottler.class);
+        verify(revisionStatisticsProvider).getWikiRevisionUsage(eq("wiki1"), anyInt(), anyInt(),
+            throttler1.capture(), any());
+        verify(revisionStatisticsProvider).getWikiRevisionUsage(eq("wiki2"), anyInt(), anyInt(),
+            throttler2.capture(), any());
+        assertNotSame(throttler1.getValue(), throttler2.getValue());
+    }
+
+    @Test
+    void runInternalWithError() throws Exception
+    {
+        when(revisionStatisticsProvider.getWikiRevisionUsage(eq("wiki1"), anyInt(), anyInt(), any(), any()))
+            .thenThrow(new QueryException("Query error", null, null));
+
+        statisticsJob.initialize(new RevisionStatisticsJobRequest(List.of("wiki1"), List.of("revisions")));
+        statisticsJob.runInternal();
+        RevisionStatisticsJobStatus status = statisticsJob.getStatus();
+
+        assertEquals("An error occurred while computing the revision statistics.", logCapture.getMessage(0));
+        assertEquals(1, status.getJobResults().size());
+        assertEquals("adminTools.jobs.revisionStatistics.fail", status.getJobResults().get(0).getMessage());
+        assertTrue(status.getWikisUsage().isEmpty());
+    }
+}
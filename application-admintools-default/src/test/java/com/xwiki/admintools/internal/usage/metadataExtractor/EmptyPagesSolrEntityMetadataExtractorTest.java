@@ -21,6 +21,8 @@ package com.xwiki.admintools.internal.usage.metadataExtractor;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
 
 import org.apache.solr.common.SolrInputDocument;
 import org.junit.jupiter.api.BeforeEach;
@@ -35,10 +37,13 @@ import org.xwiki.test.junit5.LogCaptureExtension;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 
+import com.xpn.xwiki.doc.XWikiAttachment;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.classes.BaseClass;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,6 +59,15 @@ class EmptyPagesSolrEntityMetadataExtractorTest
     @Mock
     private XWikiDocument entity2;
 
+    @Mock
+    private XWikiDocument entity3;
+
+    @Mock
+    private BaseClass emptyClass;
+
+    @Mock
+    private BaseClass xClass;
+
     @Mock
     private SolrInputDocument solrDocument;
 
@@ -69,12 +83,14 @@ class EmptyPagesSolrEntityMetadataExtractorTest
         when(entity.getXObjects()).thenReturn(new HashMap<>());
         when(entity.getAttachmentList()).thenReturn(new ArrayList<>());
         when(entity.getContent()).thenReturn("     ");
-        when(entity.getXClassXML()).thenReturn("");
+        when(entity.getXClass()).thenReturn(emptyClass);
+        when(emptyClass.getPropertyList()).thenReturn(Set.of());
 
         when(entity2.getXObjects()).thenReturn(new HashMap<>());
         when(entity2.getAttachmentList()).thenReturn(new ArrayList<>());
         when(entity2.getContent()).thenReturn("");
-        when(entity2.getXClassXML()).thenReturn("this is a class");
+        when(entity2.getXClass()).thenReturn(xClass);
+        when(xClass.getPropertyList()).thenReturn(Set.of("property"));
     }
 
     @Test
@@ -87,6 +103,20 @@ class EmptyPagesSolrEntityMetadataExtractorTest
         verify(solrDocument2, Mockito.times(1)).setField("AdminTools.DocumentContentEmpty_boolean", false);
     }
 
+    @Test
+    void extractStopsAtFirstNonEmptyElement()
+    {
+        when(entity3.getAttachmentList()).thenReturn(List.of(new XWikiAttachment()));
+
+        emptyPagesSolrEntityMetadataExtractor.extract(entity3, solrDocument);
+
+        verify(solrDocument).setField("AdminTools.DocumentContentEmpty_boolean", false);
+        verify(entity3, never()).getXObjects();
+        verify(entity3, never()).getContent();
+        verify(entity3, never()).getXClass();
+        verify(entity3, never()).getXClassXML();
+    }
+
     @Test
     void extractError()
     {
@@ -0,0 +1,121 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xwiki.admintools.internal.usage.metadataExtractor;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.BaseProperty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link RightsSolrEntityMetadataExtractor}.
+ */
+@ComponentTest
+class RightsSolrEntityMetadataExtractorTest
+{
+    private static final LocalDocumentReference RIGHTS_CLASS = new LocalDocumentReference("XWiki", "XWikiRights");
+
+    private static final LocalDocumentReference GLOBAL_RIGHTS_CLASS =
+        new LocalDocumentReference("XWiki", "XWikiGlobalRights");
+
+    @InjectMockComponents
+    private RightsSolrEntityMetadataExtractor rightsSolrEntityMetadataExtractor;
+
+    @Mock
+    private XWikiDocument entity;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.ERROR);
+
+    @Test
+    void extract()
+    {
+        BaseObject pageRights = mockRightsObject("XWiki.Admin,XWiki.Editor", "", "view,edit", "1");
+        BaseObject spaceRights = mockRightsObject(null, "XWiki.XWikiAllGroup", "comment", "0");
+        when(entity.getXObjects(RIGHTS_CLASS)).thenReturn(Arrays.asList(null, pageRights));
+        when(entity.getXObjects(GLOBAL_RIGHTS_CLASS)).thenReturn(List.of(spaceRights));
+        SolrInputDocument solrDocument = new SolrInputDocument();
+
+        rightsSolrEntityMetadataExtractor.extract(entity, solrDocument);
+
+        assertEquals(List.of("{\"users\":\"XWiki.Admin,XWiki.Editor\",\"groups\":\"\",\"levels\":\"view,edit\","
+            + "\"allow\":\"1\"}"), solrDocument.getFieldValues("AdminTools.Rights_string"));
+        assertEquals(List.of("{\"users\":\"\",\"groups\":\"XWiki.XWikiAllGroup\",\"levels\":\"comment\","
+            + "\"allow\":\"0\"}"), solrDocument.getFieldValues("AdminTools.GlobalRights_string"));
+        assertEquals(2, solrDocument.getFieldNames().size());
+    }
+
+    @Test
+    void extractWithoutRights()
+    {
+        SolrInputDocument solrDocument = new SolrInputDocument();
+
+        rightsSolrEntityMetadataExtractor.extract(entity, solrDocument);
+
+        assertNull(solrDocument.getFieldValues("AdminTools.Rights_string"));
+        assertNull(solrDocument.getFieldValues("AdminTools.GlobalRights_string"));
+    }
+
+    @Test
+    void extractError()
+    {
+        when(entity.getXObjects(RIGHTS_CLASS)).thenThrow(new RuntimeException("extract error"));
+
+        rightsSolrEntityMetadataExtractor.extract(entity, new SolrInputDocument());
+
+        assertEquals("Failed to index the right for document [null]", logCapture.getMessage(0));
+    }
+
+    private BaseObject mockRightsObject(String users, String groups, String levels, String allow)
+    {
+        BaseObject rightsObject = mock(BaseObject.class);
+        mockProperty(rightsObject, "users", users);
+        mockProperty(rightsObject, "groups", groups);
+        mockProperty(rightsObject, "levels", levels);
+        mockProperty(rightsObject, "allow", allow);
+        return rightsObject;
+    }
+
+    private void mockProperty(BaseObject rightsObject, String propertyName, String value)
+    {
+        if (value != null) {
+            BaseProperty property = mock(BaseProperty.class);
+            when(property.toFormString()).thenReturn(value);
+            when(rightsObject.get(propertyName)).thenReturn(property);
+        }
+    }
+}
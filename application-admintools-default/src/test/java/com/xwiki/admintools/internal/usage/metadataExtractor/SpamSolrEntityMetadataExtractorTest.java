@@ -19,7 +19,10 @@
  */
 package com.xwiki.admintools.internal.usage.metadataExtractor;
 
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.solr.common.SolrInputDocument;
 import org.junit.jupiter.api.BeforeEach;
@@ -61,6 +64,9 @@ public class SpamSolrEntityMetadataExtractorTest
     @Mock
     private BaseObject baseObject;
 
+    @Mock
+    private BaseObject guestComment;
+
     @BeforeEach
     void beforeEach()
     {
@@ -76,6 +82,28 @@ public class SpamSolrEntityMetadataExtractorTest
         verify(solrDocument, Mockito.times(1)).setField("AdminTools.NumberOfComments_sortInt", 1);
     }
 
+    @Test
+    void extractCommentsFeatures()
+    {
+        long now = System.currentTimeMillis();
+        Date latestDate = new Date(now - TimeUnit.HOURS.toMillis(2));
+        when(baseObject.getDateValue("date")).thenReturn(latestDate);
+        when(baseObject.getStringValue("author")).thenReturn("XWiki.Spammer");
+        when(baseObject.getLargeStringValue("comment")).thenReturn("Visit https://spam.com and http://spam.org");
+        when(guestComment.getDateValue("date")).thenReturn(new Date(now - TimeUnit.DAYS.toMillis(3)));
+        when(guestComment.getStringValue("author")).thenReturn("XWiki.XWikiGuest");
+        when(guestComment.getLargeStringValue("comment")).thenReturn("Nice page");
+        when(entity.getXObjects(COMMENTSCLASS_REFERENCE)).thenReturn(Arrays.asList(baseObject, null, guestComment));
+
+        spamSolrEntityMetadataExtractor.extract(entity, solrDocument);
+
+        verify(solrDocument).setField("AdminTools.NumberOfComments_sortInt", 2);
+        verify(solrDocument).setField("AdminTools.LatestCommentDate_sortDate", latestDate);
+        verify(solrDocument).setField("AdminTools.CommentAuthors_sortInt", 1);
+        verify(solrDocument).setField("AdminTools.CommentLinkDensity_sortFloat", 1F);
+        verify(solrDocument).setField("AdminTools.GuestCommentsRatio_sortFloat", 0.5F);
+    }
+
     @Test
     void extractError()
     {